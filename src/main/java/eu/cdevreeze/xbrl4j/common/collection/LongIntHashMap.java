@@ -0,0 +1,202 @@
+/*
+ * Copyright 2024-2024 Chris de Vreeze
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package eu.cdevreeze.xbrl4j.common.collection;
+
+import com.google.common.base.Preconditions;
+
+import java.util.Arrays;
+
+/**
+ * Immutable hash map from primitive long keys to primitive int values, using open addressing with linear probing.
+ * Lookups do not allocate any objects. Instances are created through a {@link Builder}.
+ * <p>
+ * This class is immutable and thread-safe.
+ *
+ * @author Chris de Vreeze
+ */
+public final class LongIntHashMap {
+
+    private static final long EMPTY_KEY = Long.MIN_VALUE;
+
+    private final long[] keys;
+    private final int[] values;
+    private final int size;
+
+    private LongIntHashMap(long[] keys, int[] values, int size) {
+        this.keys = keys;
+        this.values = values;
+        this.size = size;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean containsKey(long key) {
+        return indexOf(keys, key) >= 0;
+    }
+
+    /**
+     * Returns the value mapped to the given key, or the given default value if there is no such mapping.
+     */
+    public int get(long key, int defaultValue) {
+        int idx = indexOf(keys, key);
+        return (idx < 0) ? defaultValue : values[idx];
+    }
+
+    public static LongIntHashMap empty() {
+        return new Builder().build();
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * Mutable builder of LongIntHashMap instances. Not thread-safe.
+     */
+    public static final class Builder {
+
+        private long[] keys;
+        private int[] values;
+        private int size;
+
+        public Builder() {
+            this(16);
+        }
+
+        public Builder(int expectedSize) {
+            int capacity = tableSizeFor(expectedSize);
+            this.keys = newKeyArray(capacity);
+            this.values = new int[capacity];
+            this.size = 0;
+        }
+
+        public int size() {
+            return size;
+        }
+
+        public boolean containsKey(long key) {
+            return indexOf(keys, key) >= 0;
+        }
+
+        public int get(long key, int defaultValue) {
+            int idx = indexOf(keys, key);
+            return (idx < 0) ? defaultValue : values[idx];
+        }
+
+        /**
+         * Adds the mapping, replacing any previous mapping for the same key. Returns this builder.
+         */
+        public Builder put(long key, int value) {
+            Preconditions.checkArgument(key != EMPTY_KEY, "Long.MIN_VALUE is not allowed as key");
+
+            if (2 * (size + 1) > keys.length) {
+                rehash(keys.length * 2);
+            }
+            if (insert(keys, values, key, value)) {
+                size += 1;
+            }
+            return this;
+        }
+
+        /**
+         * Adds the mapping only if there is no mapping for the given key yet. Returns true if the mapping was added.
+         */
+        public boolean putIfAbsent(long key, int value) {
+            if (containsKey(key)) {
+                return false;
+            } else {
+                put(key, value);
+                return true;
+            }
+        }
+
+        public LongIntHashMap build() {
+            return new LongIntHashMap(keys.clone(), values.clone(), size);
+        }
+
+        private void rehash(int newCapacity) {
+            long[] newKeys = newKeyArray(newCapacity);
+            int[] newValues = new int[newCapacity];
+
+            for (int i = 0; i < keys.length; i++) {
+                if (keys[i] != EMPTY_KEY) {
+                    insert(newKeys, newValues, keys[i], values[i]);
+                }
+            }
+            this.keys = newKeys;
+            this.values = newValues;
+        }
+
+        private static boolean insert(long[] keys, int[] values, long key, int value) {
+            int mask = keys.length - 1;
+            int idx = hash(key) & mask;
+
+            while (true) {
+                long k = keys[idx];
+
+                if (k == EMPTY_KEY) {
+                    keys[idx] = key;
+                    values[idx] = value;
+                    return true;
+                } else if (k == key) {
+                    values[idx] = value;
+                    return false;
+                }
+                idx = (idx + 1) & mask;
+            }
+        }
+    }
+
+    private static int indexOf(long[] keys, long key) {
+        Preconditions.checkArgument(key != EMPTY_KEY, "Long.MIN_VALUE is not allowed as key");
+
+        int mask = keys.length - 1;
+        int idx = hash(key) & mask;
+
+        while (true) {
+            long k = keys[idx];
+
+            if (k == key) {
+                return idx;
+            } else if (k == EMPTY_KEY) {
+                return -1;
+            }
+            idx = (idx + 1) & mask;
+        }
+    }
+
+    private static int hash(long key) {
+        long h = key * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32));
+    }
+
+    private static long[] newKeyArray(int capacity) {
+        long[] result = new long[capacity];
+        Arrays.fill(result, EMPTY_KEY);
+        return result;
+    }
+
+    private static int tableSizeFor(int expectedSize) {
+        Preconditions.checkArgument(expectedSize >= 0);
+        int capacity = Integer.highestOneBit(Math.max(8, 2 * expectedSize - 1)) << 1;
+        Preconditions.checkArgument(capacity > 0, "Too large expected size");
+        return capacity;
+    }
+}
@@ -0,0 +1,187 @@
+/*
+ * Copyright 2024-2024 Chris de Vreeze
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package eu.cdevreeze.xbrl4j.common.collection;
+
+import com.google.common.base.Preconditions;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.function.IntConsumer;
+import java.util.stream.IntStream;
+
+/**
+ * Immutable multimap from primitive long keys to lists of primitive int values. The values are stored in one
+ * int array, grouped per key (compressed sparse row layout), and for each key the values keep their insertion order.
+ * Instances are created through a {@link Builder}.
+ * <p>
+ * Method {@link #binarySearch(long, int)} requires the values of the key to be in ascending order, that is, they must
+ * have been put in ascending order. The builder keeps track of that per key, and the binary search checks it.
+ * <p>
+ * This class is immutable and thread-safe.
+ *
+ * @author Chris de Vreeze
+ */
+public final class LongIntMultimap {
+
+    private final LongIntHashMap groupIndexes;
+    private final int[] offsets;
+    private final int[] values;
+    private final BitSet unsortedGroups;
+
+    private LongIntMultimap(LongIntHashMap groupIndexes, int[] offsets, int[] values, BitSet unsortedGroups) {
+        this.groupIndexes = groupIndexes;
+        this.offsets = offsets;
+        this.values = values;
+        this.unsortedGroups = unsortedGroups;
+    }
+
+    public int keyCount() {
+        return groupIndexes.size();
+    }
+
+    public int valueCount() {
+        return values.length;
+    }
+
+    public boolean containsKey(long key) {
+        return groupIndexes.containsKey(key);
+    }
+
+    public int count(long key) {
+        int group = groupIndexes.get(key, -1);
+        return (group < 0) ? 0 : offsets[group + 1] - offsets[group];
+    }
+
+    /**
+     * Returns the value at the given index within the values of the given key.
+     */
+    public int get(long key, int index) {
+        int group = groupIndexes.get(key, -1);
+
+        if (group < 0 || index < 0 || index >= offsets[group + 1] - offsets[group]) {
+            throw new IndexOutOfBoundsException(index);
+        }
+        return values[offsets[group] + index];
+    }
+
+    /**
+     * Returns true if the values of the given key are in ascending order (which is trivially the case for absent keys).
+     */
+    public boolean isAscending(long key) {
+        int group = groupIndexes.get(key, -1);
+        return group < 0 || !unsortedGroups.get(group);
+    }
+
+    /**
+     * Binary search for the given value within the values of the given key, which must be in ascending order.
+     * Returns the index of the value (within the values of the key) if found, and (-(insertion point) - 1) otherwise,
+     * where the insertion point is also relative to the values of the key (see {@link Arrays#binarySearch(int[], int)}).
+     * Throws an IllegalStateException if the values of the key are not in ascending order.
+     */
+    public int binarySearch(long key, int value) {
+        int group = groupIndexes.get(key, -1);
+
+        if (group < 0) {
+            return -1;
+        }
+        Preconditions.checkState(!unsortedGroups.get(group), "Values of key %s not in ascending order", key);
+
+        int offset = offsets[group];
+        int result = Arrays.binarySearch(values, offset, offsets[group + 1], value);
+        return (result >= 0) ? result - offset : -((-result - 1) - offset) - 1;
+    }
+
+    public IntStream values(long key) {
+        int group = groupIndexes.get(key, -1);
+        return (group < 0) ? IntStream.empty() : Arrays.stream(values, offsets[group], offsets[group + 1]);
+    }
+
+    public void forEach(long key, IntConsumer consumer) {
+        int group = groupIndexes.get(key, -1);
+
+        if (group >= 0) {
+            for (int i = offsets[group]; i < offsets[group + 1]; i++) {
+                consumer.accept(values[i]);
+            }
+        }
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * Mutable builder of LongIntMultimap instances. Not thread-safe.
+     */
+    public static final class Builder {
+
+        private final LongIntHashMap.Builder groupIndexes = LongIntHashMap.builder();
+        private int[] groupSizes = new int[16];
+        private int[] lastGroupValues = new int[16];
+        private final BitSet unsortedGroups = new BitSet();
+        private int[] entryGroups = new int[16];
+        private int[] entryValues = new int[16];
+        private int entryCount = 0;
+
+        public Builder put(long key, int value) {
+            int group = groupIndexes.get(key, -1);
+
+            if (group < 0) {
+                group = groupIndexes.size();
+                groupIndexes.put(key, group);
+
+                if (group == groupSizes.length) {
+                    groupSizes = Arrays.copyOf(groupSizes, 2 * groupSizes.length);
+                    lastGroupValues = Arrays.copyOf(lastGroupValues, 2 * lastGroupValues.length);
+                }
+            } else if (value < lastGroupValues[group]) {
+                unsortedGroups.set(group);
+            }
+
+            if (entryCount == entryValues.length) {
+                entryGroups = Arrays.copyOf(entryGroups, 2 * entryGroups.length);
+                entryValues = Arrays.copyOf(entryValues, 2 * entryValues.length);
+            }
+            groupSizes[group] += 1;
+            lastGroupValues[group] = value;
+            entryGroups[entryCount] = group;
+            entryValues[entryCount] = value;
+            entryCount += 1;
+            return this;
+        }
+
+        public LongIntMultimap build() {
+            int groupCount = groupIndexes.size();
+            int[] offsets = new int[groupCount + 1];
+
+            for (int g = 0; g < groupCount; g++) {
+                offsets[g + 1] = offsets[g] + groupSizes[g];
+            }
+
+            int[] nextPositions = Arrays.copyOf(offsets, groupCount);
+            int[] values = new int[entryCount];
+
+            for (int i = 0; i < entryCount; i++) {
+                int group = entryGroups[i];
+                values[nextPositions[group]] = entryValues[i];
+                nextPositions[group] += 1;
+            }
+            return new LongIntMultimap(groupIndexes.build(), offsets, values, (BitSet) unsortedGroups.clone());
+        }
+    }
+}
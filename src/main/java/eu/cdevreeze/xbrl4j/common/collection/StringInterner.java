@@ -0,0 +1,79 @@
+/*
+ * Copyright 2024-2024 Chris de Vreeze
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package eu.cdevreeze.xbrl4j.common.collection;
+
+import com.google.common.collect.Interner;
+import com.google.common.collect.Interners;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Concurrent pool of canonical String instances, holding them through weak references. Across a DTS, the same
+ * strings (arcrole and role URIs, "xlink:type" values, label roles, language codes, common "xlink:label" values
+ * etc.) occur very many times. Replacing equal strings by one canonical instance saves much heap in long-running
+ * processes, while pooled strings that are no longer used elsewhere can still be garbage collected.
+ * <p>
+ * Statistics are kept about the number of intern requests and the number of strings (and characters) that
+ * were replaced by an already pooled equal string.
+ * <p>
+ * This class is thread-safe. Typically, the global instance is used.
+ *
+ * @author Chris de Vreeze
+ */
+public final class StringInterner {
+
+    private static final StringInterner GLOBAL_INSTANCE = new StringInterner();
+
+    private final Interner<String> interner = Interners.newWeakInterner();
+
+    private final LongAdder requestCount = new LongAdder();
+    private final LongAdder deduplicatedCount = new LongAdder();
+    private final LongAdder deduplicatedCharCount = new LongAdder();
+
+    public StringInterner() {
+    }
+
+    public static StringInterner global() {
+        return GLOBAL_INSTANCE;
+    }
+
+    /**
+     * Returns the canonical instance of the given string, adding it to the pool if absent.
+     */
+    public String intern(String s) {
+        String result = interner.intern(s);
+
+        requestCount.increment();
+        if (result != s) {
+            deduplicatedCount.increment();
+            deduplicatedCharCount.add(s.length());
+        }
+        return result;
+    }
+
+    public Statistics statistics() {
+        return new Statistics(requestCount.sum(), deduplicatedCount.sum(), deduplicatedCharCount.sum());
+    }
+
+    /**
+     * Intern statistics. The deduplicated count is the number of intern requests that returned another (pooled)
+     * String instance than the one passed, and the deduplicated char count is the sum of their lengths.
+     */
+    public record Statistics(long requestCount, long deduplicatedCount, long deduplicatedCharCount) {
+    }
+}
@@ -22,9 +22,12 @@ import eu.cdevreeze.yaidom4j.core.NamespaceScope;
 import eu.cdevreeze.yaidom4j.dom.clark.ClarkNodes;
 import eu.cdevreeze.yaidom4j.queryapi.AncestryAwareElementApi;
 
+import javax.xml.namespace.QName;
 import java.net.URI;
 import java.util.Optional;
 import java.util.function.BiFunction;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
 
 /**
  * Ancestry-aware element API with extra knowledge about xml:base and XPointer.
@@ -66,4 +69,45 @@ public interface AncestryAwareElement<E extends AncestryAwareElementApi<E>> exte
     Optional<E> findElement(XPointer xpointer);
 
     ClarkNodes.Element toClarkElement();
+
+    /**
+     * Returns the child element at the given zero-based index among the child elements (ignoring other child nodes),
+     * if any. Implementations do not create element objects for the preceding child elements, but the cost differs
+     * per implementation. The ElementTree implementation does one lookup in its element map, keyed by navigation path,
+     * so the cost does not depend on the index (but on the depth of the element). The Saxon implementation iterates
+     * over the underlying child element nodes up to the index, so its cost is linear in the index.
+     */
+    Optional<E> childElementOption(int index);
+
+    // Name-filtered queries, evaluated without creating any element objects for non-matching elements
+
+    /**
+     * Returns the descendant-or-self elements with the given name.
+     */
+    Stream<E> elementStream(QName elementName);
+
+    Stream<E> childElementStream(QName elementName);
+
+    Stream<E> descendantElementStream(QName elementName);
+
+    /**
+     * Returns the descendant-or-self elements whose name has the given namespace (which is empty for no namespace).
+     */
+    Stream<E> elementStreamInNamespace(String namespace);
+
+    Stream<E> childElementStreamInNamespace(String namespace);
+
+    Stream<E> descendantElementStreamInNamespace(String namespace);
+
+    // Document-scoped cache
+
+    /**
+     * Returns the value cached under the given key for the document (or element tree) containing this element,
+     * computing and caching it if absent. All elements of the same document share this cache, which lives as long
+     * as the document itself. It is meant for lazily built indexes over the whole document. The key must have
+     * proper equals/hashCode semantics. The computation may run more than once if called concurrently, in which
+     * case the first cached result wins. Since the cache lives as long as the document, keys and values should not
+     * strongly reference objects that may otherwise be garbage collected earlier, such as element factories.
+     */
+    <V> V computeDocumentValueIfAbsent(Object key, Supplier<? extends V> computation);
 }
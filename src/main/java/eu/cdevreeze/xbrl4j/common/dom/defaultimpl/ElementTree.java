@@ -18,6 +18,7 @@ package eu.cdevreeze.xbrl4j.common.dom.defaultimpl;
 
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
+import eu.cdevreeze.xbrl4j.common.collection.StringInterner;
 import eu.cdevreeze.xbrl4j.common.dom.AncestryAwareElement;
 import eu.cdevreeze.xbrl4j.common.xmlbase.XmlBaseResolver;
 import eu.cdevreeze.xbrl4j.common.xpointer.XPointer;
@@ -28,8 +29,11 @@ import eu.cdevreeze.yaidom4j.dom.clark.ClarkNodes;
 import javax.xml.namespace.QName;
 import java.net.URI;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 import java.util.function.BiFunction;
 import java.util.function.Predicate;
+import java.util.function.Supplier;
 import java.util.stream.IntStream;
 import java.util.stream.Stream;
 
@@ -42,6 +46,7 @@ public final class ElementTree {
 
     private final Optional<URI> docUriOption;
     private final ImmutableMap<ImmutableList<Integer>, eu.cdevreeze.yaidom4j.dom.immutabledom.Element> elementMap;
+    private final ConcurrentMap<Object, Object> documentCache = new ConcurrentHashMap<>();
 
     private ElementTree(
             Optional<URI> docUriOption,
@@ -126,6 +131,21 @@ public final class ElementTree {
             return XPointers.findElement(this, xpointer);
         }
 
+        @Override
+        public <V> V computeDocumentValueIfAbsent(Object key, Supplier<? extends V> computation) {
+            Object value = documentCache.get(key);
+
+            if (value == null) {
+                // Computed outside the map, because the computation may itself use the document cache
+                Object computedValue = computation.get();
+                value = Optional.ofNullable(documentCache.putIfAbsent(key, computedValue)).orElse(computedValue);
+            }
+
+            @SuppressWarnings("unchecked")
+            V result = (V) value;
+            return result;
+        }
+
         public QName name() {
             return underlyingElement().name();
         }
@@ -259,6 +279,16 @@ public final class ElementTree {
                     .map(e -> new Element(docUriOption, e));
         }
 
+        @Override
+        public Optional<Element> childElementOption(int index) {
+            if (index < 0) {
+                return Optional.empty();
+            }
+            // The element cache tells if the child element exists, without scanning the children
+            ImmutableList<Integer> childPath = addToPath(index, navigationPath);
+            return elementMap.containsKey(childPath) ? Optional.of(new Element(docUriOption, childPath)) : Optional.empty();
+        }
+
         @Override
         public Stream<Element> childElementStream(Predicate<? super Element> predicate) {
             Objects.requireNonNull(predicate);
@@ -312,37 +342,180 @@ public final class ElementTree {
 
             return childElementStream().flatMap(e -> e.topmostDescendantElementOrSelfStream(predicate));
         }
+
+        // Name-filtered queries, testing the underlying elements, and creating only the matching Element objects
+
+        @Override
+        public Stream<Element> elementStream(QName elementName) {
+            Objects.requireNonNull(elementName);
+
+            return filteredDescendantElementStream(e -> e.name().equals(elementName), true);
+        }
+
+        @Override
+        public Stream<Element> childElementStream(QName elementName) {
+            Objects.requireNonNull(elementName);
+
+            return filteredChildElementStream(e -> e.name().equals(elementName));
+        }
+
+        @Override
+        public Stream<Element> descendantElementStream(QName elementName) {
+            Objects.requireNonNull(elementName);
+
+            return filteredDescendantElementStream(e -> e.name().equals(elementName), false);
+        }
+
+        @Override
+        public Stream<Element> elementStreamInNamespace(String namespace) {
+            Objects.requireNonNull(namespace);
+
+            return filteredDescendantElementStream(e -> e.name().getNamespaceURI().equals(namespace), true);
+        }
+
+        @Override
+        public Stream<Element> childElementStreamInNamespace(String namespace) {
+            Objects.requireNonNull(namespace);
+
+            return filteredChildElementStream(e -> e.name().getNamespaceURI().equals(namespace));
+        }
+
+        @Override
+        public Stream<Element> descendantElementStreamInNamespace(String namespace) {
+            Objects.requireNonNull(namespace);
+
+            return filteredDescendantElementStream(e -> e.name().getNamespaceURI().equals(namespace), false);
+        }
+
+        private Stream<Element> filteredChildElementStream(
+                Predicate<eu.cdevreeze.yaidom4j.dom.immutabledom.Element> predicate
+        ) {
+            Stream.Builder<Element> result = Stream.builder();
+            int elementIdx = 0;
+
+            for (var underlyingChildNode : underlyingElement().children()) {
+                if (underlyingChildNode instanceof eu.cdevreeze.yaidom4j.dom.immutabledom.Element underlyingChildElement) {
+                    if (predicate.test(underlyingChildElement)) {
+                        result.add(new Element(docUriOption, addToPath(elementIdx, navigationPath)));
+                    }
+                    elementIdx += 1;
+                }
+            }
+            return result.build();
+        }
+
+        private Stream<Element> filteredDescendantElementStream(
+                Predicate<eu.cdevreeze.yaidom4j.dom.immutabledom.Element> predicate,
+                boolean includeSelf
+        ) {
+            Stream.Builder<Element> result = Stream.builder();
+            collectElements(underlyingElement(), new ArrayList<>(navigationPath), predicate, includeSelf, result);
+            return result.build();
+        }
+
+        private void collectElements(
+                eu.cdevreeze.yaidom4j.dom.immutabledom.Element underlyingElement,
+                List<Integer> currentPath,
+                Predicate<eu.cdevreeze.yaidom4j.dom.immutabledom.Element> predicate,
+                boolean includeSelf,
+                Stream.Builder<Element> result
+        ) {
+            if (includeSelf && predicate.test(underlyingElement)) {
+                result.add(new Element(docUriOption, ImmutableList.copyOf(currentPath)));
+            }
+
+            int elementIdx = 0;
+
+            for (var underlyingChildNode : underlyingElement.children()) {
+                if (underlyingChildNode instanceof eu.cdevreeze.yaidom4j.dom.immutabledom.Element underlyingChildElement) {
+                    currentPath.add(elementIdx);
+                    // Recursive
+                    collectElements(underlyingChildElement, currentPath, predicate, true, result);
+                    currentPath.remove(currentPath.size() - 1);
+                    elementIdx += 1;
+                }
+            }
+        }
     }
 
+    /**
+     * Creates an ElementTree from the given underlying root element. While building the element tree, the attribute
+     * values are interned, using the global StringInterner, so the element tree retains no duplicate attribute value
+     * strings (provided the passed underlying element tree is not retained by the caller). Underlying elements are
+     * only copied if they (or their descendants) contain attribute values that are not yet canonical.
+     */
     public static ElementTree create(
             Optional<URI> docUriOption,
             eu.cdevreeze.yaidom4j.dom.immutabledom.Element underlyingRootElement
     ) {
         ImmutableList<Integer> navigationPath = ImmutableList.of();
         Map<ImmutableList<Integer>, eu.cdevreeze.yaidom4j.dom.immutabledom.Element> elementMap = new HashMap<>();
-        buildElementCache(docUriOption, navigationPath, underlyingRootElement, elementMap);
+        buildElementCache(docUriOption, navigationPath, underlyingRootElement, elementMap, StringInterner.global());
         return new ElementTree(docUriOption, ImmutableMap.copyOf(elementMap));
     }
 
-    private static void buildElementCache(
+    private static eu.cdevreeze.yaidom4j.dom.immutabledom.Element buildElementCache(
             Optional<URI> docUriOption,
             ImmutableList<Integer> elementNavigationPath,
             eu.cdevreeze.yaidom4j.dom.immutabledom.Element element,
-            Map<ImmutableList<Integer>, eu.cdevreeze.yaidom4j.dom.immutabledom.Element> elementMap
+            Map<ImmutableList<Integer>, eu.cdevreeze.yaidom4j.dom.immutabledom.Element> elementMap,
+            StringInterner stringInterner
     ) {
-        elementMap.put(elementNavigationPath, element);
+        ImmutableMap<QName, String> attributes = internAttributeValues(element.attributes(), stringInterner);
+        boolean changed = attributes != element.attributes();
+
+        ImmutableList.Builder<eu.cdevreeze.yaidom4j.dom.immutabledom.Node> children =
+                ImmutableList.builderWithExpectedSize(element.children().size());
 
         int idx = 0;
-        for (var childElement : element.childElementStream().toList()) {
-            // Recursion
-            buildElementCache(
-                    docUriOption,
-                    addToPath(idx, elementNavigationPath),
-                    childElement,
-                    elementMap
-            );
-            idx += 1;
+        for (var child : element.children()) {
+            if (child instanceof eu.cdevreeze.yaidom4j.dom.immutabledom.Element childElement) {
+                // Recursion
+                var resultChildElement = buildElementCache(
+                        docUriOption,
+                        addToPath(idx, elementNavigationPath),
+                        childElement,
+                        elementMap,
+                        stringInterner
+                );
+                changed = changed || resultChildElement != childElement;
+                children.add(resultChildElement);
+                idx += 1;
+            } else {
+                children.add(child);
+            }
+        }
+
+        var resultElement = changed ?
+                new eu.cdevreeze.yaidom4j.dom.immutabledom.Element(
+                        element.name(),
+                        attributes,
+                        element.namespaceScope(),
+                        children.build()
+                ) :
+                element;
+
+        elementMap.put(elementNavigationPath, resultElement);
+        return resultElement;
+    }
+
+    /**
+     * Returns the attributes with interned values. The passed attribute map itself is returned if all its values
+     * are canonical already.
+     */
+    private static ImmutableMap<QName, String> internAttributeValues(
+            ImmutableMap<QName, String> attributes,
+            StringInterner stringInterner
+    ) {
+        boolean changed = false;
+        ImmutableMap.Builder<QName, String> result = ImmutableMap.builderWithExpectedSize(attributes.size());
+
+        for (Map.Entry<QName, String> attribute : attributes.entrySet()) {
+            String value = stringInterner.intern(attribute.getValue());
+            changed = changed || value != attribute.getValue();
+            result.put(attribute.getKey(), value);
         }
+        return changed ? result.buildOrThrow() : attributes;
     }
 
     private static ImmutableList<Integer> addToPath(int nextIndex, ImmutableList<Integer> path) {
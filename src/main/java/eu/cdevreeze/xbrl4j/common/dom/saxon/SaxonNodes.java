@@ -25,18 +25,31 @@ import eu.cdevreeze.xbrl4j.common.xpointer.XPointer;
 import eu.cdevreeze.xbrl4j.common.xpointer.XPointers;
 import eu.cdevreeze.yaidom4j.core.NamespaceScope;
 import eu.cdevreeze.yaidom4j.dom.clark.ClarkNodes;
+import net.sf.saxon.om.AxisInfo;
+import net.sf.saxon.om.NamespaceUri;
+import net.sf.saxon.om.NodeInfo;
+import net.sf.saxon.om.TreeInfo;
+import net.sf.saxon.pattern.NameTest;
+import net.sf.saxon.pattern.NamespaceTest;
+import net.sf.saxon.pattern.NodeKindTest;
+import net.sf.saxon.pattern.NodeTest;
 import net.sf.saxon.s9api.Axis;
 import net.sf.saxon.s9api.XdmItem;
 import net.sf.saxon.s9api.XdmNode;
 import net.sf.saxon.s9api.XdmNodeKind;
 import net.sf.saxon.tree.NamespaceNode;
+import net.sf.saxon.tree.iter.AxisIterator;
+import net.sf.saxon.type.Type;
 
 import javax.xml.namespace.QName;
 import java.net.URI;
 import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 import java.util.function.BiFunction;
 import java.util.function.Predicate;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
@@ -47,6 +60,8 @@ import java.util.stream.Stream;
  */
 public class SaxonNodes {
 
+    private static final String DOCUMENT_CACHE_KEY = SaxonNodes.class.getName() + ".documentCache";
+
     private SaxonNodes() {
     }
 
@@ -116,6 +131,8 @@ public class SaxonNodes {
             return xdmNode.getNodeName().getStructuredQName().toJaxpQName();
         }
 
+        // Unlike in ElementTree, attribute values are not interned here. Saxon returns the String instance held by the
+        // tree itself on each call, so interning would not drop any string, and only cost a pool lookup per access.
         @Override
         public ImmutableMap<QName, String> attributes() {
             return xdmNode.axisIterator(Axis.ATTRIBUTE)
@@ -227,6 +244,81 @@ public class SaxonNodes {
                     .flatMap(n -> Element.optionallyFrom(n).stream());
         }
 
+        @Override
+        public Optional<Element> childElementOption(int index) {
+            if (index < 0) {
+                return Optional.empty();
+            }
+            // Iterating over the underlying sibling nodes, without creating any XdmNode or Element for skipped children
+            AxisIterator childIterator = xdmNode.getUnderlyingNode().iterateAxis(AxisInfo.CHILD, NodeKindTest.ELEMENT);
+            NodeInfo child = childIterator.next();
+
+            for (int i = 0; i < index && child != null; i++) {
+                child = childIterator.next();
+            }
+            return Optional.ofNullable(child).map(n -> new Element(new XdmNode(n)));
+        }
+
+        // Name-filtered queries, using Saxon name tests (which compare name pool fingerprints) on the underlying nodes
+
+        @Override
+        public Stream<Element> elementStream(QName elementName) {
+            return axisElementStream(AxisInfo.DESCENDANT_OR_SELF, nameTest(elementName));
+        }
+
+        @Override
+        public Stream<Element> childElementStream(QName elementName) {
+            return axisElementStream(AxisInfo.CHILD, nameTest(elementName));
+        }
+
+        @Override
+        public Stream<Element> descendantElementStream(QName elementName) {
+            return axisElementStream(AxisInfo.DESCENDANT, nameTest(elementName));
+        }
+
+        @Override
+        public Stream<Element> elementStreamInNamespace(String namespace) {
+            return axisElementStream(AxisInfo.DESCENDANT_OR_SELF, namespaceTest(namespace));
+        }
+
+        @Override
+        public Stream<Element> childElementStreamInNamespace(String namespace) {
+            return axisElementStream(AxisInfo.CHILD, namespaceTest(namespace));
+        }
+
+        @Override
+        public Stream<Element> descendantElementStreamInNamespace(String namespace) {
+            return axisElementStream(AxisInfo.DESCENDANT, namespaceTest(namespace));
+        }
+
+        private Stream<Element> axisElementStream(int axis, NodeTest nodeTest) {
+            AxisIterator nodeIterator = xdmNode.getUnderlyingNode().iterateAxis(axis, nodeTest);
+            Stream.Builder<Element> result = Stream.builder();
+            NodeInfo node;
+
+            while ((node = nodeIterator.next()) != null) {
+                result.add(new Element(new XdmNode(node)));
+            }
+            return result.build();
+        }
+
+        private NodeTest nameTest(QName elementName) {
+            return new NameTest(
+                    Type.ELEMENT,
+                    NamespaceUri.of(elementName.getNamespaceURI()),
+                    elementName.getLocalPart(),
+                    xdmNode.getUnderlyingNode().getConfiguration().getNamePool()
+            );
+        }
+
+        private NodeTest namespaceTest(String namespace) {
+            return new NamespaceTest(
+                    xdmNode.getUnderlyingNode().getConfiguration().getNamePool(),
+                    Type.ELEMENT,
+                    NamespaceUri.of(namespace)
+            );
+        }
+
         @Override
         public Optional<Element> parentElementOption() {
             return xdmNode.select(SaxonElementSteps.parentElements()).flatMap(n -> Element.optionallyFrom(n).stream()).findFirst();
@@ -283,6 +375,25 @@ public class SaxonNodes {
             return XPointers.findElement(this, xpointer);
         }
 
+        // The document-scoped cache is stored as user data of the Saxon TreeInfo, so it lives as long as the tree.
+        // Hence it must only hold document-derived data, and no (strong references to) element factories.
+
+        @Override
+        public <V> V computeDocumentValueIfAbsent(Object key, Supplier<? extends V> computation) {
+            ConcurrentMap<Object, Object> documentCache = documentCache(xdmNode.getUnderlyingNode().getTreeInfo());
+            Object value = documentCache.get(key);
+
+            if (value == null) {
+                // Computed outside the map, because the computation may itself use the document cache
+                Object computedValue = computation.get();
+                value = Optional.ofNullable(documentCache.putIfAbsent(key, computedValue)).orElse(computedValue);
+            }
+
+            @SuppressWarnings("unchecked")
+            V result = (V) value;
+            return result;
+        }
+
         @Override
         public boolean equals(Object other) {
             if (other instanceof Element otherElement) {
@@ -438,4 +549,18 @@ public class SaxonNodes {
             return xdmNode.hashCode();
         }
     }
+
+    private static ConcurrentMap<Object, Object> documentCache(TreeInfo treeInfo) {
+        synchronized (treeInfo) {
+            @SuppressWarnings("unchecked")
+            ConcurrentMap<Object, Object> documentCache =
+                    (ConcurrentMap<Object, Object>) treeInfo.getUserData(DOCUMENT_CACHE_KEY);
+
+            if (documentCache == null) {
+                documentCache = new ConcurrentHashMap<>();
+                treeInfo.setUserData(DOCUMENT_CACHE_KEY, documentCache);
+            }
+            return documentCache;
+        }
+    }
 }
@@ -0,0 +1,281 @@
+/*
+ * Copyright 2024-2024 Chris de Vreeze
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package eu.cdevreeze.xbrl4j.common.xmlbase;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+
+import java.net.URI;
+import java.util.Optional;
+
+/**
+ * URI reference resolution according to RFC 3986, section 5.2, unlike method "java.net.URI.resolve". The latter
+ * differs from RFC 3986 for example when resolving an empty reference (which should return the base URI without
+ * fragment) or when resolving references with more ".." segments than the base path (which should not leave any
+ * ".." segments in the result).
+ * <p>
+ * Resolution works on strings, parsed into the lightweight UriReference representation, and results are kept in
+ * a bounded cache keyed by base URI and reference. The same is true for parsing strings as java.net.URI instances.
+ * In a DTS, the same xml:base values and hrefs occur many times, so most calls are cache hits.
+ * <p>
+ * This class is thread-safe.
+ *
+ * @author Chris de Vreeze
+ */
+public final class Rfc3986UriResolver {
+
+    private static final int MAX_CACHE_SIZE = 100_000;
+
+    private static final Cache<ResolutionKey, URI> resolutionCache =
+            CacheBuilder.newBuilder().maximumSize(MAX_CACHE_SIZE).build();
+
+    private static final Cache<String, URI> uriCache =
+            CacheBuilder.newBuilder().maximumSize(MAX_CACHE_SIZE).build();
+
+    private Rfc3986UriResolver() {
+    }
+
+    /**
+     * Resolves the given URI reference against the optional base URI, as a BiFunction that can be passed to
+     * XmlBaseResolver. Without base URI, the reference is returned unchanged.
+     */
+    public static URI resolve(Optional<URI> baseUriOption, URI reference) {
+        return baseUriOption.map(b -> resolve(b, reference)).orElse(reference);
+    }
+
+    /**
+     * Resolves the given URI reference against the given base URI, using the cache.
+     */
+    public static URI resolve(URI baseUri, URI reference) {
+        return resolutionCache.asMap().computeIfAbsent(
+                new ResolutionKey(baseUri.toString(), reference.toString()),
+                k -> URI.create(resolve(UriReference.parse(k.baseUri()), UriReference.parse(k.reference())).toString())
+        );
+    }
+
+    /**
+     * Returns the same as "URI.create(uri)", using the cache.
+     */
+    public static URI toUri(String uri) {
+        return uriCache.asMap().computeIfAbsent(uri, URI::create);
+    }
+
+    /**
+     * Resolves the reference against the base, according to the algorithm in RFC 3986, section 5.2.2.
+     * The base should be an absolute URI, but that is not enforced. Resolution is strict, so a reference
+     * with the same scheme as the base is not treated as relative reference.
+     */
+    public static UriReference resolve(UriReference base, UriReference reference) {
+        if (reference.schemeOption().isPresent()) {
+            return new UriReference(
+                    reference.schemeOption(),
+                    reference.authorityOption(),
+                    removeDotSegments(reference.path()),
+                    reference.queryOption(),
+                    reference.fragmentOption()
+            );
+        } else if (reference.authorityOption().isPresent()) {
+            return new UriReference(
+                    base.schemeOption(),
+                    reference.authorityOption(),
+                    removeDotSegments(reference.path()),
+                    reference.queryOption(),
+                    reference.fragmentOption()
+            );
+        } else if (reference.path().isEmpty()) {
+            return new UriReference(
+                    base.schemeOption(),
+                    base.authorityOption(),
+                    base.path(),
+                    reference.queryOption().or(base::queryOption),
+                    reference.fragmentOption()
+            );
+        } else {
+            String path = reference.path().startsWith("/") ?
+                    removeDotSegments(reference.path()) :
+                    removeDotSegments(merge(base, reference.path()));
+
+            return new UriReference(
+                    base.schemeOption(),
+                    base.authorityOption(),
+                    path,
+                    reference.queryOption(),
+                    reference.fragmentOption()
+            );
+        }
+    }
+
+    /**
+     * Merges the relative path reference with the base path, according to RFC 3986, section 5.2.3.
+     */
+    private static String merge(UriReference base, String relativePath) {
+        if (base.authorityOption().isPresent() && base.path().isEmpty()) {
+            return "/" + relativePath;
+        } else {
+            int lastSlash = base.path().lastIndexOf('/');
+            return (lastSlash < 0) ? relativePath : base.path().substring(0, lastSlash + 1) + relativePath;
+        }
+    }
+
+    /**
+     * Removes "." and ".." segments from the given path, according to RFC 3986, section 5.2.4. This implementation
+     * keeps a stack of output segment start positions instead of repeatedly rewriting the input buffer.
+     */
+    static String removeDotSegments(String path) {
+        if (path.indexOf('.') < 0) {
+            return path;
+        }
+
+        StringBuilder output = new StringBuilder(path.length());
+        int[] segmentStarts = new int[path.length() + 1];
+        int segmentCount = 0;
+        int pos = 0;
+        int length = path.length();
+
+        while (pos < length) {
+            if (path.startsWith("../", pos)) {
+                // Rule A
+                pos += 3;
+            } else if (path.startsWith("./", pos)) {
+                // Rule A
+                pos += 2;
+            } else if (path.startsWith("/./", pos)) {
+                // Rule B
+                pos += 2;
+            } else if (pos + 2 == length && path.startsWith("/.", pos)) {
+                // Rule B, replacing "/." at the end by "/"
+                output.append('/');
+                pos = length;
+            } else if (path.startsWith("/../", pos)) {
+                // Rule C
+                pos += 3;
+                segmentCount = removeLastSegment(output, segmentStarts, segmentCount);
+            } else if (pos + 3 == length && path.startsWith("/..", pos)) {
+                // Rule C, replacing "/.." at the end by "/"
+                segmentCount = removeLastSegment(output, segmentStarts, segmentCount);
+                output.append('/');
+                pos = length;
+            } else if ((pos + 1 == length && path.charAt(pos) == '.') ||
+                    (pos + 2 == length && path.startsWith("..", pos))) {
+                // Rule D
+                pos = length;
+            } else {
+                // Rule E, moving the first path segment (including its leading "/", if any) to the output
+                int nextSlash = path.indexOf('/', (path.charAt(pos) == '/') ? pos + 1 : pos);
+                int segmentEnd = (nextSlash < 0) ? length : nextSlash;
+
+                segmentStarts[segmentCount] = output.length();
+                segmentCount += 1;
+                output.append(path, pos, segmentEnd);
+                pos = segmentEnd;
+            }
+        }
+        return output.toString();
+    }
+
+    private static int removeLastSegment(StringBuilder output, int[] segmentStarts, int segmentCount) {
+        if (segmentCount == 0) {
+            output.setLength(0);
+            return 0;
+        } else {
+            output.setLength(segmentStarts[segmentCount - 1]);
+            return segmentCount - 1;
+        }
+    }
+
+    /**
+     * Lightweight URI reference, split into its 5 components according to RFC 3986 (see appendix B). The authority,
+     * query and fragment are optional, where an empty Optional means that the component is absent, as opposed to
+     * empty. The path is always present, but may be empty. No percent-decoding takes place.
+     */
+    public record UriReference(
+            Optional<String> schemeOption,
+            Optional<String> authorityOption,
+            String path,
+            Optional<String> queryOption,
+            Optional<String> fragmentOption
+    ) {
+
+        /**
+         * Parses the given string as URI reference in a single pass, like the regular expression in RFC 3986,
+         * appendix B. No validation takes place.
+         */
+        public static UriReference parse(String s) {
+            int length = s.length();
+            int fragmentStart = s.indexOf('#');
+            int end = (fragmentStart < 0) ? length : fragmentStart;
+            int queryStart = s.indexOf('?');
+            if (queryStart >= end) {
+                queryStart = -1;
+            }
+            int pathAndQueryEnd = end;
+            end = (queryStart < 0) ? end : queryStart;
+
+            // The scheme is the part before the first ":", provided no "/", "?" or "#" precede it
+            Optional<String> schemeOption = Optional.empty();
+            int pos = 0;
+            for (int i = 0; i < end; i++) {
+                char c = s.charAt(i);
+                if (c == ':') {
+                    if (i > 0) {
+                        schemeOption = Optional.of(s.substring(0, i));
+                        pos = i + 1;
+                    }
+                    break;
+                } else if (c == '/') {
+                    break;
+                }
+            }
+
+            Optional<String> authorityOption = Optional.empty();
+            if (s.startsWith("//", pos) && pos + 2 <= end) {
+                int authorityEnd = s.indexOf('/', pos + 2);
+                if (authorityEnd < 0 || authorityEnd > end) {
+                    authorityEnd = end;
+                }
+                authorityOption = Optional.of(s.substring(pos + 2, authorityEnd));
+                pos = authorityEnd;
+            }
+
+            return new UriReference(
+                    schemeOption,
+                    authorityOption,
+                    s.substring(pos, end),
+                    (queryStart < 0) ? Optional.empty() : Optional.of(s.substring(queryStart + 1, pathAndQueryEnd)),
+                    (fragmentStart < 0) ? Optional.empty() : Optional.of(s.substring(fragmentStart + 1))
+            );
+        }
+
+        /**
+         * Recomposes the URI reference string, according to RFC 3986, section 5.3.
+         */
+        @Override
+        public String toString() {
+            StringBuilder sb = new StringBuilder();
+            schemeOption.ifPresent(v -> sb.append(v).append(':'));
+            authorityOption.ifPresent(v -> sb.append("//").append(v));
+            sb.append(path);
+            queryOption.ifPresent(v -> sb.append('?').append(v));
+            fragmentOption.ifPresent(v -> sb.append('#').append(v));
+            return sb.toString();
+        }
+    }
+
+    private record ResolutionKey(String baseUri, String reference) {
+    }
+}
@@ -46,11 +46,12 @@ public final class XmlBaseResolver {
     }
 
     /**
-     * Creates a default XmlBaseResolver, which is not RFC 3986 compliant.
+     * Creates a default XmlBaseResolver, which is RFC 3986 compliant, unlike "java.net.URI.resolve".
+     * See Rfc3986UriResolver.
      */
     public XmlBaseResolver() {
         // See http://stackoverflow.com/questions/22203111/is-javas-uri-resolve-incompatible-with-rfc-3986-when-the-relative-uri-contains
-        this((baseUriOption, uri) -> baseUriOption.map(b -> b.resolve(uri)).orElse(uri));
+        this(Rfc3986UriResolver::resolve);
     }
 
     public BiFunction<Optional<URI>, URI, URI> uriResolver() {
@@ -63,7 +64,7 @@ public final class XmlBaseResolver {
 
         while (currentElementOption.isPresent()) {
             E currentElement = currentElementOption.get();
-            currentElement.attributeOption(XML_BASE_QNAME).ifPresent(u -> xmlBaseUris.add(URI.create(u)));
+            currentElement.attributeOption(XML_BASE_QNAME).ifPresent(u -> xmlBaseUris.add(Rfc3986UriResolver.toUri(u)));
             currentElementOption = currentElement.parentElementOption();
         }
 
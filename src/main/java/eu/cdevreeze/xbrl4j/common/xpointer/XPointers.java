@@ -17,7 +17,10 @@
 package eu.cdevreeze.xbrl4j.common.xpointer;
 
 import com.google.common.base.Preconditions;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
 import com.google.common.collect.ImmutableList;
+import eu.cdevreeze.xbrl4j.common.dom.AncestryAwareElement;
 import eu.cdevreeze.yaidom4j.queryapi.ElementApi;
 
 import javax.xml.namespace.QName;
@@ -32,15 +35,26 @@ public class XPointers {
 
     private static final QName ID_QNAME = new QName("id");
 
+    private static final String ELEMENT_SCHEME_START = "element(";
+
+    static final int MAX_CACHED_XPOINTERS = 100_000;
+
+    /**
+     * Cache of parsed XPointers, keyed by fragment string. In linkbases many locators share the same fragments,
+     * so each fragment is typically parsed once, and all locators share the same parse result.
+     */
+    private static final Cache<String, ImmutableList<XPointer>> xpointerCache =
+            CacheBuilder.newBuilder().maximumSize(MAX_CACHED_XPOINTERS).build();
+
     private XPointers() {
     }
 
+    /**
+     * Parses the given fragment as a sequence of XPointers, returning a cached result if the same fragment
+     * has been parsed before. Parse errors are not cached.
+     */
     public static ImmutableList<XPointer> parseXPointers(String s) {
-        if (s.startsWith("element(")) {
-            return parseElementSchemePointers(s);
-        } else {
-            return ImmutableList.of(parseXPointer(s));
-        }
+        return xpointerCache.asMap().computeIfAbsent(s, XPointers::parseXPointersWithoutCache);
     }
 
     public static XPointer parseXPointer(String s) {
@@ -49,7 +63,7 @@ public class XPointers {
                 "In XBRL, only element scheme pointers and shorthand pointers are allowed"
         );
 
-        if (s.startsWith("element(")) {
+        if (s.startsWith(ELEMENT_SCHEME_START)) {
             return parseElementSchemePointer(s);
         } else {
             return new ShorthandPointer(s);
@@ -57,58 +71,100 @@ public class XPointers {
     }
 
     public static ImmutableList<XPointer> parseElementSchemePointers(String s) {
-        Preconditions.checkArgument(s.startsWith("element("));
+        Preconditions.checkArgument(s.startsWith(ELEMENT_SCHEME_START));
 
-        int indexOfNextPointer = s.indexOf("element(", 7);
+        ImmutableList.Builder<XPointer> builder = ImmutableList.builder();
+        int pointerStart = 0;
 
-        if (indexOfNextPointer < 0) {
-            return ImmutableList.of(parseElementSchemePointer(s));
-        } else {
-            String s1 = s.substring(0, indexOfNextPointer);
-            String s2 = s.substring(indexOfNextPointer);
-
-            ImmutableList.Builder<XPointer> builder = ImmutableList.builder();
-            builder.add(parseXPointer(s1));
-            // Recursion
-            builder.addAll(parseElementSchemePointers(s2));
-            return builder.build();
+        while (pointerStart < s.length()) {
+            int nextPointerStart = s.indexOf(ELEMENT_SCHEME_START, pointerStart + ELEMENT_SCHEME_START.length() - 1);
+            int pointerEnd = (nextPointerStart < 0) ? s.length() : nextPointerStart;
+
+            builder.add(parseElementSchemePointer(s, pointerStart, pointerEnd));
+            pointerStart = pointerEnd;
         }
+        return builder.build();
     }
 
     public static XPointer parseElementSchemePointer(String s) {
-        Preconditions.checkArgument(s.startsWith("element("));
-        Preconditions.checkArgument(s.endsWith(")"));
-        String remainder = s.substring("element(".length(), s.length() - 1);
+        Preconditions.checkArgument(s.startsWith(ELEMENT_SCHEME_START));
 
-        if (remainder.startsWith("/")) {
-            return new ChildSequencePointer(parseChildSequence(remainder));
+        return parseElementSchemePointer(s, 0, s.length());
+    }
+
+    /**
+     * Returns the (approximate) number of fragments in the cache of parsed XPointers. Meant for testing.
+     */
+    static long cachedFragmentCount() {
+        xpointerCache.cleanUp();
+        return xpointerCache.size();
+    }
+
+    private static ImmutableList<XPointer> parseXPointersWithoutCache(String s) {
+        if (s.startsWith(ELEMENT_SCHEME_START)) {
+            return parseElementSchemePointers(s);
         } else {
-            if (remainder.contains("/")) {
-                String id = remainder.substring(0, remainder.indexOf("/"));
-                Preconditions.checkArgument(!id.isEmpty());
-                ImmutableList<Integer> childSequence = parseChildSequence(remainder.substring(id.length()));
-                return new IdChildSequencePointer(id, childSequence);
-            } else {
-                return new IdPointer(remainder);
-            }
+            return ImmutableList.of(parseXPointer(s));
         }
     }
 
-    private static ImmutableList<Integer> parseChildSequence(String path) {
-        Preconditions.checkArgument(path.startsWith("/"));
+    /**
+     * Single-pass parser of the element scheme pointer in the given string from start (inclusive) to end
+     * (exclusive). Only the ID, if any, is extracted as substring.
+     */
+    private static XPointer parseElementSchemePointer(String s, int start, int end) {
+        Preconditions.checkArgument(s.startsWith(ELEMENT_SCHEME_START, start));
+        Preconditions.checkArgument(end > start + ELEMENT_SCHEME_START.length() && s.charAt(end - 1) == ')');
+
+        int dataStart = start + ELEMENT_SCHEME_START.length();
+        int dataEnd = end - 1;
+
+        int firstSlash = s.indexOf('/', dataStart);
 
-        if (path.substring(1).contains("/")) {
-            int indexOfNextSlash = path.indexOf("/", 1);
-            ImmutableList.Builder<Integer> builder = ImmutableList.builder();
-            builder.add(Integer.valueOf(path.substring(1, indexOfNextSlash)));
-            // Recursion
-            builder.addAll(parseChildSequence(path.substring(indexOfNextSlash)));
-            return builder.build();
+        if (firstSlash < 0 || firstSlash >= dataEnd) {
+            return new IdPointer(s.substring(dataStart, dataEnd));
+        } else if (firstSlash == dataStart) {
+            return new ChildSequencePointer(parseChildSequence(s, dataStart, dataEnd));
         } else {
-            return ImmutableList.of(Integer.valueOf(path.substring(1)));
+            String id = s.substring(dataStart, firstSlash);
+            return new IdChildSequencePointer(id, parseChildSequence(s, firstSlash, dataEnd));
         }
     }
 
+    /**
+     * Parses a child sequence such as "/1/3/2" in the given string from start (inclusive) to end (exclusive),
+     * without creating any substrings.
+     */
+    private static ImmutableList<Integer> parseChildSequence(String s, int start, int end) {
+        Preconditions.checkArgument(start < end && s.charAt(start) == '/');
+
+        ImmutableList.Builder<Integer> builder = ImmutableList.builder();
+        int value = 0;
+        int digitCount = 0;
+
+        // Invalid steps lead to a NumberFormatException, as if each step were parsed by Integer.parseInt
+        for (int i = start + 1; i <= end; i++) {
+            if (i == end || s.charAt(i) == '/') {
+                if (digitCount == 0) {
+                    throw new NumberFormatException("Empty child sequence step in '" + s + "'");
+                }
+                builder.add(value);
+                value = 0;
+                digitCount = 0;
+            } else {
+                int digit = Character.digit(s.charAt(i), 10);
+                if (digit < 0) {
+                    throw new NumberFormatException("Not a digit in child sequence step in '" + s + "'");
+                } else if (value > (Integer.MAX_VALUE - digit) / 10) {
+                    throw new NumberFormatException("Child sequence step too large in '" + s + "'");
+                }
+                value = value * 10 + digit;
+                digitCount += 1;
+            }
+        }
+        return builder.build();
+    }
+
     public static <E extends ElementApi<E>> Optional<E> findElement(E rootElement, ImmutableList<XPointer> xpointers) {
         return xpointers.stream().flatMap(xp -> findElement(rootElement, xp).stream()).findFirst();
     }
@@ -140,40 +196,45 @@ public class XPointers {
     public static <E extends ElementApi<E>> Optional<E> findElement(E rootElement, ChildSequencePointer xpointer) {
         Preconditions.checkArgument(xpointer.childElementSequence().get(0).equals(1));
 
-        Optional<E> result = Optional.of(rootElement);
-
-        for (int pe : xpointer.childElementSequenceZeroBased().subList(1, xpointer.childElementSequence().size())) {
-            if (result.isPresent()) {
-                E currentElement = result.get();
-                ImmutableList<E> childElements = currentElement.childElementStream().collect(ImmutableList.toImmutableList());
-
-                if (pe >= childElements.size()) {
-                    return Optional.empty();
-                } else {
-                    result = result.flatMap(che -> Optional.ofNullable(che.childElementStream().toList().get(pe)));
-                }
-            }
-        }
-
-        return result;
+        return findDescendantElementOrSelf(rootElement, xpointer.childElementSequence(), 1);
     }
 
     public static <E extends ElementApi<E>> Optional<E> findElement(E rootElement, IdChildSequencePointer xpointer) {
-        Optional<E> result = findElement(rootElement, new ShorthandPointer(xpointer.id()));
-
-        for (int pe : xpointer.childElementSequenceZeroBased()) {
-            if (result.isPresent()) {
-                E currentElement = result.get();
-                ImmutableList<E> childElements = currentElement.childElementStream().collect(ImmutableList.toImmutableList());
+        return findElement(rootElement, new ShorthandPointer(xpointer.id()))
+                .flatMap(e -> findDescendantElementOrSelf(e, xpointer.childElementSequence(), 0));
+    }
 
-                if (pe >= childElements.size()) {
-                    return Optional.empty();
-                } else {
-                    result = result.flatMap(che -> Optional.ofNullable(che.childElementStream().toList().get(pe)));
-                }
+    /**
+     * Follows the given one-based child sequence, starting at the given offset, from the given element.
+     * Each step uses AncestryAwareElement.childElementOption, if applicable, whose cost depends on the
+     * implementation (independent of the position for ElementTree, and linear in the position for Saxon). For other
+     * element implementations, each step streams over the child elements up to the position.
+     */
+    private static <E extends ElementApi<E>> Optional<E> findDescendantElementOrSelf(
+            E element,
+            ImmutableList<Integer> childElementSequence,
+            int offset
+    ) {
+        E currentElement = element;
+
+        for (int i = offset; i < childElementSequence.size(); i++) {
+            Optional<E> childElementOption = findChildElement(currentElement, childElementSequence.get(i) - 1);
+
+            if (childElementOption.isEmpty()) {
+                return Optional.empty();
             }
+            currentElement = childElementOption.get();
         }
+        return Optional.of(currentElement);
+    }
 
-        return result;
+    private static <E extends ElementApi<E>> Optional<E> findChildElement(E element, int zeroBasedIndex) {
+        if (element instanceof AncestryAwareElement<?> ancestryAwareElement) {
+            @SuppressWarnings("unchecked")
+            Optional<E> result = (Optional<E>) ancestryAwareElement.childElementOption(zeroBasedIndex);
+            return result;
+        } else {
+            return element.childElementStream().skip(zeroBasedIndex).findFirst();
+        }
     }
 }
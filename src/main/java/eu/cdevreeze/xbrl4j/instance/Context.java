@@ -0,0 +1,45 @@
+/*
+ * Copyright 2024-2024 Chris de Vreeze
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package eu.cdevreeze.xbrl4j.instance;
+
+import com.google.common.collect.ImmutableList;
+import eu.cdevreeze.yaidom4j.dom.immutabledom.Element;
+
+import java.util.stream.Stream;
+
+/**
+ * XBRL context ("xbrli:context"). The dimension members in the segment and scenario are kept separately
+ * from any other (non-dimensional) segment and scenario content.
+ *
+ * @author Chris de Vreeze
+ */
+public record Context(
+        String id,
+        EntityIdentifier entityIdentifier,
+        Period period,
+        ImmutableList<DimensionMember> segmentDimensions,
+        ImmutableList<DimensionMember> scenarioDimensions,
+        ImmutableList<Element> otherSegmentContent,
+        ImmutableList<Element> otherScenarioContent
+) implements InstanceComponent {
+
+    public ImmutableList<DimensionMember> dimensions() {
+        return Stream.concat(segmentDimensions.stream(), scenarioDimensions.stream())
+                .collect(ImmutableList.toImmutableList());
+    }
+}
@@ -0,0 +1,30 @@
+/*
+ * Copyright 2024-2024 Chris de Vreeze
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package eu.cdevreeze.xbrl4j.instance;
+
+import javax.xml.namespace.QName;
+import java.net.URI;
+
+/**
+ * DTS reference in an XBRL instance, that is, a "link:schemaRef", "link:linkbaseRef", "link:roleRef"
+ * or "link:arcroleRef". The xlink:href is kept as-is, so it may be a relative URI.
+ *
+ * @author Chris de Vreeze
+ */
+public record DtsReference(QName elementName, URI href) implements InstanceComponent {
+}
@@ -0,0 +1,46 @@
+/*
+ * Copyright 2024-2024 Chris de Vreeze
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package eu.cdevreeze.xbrl4j.instance;
+
+import com.google.common.collect.ImmutableList;
+
+import java.net.URI;
+import java.util.Optional;
+
+/**
+ * Content of a footnote link ("link:footnoteLink"), as locators, footnote resources and footnote arcs.
+ * The footnote text is kept without XML markup.
+ *
+ * @author Chris de Vreeze
+ */
+public record FootnoteLinkContent(
+        String role,
+        ImmutableList<Locator> locators,
+        ImmutableList<Footnote> footnotes,
+        ImmutableList<Arc> arcs
+) implements InstanceComponent {
+
+    public record Locator(String label, URI href) {
+    }
+
+    public record Footnote(String label, Optional<String> idOption, String role, Optional<String> langOption, String text) {
+    }
+
+    public record Arc(String from, String to, String arcrole, Optional<String> orderOption) {
+    }
+}
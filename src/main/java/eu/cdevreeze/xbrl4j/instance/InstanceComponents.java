@@ -0,0 +1,259 @@
+/*
+ * Copyright 2024-2024 Chris de Vreeze
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package eu.cdevreeze.xbrl4j.instance;
+
+import com.google.common.collect.ImmutableList;
+import eu.cdevreeze.yaidom4j.dom.immutabledom.Element;
+import eu.cdevreeze.yaidom4j.dom.immutabledom.Node;
+import eu.cdevreeze.yaidom4j.dom.immutabledom.Text;
+
+import javax.xml.namespace.QName;
+import java.net.URI;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.Predicate;
+
+import static eu.cdevreeze.xbrl4j.model.Names.*;
+
+/**
+ * Conversions from (small) yaidom4j element trees to instance components. Each element passed to
+ * these methods is expected to be a child element of an "xbrli:xbrl" root element.
+ * <p>
+ * These conversions are lenient in that unexpected content is ignored, but required content (such as
+ * the entity identifier of a context) must be present, or else an exception is thrown.
+ *
+ * @author Chris de Vreeze
+ */
+public class InstanceComponents {
+
+    private static final Set<QName> DTS_REFERENCE_NAMES = Set.of(
+            LINK_SCHEMA_REF_QNAME,
+            LINK_LINKBASE_REF_QNAME,
+            LINK_ROLE_REF_QNAME,
+            LINK_ARCROLE_REF_QNAME
+    );
+
+    private InstanceComponents() {
+    }
+
+    /**
+     * Converts the given child element of "xbrli:xbrl" to an instance component, if applicable.
+     * Elements in the xbrli or link namespace that are no contexts, units, footnote links or DTS references
+     * are not converted. Elements in other namespaces are converted to facts.
+     */
+    public static Optional<InstanceComponent> convertTopLevelElement(Element element) {
+        QName name = element.name();
+
+        if (name.equals(XBRLI_CONTEXT_QNAME)) {
+            return Optional.of(convertContext(element));
+        } else if (name.equals(XBRLI_UNIT_QNAME)) {
+            return Optional.of(convertUnit(element));
+        } else if (name.equals(LINK_FOOTNOTE_LINK_QNAME)) {
+            return Optional.of(convertFootnoteLink(element));
+        } else if (DTS_REFERENCE_NAMES.contains(name)) {
+            return Optional.of(new DtsReference(name, URI.create(element.attribute(XLINK_HREF_QNAME).strip())));
+        } else if (name.getNamespaceURI().equals(XBRLI_NS) || name.getNamespaceURI().equals(LINK_NS)) {
+            return Optional.empty();
+        } else {
+            return Optional.of(convertFact(element));
+        }
+    }
+
+    public static Context convertContext(Element element) {
+        Element entity = findChildElement(element, XBRLI_ENTITY_QNAME).orElseThrow();
+        Element identifier = findChildElement(entity, XBRLI_IDENTIFIER_QNAME).orElseThrow();
+        Optional<Element> segmentOption = findChildElement(entity, XBRLI_SEGMENT_QNAME);
+        Element period = findChildElement(element, XBRLI_PERIOD_QNAME).orElseThrow();
+        Optional<Element> scenarioOption = findChildElement(element, XBRLI_SCENARIO_QNAME);
+
+        return new Context(
+                element.attribute(ID_QNAME),
+                new EntityIdentifier(identifier.attribute(SCHEME_QNAME).strip(), identifier.text().strip()),
+                convertPeriod(period),
+                segmentOption.map(InstanceComponents::convertDimensions).orElse(ImmutableList.of()),
+                scenarioOption.map(InstanceComponents::convertDimensions).orElse(ImmutableList.of()),
+                segmentOption.map(InstanceComponents::nonDimensionalContent).orElse(ImmutableList.of()),
+                scenarioOption.map(InstanceComponents::nonDimensionalContent).orElse(ImmutableList.of())
+        );
+    }
+
+    public static Period convertPeriod(Element element) {
+        Optional<Element> instantOption = findChildElement(element, XBRLI_INSTANT_QNAME);
+
+        if (instantOption.isPresent()) {
+            return new InstantPeriod(instantOption.get().text().strip());
+        } else if (findChildElement(element, XBRLI_FOREVER_QNAME).isPresent()) {
+            return new ForeverPeriod();
+        } else {
+            return new DurationPeriod(
+                    findChildElement(element, XBRLI_START_DATE_QNAME).orElseThrow().text().strip(),
+                    findChildElement(element, XBRLI_END_DATE_QNAME).orElseThrow().text().strip()
+            );
+        }
+    }
+
+    public static Unit convertUnit(Element element) {
+        Optional<Element> divideOption = findChildElement(element, XBRLI_DIVIDE_QNAME);
+
+        if (divideOption.isPresent()) {
+            return new Unit(
+                    element.attribute(ID_QNAME),
+                    convertMeasures(findChildElement(divideOption.get(), XBRLI_UNIT_NUMERATOR_QNAME).orElseThrow()),
+                    convertMeasures(findChildElement(divideOption.get(), XBRLI_UNIT_DENOMINATOR_QNAME).orElseThrow())
+            );
+        } else {
+            return new Unit(element.attribute(ID_QNAME), convertMeasures(element), ImmutableList.of());
+        }
+    }
+
+    /**
+     * Converts the given fact element to an item fact (if it has a contextRef) or to a tuple fact (otherwise).
+     */
+    public static Fact convertFact(Element element) {
+        Optional<String> idOption = element.attributeOption(ID_QNAME);
+        boolean nil = element.attributeOption(XSI_NIL_QNAME).map(v -> v.strip().equals("true") || v.strip().equals("1")).orElse(false);
+        Optional<String> contextRefOption = element.attributeOption(CONTEXT_REF_QNAME);
+
+        if (contextRefOption.isPresent()) {
+            return new ItemFact(
+                    element.name(),
+                    idOption,
+                    contextRefOption.get().strip(),
+                    element.attributeOption(UNIT_REF_QNAME).map(String::strip),
+                    element.attributeOption(DECIMALS_QNAME).map(String::strip),
+                    element.attributeOption(PRECISION_QNAME).map(String::strip),
+                    element.attributeOption(XML_LANG_QNAME),
+                    nil,
+                    element.text()
+            );
+        } else {
+            return new TupleFact(
+                    element.name(),
+                    idOption,
+                    nil,
+                    childElements(element, e -> true).stream()
+                            .map(InstanceComponents::convertFact)
+                            .collect(ImmutableList.toImmutableList())
+            );
+        }
+    }
+
+    public static FootnoteLinkContent convertFootnoteLink(Element element) {
+        ImmutableList.Builder<FootnoteLinkContent.Locator> locators = ImmutableList.builder();
+        ImmutableList.Builder<FootnoteLinkContent.Footnote> footnotes = ImmutableList.builder();
+        ImmutableList.Builder<FootnoteLinkContent.Arc> arcs = ImmutableList.builder();
+
+        for (Element child : childElements(element, e -> true)) {
+            String xlinkType = child.attributeOption(XLINK_TYPE_QNAME).orElse("");
+
+            switch (xlinkType) {
+                case "locator" -> locators.add(new FootnoteLinkContent.Locator(
+                        child.attribute(XLINK_LABEL_QNAME),
+                        URI.create(child.attribute(XLINK_HREF_QNAME).strip())
+                ));
+                case "resource" -> footnotes.add(new FootnoteLinkContent.Footnote(
+                        child.attribute(XLINK_LABEL_QNAME),
+                        child.attributeOption(ID_QNAME),
+                        child.attributeOption(XLINK_ROLE_QNAME).orElse(STANDARD_FOOTNOTE_ROLE),
+                        child.attributeOption(XML_LANG_QNAME),
+                        deepText(child)
+                ));
+                case "arc" -> arcs.add(new FootnoteLinkContent.Arc(
+                        child.attribute(XLINK_FROM_QNAME),
+                        child.attribute(XLINK_TO_QNAME),
+                        child.attribute(XLINK_ARCROLE_QNAME),
+                        child.attributeOption(ORDER_QNAME)
+                ));
+                default -> {
+                    // Ignore titles and unexpected content
+                }
+            }
+        }
+
+        return new FootnoteLinkContent(
+                element.attributeOption(XLINK_ROLE_QNAME).orElse(STANDARD_LINK_ROLE),
+                locators.build(),
+                footnotes.build(),
+                arcs.build()
+        );
+    }
+
+    private static ImmutableList<DimensionMember> convertDimensions(Element segmentOrScenario) {
+        return childElements(segmentOrScenario, e -> isDimensionMember(e.name()))
+                .stream()
+                .map(e -> {
+                    QName dimension = resolveQName(e, e.attribute(DIMENSION_QNAME));
+
+                    if (e.name().equals(XBRLDI_EXPLICIT_MEMBER_QNAME)) {
+                        return (DimensionMember) new ExplicitMember(dimension, resolveQName(e, e.text()));
+                    } else {
+                        return new TypedMember(dimension, childElements(e, che -> true).get(0));
+                    }
+                })
+                .collect(ImmutableList.toImmutableList());
+    }
+
+    private static ImmutableList<Element> nonDimensionalContent(Element segmentOrScenario) {
+        return childElements(segmentOrScenario, e -> !isDimensionMember(e.name()));
+    }
+
+    private static boolean isDimensionMember(QName name) {
+        return name.equals(XBRLDI_EXPLICIT_MEMBER_QNAME) || name.equals(XBRLDI_TYPED_MEMBER_QNAME);
+    }
+
+    private static ImmutableList<QName> convertMeasures(Element measureParent) {
+        return childElements(measureParent, e -> e.name().equals(XBRLI_MEASURE_QNAME))
+                .stream()
+                .map(e -> resolveQName(e, e.text()))
+                .collect(ImmutableList.toImmutableList());
+    }
+
+    private static QName resolveQName(Element element, String syntacticQName) {
+        return element.namespaceScope().resolveSyntacticElementQName(syntacticQName.strip());
+    }
+
+    private static Optional<Element> findChildElement(Element element, QName childName) {
+        return childElements(element, e -> e.name().equals(childName)).stream().findFirst();
+    }
+
+    private static ImmutableList<Element> childElements(Element element, Predicate<Element> predicate) {
+        return element.children()
+                .stream()
+                .filter(n -> n instanceof Element)
+                .map(n -> (Element) n)
+                .filter(predicate)
+                .collect(ImmutableList.toImmutableList());
+    }
+
+    private static String deepText(Element element) {
+        StringBuilder sb = new StringBuilder();
+        appendDeepText(element.children(), sb);
+        return sb.toString();
+    }
+
+    private static void appendDeepText(List<Node> nodes, StringBuilder sb) {
+        for (Node node : nodes) {
+            if (node instanceof Text text) {
+                sb.append(text.value());
+            } else if (node instanceof Element element) {
+                appendDeepText(element.children(), sb);
+            }
+        }
+    }
+}
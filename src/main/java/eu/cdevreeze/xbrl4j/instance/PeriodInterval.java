@@ -0,0 +1,128 @@
+/*
+ * Copyright 2024-2024 Chris de Vreeze
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package eu.cdevreeze.xbrl4j.instance;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.time.temporal.TemporalAccessor;
+import java.util.Optional;
+
+/**
+ * Period as an interval of date-times, following the XBRL 2.1 interpretation of dates: a date without
+ * time as instant or end date means the end of that day (that is, midnight at the start of the next day), and
+ * a date without time as start date means the start of that day. Timezones are ignored.
+ * <p>
+ * Durations are half-open intervals [start, end), so consecutive durations (such as the years 2023 and 2024)
+ * do not overlap. For instant periods, start and end are the same. An instant lies within a duration if it is
+ * after the start and not after the end, because an instant is the end of a day (so "2023-12-31" is a closing
+ * balance of 2023, and not an opening balance of 2024). Forever periods span from LocalDateTime.MIN to
+ * LocalDateTime.MAX.
+ *
+ * @author Chris de Vreeze
+ */
+public record PeriodInterval(LocalDateTime start, LocalDateTime end) implements Comparable<PeriodInterval> {
+
+    public static final PeriodInterval FOREVER = new PeriodInterval(LocalDateTime.MIN, LocalDateTime.MAX);
+
+    public PeriodInterval {
+        if (start.isAfter(end)) {
+            throw new IllegalArgumentException("Start " + start + " after end " + end);
+        }
+    }
+
+    public boolean isInstant() {
+        return start.equals(end);
+    }
+
+    /**
+     * Returns true if this is a duration containing the given date-time (start included, end excluded),
+     * or an instant at the given date-time.
+     */
+    public boolean contains(LocalDateTime dateTime) {
+        return isInstant() ? dateTime.equals(start) : !dateTime.isBefore(start) && dateTime.isBefore(end);
+    }
+
+    public boolean contains(PeriodInterval other) {
+        if (other.isInstant()) {
+            return isInstant() ? other.start.equals(start) : containsInstant(other.start);
+        } else {
+            return !isInstant() && !other.start.isBefore(start) && !other.end.isAfter(end);
+        }
+    }
+
+    public boolean overlaps(PeriodInterval other) {
+        if (isInstant() || other.isInstant()) {
+            return contains(other) || other.contains(this);
+        } else {
+            return other.start.isBefore(end) && start.isBefore(other.end);
+        }
+    }
+
+    private boolean containsInstant(LocalDateTime instant) {
+        return instant.isAfter(start) && !instant.isAfter(end);
+    }
+
+    @Override
+    public int compareTo(PeriodInterval other) {
+        int result = start.compareTo(other.start);
+        return (result != 0) ? result : end.compareTo(other.end);
+    }
+
+    /**
+     * Converts the given Period to a PeriodInterval, returning an empty Optional if a date (or date-time)
+     * cannot be parsed, or if the start date is after the end date.
+     */
+    public static Optional<PeriodInterval> fromPeriod(Period period) {
+        try {
+            if (period instanceof InstantPeriod p) {
+                LocalDateTime instant = parseEndDateTime(p.instant());
+                return Optional.of(new PeriodInterval(instant, instant));
+            } else if (period instanceof DurationPeriod p) {
+                LocalDateTime start = parseStartDateTime(p.startDate());
+                LocalDateTime end = parseEndDateTime(p.endDate());
+                return start.isAfter(end) ? Optional.empty() : Optional.of(new PeriodInterval(start, end));
+            } else {
+                return Optional.of(FOREVER);
+            }
+        } catch (DateTimeParseException e) {
+            return Optional.empty();
+        }
+    }
+
+    public static LocalDateTime parseStartDateTime(String dateOrDateTime) {
+        return parse(dateOrDateTime, false);
+    }
+
+    public static LocalDateTime parseEndDateTime(String dateOrDateTime) {
+        return parse(dateOrDateTime, true);
+    }
+
+    private static LocalDateTime parse(String dateOrDateTime, boolean dateMeansEndOfDay) {
+        String s = dateOrDateTime.strip();
+
+        if (s.contains("T")) {
+            TemporalAccessor parsed = DateTimeFormatter.ISO_DATE_TIME.parse(s);
+            return LocalDateTime.from(parsed);
+        } else {
+            LocalDate date = LocalDate.from(DateTimeFormatter.ISO_DATE.parse(s));
+            return dateMeansEndOfDay ? date.plusDays(1).atStartOfDay() : date.atStartOfDay();
+        }
+    }
+}
@@ -0,0 +1,38 @@
+/*
+ * Copyright 2024-2024 Chris de Vreeze
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package eu.cdevreeze.xbrl4j.instance;
+
+import com.google.common.collect.ImmutableList;
+
+import javax.xml.namespace.QName;
+
+/**
+ * XBRL unit ("xbrli:unit"). For units without "xbrli:divide", the denominators are empty.
+ *
+ * @author Chris de Vreeze
+ */
+public record Unit(
+        String id,
+        ImmutableList<QName> numerators,
+        ImmutableList<QName> denominators
+) implements InstanceComponent {
+
+    public boolean isDivide() {
+        return !denominators.isEmpty();
+    }
+}
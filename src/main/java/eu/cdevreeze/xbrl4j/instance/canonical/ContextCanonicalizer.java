@@ -0,0 +1,147 @@
+/*
+ * Copyright 2024-2024 Chris de Vreeze
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package eu.cdevreeze.xbrl4j.instance.canonical;
+
+import com.google.common.collect.ImmutableList;
+import eu.cdevreeze.xbrl4j.instance.Context;
+import eu.cdevreeze.xbrl4j.instance.Unit;
+
+import java.util.*;
+
+/**
+ * Hash-consing canonicalizer of contexts and units. Each context and unit is reduced to a canonical key
+ * (ContextKey or UnitKey), which is interned, so s-equal contexts (or units) share one key object and one dense ID,
+ * regardless of their IDs in the instance. For each key, the first context (or unit) added is kept as the
+ * canonical context (or unit), which can be shared by all facts referring to any s-equal context (or unit).
+ * <p>
+ * Typical usage is to add all contexts and units of an instance (e.g. while streaming it with the
+ * StreamingInstanceReader), after which facts can be mapped to canonical keys through their contextRef and unitRef.
+ * Comparing facts for context or unit s-equality then amounts to comparing int IDs.
+ * <p>
+ * This class is mutable and not thread-safe while contexts and units are being added. Once fully populated,
+ * it can safely be queried concurrently, provided it has been safely published.
+ *
+ * @author Chris de Vreeze
+ */
+public final class ContextCanonicalizer {
+
+    private final Map<ContextKey, ContextKey> internedContextKeys = new HashMap<>();
+    private final List<ContextKey> contextKeysInIdOrder = new ArrayList<>();
+    private final List<Context> canonicalContexts = new ArrayList<>();
+    private final Map<String, ContextKey> contextKeysById = new HashMap<>();
+
+    private final Map<UnitKey, UnitKey> internedUnitKeys = new HashMap<>();
+    private final List<UnitKey> unitKeysInIdOrder = new ArrayList<>();
+    private final List<Unit> canonicalUnits = new ArrayList<>();
+    private final Map<String, UnitKey> unitKeysById = new HashMap<>();
+
+    public ContextCanonicalizer() {
+    }
+
+    /**
+     * Adds the given context, returning its interned canonical key.
+     */
+    public ContextKey addContext(Context context) {
+        ContextKey key = internedContextKeys.computeIfAbsent(ContextKey.from(context), k -> {
+            ContextKey internedKey = k.withId(contextKeysInIdOrder.size());
+            contextKeysInIdOrder.add(internedKey);
+            canonicalContexts.add(context);
+            return internedKey;
+        });
+        contextKeysById.putIfAbsent(context.id(), key);
+        return key;
+    }
+
+    /**
+     * Adds the given unit, returning its interned canonical key.
+     */
+    public UnitKey addUnit(Unit unit) {
+        UnitKey key = internedUnitKeys.computeIfAbsent(UnitKey.from(unit), k -> {
+            UnitKey internedKey = k.withId(unitKeysInIdOrder.size());
+            unitKeysInIdOrder.add(internedKey);
+            canonicalUnits.add(unit);
+            return internedKey;
+        });
+        unitKeysById.putIfAbsent(unit.id(), key);
+        return key;
+    }
+
+    public Optional<ContextKey> findContextKey(String contextId) {
+        return Optional.ofNullable(contextKeysById.get(contextId));
+    }
+
+    public Optional<UnitKey> findUnitKey(String unitId) {
+        return Optional.ofNullable(unitKeysById.get(unitId));
+    }
+
+    /**
+     * Returns the dense ID of the canonical key of the context with the given ID, or -1 if not found.
+     */
+    public int contextKeyIdOrMinusOne(String contextId) {
+        ContextKey key = contextKeysById.get(contextId);
+        return (key == null) ? -1 : key.id();
+    }
+
+    public int unitKeyIdOrMinusOne(String unitId) {
+        UnitKey key = unitKeysById.get(unitId);
+        return (key == null) ? -1 : key.id();
+    }
+
+    public ContextKey contextKey(int contextKeyId) {
+        return contextKeysInIdOrder.get(contextKeyId);
+    }
+
+    public UnitKey unitKey(int unitKeyId) {
+        return unitKeysInIdOrder.get(unitKeyId);
+    }
+
+    public Context canonicalContext(ContextKey key) {
+        return canonicalContexts.get(internedContextKeys.get(key).id());
+    }
+
+    public Unit canonicalUnit(UnitKey key) {
+        return canonicalUnits.get(internedUnitKeys.get(key).id());
+    }
+
+    /**
+     * Returns the canonical context that is s-equal to the context with the given ID, if any.
+     */
+    public Optional<Context> findCanonicalContext(String contextId) {
+        return findContextKey(contextId).map(k -> canonicalContexts.get(k.id()));
+    }
+
+    public Optional<Unit> findCanonicalUnit(String unitId) {
+        return findUnitKey(unitId).map(k -> canonicalUnits.get(k.id()));
+    }
+
+    public int distinctContextCount() {
+        return contextKeysInIdOrder.size();
+    }
+
+    public int distinctUnitCount() {
+        return unitKeysInIdOrder.size();
+    }
+
+    public ImmutableList<ContextKey> contextKeys() {
+        return ImmutableList.copyOf(contextKeysInIdOrder);
+    }
+
+    public ImmutableList<UnitKey> unitKeys() {
+        return ImmutableList.copyOf(unitKeysInIdOrder);
+    }
+}
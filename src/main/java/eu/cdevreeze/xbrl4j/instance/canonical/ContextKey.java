@@ -0,0 +1,194 @@
+/*
+ * Copyright 2024-2024 Chris de Vreeze
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package eu.cdevreeze.xbrl4j.instance.canonical;
+
+import com.google.common.collect.ImmutableList;
+import eu.cdevreeze.xbrl4j.instance.*;
+import eu.cdevreeze.yaidom4j.dom.immutabledom.Element;
+import eu.cdevreeze.yaidom4j.dom.immutabledom.Node;
+import eu.cdevreeze.yaidom4j.dom.immutabledom.Text;
+
+import java.util.Comparator;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+
+/**
+ * Canonical key of a context, capturing the entity identifier, the period and the segment and scenario content.
+ * Two contexts that are s-equal (in the sense of the XBRL 2.1 specification, approximately) have equal keys.
+ * <p>
+ * Canonicalization is as follows: periods are compared as date-time intervals (so "2024-12-31" as instant equals
+ * "2025-01-01T00:00:00"), dimension members are sorted by dimension, and typed member content and other segment or
+ * scenario content are compared by a canonical string representation (with sorted attributes and whitespace-stripped
+ * text), which approximates XML Schema value equality. The hash code is computed once, at construction.
+ * <p>
+ * After interning by a ContextCanonicalizer, a ContextKey also carries a dense ID, which is not part of the
+ * equality of keys.
+ *
+ * @author Chris de Vreeze
+ */
+public final class ContextKey {
+
+    private final EntityIdentifier entityIdentifier;
+    private final Object period; // Either a PeriodInterval or, if unparsable, the original Period
+    private final ImmutableList<String> segmentContent;
+    private final ImmutableList<String> scenarioContent;
+    private final int hash;
+    private final int id;
+
+    private ContextKey(
+            EntityIdentifier entityIdentifier,
+            Object period,
+            ImmutableList<String> segmentContent,
+            ImmutableList<String> scenarioContent,
+            int id
+    ) {
+        this.entityIdentifier = entityIdentifier;
+        this.period = period;
+        this.segmentContent = segmentContent;
+        this.scenarioContent = scenarioContent;
+        this.hash = Objects.hash(entityIdentifier, period, segmentContent, scenarioContent);
+        this.id = id;
+    }
+
+    public EntityIdentifier entityIdentifier() {
+        return entityIdentifier;
+    }
+
+    public Optional<PeriodInterval> periodIntervalOption() {
+        return (period instanceof PeriodInterval p) ? Optional.of(p) : Optional.empty();
+    }
+
+    public ImmutableList<String> segmentContent() {
+        return segmentContent;
+    }
+
+    public ImmutableList<String> scenarioContent() {
+        return scenarioContent;
+    }
+
+    /**
+     * Returns the dense ID assigned by the ContextCanonicalizer that interned this key, or -1 if not interned.
+     */
+    public int id() {
+        return id;
+    }
+
+    ContextKey withId(int newId) {
+        return new ContextKey(entityIdentifier, period, segmentContent, scenarioContent, newId);
+    }
+
+    @Override
+    public boolean equals(Object other) {
+        if (this == other) {
+            return true;
+        } else if (other instanceof ContextKey otherKey) {
+            return hash == otherKey.hash &&
+                    entityIdentifier.equals(otherKey.entityIdentifier) &&
+                    period.equals(otherKey.period) &&
+                    segmentContent.equals(otherKey.segmentContent) &&
+                    scenarioContent.equals(otherKey.scenarioContent);
+        } else {
+            return false;
+        }
+    }
+
+    @Override
+    public int hashCode() {
+        return hash;
+    }
+
+    @Override
+    public String toString() {
+        return "ContextKey[entityIdentifier=" + entityIdentifier + ", period=" + period +
+                ", segmentContent=" + segmentContent + ", scenarioContent=" + scenarioContent + "]";
+    }
+
+    /**
+     * Creates the (not yet interned) canonical key of the given context.
+     */
+    public static ContextKey from(Context context) {
+        return new ContextKey(
+                new EntityIdentifier(context.entityIdentifier().scheme().strip(), context.entityIdentifier().value().strip()),
+                PeriodInterval.fromPeriod(context.period()).map(p -> (Object) p).orElse(context.period()),
+                canonicalContent(context.segmentDimensions(), context.otherSegmentContent()),
+                canonicalContent(context.scenarioDimensions(), context.otherScenarioContent()),
+                -1
+        );
+    }
+
+    private static ImmutableList<String> canonicalContent(
+            ImmutableList<DimensionMember> dimensions,
+            ImmutableList<Element> otherContent
+    ) {
+        ImmutableList.Builder<String> builder = ImmutableList.builder();
+        dimensions.stream()
+                .map(ContextKey::canonicalString)
+                .sorted()
+                .forEach(builder::add);
+        // Non-dimensional content is order-sensitive
+        otherContent.stream()
+                .map(ContextKey::canonicalString)
+                .forEach(builder::add);
+        return builder.build();
+    }
+
+    /**
+     * Returns the canonical string of the member of the given dimension member, that is, the expanded name
+     * of an explicit member, or the canonical string of the content of a typed member.
+     */
+    public static String canonicalMemberString(DimensionMember dimensionMember) {
+        if (dimensionMember instanceof ExplicitMember explicitMember) {
+            return explicitMember.member().toString();
+        } else {
+            return canonicalString(((TypedMember) dimensionMember).content());
+        }
+    }
+
+    private static String canonicalString(DimensionMember dimensionMember) {
+        return dimensionMember.dimension() + "=" + canonicalMemberString(dimensionMember);
+    }
+
+    /**
+     * Returns the canonical string representation of the given element, with sorted attributes and
+     * whitespace-stripped text.
+     */
+    public static String canonicalString(Element element) {
+        StringBuilder sb = new StringBuilder();
+        appendCanonicalString(element, sb);
+        return sb.toString();
+    }
+
+    private static void appendCanonicalString(Element element, StringBuilder sb) {
+        sb.append('<').append(element.name());
+        element.attributes().entrySet()
+                .stream()
+                .sorted(Map.Entry.comparingByKey(Comparator.comparing(Object::toString)))
+                .forEach(kv -> sb.append(' ').append(kv.getKey()).append("=\"").append(kv.getValue().strip()).append('"'));
+        sb.append('>');
+
+        for (Node child : element.children()) {
+            if (child instanceof Element childElement) {
+                appendCanonicalString(childElement, sb);
+            } else if (child instanceof Text text) {
+                sb.append(text.value().strip());
+            }
+        }
+        sb.append("</").append(element.name()).append('>');
+    }
+}
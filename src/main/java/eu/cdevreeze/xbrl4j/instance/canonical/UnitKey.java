@@ -0,0 +1,108 @@
+/*
+ * Copyright 2024-2024 Chris de Vreeze
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package eu.cdevreeze.xbrl4j.instance.canonical;
+
+import com.google.common.collect.ImmutableList;
+import eu.cdevreeze.xbrl4j.instance.Unit;
+
+import javax.xml.namespace.QName;
+import java.util.Comparator;
+import java.util.Objects;
+
+/**
+ * Canonical key of a unit, holding the numerator and denominator measures, each sorted by expanded name.
+ * Two units that are s-equal have equal keys. The hash code is computed once, at construction.
+ * <p>
+ * After interning by a ContextCanonicalizer, a UnitKey also carries a dense ID, which is not part of the
+ * equality of keys.
+ *
+ * @author Chris de Vreeze
+ */
+public final class UnitKey {
+
+    private static final Comparator<QName> QNAME_COMPARATOR =
+            Comparator.comparing(QName::getNamespaceURI).thenComparing(QName::getLocalPart);
+
+    private final ImmutableList<QName> numerators;
+    private final ImmutableList<QName> denominators;
+    private final int hash;
+    private final int id;
+
+    private UnitKey(ImmutableList<QName> numerators, ImmutableList<QName> denominators, int id) {
+        this.numerators = numerators;
+        this.denominators = denominators;
+        this.hash = Objects.hash(numerators, denominators);
+        this.id = id;
+    }
+
+    public ImmutableList<QName> numerators() {
+        return numerators;
+    }
+
+    public ImmutableList<QName> denominators() {
+        return denominators;
+    }
+
+    /**
+     * Returns the dense ID assigned by the ContextCanonicalizer that interned this key, or -1 if not interned.
+     */
+    public int id() {
+        return id;
+    }
+
+    UnitKey withId(int newId) {
+        return new UnitKey(numerators, denominators, newId);
+    }
+
+    @Override
+    public boolean equals(Object other) {
+        if (this == other) {
+            return true;
+        } else if (other instanceof UnitKey otherKey) {
+            return hash == otherKey.hash &&
+                    numerators.equals(otherKey.numerators) &&
+                    denominators.equals(otherKey.denominators);
+        } else {
+            return false;
+        }
+    }
+
+    @Override
+    public int hashCode() {
+        return hash;
+    }
+
+    @Override
+    public String toString() {
+        return "UnitKey[numerators=" + numerators + ", denominators=" + denominators + "]";
+    }
+
+    /**
+     * Creates the (not yet interned) canonical key of the given unit. QName prefixes are dropped.
+     */
+    public static UnitKey from(Unit unit) {
+        return new UnitKey(sorted(unit.numerators()), sorted(unit.denominators()), -1);
+    }
+
+    private static ImmutableList<QName> sorted(ImmutableList<QName> measures) {
+        return measures.stream()
+                .map(n -> new QName(n.getNamespaceURI(), n.getLocalPart()))
+                .sorted(QNAME_COMPARATOR)
+                .collect(ImmutableList.toImmutableList());
+    }
+}
@@ -0,0 +1,412 @@
+/*
+ * Copyright 2024-2024 Chris de Vreeze
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package eu.cdevreeze.xbrl4j.instance.index;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import eu.cdevreeze.xbrl4j.common.collection.LongIntMultimap;
+import eu.cdevreeze.xbrl4j.instance.*;
+import eu.cdevreeze.xbrl4j.instance.canonical.ContextCanonicalizer;
+import eu.cdevreeze.xbrl4j.instance.canonical.ContextKey;
+import eu.cdevreeze.xbrl4j.taxonomy.ConceptIndex;
+
+import javax.xml.namespace.QName;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.stream.IntStream;
+
+/**
+ * Multi-aspect index of the item facts of an XBRL instance. Each fact gets a dense fact ID, and each aspect value
+ * (concept, entity, period, unit, dimension and dimension member) is encoded as an int ID. The aspect IDs of the facts
+ * are stored in columnar int arrays, and for each aspect value there is a posting list of fact IDs, in ascending order.
+ * <p>
+ * Conjunctive aspect queries (see FactQuery) are answered by intersecting posting lists, starting with the shortest one
+ * and probing the others through binary search. The cost of a query therefore depends on the size of the smallest
+ * posting list rather than on the number of facts in the instance.
+ * <p>
+ * Concept IDs are those of the ConceptIndex passed at construction (typically that of a TaxonomyBase). Concepts of facts
+ * that are unknown to that ConceptIndex get IDs beyond those of the ConceptIndex. Item facts nested in tuples are
+ * indexed as well. Contexts are canonicalized (see ContextCanonicalizer), so s-equal contexts share aspect values.
+ * Periods are compared as PeriodInterval instances, and the distinct periods are held in a PeriodIntervalIndex, so
+ * overlap and containment queries on periods do not need to scan all facts. Facts whose context cannot be found are not indexed.
+ * <p>
+ * This class is immutable and thread-safe.
+ *
+ * @author Chris de Vreeze
+ */
+public final class FactIndex {
+
+    private static final int PERIOD_UNPARSABLE = -1;
+
+    private final ConceptIndex conceptIndex;
+    private final ImmutableMap<QName, Integer> extraConceptIds;
+    private final ImmutableMap<EntityIdentifier, Integer> entityIds;
+    private final ImmutableMap<PeriodInterval, Integer> periodIds;
+    private final ImmutableMap<QName, Integer> dimensionIds;
+    private final ImmutableMap<String, Integer> memberIds;
+
+    private final ImmutableList<ItemFact> facts;
+
+    // Columns, with one entry per fact
+    private final int[] factConceptIds;
+    private final int[] factContextKeyIds;
+    private final int[] factUnitKeyIds;
+    private final int[] factEntityIds;
+    private final int[] factPeriodIds;
+
+    // Posting lists, per aspect
+    private final LongIntMultimap factsByConcept;
+    private final LongIntMultimap factsByEntity;
+    private final LongIntMultimap factsByPeriod;
+    private final LongIntMultimap factsByDimension;
+    private final LongIntMultimap factsByDimensionMember;
+
+    private final PeriodIntervalIndex periodIntervalIndex;
+
+    private final ContextCanonicalizer contextCanonicalizer;
+
+    private FactIndex(Builder builder) {
+        this.conceptIndex = builder.conceptIndex;
+        this.extraConceptIds = ImmutableMap.copyOf(builder.extraConceptIds);
+        this.entityIds = ImmutableMap.copyOf(builder.entityIds);
+        this.periodIds = ImmutableMap.copyOf(builder.periodIds);
+        this.dimensionIds = ImmutableMap.copyOf(builder.dimensionIds);
+        this.memberIds = ImmutableMap.copyOf(builder.memberIds);
+        this.facts = ImmutableList.copyOf(builder.indexedFacts);
+        this.factConceptIds = Arrays.copyOf(builder.factConceptIds, facts.size());
+        this.factContextKeyIds = Arrays.copyOf(builder.factContextKeyIds, facts.size());
+        this.factUnitKeyIds = Arrays.copyOf(builder.factUnitKeyIds, facts.size());
+        this.factEntityIds = Arrays.copyOf(builder.factEntityIds, facts.size());
+        this.factPeriodIds = Arrays.copyOf(builder.factPeriodIds, facts.size());
+        this.factsByConcept = builder.factsByConcept.build();
+        this.factsByEntity = builder.factsByEntity.build();
+        this.factsByPeriod = builder.factsByPeriod.build();
+        this.factsByDimension = builder.factsByDimension.build();
+        this.factsByDimensionMember = builder.factsByDimensionMember.build();
+        this.periodIntervalIndex = PeriodIntervalIndex.build(periodIds.keySet().asList());
+        this.contextCanonicalizer = builder.contextCanonicalizer;
+    }
+
+    public int factCount() {
+        return facts.size();
+    }
+
+    public ItemFact fact(int factId) {
+        return facts.get(factId);
+    }
+
+    public ImmutableList<ItemFact> facts() {
+        return facts;
+    }
+
+    public ContextCanonicalizer contextCanonicalizer() {
+        return contextCanonicalizer;
+    }
+
+    /**
+     * Returns the index of the distinct (parsable) periods of the facts, where the interval IDs are the period IDs.
+     */
+    public PeriodIntervalIndex periodIntervalIndex() {
+        return periodIntervalIndex;
+    }
+
+    public int conceptId(int factId) {
+        return factConceptIds[factId];
+    }
+
+    /**
+     * Returns the dense ID of the canonical context key of the given fact (see ContextCanonicalizer).
+     */
+    public int contextKeyId(int factId) {
+        return factContextKeyIds[factId];
+    }
+
+    /**
+     * Returns the dense ID of the canonical unit key of the given fact, or -1 if the fact has no (known) unit.
+     */
+    public int unitKeyId(int factId) {
+        return factUnitKeyIds[factId];
+    }
+
+    public int entityId(int factId) {
+        return factEntityIds[factId];
+    }
+
+    /**
+     * Returns the period ID of the given fact, or -1 if the period of the fact could not be parsed.
+     */
+    public int periodId(int factId) {
+        return factPeriodIds[factId];
+    }
+
+    public OptionalInt conceptIdOption(QName conceptName) {
+        OptionalInt conceptIdOption = conceptIndex.conceptIdOption(conceptName);
+
+        if (conceptIdOption.isPresent()) {
+            return conceptIdOption;
+        }
+        Integer extraConceptId = extraConceptIds.get(conceptName);
+        return (extraConceptId == null) ? OptionalInt.empty() : OptionalInt.of(extraConceptId);
+    }
+
+    /**
+     * Returns the IDs of the facts matching the given query, in ascending order.
+     */
+    public int[] findFactIds(FactQuery query) {
+        List<PostingList> postingLists = new ArrayList<>();
+
+        if (query.conceptOption().isPresent()) {
+            OptionalInt conceptIdOption = conceptIdOption(query.conceptOption().get());
+            postingLists.add(new MultimapPostingList(factsByConcept, conceptIdOption.orElse(-1)));
+        }
+        query.entityOption().ifPresent(entity ->
+                postingLists.add(new MultimapPostingList(factsByEntity, entityIds.getOrDefault(entity, -1))));
+        query.periodOption().ifPresent(period ->
+                postingLists.add(new MultimapPostingList(factsByPeriod, periodIds.getOrDefault(period, -1))));
+        query.overlappingIntervalOption().ifPresent(interval ->
+                postingLists.add(factIdsForPeriodIds(periodIntervalIndex.findOverlapping(interval))));
+        query.containingIntervalOption().ifPresent(interval ->
+                postingLists.add(factIdsForPeriodIds(periodIntervalIndex.findContainedIn(interval))));
+
+        for (var dimensionAndMember : query.explicitDimensionMembers().entrySet()) {
+            int dimensionId = dimensionIds.getOrDefault(dimensionAndMember.getKey(), -1);
+            int memberId = memberIds.getOrDefault(dimensionAndMember.getValue().toString(), -1);
+            postingLists.add(new MultimapPostingList(factsByDimensionMember, dimensionMemberKey(dimensionId, memberId)));
+        }
+        for (QName dimension : query.requiredDimensions()) {
+            postingLists.add(new MultimapPostingList(factsByDimension, dimensionIds.getOrDefault(dimension, -1)));
+        }
+
+        if (postingLists.isEmpty()) {
+            return IntStream.range(0, facts.size()).toArray();
+        }
+        postingLists.sort(Comparator.comparingInt(PostingList::size));
+        return intersect(postingLists);
+    }
+
+    public ImmutableList<ItemFact> findFacts(FactQuery query) {
+        return Arrays.stream(findFactIds(query)).mapToObj(facts::get).collect(ImmutableList.toImmutableList());
+    }
+
+    public int countFacts(FactQuery query) {
+        return findFactIds(query).length;
+    }
+
+    /**
+     * Returns the IDs of the facts whose period is an instant at the given date-time. Note that date-only instants
+     * are interpreted as the start of the next day (see PeriodInterval).
+     */
+    public int[] findFactIdsWithInstantAt(LocalDateTime dateTime) {
+        return factIdsForPeriodIds(periodIntervalIndex.findInstantsAt(dateTime)).factIds();
+    }
+
+    /**
+     * Returns the IDs of the facts whose period is an instant within the given interval.
+     */
+    public int[] findFactIdsWithInstantIn(PeriodInterval interval) {
+        return factIdsForPeriodIds(periodIntervalIndex.findInstantsIn(interval)).factIds();
+    }
+
+    private ArrayPostingList factIdsForPeriodIds(int[] periodIdsToMatch) {
+        int size = Arrays.stream(periodIdsToMatch).map(factsByPeriod::count).sum();
+        int[] result = new int[size];
+        int offset = 0;
+
+        for (int periodId : periodIdsToMatch) {
+            for (int i = 0, n = factsByPeriod.count(periodId); i < n; i++) {
+                result[offset++] = factsByPeriod.get(periodId, i);
+            }
+        }
+        Arrays.sort(result);
+        return new ArrayPostingList(result);
+    }
+
+    private static int[] intersect(List<PostingList> postingListsSortedBySize) {
+        PostingList smallest = postingListsSortedBySize.get(0);
+        int[] result = new int[smallest.size()];
+        int resultSize = 0;
+
+        for (int i = 0; i < smallest.size(); i++) {
+            int factId = smallest.get(i);
+            boolean inAll = true;
+
+            for (int j = 1; j < postingListsSortedBySize.size() && inAll; j++) {
+                inAll = postingListsSortedBySize.get(j).contains(factId);
+            }
+            if (inAll) {
+                result[resultSize++] = factId;
+            }
+        }
+        return Arrays.copyOf(result, resultSize);
+    }
+
+    private interface PostingList {
+
+        int size();
+
+        int get(int index);
+
+        boolean contains(int factId);
+    }
+
+    private record MultimapPostingList(LongIntMultimap multimap, long key) implements PostingList {
+
+        @Override
+        public int size() {
+            return multimap.count(key);
+        }
+
+        @Override
+        public int get(int index) {
+            return multimap.get(key, index);
+        }
+
+        @Override
+        public boolean contains(int factId) {
+            return multimap.binarySearch(key, factId) >= 0;
+        }
+    }
+
+    private record ArrayPostingList(int[] factIds) implements PostingList {
+
+        @Override
+        public int size() {
+            return factIds.length;
+        }
+
+        @Override
+        public int get(int index) {
+            return factIds[index];
+        }
+
+        @Override
+        public boolean contains(int factId) {
+            return Arrays.binarySearch(factIds, factId) >= 0;
+        }
+    }
+
+    private static long dimensionMemberKey(int dimensionId, int memberId) {
+        return (dimensionId < 0 || memberId < 0) ? -1L : ((long) dimensionId << 32) | memberId;
+    }
+
+    /**
+     * Builds a FactIndex from the given instance components, typically produced by the StreamingInstanceReader.
+     * Contexts and units may occur before or after the facts referring to them.
+     */
+    public static FactIndex build(Iterable<? extends InstanceComponent> instanceComponents, ConceptIndex conceptIndex) {
+        List<ItemFact> itemFacts = new ArrayList<>();
+        Builder builder = new Builder(conceptIndex);
+
+        for (InstanceComponent component : instanceComponents) {
+            if (component instanceof Context context) {
+                builder.contextCanonicalizer.addContext(context);
+            } else if (component instanceof Unit unit) {
+                builder.contextCanonicalizer.addUnit(unit);
+            } else if (component instanceof Fact fact) {
+                collectItemFacts(fact, itemFacts);
+            }
+        }
+        itemFacts.forEach(builder::addFact);
+        return new FactIndex(builder);
+    }
+
+    private static void collectItemFacts(Fact fact, List<ItemFact> result) {
+        if (fact instanceof ItemFact itemFact) {
+            result.add(itemFact);
+        } else {
+            ((TupleFact) fact).children().forEach(ch -> collectItemFacts(ch, result));
+        }
+    }
+
+    private static final class Builder {
+
+        private final ConceptIndex conceptIndex;
+        private final ContextCanonicalizer contextCanonicalizer = new ContextCanonicalizer();
+        private final Map<QName, Integer> extraConceptIds = new LinkedHashMap<>();
+        private final Map<EntityIdentifier, Integer> entityIds = new LinkedHashMap<>();
+        private final Map<PeriodInterval, Integer> periodIds = new LinkedHashMap<>();
+        private final Map<QName, Integer> dimensionIds = new LinkedHashMap<>();
+        private final Map<String, Integer> memberIds = new LinkedHashMap<>();
+        private final List<ItemFact> indexedFacts = new ArrayList<>();
+        private int[] factConceptIds = new int[16];
+        private int[] factContextKeyIds = new int[16];
+        private int[] factUnitKeyIds = new int[16];
+        private int[] factEntityIds = new int[16];
+        private int[] factPeriodIds = new int[16];
+        private final LongIntMultimap.Builder factsByConcept = LongIntMultimap.builder();
+        private final LongIntMultimap.Builder factsByEntity = LongIntMultimap.builder();
+        private final LongIntMultimap.Builder factsByPeriod = LongIntMultimap.builder();
+        private final LongIntMultimap.Builder factsByDimension = LongIntMultimap.builder();
+        private final LongIntMultimap.Builder factsByDimensionMember = LongIntMultimap.builder();
+
+        private Builder(ConceptIndex conceptIndex) {
+            this.conceptIndex = conceptIndex;
+        }
+
+        private void addFact(ItemFact fact) {
+            Optional<ContextKey> contextKeyOption = contextCanonicalizer.findContextKey(fact.contextRef());
+
+            if (contextKeyOption.isEmpty()) {
+                return;
+            }
+            ContextKey contextKey = contextKeyOption.get();
+            Context context = contextCanonicalizer.canonicalContext(contextKey);
+            int factId = indexedFacts.size();
+            indexedFacts.add(fact);
+            ensureCapacity(factId + 1);
+
+            int conceptId = conceptIndex.conceptIdOrMinusOne(fact.name());
+            if (conceptId < 0) {
+                conceptId = extraConceptIds.computeIfAbsent(fact.name(), n -> conceptIndex.size() + extraConceptIds.size());
+            }
+            int entityId = entityIds.computeIfAbsent(contextKey.entityIdentifier(), e -> entityIds.size());
+            int periodId = contextKey.periodIntervalOption()
+                    .map(p -> periodIds.computeIfAbsent(p, k -> periodIds.size()))
+                    .orElse(PERIOD_UNPARSABLE);
+
+            factConceptIds[factId] = conceptId;
+            factContextKeyIds[factId] = contextKey.id();
+            factUnitKeyIds[factId] = fact.unitRefOption().map(contextCanonicalizer::unitKeyIdOrMinusOne).orElse(-1);
+            factEntityIds[factId] = entityId;
+            factPeriodIds[factId] = periodId;
+
+            factsByConcept.put(conceptId, factId);
+            factsByEntity.put(entityId, factId);
+            if (periodId >= 0) {
+                factsByPeriod.put(periodId, factId);
+            }
+            for (DimensionMember dimensionMember : context.dimensions()) {
+                int dimensionId = dimensionIds.computeIfAbsent(dimensionMember.dimension(), d -> dimensionIds.size());
+                int memberId = memberIds.computeIfAbsent(ContextKey.canonicalMemberString(dimensionMember), m -> memberIds.size());
+                factsByDimension.put(dimensionId, factId);
+                factsByDimensionMember.put(dimensionMemberKey(dimensionId, memberId), factId);
+            }
+        }
+
+        private void ensureCapacity(int size) {
+            if (size > factConceptIds.length) {
+                int newLength = Math.max(size, 2 * factConceptIds.length);
+                factConceptIds = Arrays.copyOf(factConceptIds, newLength);
+                factContextKeyIds = Arrays.copyOf(factContextKeyIds, newLength);
+                factUnitKeyIds = Arrays.copyOf(factUnitKeyIds, newLength);
+                factEntityIds = Arrays.copyOf(factEntityIds, newLength);
+                factPeriodIds = Arrays.copyOf(factPeriodIds, newLength);
+            }
+        }
+    }
+}
@@ -0,0 +1,151 @@
+/*
+ * Copyright 2024-2024 Chris de Vreeze
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package eu.cdevreeze.xbrl4j.instance.index;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import eu.cdevreeze.xbrl4j.instance.EntityIdentifier;
+import eu.cdevreeze.xbrl4j.instance.PeriodInterval;
+
+import javax.xml.namespace.QName;
+import java.util.Optional;
+
+/**
+ * Conjunctive query on the aspects of item facts, to be answered by a FactIndex. Aspects that are not
+ * specified are not constrained. Dimension constraints are on explicit dimensions, where the member is given as QName.
+ * <p>
+ * The periodOption requires an exact period match, the overlappingIntervalOption requires the fact period to overlap
+ * with the given interval, and the containingIntervalOption requires the fact period to be contained in the given interval.
+ *
+ * @author Chris de Vreeze
+ */
+public record FactQuery(
+        Optional<QName> conceptOption,
+        Optional<EntityIdentifier> entityOption,
+        Optional<PeriodInterval> periodOption,
+        Optional<PeriodInterval> overlappingIntervalOption,
+        Optional<PeriodInterval> containingIntervalOption,
+        ImmutableMap<QName, QName> explicitDimensionMembers,
+        ImmutableList<QName> requiredDimensions
+) {
+
+    public FactQuery withConcept(QName concept) {
+        return new FactQuery(
+                Optional.of(concept),
+                entityOption,
+                periodOption,
+                overlappingIntervalOption,
+                containingIntervalOption,
+                explicitDimensionMembers,
+                requiredDimensions
+        );
+    }
+
+    public FactQuery withEntity(EntityIdentifier entity) {
+        return new FactQuery(
+                conceptOption,
+                Optional.of(entity),
+                periodOption,
+                overlappingIntervalOption,
+                containingIntervalOption,
+                explicitDimensionMembers,
+                requiredDimensions
+        );
+    }
+
+    public FactQuery withPeriod(PeriodInterval period) {
+        return new FactQuery(
+                conceptOption,
+                entityOption,
+                Optional.of(period),
+                overlappingIntervalOption,
+                containingIntervalOption,
+                explicitDimensionMembers,
+                requiredDimensions
+        );
+    }
+
+    /**
+     * Returns an adapted query that requires the period of the facts to overlap with the given interval.
+     */
+    public FactQuery withPeriodOverlapping(PeriodInterval interval) {
+        return new FactQuery(
+                conceptOption,
+                entityOption,
+                periodOption,
+                Optional.of(interval),
+                containingIntervalOption,
+                explicitDimensionMembers,
+                requiredDimensions
+        );
+    }
+
+    /**
+     * Returns an adapted query that requires the period of the facts to be contained in the given interval.
+     */
+    public FactQuery withPeriodContainedIn(PeriodInterval interval) {
+        return new FactQuery(
+                conceptOption,
+                entityOption,
+                periodOption,
+                overlappingIntervalOption,
+                Optional.of(interval),
+                explicitDimensionMembers,
+                requiredDimensions
+        );
+    }
+
+    public FactQuery withExplicitDimensionMember(QName dimension, QName member) {
+        return new FactQuery(
+                conceptOption,
+                entityOption,
+                periodOption,
+                overlappingIntervalOption,
+                containingIntervalOption,
+                ImmutableMap.<QName, QName>builder().putAll(explicitDimensionMembers).put(dimension, member).buildKeepingLast(),
+                requiredDimensions
+        );
+    }
+
+    /**
+     * Returns an adapted query that requires the facts to have the given dimension, with any member.
+     */
+    public FactQuery withDimension(QName dimension) {
+        return new FactQuery(
+                conceptOption,
+                entityOption,
+                periodOption,
+                overlappingIntervalOption,
+                containingIntervalOption,
+                explicitDimensionMembers,
+                ImmutableList.<QName>builder().addAll(requiredDimensions).add(dimension).build()
+        );
+    }
+
+    public static FactQuery defaultInstance() {
+        return new FactQuery(
+                Optional.empty(),
+                Optional.empty(),
+                Optional.empty(),
+                Optional.empty(),
+                Optional.empty(),
+                ImmutableMap.of(),
+                ImmutableList.of()
+        );
+    }
+}
@@ -0,0 +1,420 @@
+/*
+ * Copyright 2024-2024 Chris de Vreeze
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package eu.cdevreeze.xbrl4j.instance.index;
+
+import com.google.common.collect.ImmutableList;
+import eu.cdevreeze.xbrl4j.common.collection.LongIntHashMap;
+import eu.cdevreeze.xbrl4j.instance.ItemFact;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+/**
+ * Columnar numeric values of the facts in a FactIndex, indexed by fact ID. Each numeric value is stored as an
+ * unscaled long with a (byte) scale, that is, as value &times; 10<sup>scale</sup>, if it fits. Only the values
+ * that do not fit (more than 18 significant digits, or a scale beyond the byte range) are stored as BigDecimal,
+ * in a sparse fallback column. Decimals and precision attributes are stored as byte columns.
+ * <p>
+ * Values are parsed once, at construction, without creating any objects for the common case of plain decimal
+ * notation. Comparisons, sums and rounding work on the columns directly in exact long arithmetic, falling back
+ * to BigDecimal arithmetic only if the long arithmetic overflows (or a value is in the fallback column).
+ * <p>
+ * Only non-nil facts with a unit and a valid lexical decimal value have a numeric value. Decimals and precision
+ * are returned as ints, with {@link #INF} for "INF" and {@link #NONE} for absent or invalid values (including
+ * values beyond the byte range).
+ * <p>
+ * This class is immutable and thread-safe.
+ *
+ * @author Chris de Vreeze
+ */
+public final class NumericColumns {
+
+    public static final int INF = Integer.MAX_VALUE;
+    public static final int NONE = Integer.MIN_VALUE;
+
+    // Byte encodings of INF and NONE in the decimals and precision columns
+    private static final byte INF_BYTE = Byte.MAX_VALUE;
+    private static final byte NONE_BYTE = Byte.MIN_VALUE;
+
+    // Special scales, meaning no value or a value in the fallback column, respectively
+    private static final byte NO_VALUE_SCALE = Byte.MIN_VALUE;
+    private static final byte FALLBACK_SCALE = Byte.MAX_VALUE;
+
+    private static final int MAX_LONG_DIGITS = 18;
+
+    private static final long[] POWERS_OF_TEN = new long[19];
+
+    static {
+        POWERS_OF_TEN[0] = 1L;
+        for (int i = 1; i < POWERS_OF_TEN.length; i++) {
+            POWERS_OF_TEN[i] = 10L * POWERS_OF_TEN[i - 1];
+        }
+    }
+
+    private final long[] unscaledValues;
+    private final byte[] scales;
+    private final LongIntHashMap fallbackIndexesByFactId;
+    private final ImmutableList<BigDecimal> fallbackValues;
+    private final byte[] decimals;
+    private final byte[] precisions;
+
+    private NumericColumns(
+            long[] unscaledValues,
+            byte[] scales,
+            LongIntHashMap fallbackIndexesByFactId,
+            ImmutableList<BigDecimal> fallbackValues,
+            byte[] decimals,
+            byte[] precisions
+    ) {
+        this.unscaledValues = unscaledValues;
+        this.scales = scales;
+        this.fallbackIndexesByFactId = fallbackIndexesByFactId;
+        this.fallbackValues = fallbackValues;
+        this.decimals = decimals;
+        this.precisions = precisions;
+    }
+
+    public int factCount() {
+        return scales.length;
+    }
+
+    public boolean hasValue(int factId) {
+        return scales[factId] != NO_VALUE_SCALE;
+    }
+
+    /**
+     * Returns true if the fact has a numeric value that is stored as unscaled long and scale.
+     */
+    public boolean fitsInLong(int factId) {
+        return scales[factId] != NO_VALUE_SCALE && scales[factId] != FALLBACK_SCALE;
+    }
+
+    /**
+     * Returns the unscaled value, if the value fits in a long, and throws an ArithmeticException otherwise.
+     */
+    public long unscaledValue(int factId) {
+        checkFitsInLong(factId);
+        return unscaledValues[factId];
+    }
+
+    /**
+     * Returns the scale, if the value fits in a long, and throws an ArithmeticException otherwise.
+     */
+    public int scale(int factId) {
+        checkFitsInLong(factId);
+        return scales[factId];
+    }
+
+    /**
+     * Returns the numeric value as BigDecimal, which is created for values that fit in a long.
+     * Throws an IllegalArgumentException if the fact has no numeric value.
+     */
+    public BigDecimal value(int factId) {
+        if (fitsInLong(factId)) {
+            return BigDecimal.valueOf(unscaledValues[factId], scales[factId]);
+        } else if (hasValue(factId)) {
+            return fallbackValues.get(fallbackIndexesByFactId.get(factId, -1));
+        } else {
+            throw new IllegalArgumentException("Fact " + factId + " has no numeric value");
+        }
+    }
+
+    public int decimals(int factId) {
+        return fromByte(decimals[factId]);
+    }
+
+    public int precision(int factId) {
+        return fromByte(precisions[factId]);
+    }
+
+    /**
+     * Returns the decimals of the fact, or, if absent, the decimals inferred from its precision, as specified in
+     * section 4.6.6 of the XBRL 2.1 specification. Returns NONE if there is no numeric value or no usable decimals
+     * or precision.
+     */
+    public int inferredDecimals(int factId) {
+        if (!hasValue(factId)) {
+            return NONE;
+        } else if (decimals[factId] != NONE_BYTE) {
+            return decimals(factId);
+        }
+
+        int precision = precision(factId);
+        if (precision == INF || precision == NONE) {
+            return precision;
+        } else if (precision == 0) {
+            return NONE;
+        }
+
+        if (fitsInLong(factId)) {
+            if (unscaledValues[factId] == 0L) {
+                return INF;
+            }
+            return precision - (digitCount(Math.abs(unscaledValues[factId])) - scales[factId]);
+        } else {
+            return inferredDecimals(value(factId), precision);
+        }
+    }
+
+    /**
+     * Returns the decimals inferred from the given precision for the given value, as specified in section 4.6.6 of
+     * the XBRL 2.1 specification. Returns INF for precision INF or a zero value, and NONE for precision NONE or 0.
+     */
+    public static int inferredDecimals(BigDecimal value, int precision) {
+        if (precision == INF || precision == NONE) {
+            return precision;
+        } else if (precision == 0) {
+            return NONE;
+        } else if (value.signum() == 0) {
+            return INF;
+        }
+        return precision - (value.precision() - value.scale());
+    }
+
+    /**
+     * Compares the numeric values of the given facts, which must both have a numeric value.
+     */
+    public int compare(int factId1, int factId2) {
+        if (fitsInLong(factId1) && fitsInLong(factId2)) {
+            try {
+                int scale = Math.max(scales[factId1], scales[factId2]);
+                return Long.compare(
+                        round(unscaledValues[factId1], scales[factId1], scale),
+                        round(unscaledValues[factId2], scales[factId2], scale));
+            } catch (ArithmeticException e) {
+                // Fall back to BigDecimal comparison
+            }
+        }
+        return value(factId1).compareTo(value(factId2));
+    }
+
+    /**
+     * Returns true if the numeric values of the given facts are equal when both rounded (half to even) to the
+     * given number of decimals.
+     */
+    public boolean equalWhenRounded(int factId1, int factId2, int decimalsToRoundTo) {
+        try {
+            return roundedUnscaledValue(factId1, decimalsToRoundTo) == roundedUnscaledValue(factId2, decimalsToRoundTo);
+        } catch (ArithmeticException e) {
+            return value(factId1).setScale(decimalsToRoundTo, RoundingMode.HALF_EVEN)
+                    .compareTo(value(factId2).setScale(decimalsToRoundTo, RoundingMode.HALF_EVEN)) == 0;
+        }
+    }
+
+    /**
+     * Returns the unscaled value of the fact rounded (half to even) to the given scale. Throws an ArithmeticException
+     * if the value does not fit in a long, before or after rounding.
+     */
+    public long roundedUnscaledValue(int factId, int toScale) {
+        return round(unscaledValue(factId), scales[factId], toScale);
+    }
+
+    /**
+     * Returns the exact sum of the numeric values of the given facts, which must all have a numeric value.
+     * The sum is computed in long arithmetic at the maximum scale of the values, if possible.
+     */
+    public BigDecimal sum(int[] factIds) {
+        try {
+            int scale = 0;
+            for (int factId : factIds) {
+                scale = Math.max(scale, scale(factId));
+            }
+            long sum = 0L;
+            for (int factId : factIds) {
+                sum = Math.addExact(sum, roundedUnscaledValue(factId, scale));
+            }
+            return BigDecimal.valueOf(sum, scale);
+        } catch (ArithmeticException e) {
+            BigDecimal sum = BigDecimal.ZERO;
+            for (int factId : factIds) {
+                sum = sum.add(value(factId));
+            }
+            return sum;
+        }
+    }
+
+    private void checkFitsInLong(int factId) {
+        if (!fitsInLong(factId)) {
+            throw new ArithmeticException("Fact " + factId + " has no numeric value that fits in a long");
+        }
+    }
+
+    /**
+     * Rounds the given unscaled value from the given scale to the target scale, half to even, in exact long
+     * arithmetic. Throws an ArithmeticException if the result cannot be computed exactly as a long.
+     */
+    public static long round(long unscaledValue, int fromScale, int toScale) {
+        if (toScale >= fromScale) {
+            return Math.multiplyExact(unscaledValue, powerOfTen((long) toScale - fromScale));
+        }
+        if ((long) fromScale - toScale > POWERS_OF_TEN.length) {
+            // The divisor exceeds 10 times any unscaled value, so the result rounds to zero
+            return 0L;
+        } else if ((long) fromScale - toScale == POWERS_OF_TEN.length) {
+            // The divisor 10^19 does not fit in a long, but exceeds any unscaled value, so the result is -1, 0 or 1
+            long halfDivisor = 5L * POWERS_OF_TEN[POWERS_OF_TEN.length - 1];
+            return (unscaledValue > halfDivisor || unscaledValue < -halfDivisor) ? Long.signum(unscaledValue) : 0L;
+        }
+        long divisor = powerOfTen(fromScale - toScale);
+        long quotient = unscaledValue / divisor;
+        long twiceAbsRemainder = 2L * Math.abs(unscaledValue % divisor);
+
+        if (twiceAbsRemainder > divisor || (twiceAbsRemainder == divisor && (quotient & 1L) != 0L)) {
+            quotient += Long.signum(unscaledValue);
+        }
+        return quotient;
+    }
+
+    private static long powerOfTen(long exponent) {
+        if (exponent >= POWERS_OF_TEN.length) {
+            throw new ArithmeticException("10^" + exponent + " does not fit in a long");
+        }
+        return POWERS_OF_TEN[(int) exponent];
+    }
+
+    private static int digitCount(long nonNegativeValue) {
+        int count = 1;
+        while (count < POWERS_OF_TEN.length && nonNegativeValue >= POWERS_OF_TEN[count]) {
+            count += 1;
+        }
+        return count;
+    }
+
+    private static int fromByte(byte value) {
+        return (value == INF_BYTE) ? INF : (value == NONE_BYTE) ? NONE : value;
+    }
+
+    public static NumericColumns build(FactIndex factIndex) {
+        return new Builder(factIndex.factCount()).addAll(factIndex).build();
+    }
+
+    private static final class Builder {
+
+        private final long[] unscaledValues;
+        private final byte[] scales;
+        private final LongIntHashMap.Builder fallbackIndexesByFactId = LongIntHashMap.builder();
+        private final ImmutableList.Builder<BigDecimal> fallbackValues = ImmutableList.builder();
+        private final byte[] decimals;
+        private final byte[] precisions;
+
+        Builder(int factCount) {
+            this.unscaledValues = new long[factCount];
+            this.scales = new byte[factCount];
+            this.decimals = new byte[factCount];
+            this.precisions = new byte[factCount];
+        }
+
+        Builder addAll(FactIndex factIndex) {
+            for (int factId = 0; factId < factIndex.factCount(); factId++) {
+                ItemFact fact = factIndex.fact(factId);
+                boolean numeric = !fact.nil() && factIndex.unitKeyId(factId) >= 0;
+
+                scales[factId] = NO_VALUE_SCALE;
+                if (numeric) {
+                    parseValue(fact.value().strip(), factId);
+                }
+                decimals[factId] = fact.decimalsOption().map(v -> toByte(v, false)).orElse(NONE_BYTE);
+                precisions[factId] = fact.precisionOption().map(v -> toByte(v, true)).orElse(NONE_BYTE);
+            }
+            return this;
+        }
+
+        NumericColumns build() {
+            return new NumericColumns(
+                    unscaledValues,
+                    scales,
+                    fallbackIndexesByFactId.build(),
+                    fallbackValues.build(),
+                    decimals,
+                    precisions
+            );
+        }
+
+        /**
+         * Parses the given lexical decimal into an unscaled long and scale, without creating any objects for
+         * the common case of plain decimal notation. Leaves the scale at NO_VALUE_SCALE if the value is not a number.
+         */
+        private void parseValue(String value, int factId) {
+            int length = value.length();
+            int pos = (length > 0 && (value.charAt(0) == '-' || value.charAt(0) == '+')) ? 1 : 0;
+            boolean negative = pos == 1 && value.charAt(0) == '-';
+            long result = 0L;
+            int digitCount = 0;
+            int scale = 0;
+            boolean afterPoint = false;
+            boolean hasDigits = false;
+
+            for (; pos < length; pos++) {
+                char c = value.charAt(pos);
+                if (c >= '0' && c <= '9') {
+                    if (digitCount == MAX_LONG_DIGITS || scale == FALLBACK_SCALE - 1) {
+                        parseValueAsBigDecimal(value, factId);
+                        return;
+                    }
+                    result = 10L * result + (c - '0');
+                    digitCount += (result == 0L) ? 0 : 1;
+                    scale += afterPoint ? 1 : 0;
+                    hasDigits = true;
+                } else if (c == '.' && !afterPoint) {
+                    afterPoint = true;
+                } else {
+                    parseValueAsBigDecimal(value, factId);
+                    return;
+                }
+            }
+            if (hasDigits) {
+                unscaledValues[factId] = negative ? -result : result;
+                scales[factId] = (byte) scale;
+            }
+        }
+
+        private void parseValueAsBigDecimal(String value, int factId) {
+            BigDecimal number;
+            try {
+                number = new BigDecimal(value);
+            } catch (NumberFormatException e) {
+                return;
+            }
+
+            boolean fitsInLong = number.unscaledValue().bitLength() < 63 &&
+                    number.scale() > NO_VALUE_SCALE && number.scale() < FALLBACK_SCALE;
+            if (fitsInLong) {
+                unscaledValues[factId] = number.unscaledValue().longValue();
+                scales[factId] = (byte) number.scale();
+            } else {
+                fallbackIndexesByFactId.put(factId, fallbackIndexesByFactId.size());
+                fallbackValues.add(number);
+                scales[factId] = FALLBACK_SCALE;
+            }
+        }
+
+        private static byte toByte(String decimalsOrPrecision, boolean nonNegative) {
+            String s = decimalsOrPrecision.strip();
+            if (s.equals("INF")) {
+                return INF_BYTE;
+            }
+            try {
+                int value = Integer.parseInt(s);
+                boolean inRange = value > NONE_BYTE && value < INF_BYTE && (!nonNegative || value >= 0);
+                return inRange ? (byte) value : NONE_BYTE;
+            } catch (NumberFormatException e) {
+                return NONE_BYTE;
+            }
+        }
+    }
+}
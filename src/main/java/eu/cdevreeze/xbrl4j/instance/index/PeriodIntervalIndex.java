@@ -0,0 +1,236 @@
+/*
+ * Copyright 2024-2024 Chris de Vreeze
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package eu.cdevreeze.xbrl4j.instance.index;
+
+import com.google.common.collect.ImmutableList;
+import eu.cdevreeze.xbrl4j.instance.PeriodInterval;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.IntStream;
+
+/**
+ * Static index of period intervals, supporting overlap, containment and instant queries in logarithmic time (plus
+ * output size). The intervals get IDs that are their positions in the list passed at construction.
+ * <p>
+ * The intervals follow the semantics of PeriodInterval: durations are half-open, and an instant lies within a
+ * duration if it is after the start and not after the end. Internally, each interval is stored as a half-open
+ * range of keys, which are epoch seconds (ignoring timezones, like PeriodInterval does) times two. A duration
+ * [start, end) becomes [2 * start, 2 * end), and an instant t becomes [2 * t - 1, 2 * t). So instants have odd
+ * start keys, and all queries reduce to strict comparisons of keys. The keys are held in arrays sorted on
+ * start and then end. Overlap queries use an implicit interval tree on top of the sorted arrays, where each
+ * (midpoint) node holds the maximum end of its subtree.
+ * <p>
+ * All query methods return interval IDs in ascending order. This class is immutable and thread-safe.
+ *
+ * @author Chris de Vreeze
+ */
+public final class PeriodIntervalIndex {
+
+    private final ImmutableList<PeriodInterval> intervals;
+
+    // Sorted on start key, then end key
+    private final int[] sortedIds;
+    private final long[] starts;
+    private final long[] ends;
+
+    // Maximum end in the subtree rooted at the midpoint of each range, in the implicit balanced tree
+    private final long[] maxEnds;
+
+    private PeriodIntervalIndex(ImmutableList<PeriodInterval> intervals) {
+        this.intervals = intervals;
+        this.sortedIds = IntStream.range(0, intervals.size()).boxed()
+                .sorted(Comparator.<Integer>comparingLong(id -> startKey(intervals.get(id)))
+                        .thenComparingLong(id -> endKey(intervals.get(id))))
+                .mapToInt(Integer::intValue)
+                .toArray();
+        this.starts = Arrays.stream(sortedIds).mapToLong(id -> startKey(intervals.get(id))).toArray();
+        this.ends = Arrays.stream(sortedIds).mapToLong(id -> endKey(intervals.get(id))).toArray();
+        this.maxEnds = new long[sortedIds.length];
+        computeMaxEnds(0, sortedIds.length);
+    }
+
+    public int size() {
+        return intervals.size();
+    }
+
+    public PeriodInterval interval(int id) {
+        return intervals.get(id);
+    }
+
+    public ImmutableList<PeriodInterval> intervals() {
+        return intervals;
+    }
+
+    /**
+     * Returns the IDs of the intervals that overlap with the given interval (see PeriodInterval.overlaps).
+     */
+    public int[] findOverlapping(PeriodInterval interval) {
+        IntCollector result = new IntCollector();
+        collectOverlapping(0, sortedIds.length, startKey(interval), endKey(interval), result);
+        return result.toSortedArray();
+    }
+
+    /**
+     * Returns the IDs of the intervals that contain the given date-time (see PeriodInterval.contains), that is,
+     * the durations containing it (start included, end excluded) and the instants at that date-time.
+     */
+    public int[] findContaining(LocalDateTime dateTime) {
+        long key = 2 * toEpochSecond(dateTime);
+        IntCollector result = new IntCollector();
+        // The durations containing the date-time, which are the (even-keyed) intervals overlapping [key, key + 1)
+        collectOverlapping(0, sortedIds.length, key, key + 1, result);
+        collectInstantsAt(key - 1, result);
+        return result.toSortedArray();
+    }
+
+    /**
+     * Returns the IDs of the intervals that are contained in the given interval (see PeriodInterval.contains).
+     */
+    public int[] findContainedIn(PeriodInterval interval) {
+        long qs = startKey(interval);
+        long qe = endKey(interval);
+        IntCollector result = new IntCollector();
+
+        for (int i = lowerBound(qs); i < starts.length && starts[i] < qe; i++) {
+            if (ends[i] <= qe) {
+                result.add(sortedIds[i]);
+            }
+        }
+        return result.toSortedArray();
+    }
+
+    /**
+     * Returns the IDs of the instant intervals within the given interval (see PeriodInterval.contains).
+     */
+    public int[] findInstantsIn(PeriodInterval interval) {
+        long qs = startKey(interval);
+        long qe = endKey(interval);
+        IntCollector result = new IntCollector();
+
+        for (int i = lowerBound(qs); i < starts.length && starts[i] < qe; i++) {
+            if (isInstantKey(starts[i]) && ends[i] <= qe) {
+                result.add(sortedIds[i]);
+            }
+        }
+        return result.toSortedArray();
+    }
+
+    /**
+     * Returns the IDs of the instant intervals at the given date-time. Note that for date-only instants
+     * such as "2023-12-31" the date-time is the start of the next day, so 2024-01-01T00:00.
+     */
+    public int[] findInstantsAt(LocalDateTime dateTime) {
+        IntCollector result = new IntCollector();
+        collectInstantsAt(2 * toEpochSecond(dateTime) - 1, result);
+        return result.toSortedArray();
+    }
+
+    private void collectInstantsAt(long instantStartKey, IntCollector result) {
+        for (int i = lowerBound(instantStartKey); i < starts.length && starts[i] == instantStartKey; i++) {
+            result.add(sortedIds[i]);
+        }
+    }
+
+    private void collectOverlapping(int from, int to, long qs, long qe, IntCollector result) {
+        if (from >= to) {
+            return;
+        }
+        int mid = (from + to) >>> 1;
+
+        if (maxEnds[mid] <= qs) {
+            return;
+        }
+        collectOverlapping(from, mid, qs, qe, result);
+
+        if (starts[mid] < qe) {
+            if (ends[mid] > qs) {
+                result.add(sortedIds[mid]);
+            }
+            collectOverlapping(mid + 1, to, qs, qe, result);
+        }
+    }
+
+    private long computeMaxEnds(int from, int to) {
+        if (from >= to) {
+            return Long.MIN_VALUE;
+        }
+        int mid = (from + to) >>> 1;
+        long max = Math.max(ends[mid], Math.max(computeMaxEnds(from, mid), computeMaxEnds(mid + 1, to)));
+        maxEnds[mid] = max;
+        return max;
+    }
+
+    private int lowerBound(long start) {
+        int lo = 0;
+        int hi = starts.length;
+
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (starts[mid] < start) {
+                lo = mid + 1;
+            } else {
+                hi = mid;
+            }
+        }
+        return lo;
+    }
+
+    private static long startKey(PeriodInterval interval) {
+        long start = 2 * toEpochSecond(interval.start());
+        return interval.isInstant() ? start - 1 : start;
+    }
+
+    private static long endKey(PeriodInterval interval) {
+        return 2 * toEpochSecond(interval.end());
+    }
+
+    private static boolean isInstantKey(long startKey) {
+        return (startKey & 1) != 0;
+    }
+
+    private static long toEpochSecond(LocalDateTime dateTime) {
+        return dateTime.toEpochSecond(ZoneOffset.UTC);
+    }
+
+    private static final class IntCollector {
+
+        private int[] values = new int[8];
+        private int size = 0;
+
+        void add(int value) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, 2 * size);
+            }
+            values[size++] = value;
+        }
+
+        int[] toSortedArray() {
+            int[] result = Arrays.copyOf(values, size);
+            Arrays.sort(result);
+            return result;
+        }
+    }
+
+    public static PeriodIntervalIndex build(List<PeriodInterval> intervals) {
+        return new PeriodIntervalIndex(ImmutableList.copyOf(intervals));
+    }
+}
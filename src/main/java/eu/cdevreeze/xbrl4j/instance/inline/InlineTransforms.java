@@ -0,0 +1,200 @@
+/*
+ * Copyright 2024-2024 Chris de Vreeze
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package eu.cdevreeze.xbrl4j.instance.inline;
+
+import com.google.common.collect.ImmutableMap;
+
+import javax.xml.namespace.QName;
+import java.time.DateTimeException;
+import java.time.LocalDate;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.UnaryOperator;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static eu.cdevreeze.xbrl4j.model.Names.IXT_TR3_NS;
+import static eu.cdevreeze.xbrl4j.model.Names.IXT_TR4_NS;
+
+/**
+ * Registry of the commonly used Inline XBRL transformation rules (registries TR3 and TR4), as precompiled
+ * functions from displayed text to the lexical value of the fact. Each function throws an IllegalArgumentException
+ * if the input does not match the transformation rule.
+ * <p>
+ * Only a subset of the transformation registries is supported; see method findTransform.
+ *
+ * @author Chris de Vreeze
+ */
+public class InlineTransforms {
+
+    private InlineTransforms() {
+    }
+
+    private static final Pattern NUMBER_PATTERN = Pattern.compile("[0-9]+(\\.[0-9]*)?|\\.[0-9]+");
+    private static final Pattern NUM_DOT_DECIMAL_SEPARATORS = Pattern.compile("[ ,'\\u00A0\\u202F]");
+    private static final Pattern NUM_COMMA_DECIMAL_SEPARATORS = Pattern.compile("[ .'\\u00A0\\u202F]");
+
+    private static final Pattern NUMERIC_DATE_PATTERN =
+            Pattern.compile("\\s*([0-9]{1,4})[^0-9]+([0-9]{1,2})[^0-9]+([0-9]{1,4})\\s*");
+    private static final Pattern DAY_MONTHNAME_YEAR_PATTERN =
+            Pattern.compile("\\s*([0-9]{1,2})[^0-9A-Za-z]*([A-Za-z]+)[^0-9A-Za-z]*([0-9]{2}|[0-9]{4})\\s*");
+    private static final Pattern MONTHNAME_DAY_YEAR_PATTERN =
+            Pattern.compile("\\s*([A-Za-z]+)[^0-9A-Za-z]*([0-9]{1,2})[^0-9A-Za-z]+([0-9]{2}|[0-9]{4})\\s*");
+
+    // The rules of registry TR3, which use local names without hyphens
+    private static final ImmutableMap<String, UnaryOperator<String>> TR3_TRANSFORMS_BY_LOCAL_NAME =
+            ImmutableMap.<String, UnaryOperator<String>>builder()
+                    .put("numdotdecimal", InlineTransforms::numDotDecimal)
+                    .put("numcommadecimal", InlineTransforms::numCommaDecimal)
+                    .put("zerodash", s -> "0")
+                    .put("nocontent", s -> "")
+                    .put("booleanfalse", s -> "false")
+                    .put("booleantrue", s -> "true")
+                    .put("datedaymonthyear", s -> numericDate(s, 3, 2, 1))
+                    .put("datemonthdayyear", s -> numericDate(s, 3, 1, 2))
+                    .put("dateyearmonthday", s -> numericDate(s, 1, 2, 3))
+                    .put("datedaymonthyearen", InlineTransforms::dayMonthNameYear)
+                    .put("datemonthdayyearen", InlineTransforms::monthNameDayYear)
+                    .build();
+
+    // The rules of registry TR4, which renamed the TR3 rules
+    private static final ImmutableMap<String, UnaryOperator<String>> TR4_TRANSFORMS_BY_LOCAL_NAME =
+            ImmutableMap.<String, UnaryOperator<String>>builder()
+                    .put("num-dot-decimal", InlineTransforms::numDotDecimal)
+                    .put("num-comma-decimal", InlineTransforms::numCommaDecimal)
+                    .put("fixed-zero", s -> "0")
+                    .put("fixed-empty", s -> "")
+                    .put("fixed-false", s -> "false")
+                    .put("fixed-true", s -> "true")
+                    .put("date-day-month-year", s -> numericDate(s, 3, 2, 1))
+                    .put("date-month-day-year", s -> numericDate(s, 3, 1, 2))
+                    .put("date-year-month-day", s -> numericDate(s, 1, 2, 3))
+                    .put("date-day-monthname-year-en", InlineTransforms::dayMonthNameYear)
+                    .put("date-monthname-day-year-en", InlineTransforms::monthNameDayYear)
+                    .build();
+
+    private static final ImmutableMap<QName, UnaryOperator<String>> TRANSFORMS = createTransforms();
+
+    private static final ImmutableMap<String, Integer> ENGLISH_MONTHS = createEnglishMonths();
+
+    /**
+     * Finds the transformation function for the given format QName, if it is supported. Formats in the TR3 and TR4
+     * namespaces are supported, but not all transformation rules in those registries are.
+     */
+    public static Optional<UnaryOperator<String>> findTransform(QName format) {
+        return Optional.ofNullable(TRANSFORMS.get(format));
+    }
+
+    public static boolean isSupported(QName format) {
+        return TRANSFORMS.containsKey(format);
+    }
+
+    private static String numDotDecimal(String displayValue) {
+        return checkNumber(NUM_DOT_DECIMAL_SEPARATORS.matcher(displayValue.strip()).replaceAll(""), displayValue);
+    }
+
+    private static String numCommaDecimal(String displayValue) {
+        String withoutSeparators = NUM_COMMA_DECIMAL_SEPARATORS.matcher(displayValue.strip()).replaceAll("");
+        return checkNumber(withoutSeparators.replace(',', '.'), displayValue);
+    }
+
+    private static String checkNumber(String number, String displayValue) {
+        if (!NUMBER_PATTERN.matcher(number).matches()) {
+            throw new IllegalArgumentException("Not a number: '" + displayValue + "'");
+        }
+        return number;
+    }
+
+    private static String numericDate(String displayValue, int yearGroup, int monthGroup, int dayGroup) {
+        Matcher matcher = NUMERIC_DATE_PATTERN.matcher(displayValue);
+
+        if (!matcher.matches()) {
+            throw new IllegalArgumentException("Not a date: '" + displayValue + "'");
+        }
+        return toDate(
+                matcher.group(yearGroup),
+                Integer.parseInt(matcher.group(monthGroup)),
+                matcher.group(dayGroup),
+                displayValue
+        );
+    }
+
+    private static String dayMonthNameYear(String displayValue) {
+        Matcher matcher = DAY_MONTHNAME_YEAR_PATTERN.matcher(displayValue);
+
+        if (!matcher.matches()) {
+            throw new IllegalArgumentException("Not a date: '" + displayValue + "'");
+        }
+        return toDate(matcher.group(3), monthNumber(matcher.group(2), displayValue), matcher.group(1), displayValue);
+    }
+
+    private static String monthNameDayYear(String displayValue) {
+        Matcher matcher = MONTHNAME_DAY_YEAR_PATTERN.matcher(displayValue);
+
+        if (!matcher.matches()) {
+            throw new IllegalArgumentException("Not a date: '" + displayValue + "'");
+        }
+        return toDate(matcher.group(3), monthNumber(matcher.group(1), displayValue), matcher.group(2), displayValue);
+    }
+
+    private static int monthNumber(String monthName, String displayValue) {
+        Integer month = ENGLISH_MONTHS.get(monthName.toLowerCase(Locale.ROOT));
+
+        if (month == null) {
+            throw new IllegalArgumentException("Unknown month in '" + displayValue + "'");
+        }
+        return month;
+    }
+
+    private static String toDate(String year, int month, String day, String displayValue) {
+        int y = (year.length() == 2) ? 2000 + Integer.parseInt(year) : Integer.parseInt(year);
+        try {
+            return LocalDate.of(y, month, Integer.parseInt(day)).toString();
+        } catch (DateTimeException e) {
+            throw new IllegalArgumentException("Not a date: '" + displayValue + "'", e);
+        }
+    }
+
+    private static ImmutableMap<QName, UnaryOperator<String>> createTransforms() {
+        ImmutableMap.Builder<QName, UnaryOperator<String>> result = ImmutableMap.builder();
+
+        for (Map.Entry<String, UnaryOperator<String>> entry : TR3_TRANSFORMS_BY_LOCAL_NAME.entrySet()) {
+            result.put(new QName(IXT_TR3_NS, entry.getKey()), entry.getValue());
+        }
+        for (Map.Entry<String, UnaryOperator<String>> entry : TR4_TRANSFORMS_BY_LOCAL_NAME.entrySet()) {
+            result.put(new QName(IXT_TR4_NS, entry.getKey()), entry.getValue());
+        }
+        return result.build();
+    }
+
+    private static ImmutableMap<String, Integer> createEnglishMonths() {
+        String[] names = {
+                "january", "february", "march", "april", "may", "june",
+                "july", "august", "september", "october", "november", "december"
+        };
+        ImmutableMap.Builder<String, Integer> result = ImmutableMap.builder();
+
+        for (int i = 0; i < names.length; i++) {
+            result.put(names[i], i + 1);
+            result.put(names[i].substring(0, 3), i + 1);
+        }
+        result.put("sept", 9);
+        return result.buildKeepingLast();
+    }
+}
@@ -0,0 +1,522 @@
+/*
+ * Copyright 2024-2024 Chris de Vreeze
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package eu.cdevreeze.xbrl4j.instance.inline;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import eu.cdevreeze.xbrl4j.instance.*;
+import eu.cdevreeze.xbrl4j.instance.stax.StaxElements;
+import eu.cdevreeze.yaidom4j.core.NamespaceScope;
+import eu.cdevreeze.yaidom4j.dom.immutabledom.Element;
+
+import javax.xml.namespace.QName;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import javax.xml.transform.stream.StreamSource;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.function.UnaryOperator;
+
+import static eu.cdevreeze.xbrl4j.model.Names.*;
+
+/**
+ * Extractor of the facts, contexts, units and DTS references of Inline XBRL documents, producing the same
+ * InstanceComponent model as the StreamingInstanceReader does for XBRL instances.
+ * <p>
+ * Each document is read in one streaming StAX pass, without building an element tree of the (X)HTML. Only the
+ * contexts, units and DTS references in the "ix:header" are materialized as small yaidom4j element trees.
+ * The content of "ix:nonFraction", "ix:nonNumeric" and "ix:continuation" elements is collected while streaming,
+ * leaving out "ix:exclude" content, and serializing nested markup for escaped "ix:nonNumeric" facts. Facts in
+ * "ix:hidden" are extracted like any other fact.
+ * <p>
+ * After reading all documents of a document set, continuation chains are resolved through a hash map from
+ * continuation ID to continuation, and the precompiled transformation functions of InlineTransforms are applied,
+ * followed by scale and sign for numeric facts. The documents of a document set are read in parallel.
+ * <p>
+ * Facts that cannot be converted (e.g. due to an unsupported format or an unresolvable continuation) are reported
+ * as issues instead of making extraction fail. Footnotes, fractions and tuples are not supported: tuples are not
+ * assembled, and the facts inside them are extracted as top-level item facts.
+ * <p>
+ * This class is immutable and thread-safe, provided the XMLInputFactory is not modified after construction.
+ *
+ * @author Chris de Vreeze
+ */
+public final class InlineXbrlExtractor {
+
+    /**
+     * Problem found during extraction, for the fact or continuation with the given ID, if known.
+     */
+    public record InlineIssue(Optional<String> idOption, String message) {
+    }
+
+    /**
+     * Result of extraction: DTS references, contexts, units and item facts (in document order, document by document),
+     * along with the issues found.
+     */
+    public record Result(ImmutableList<InstanceComponent> components, ImmutableList<InlineIssue> issues) {
+
+        public ImmutableList<ItemFact> facts() {
+            return components.stream()
+                    .filter(c -> c instanceof ItemFact)
+                    .map(c -> (ItemFact) c)
+                    .collect(ImmutableList.toImmutableList());
+        }
+    }
+
+    private final XMLInputFactory inputFactory;
+
+    public InlineXbrlExtractor(XMLInputFactory inputFactory) {
+        this.inputFactory = inputFactory;
+    }
+
+    public static InlineXbrlExtractor newInstance() {
+        XMLInputFactory inputFactory = XMLInputFactory.newFactory();
+        inputFactory.setProperty(XMLInputFactory.IS_NAMESPACE_AWARE, true);
+        inputFactory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+        inputFactory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+        return new InlineXbrlExtractor(inputFactory);
+    }
+
+    /**
+     * Extracts a single Inline XBRL document. The input stream is not closed by this method.
+     */
+    public Result extract(InputStream inputStream) {
+        return extract(new StreamSource(inputStream));
+    }
+
+    public Result extract(StreamSource source) {
+        return resolve(List.of(readDocument(source)));
+    }
+
+    /**
+     * Extracts the Inline XBRL document set consisting of the given documents, reading the documents in parallel.
+     * Contexts and units are shared across the documents, and so are continuations.
+     */
+    public Result extractDocumentSet(List<Path> documents) {
+        List<DocumentContent> documentContents = documents.parallelStream()
+                .map(this::readDocument)
+                .toList();
+        return resolve(documentContents);
+    }
+
+    private DocumentContent readDocument(Path document) {
+        try (InputStream inputStream = Files.newInputStream(document)) {
+            StreamSource source = new StreamSource(inputStream, document.toUri().toString());
+            return readDocument(source);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private DocumentContent readDocument(StreamSource source) {
+        XMLStreamReader reader;
+        try {
+            reader = inputFactory.createXMLStreamReader(source);
+        } catch (XMLStreamException e) {
+            throw new RuntimeException(e);
+        }
+        try {
+            return new DocumentReader(reader).read();
+        } catch (XMLStreamException e) {
+            throw new RuntimeException(e);
+        } finally {
+            try {
+                reader.close();
+            } catch (XMLStreamException e) {
+                // Ignore
+            }
+        }
+    }
+
+    private enum ContentKind {NON_FRACTION, NON_NUMERIC, CONTINUATION}
+
+    /**
+     * Fact as found in the document, before continuation resolution and transformation.
+     */
+    private record PendingFact(
+            ContentKind kind,
+            QName name,
+            ImmutableMap<QName, String> attributes,
+            NamespaceScope scope,
+            Optional<String> langOption,
+            String content
+    ) {
+
+        Optional<String> idOption() {
+            return Optional.ofNullable(attributes.get(ID_QNAME));
+        }
+    }
+
+    private record Continuation(String content, Optional<String> continuedAtOption) {
+    }
+
+    private record DocumentContent(
+            ImmutableList<InstanceComponent> headerComponents,
+            ImmutableList<PendingFact> facts,
+            ImmutableMap<String, Continuation> continuations,
+            ImmutableList<InlineIssue> issues
+    ) {
+    }
+
+    private static Result resolve(List<DocumentContent> documentContents) {
+        List<InlineIssue> issues = new ArrayList<>();
+        Map<String, Continuation> continuations = new HashMap<>();
+        Set<Object> seenHeaderComponentKeys = new HashSet<>();
+        ImmutableList.Builder<InstanceComponent> headerComponents = ImmutableList.builder();
+
+        for (DocumentContent documentContent : documentContents) {
+            issues.addAll(documentContent.issues());
+
+            for (var continuation : documentContent.continuations().entrySet()) {
+                if (continuations.putIfAbsent(continuation.getKey(), continuation.getValue()) != null) {
+                    issues.add(new InlineIssue(Optional.of(continuation.getKey()), "Duplicate continuation ID"));
+                }
+            }
+            for (InstanceComponent component : documentContent.headerComponents()) {
+                if (seenHeaderComponentKeys.add(headerComponentKey(component))) {
+                    headerComponents.add(component);
+                }
+            }
+        }
+
+        ImmutableList.Builder<InstanceComponent> facts = ImmutableList.builder();
+        for (DocumentContent documentContent : documentContents) {
+            for (PendingFact pendingFact : documentContent.facts()) {
+                try {
+                    facts.add(toItemFact(pendingFact, continuations));
+                } catch (RuntimeException e) {
+                    issues.add(new InlineIssue(pendingFact.idOption(), "Fact " + pendingFact.name() + " skipped: " + e.getMessage()));
+                }
+            }
+        }
+        return new Result(
+                ImmutableList.<InstanceComponent>builder().addAll(headerComponents.build()).addAll(facts.build()).build(),
+                ImmutableList.copyOf(issues)
+        );
+    }
+
+    private static Object headerComponentKey(InstanceComponent component) {
+        if (component instanceof Context context) {
+            return List.of(XBRLI_CONTEXT_QNAME, context.id());
+        } else if (component instanceof Unit unit) {
+            return List.of(XBRLI_UNIT_QNAME, unit.id());
+        } else {
+            return component;
+        }
+    }
+
+    private static ItemFact toItemFact(PendingFact fact, Map<String, Continuation> continuations) {
+        ImmutableMap<QName, String> attributes = fact.attributes();
+        String contextRef = Optional.ofNullable(attributes.get(CONTEXT_REF_QNAME))
+                .orElseThrow(() -> new IllegalArgumentException("Missing contextRef"));
+        boolean nil = Optional.ofNullable(attributes.get(XSI_NIL_QNAME)).map(v -> v.strip().equals("true")).orElse(false);
+        Optional<UnaryOperator<String>> transformOption = Optional.ofNullable(attributes.get(FORMAT_QNAME))
+                .map(f -> fact.scope().resolveSyntacticElementQName(f.strip()))
+                .map(f -> InlineTransforms.findTransform(f)
+                        .orElseThrow(() -> new IllegalArgumentException("Unsupported format " + f)));
+
+        String value;
+        if (nil) {
+            value = "";
+        } else if (fact.kind() == ContentKind.NON_NUMERIC) {
+            String content = resolveContinuations(fact, continuations);
+            value = transformOption.map(t -> t.apply(content)).orElse(content);
+        } else {
+            String number = transformOption.map(t -> t.apply(fact.content())).orElse(fact.content().strip());
+            BigDecimal scaledNumber = new BigDecimal(number)
+                    .movePointRight(Optional.ofNullable(attributes.get(SCALE_QNAME)).map(s -> Integer.parseInt(s.strip())).orElse(0));
+            boolean negative = Optional.ofNullable(attributes.get(SIGN_QNAME)).map(s -> s.strip().equals("-")).orElse(false);
+            value = (negative ? scaledNumber.negate() : scaledNumber).toPlainString();
+        }
+
+        return new ItemFact(
+                fact.name(),
+                fact.idOption(),
+                contextRef,
+                Optional.ofNullable(attributes.get(UNIT_REF_QNAME)),
+                Optional.ofNullable(attributes.get(DECIMALS_QNAME)),
+                Optional.ofNullable(attributes.get(PRECISION_QNAME)),
+                (fact.kind() == ContentKind.NON_NUMERIC) ? fact.langOption() : Optional.empty(),
+                nil,
+                value
+        );
+    }
+
+    private static String resolveContinuations(PendingFact fact, Map<String, Continuation> continuations) {
+        Optional<String> continuedAtOption = Optional.ofNullable(fact.attributes().get(CONTINUED_AT_QNAME));
+
+        if (continuedAtOption.isEmpty()) {
+            return fact.content();
+        }
+        StringBuilder result = new StringBuilder(fact.content());
+        Set<String> visited = new HashSet<>();
+
+        while (continuedAtOption.isPresent()) {
+            String continuationId = continuedAtOption.get().strip();
+            Continuation continuation = continuations.get(continuationId);
+
+            if (continuation == null) {
+                throw new IllegalArgumentException("Missing continuation " + continuationId);
+            } else if (!visited.add(continuationId)) {
+                throw new IllegalArgumentException("Cyclic continuation chain at " + continuationId);
+            }
+            result.append(continuation.content());
+            continuedAtOption = continuation.continuedAtOption();
+        }
+        return result.toString();
+    }
+
+    /**
+     * Content of an Inline XBRL fact or continuation element that is still open during the streaming pass.
+     */
+    private static final class Collector {
+
+        private final ContentKind kind;
+        private final ImmutableMap<QName, String> attributes;
+        private final NamespaceScope scope;
+        private final Optional<String> langOption;
+        private final boolean escape;
+        private final StringBuilder content = new StringBuilder();
+
+        Collector(
+                ContentKind kind,
+                ImmutableMap<QName, String> attributes,
+                NamespaceScope scope,
+                Optional<String> langOption
+        ) {
+            this.kind = kind;
+            this.attributes = attributes;
+            this.scope = scope;
+            this.langOption = langOption;
+            this.escape = kind != ContentKind.NON_FRACTION &&
+                    Optional.ofNullable(attributes.get(ESCAPE_QNAME)).map(v -> v.strip().equals("true") || v.strip().equals("1")).orElse(false);
+        }
+    }
+
+    /**
+     * Single streaming pass over one Inline XBRL document.
+     */
+    private static final class DocumentReader {
+
+        private final XMLStreamReader reader;
+        private final Deque<NamespaceScope> scopes = new ArrayDeque<>();
+        private final Deque<QName> elementNames = new ArrayDeque<>();
+        private final List<String> langs = new ArrayList<>();
+        private final List<Collector> collectors = new ArrayList<>();
+        private int excludeDepth = 0;
+
+        private final ImmutableList.Builder<InstanceComponent> headerComponents = ImmutableList.builder();
+        private final ImmutableList.Builder<PendingFact> facts = ImmutableList.builder();
+        private final Map<String, Continuation> continuations = new LinkedHashMap<>();
+        private final List<InlineIssue> issues = new ArrayList<>();
+
+        DocumentReader(XMLStreamReader reader) {
+            this.reader = reader;
+        }
+
+        DocumentContent read() throws XMLStreamException {
+            while (reader.hasNext()) {
+                switch (reader.next()) {
+                    case XMLStreamConstants.START_ELEMENT -> startElement();
+                    case XMLStreamConstants.END_ELEMENT -> endElement();
+                    case XMLStreamConstants.CHARACTERS, XMLStreamConstants.CDATA, XMLStreamConstants.SPACE -> characters();
+                    default -> {
+                        // Ignore comments, processing instructions etc.
+                    }
+                }
+            }
+            return new DocumentContent(
+                    headerComponents.build(),
+                    facts.build(),
+                    ImmutableMap.copyOf(continuations),
+                    ImmutableList.copyOf(issues)
+            );
+        }
+
+        private void startElement() throws XMLStreamException {
+            NamespaceScope parentScope = scopes.isEmpty() ? NamespaceScope.empty() : scopes.peek();
+            QName parentName = elementNames.peek();
+
+            if (IX_RESOURCES_QNAME.equals(parentName) || IX_REFERENCES_QNAME.equals(parentName)) {
+                // Consumes the element, including its end tag
+                readHeaderComponent(StaxElements.readElement(reader, parentScope));
+                return;
+            }
+
+            QName name = reader.getName();
+            NamespaceScope scope = StaxElements.resolveNamespaceScope(reader, parentScope);
+            String lang = Optional.ofNullable(reader.getAttributeValue(XML_NS, "lang"))
+                    .orElse(langs.isEmpty() ? null : langs.get(langs.size() - 1));
+            scopes.push(scope);
+            elementNames.push(name);
+            langs.add(lang);
+
+            if (name.getNamespaceURI().equals(IX_NS)) {
+                if (name.equals(IX_NON_FRACTION_QNAME)) {
+                    collectors.add(new Collector(ContentKind.NON_FRACTION, attributes(), scope, Optional.ofNullable(lang)));
+                } else if (name.equals(IX_NON_NUMERIC_QNAME)) {
+                    collectors.add(new Collector(ContentKind.NON_NUMERIC, attributes(), scope, Optional.ofNullable(lang)));
+                } else if (name.equals(IX_CONTINUATION_QNAME)) {
+                    collectors.add(new Collector(ContentKind.CONTINUATION, attributes(), scope, Optional.ofNullable(lang)));
+                } else if (name.equals(IX_EXCLUDE_QNAME)) {
+                    excludeDepth++;
+                } else if (name.equals(IX_FRACTION_QNAME) || name.equals(IX_FOOTNOTE_QNAME)) {
+                    issues.add(new InlineIssue(
+                            Optional.ofNullable(reader.getAttributeValue(null, "id")),
+                            "Unsupported element " + name.getLocalPart() + " skipped"));
+                }
+            } else if (excludeDepth == 0 && collectors.stream().anyMatch(c -> c.escape)) {
+                String startTag = serializeStartTag();
+                collectors.stream().filter(c -> c.escape).forEach(c -> c.content.append(startTag));
+            }
+        }
+
+        private void endElement() {
+            QName name = elementNames.pop();
+            scopes.pop();
+            langs.remove(langs.size() - 1);
+
+            if (name.getNamespaceURI().equals(IX_NS)) {
+                if (name.equals(IX_NON_FRACTION_QNAME) || name.equals(IX_NON_NUMERIC_QNAME) || name.equals(IX_CONTINUATION_QNAME)) {
+                    finish(collectors.remove(collectors.size() - 1));
+                } else if (name.equals(IX_EXCLUDE_QNAME)) {
+                    excludeDepth--;
+                }
+            } else if (excludeDepth == 0 && collectors.stream().anyMatch(c -> c.escape)) {
+                String endTag = "</" + prefixedName(reader.getPrefix(), reader.getLocalName()) + ">";
+                collectors.stream().filter(c -> c.escape).forEach(c -> c.content.append(endTag));
+            }
+        }
+
+        private void characters() {
+            if (excludeDepth > 0 || collectors.isEmpty()) {
+                return;
+            }
+            String text = reader.getText();
+            String escapedText = null;
+
+            for (Collector collector : collectors) {
+                if (collector.escape) {
+                    escapedText = (escapedText == null) ? escapeText(text, false) : escapedText;
+                    collector.content.append(escapedText);
+                } else {
+                    collector.content.append(text);
+                }
+            }
+        }
+
+        private void finish(Collector collector) {
+            if (collector.kind == ContentKind.CONTINUATION) {
+                Optional<String> idOption = Optional.ofNullable(collector.attributes.get(ID_QNAME)).map(String::strip);
+
+                if (idOption.isEmpty()) {
+                    issues.add(new InlineIssue(Optional.empty(), "Continuation without ID skipped"));
+                } else if (continuations.containsKey(idOption.get())) {
+                    issues.add(new InlineIssue(idOption, "Duplicate continuation ID"));
+                } else {
+                    continuations.put(idOption.get(), new Continuation(
+                            collector.content.toString(),
+                            Optional.ofNullable(collector.attributes.get(CONTINUED_AT_QNAME))
+                    ));
+                }
+                return;
+            }
+
+            Optional<String> nameOption = Optional.ofNullable(collector.attributes.get(NAME_QNAME));
+            if (nameOption.isEmpty()) {
+                issues.add(new InlineIssue(Optional.ofNullable(collector.attributes.get(ID_QNAME)), "Fact without name skipped"));
+                return;
+            }
+            facts.add(new PendingFact(
+                    collector.kind,
+                    collector.scope.resolveSyntacticElementQName(nameOption.get().strip()),
+                    collector.attributes,
+                    collector.scope,
+                    collector.langOption,
+                    collector.content.toString()
+            ));
+        }
+
+        private void readHeaderComponent(Element element) {
+            String ns = element.name().getNamespaceURI();
+
+            if (ns.equals(XBRLI_NS) || ns.equals(LINK_NS)) {
+                try {
+                    InstanceComponents.convertTopLevelElement(element)
+                            .filter(c -> !(c instanceof FootnoteLinkContent))
+                            .ifPresent(headerComponents::add);
+                } catch (RuntimeException e) {
+                    issues.add(new InlineIssue(
+                            element.attributeOption(ID_QNAME),
+                            "Invalid " + element.name().getLocalPart() + " skipped: " + e.getMessage()));
+                }
+            }
+        }
+
+        private ImmutableMap<QName, String> attributes() {
+            ImmutableMap.Builder<QName, String> attributes = ImmutableMap.builder();
+            for (int i = 0; i < reader.getAttributeCount(); i++) {
+                QName attrName = reader.getAttributeName(i);
+                attributes.put(new QName(attrName.getNamespaceURI(), attrName.getLocalPart()), reader.getAttributeValue(i));
+            }
+            return attributes.buildKeepingLast();
+        }
+
+        private String serializeStartTag() {
+            StringBuilder sb = new StringBuilder("<").append(prefixedName(reader.getPrefix(), reader.getLocalName()));
+
+            for (int i = 0; i < reader.getNamespaceCount(); i++) {
+                String prefix = reader.getNamespacePrefix(i);
+                sb.append((prefix == null || prefix.isEmpty()) ? " xmlns" : " xmlns:" + prefix)
+                        .append("=\"").append(escapeText(Objects.requireNonNullElse(reader.getNamespaceURI(i), ""), true)).append('"');
+            }
+            for (int i = 0; i < reader.getAttributeCount(); i++) {
+                sb.append(' ').append(prefixedName(reader.getAttributePrefix(i), reader.getAttributeLocalName(i)))
+                        .append("=\"").append(escapeText(reader.getAttributeValue(i), true)).append('"');
+            }
+            return sb.append('>').toString();
+        }
+
+        private static String prefixedName(String prefix, String localName) {
+            return (prefix == null || prefix.isEmpty()) ? localName : prefix + ":" + localName;
+        }
+
+        private static String escapeText(String text, boolean inAttribute) {
+            StringBuilder sb = new StringBuilder(text.length());
+
+            for (int i = 0; i < text.length(); i++) {
+                char c = text.charAt(i);
+                switch (c) {
+                    case '&' -> sb.append("&amp;");
+                    case '<' -> sb.append("&lt;");
+                    case '>' -> sb.append("&gt;");
+                    case '"' -> sb.append(inAttribute ? "&quot;" : "\"");
+                    default -> sb.append(c);
+                }
+            }
+            return sb.toString();
+        }
+    }
+}
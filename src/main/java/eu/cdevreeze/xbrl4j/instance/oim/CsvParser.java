@@ -0,0 +1,193 @@
+/*
+ * Copyright 2024-2024 Chris de Vreeze
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package eu.cdevreeze.xbrl4j.instance.oim;
+
+import com.google.common.base.Preconditions;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * CSV (RFC 4180) row parser over a memory-mapped UTF-8 file. The file is mapped in windows of bounded size, so
+ * files larger than the address space (or 2 GB) can be parsed too. A row that does not fit in the remainder of a
+ * window is parsed again from the start of the next window, which starts at that row.
+ * <p>
+ * Since all CSV delimiters are ASCII, fields are found by scanning bytes, and only the field contents are decoded.
+ * <p>
+ * This class is not thread-safe.
+ *
+ * @author Chris de Vreeze
+ */
+final class CsvParser {
+
+    private static final int DEFAULT_WINDOW_SIZE = 1 << 26;
+
+    private final int initialWindowSize;
+    private final List<String> fields = new ArrayList<>();
+    private byte[] scratch = new byte[256];
+
+    CsvParser() {
+        this(DEFAULT_WINDOW_SIZE);
+    }
+
+    /**
+     * Creates a parser mapping windows of the given initial size. The window size is doubled whenever a row
+     * does not fit in a window.
+     */
+    CsvParser(int initialWindowSize) {
+        Preconditions.checkArgument(initialWindowSize > 0);
+        this.initialWindowSize = initialWindowSize;
+    }
+
+    /**
+     * Passes each row of the given file to the given consumer. The list passed to the consumer is reused for the
+     * next row, so it must not be retained.
+     */
+    void forEachRow(Path file, Consumer<List<String>> rowConsumer) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            long windowStart = 0;
+            int windowSize = initialWindowSize;
+
+            while (windowStart < size) {
+                int length = (int) Math.min(windowSize, size - windowStart);
+                MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, windowStart, length);
+                boolean atEnd = windowStart + length == size;
+
+                int position = (windowStart == 0) ? skipByteOrderMark(buffer, length) : 0;
+                int firstPosition = position;
+
+                while (position < length) {
+                    int rowEnd = parseRow(buffer, position, length, atEnd);
+                    if (rowEnd < 0) {
+                        break;
+                    }
+                    rowConsumer.accept(fields);
+                    position = rowEnd;
+                }
+
+                if (position == firstPosition && !atEnd) {
+                    // The row does not fit in the window
+                    windowSize = (int) Math.min(Integer.MAX_VALUE, 2L * windowSize);
+                }
+                windowStart += position;
+            }
+        }
+    }
+
+    /**
+     * Parses the row starting at the given position into the fields list, returning the position after the row
+     * (including its line break), or -1 if the row is not complete before the limit (and the limit is not the end
+     * of the file).
+     */
+    private int parseRow(MappedByteBuffer buffer, int start, int limit, boolean atEnd) {
+        fields.clear();
+        int position = start;
+
+        while (true) {
+            if (position < limit && buffer.get(position) == '"') {
+                int length = 0;
+                position += 1;
+
+                while (true) {
+                    if (position >= limit) {
+                        if (atEnd) {
+                            throw new IllegalStateException("Unterminated quoted field");
+                        }
+                        return -1;
+                    }
+                    byte b = buffer.get(position);
+
+                    if (b == '"') {
+                        if (position + 1 >= limit && !atEnd) {
+                            return -1;
+                        }
+                        if (position + 1 < limit && buffer.get(position + 1) == '"') {
+                            length = append(length, b);
+                            position += 2;
+                        } else {
+                            position += 1;
+                            break;
+                        }
+                    } else {
+                        length = append(length, b);
+                        position += 1;
+                    }
+                }
+                fields.add(new String(scratch, 0, length, StandardCharsets.UTF_8));
+            } else {
+                int fieldStart = position;
+                byte b;
+                while (position < limit && (b = buffer.get(position)) != ',' && b != '\n' && b != '\r') {
+                    position += 1;
+                }
+                if (position >= limit && !atEnd) {
+                    return -1;
+                }
+                int length = position - fieldStart;
+                ensureScratchCapacity(length);
+                buffer.get(fieldStart, scratch, 0, length);
+                fields.add(new String(scratch, 0, length, StandardCharsets.UTF_8));
+            }
+
+            if (position >= limit) {
+                return position;
+            }
+            byte b = buffer.get(position);
+
+            if (b == ',') {
+                position += 1;
+            } else if (b == '\n') {
+                return position + 1;
+            } else if (b == '\r') {
+                if (position + 1 >= limit) {
+                    return atEnd ? position + 1 : -1;
+                }
+                return (buffer.get(position + 1) == '\n') ? position + 2 : position + 1;
+            } else {
+                throw new IllegalStateException("Unexpected character after quoted field");
+            }
+        }
+    }
+
+    private int append(int length, byte b) {
+        ensureScratchCapacity(length + 1);
+        scratch[length] = b;
+        return length + 1;
+    }
+
+    private void ensureScratchCapacity(int capacity) {
+        if (capacity > scratch.length) {
+            scratch = Arrays.copyOf(scratch, Math.max(capacity, 2 * scratch.length));
+        }
+    }
+
+    private static int skipByteOrderMark(MappedByteBuffer buffer, int length) {
+        boolean hasByteOrderMark = length >= 3 &&
+                buffer.get(0) == (byte) 0xEF && buffer.get(1) == (byte) 0xBB && buffer.get(2) == (byte) 0xBF;
+        return hasByteOrderMark ? 3 : 0;
+    }
+}
@@ -0,0 +1,307 @@
+/*
+ * Copyright 2024-2024 Chris de Vreeze
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package eu.cdevreeze.xbrl4j.instance.oim;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.math.BigDecimal;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Optional;
+
+/**
+ * Minimal token-level (pull) JSON parser, reading directly from the underlying Reader through a fixed-size buffer.
+ * Large documents (such as xBRL-JSON reports with millions of facts) can be processed one token (or one small
+ * subtree, see {@link #readValue()}) at a time.
+ * <p>
+ * Object member names are reported as {@link Token#NAME} tokens. Syntax errors cause an IllegalStateException.
+ * <p>
+ * This class is not thread-safe.
+ *
+ * @author Chris de Vreeze
+ */
+final class JsonParser {
+
+    enum Token {BEGIN_OBJECT, END_OBJECT, BEGIN_ARRAY, END_ARRAY, NAME, STRING, NUMBER, TRUE, FALSE, NULL, END_DOCUMENT}
+
+    /**
+     * JSON null, as returned by {@link #readValue()}, since Guava immutable collections do not allow nulls.
+     */
+    static final Object NULL = new Object() {
+        @Override
+        public String toString() {
+            return "null";
+        }
+    };
+
+    private final Reader in;
+    private final char[] buffer = new char[8192];
+    private int position = 0;
+    private int limit = 0;
+
+    /**
+     * Per open object or array, whether it is an object. The "expecting name" state only applies to objects.
+     */
+    private final Deque<Boolean> openScopes = new ArrayDeque<>();
+    private boolean expectingName = false;
+
+    private Token token;
+    private final StringBuilder text = new StringBuilder();
+
+    JsonParser(Reader in) {
+        this.in = in;
+    }
+
+    /**
+     * Returns the current token, that is, the one returned by the last call to {@link #next()}.
+     */
+    Token token() {
+        return token;
+    }
+
+    /**
+     * Returns the text of the current token, if it is a NAME, STRING or NUMBER token.
+     */
+    String text() {
+        return text.toString();
+    }
+
+    Token next() throws IOException {
+        int c = skipWhitespaceAndSeparators();
+        text.setLength(0);
+
+        if (c < 0) {
+            if (!openScopes.isEmpty()) {
+                throw new IllegalStateException("Unexpected end of JSON document");
+            }
+            token = Token.END_DOCUMENT;
+        } else if (c == '{' || c == '[') {
+            openScopes.push(c == '{');
+            expectingName = c == '{';
+            token = (c == '{') ? Token.BEGIN_OBJECT : Token.BEGIN_ARRAY;
+        } else if (c == '}' || c == ']') {
+            if (openScopes.isEmpty() || openScopes.pop() != (c == '}')) {
+                throw new IllegalStateException("Unexpected '" + (char) c + "'");
+            }
+            expectingName = false;
+            token = (c == '}') ? Token.END_OBJECT : Token.END_ARRAY;
+        } else if (expectingName) {
+            if (c != '"') {
+                throw new IllegalStateException("Expected member name but found '" + (char) c + "'");
+            }
+            readString();
+            if (skipWhitespace() != ':') {
+                throw new IllegalStateException("Expected ':' after member name '" + text + "'");
+            }
+            position += 1;
+            expectingName = false;
+            token = Token.NAME;
+        } else {
+            token = readScalar(c);
+        }
+        return token;
+    }
+
+    /**
+     * Skips the value starting at the current token. If the current token starts an object or array, all tokens
+     * up to and including the matching end token are skipped.
+     */
+    void skipValue() throws IOException {
+        int depth = 0;
+        do {
+            if (token == Token.BEGIN_OBJECT || token == Token.BEGIN_ARRAY) {
+                depth += 1;
+            } else if (token == Token.END_OBJECT || token == Token.END_ARRAY) {
+                depth -= 1;
+            }
+        } while (depth > 0 && next() != Token.END_DOCUMENT);
+    }
+
+    /**
+     * Reads the value starting at the current token as a tree of ImmutableMap, ImmutableList, String, BigDecimal,
+     * Boolean and {@link #NULL}. Only meant for small subtrees.
+     */
+    Object readValue() throws IOException {
+        switch (token) {
+            case BEGIN_OBJECT -> {
+                ImmutableMap.Builder<String, Object> members = ImmutableMap.builder();
+                while (next() == Token.NAME) {
+                    String name = text();
+                    next();
+                    members.put(name, readValue());
+                }
+                return members.buildKeepingLast();
+            }
+            case BEGIN_ARRAY -> {
+                ImmutableList.Builder<Object> elements = ImmutableList.builder();
+                while (next() != Token.END_ARRAY) {
+                    elements.add(readValue());
+                }
+                return elements.build();
+            }
+            case STRING -> {
+                return text();
+            }
+            case NUMBER -> {
+                return new BigDecimal(text());
+            }
+            case TRUE, FALSE -> {
+                return token == Token.TRUE;
+            }
+            case NULL -> {
+                return NULL;
+            }
+            default -> throw new IllegalStateException("Unexpected token " + token);
+        }
+    }
+
+    /**
+     * Returns the given value as string, if it is a JSON string.
+     */
+    static Optional<String> asString(Object value) {
+        return (value instanceof String s) ? Optional.of(s) : Optional.empty();
+    }
+
+    private Token readScalar(int c) throws IOException {
+        if (c == '"') {
+            readString();
+            return Token.STRING;
+        } else if (c == '-' || (c >= '0' && c <= '9')) {
+            while (c >= 0 && (c == '-' || c == '+' || c == '.' || c == 'e' || c == 'E' || (c >= '0' && c <= '9'))) {
+                text.append((char) c);
+                position += 1;
+                c = peekChar();
+            }
+            return Token.NUMBER;
+        } else if (c == 't' || c == 'f' || c == 'n') {
+            while (c >= 'a' && c <= 'z') {
+                text.append((char) c);
+                position += 1;
+                c = peekChar();
+            }
+            String literal = text();
+            text.setLength(0);
+            return switch (literal) {
+                case "true" -> Token.TRUE;
+                case "false" -> Token.FALSE;
+                case "null" -> Token.NULL;
+                default -> throw new IllegalStateException("Unexpected literal '" + literal + "'");
+            };
+        } else {
+            throw new IllegalStateException("Unexpected '" + (char) c + "'");
+        }
+    }
+
+    /**
+     * Reads a string, the opening quote being the next character, into the text buffer.
+     */
+    private void readString() throws IOException {
+        position += 1;
+
+        while (true) {
+            if (position >= limit && !fill()) {
+                throw new IllegalStateException("Unterminated string");
+            }
+            int start = position;
+            while (position < limit && buffer[position] != '"' && buffer[position] != '\\') {
+                position += 1;
+            }
+            text.append(buffer, start, position - start);
+
+            if (position < limit) {
+                char c = buffer[position++];
+                if (c == '"') {
+                    return;
+                }
+                readEscape();
+            }
+        }
+    }
+
+    private void readEscape() throws IOException {
+        int c = readChar();
+        switch (c) {
+            case '"', '\\', '/' -> text.append((char) c);
+            case 'b' -> text.append('\b');
+            case 'f' -> text.append('\f');
+            case 'n' -> text.append('\n');
+            case 'r' -> text.append('\r');
+            case 't' -> text.append('\t');
+            case 'u' -> {
+                int codeUnit = 0;
+                for (int i = 0; i < 4; i++) {
+                    int digit = Character.digit(readChar(), 16);
+                    if (digit < 0) {
+                        throw new IllegalStateException("Invalid unicode escape");
+                    }
+                    codeUnit = codeUnit * 16 + digit;
+                }
+                text.append((char) codeUnit);
+            }
+            default -> throw new IllegalStateException("Invalid escape '\\" + (char) c + "'");
+        }
+    }
+
+    /**
+     * Skips whitespace and (at most one) comma, returning the next character without consuming it, except for
+     * structural characters and the first character of a scalar, which are consumed by the caller.
+     */
+    private int skipWhitespaceAndSeparators() throws IOException {
+        int c = skipWhitespace();
+
+        if (c == ',') {
+            if (openScopes.isEmpty()) {
+                throw new IllegalStateException("Unexpected ','");
+            }
+            position += 1;
+            expectingName = openScopes.peek();
+            c = skipWhitespace();
+        }
+        if (c == '{' || c == '[' || c == '}' || c == ']') {
+            position += 1;
+        }
+        return c;
+    }
+
+    private int skipWhitespace() throws IOException {
+        int c = peekChar();
+        while (c == ' ' || c == '\t' || c == '\n' || c == '\r') {
+            position += 1;
+            c = peekChar();
+        }
+        return c;
+    }
+
+    private int peekChar() throws IOException {
+        return (position < limit || fill()) ? buffer[position] : -1;
+    }
+
+    private int readChar() throws IOException {
+        return (position < limit || fill()) ? buffer[position++] : -1;
+    }
+
+    private boolean fill() throws IOException {
+        int count = in.read(buffer, 0, buffer.length);
+        position = 0;
+        limit = Math.max(count, 0);
+        return count > 0;
+    }
+}
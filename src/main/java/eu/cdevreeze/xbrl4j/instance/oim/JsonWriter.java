@@ -0,0 +1,147 @@
+/*
+ * Copyright 2024-2024 Chris de Vreeze
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package eu.cdevreeze.xbrl4j.instance.oim;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayDeque;
+import java.util.Deque;
+
+/**
+ * Minimal streaming JSON writer, writing tokens directly to the underlying Writer. Only the state needed to
+ * place commas and colons is kept (one entry per open object or array), so memory usage does not depend on
+ * the size of the output. The caller is responsible for producing well-formed nesting.
+ * <p>
+ * This class is not thread-safe.
+ *
+ * @author Chris de Vreeze
+ */
+final class JsonWriter {
+
+    private final Writer out;
+
+    /**
+     * Per open object or array, whether a member or element has already been written to it.
+     */
+    private final Deque<boolean[]> openScopes = new ArrayDeque<>();
+
+    private boolean afterName = false;
+
+    JsonWriter(Writer out) {
+        this.out = out;
+    }
+
+    JsonWriter beginObject() throws IOException {
+        beforeValue();
+        out.write('{');
+        openScopes.push(new boolean[]{false});
+        return this;
+    }
+
+    JsonWriter endObject() throws IOException {
+        openScopes.pop();
+        out.write('}');
+        return this;
+    }
+
+    JsonWriter beginArray() throws IOException {
+        beforeValue();
+        out.write('[');
+        openScopes.push(new boolean[]{false});
+        return this;
+    }
+
+    JsonWriter endArray() throws IOException {
+        openScopes.pop();
+        out.write(']');
+        return this;
+    }
+
+    JsonWriter name(String name) throws IOException {
+        beforeValue();
+        writeString(name);
+        out.write(':');
+        afterName = true;
+        return this;
+    }
+
+    JsonWriter value(String value) throws IOException {
+        beforeValue();
+        writeString(value);
+        return this;
+    }
+
+    JsonWriter value(long value) throws IOException {
+        beforeValue();
+        out.write(Long.toString(value));
+        return this;
+    }
+
+    JsonWriter nullValue() throws IOException {
+        beforeValue();
+        out.write("null");
+        return this;
+    }
+
+    /**
+     * Writes a line break, which is insignificant whitespace in JSON, to keep the output readable
+     * for line-oriented tools.
+     */
+    JsonWriter newline() throws IOException {
+        out.write('\n');
+        return this;
+    }
+
+    private void beforeValue() throws IOException {
+        if (afterName) {
+            afterName = false;
+        } else if (!openScopes.isEmpty()) {
+            boolean[] scope = openScopes.peek();
+
+            if (scope[0]) {
+                out.write(',');
+            }
+            scope[0] = true;
+        }
+    }
+
+    private void writeString(String s) throws IOException {
+        out.write('"');
+        int start = 0;
+
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            String escape = switch (c) {
+                case '"' -> "\\\"";
+                case '\\' -> "\\\\";
+                case '\n' -> "\\n";
+                case '\r' -> "\\r";
+                case '\t' -> "\\t";
+                default -> (c < 0x20 || c == '\u2028' || c == '\u2029') ? String.format("\\u%04x", (int) c) : null;
+            };
+
+            if (escape != null) {
+                out.write(s, start, i - start);
+                out.write(escape);
+                start = i + 1;
+            }
+        }
+        out.write(s, start, s.length() - start);
+        out.write('"');
+    }
+}
@@ -0,0 +1,69 @@
+/*
+ * Copyright 2024-2024 Chris de Vreeze
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package eu.cdevreeze.xbrl4j.instance.oim;
+
+import com.google.common.collect.ImmutableMap;
+
+import javax.xml.namespace.QName;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Growing, one-to-one mapping from namespace URIs to prefixes, as needed for the "namespaces" map of OIM
+ * documents. The prefix used in the source document is preferred, unless it is already taken by another namespace.
+ * <p>
+ * This class is not thread-safe.
+ *
+ * @author Chris de Vreeze
+ */
+final class NamespacePrefixes {
+
+    private final Map<String, String> prefixesByNamespace = new HashMap<>();
+    private final Map<String, String> namespacesByPrefix = new LinkedHashMap<>();
+
+    String prefixFor(String namespace, String preferredPrefix) {
+        String existingPrefix = prefixesByNamespace.get(namespace);
+
+        if (existingPrefix != null) {
+            return existingPrefix;
+        }
+
+        String prefix = preferredPrefix.isEmpty() ? "ns0" : preferredPrefix;
+        for (int i = 1; namespacesByPrefix.containsKey(prefix); i++) {
+            prefix = (preferredPrefix.isEmpty() ? "ns" : preferredPrefix) + i;
+        }
+        prefixesByNamespace.put(namespace, prefix);
+        namespacesByPrefix.put(prefix, namespace);
+        return prefix;
+    }
+
+    /**
+     * Returns the OIM "prefix:localName" notation of the given QName, registering its namespace if needed.
+     */
+    String format(QName name) {
+        return prefixFor(name.getNamespaceURI(), name.getPrefix()) + ":" + name.getLocalPart();
+    }
+
+    /**
+     * Returns the prefix-to-namespace mapping, in order of registration.
+     */
+    ImmutableMap<String, String> namespaces() {
+        return ImmutableMap.copyOf(namespacesByPrefix);
+    }
+}
@@ -0,0 +1,318 @@
+/*
+ * Copyright 2024-2024 Chris de Vreeze
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package eu.cdevreeze.xbrl4j.instance.oim;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import eu.cdevreeze.xbrl4j.instance.*;
+import eu.cdevreeze.xbrl4j.model.xs.ConceptDeclaration;
+import eu.cdevreeze.xbrl4j.model.xs.ElementDeclaration;
+import eu.cdevreeze.xbrl4j.model.xs.ItemDeclaration;
+import eu.cdevreeze.xbrl4j.model.xs.Schema;
+import eu.cdevreeze.xbrl4j.taxonomy.ItemTypes;
+import eu.cdevreeze.xbrl4j.taxonomy.TaxonomyBase;
+import eu.cdevreeze.yaidom4j.core.NamespaceScope;
+import eu.cdevreeze.yaidom4j.dom.immutabledom.Element;
+import eu.cdevreeze.yaidom4j.dom.immutabledom.Text;
+
+import javax.xml.namespace.QName;
+import java.net.URI;
+import java.util.*;
+import java.util.function.Consumer;
+
+import static eu.cdevreeze.xbrl4j.instance.oim.OimFactConverter.*;
+import static eu.cdevreeze.xbrl4j.model.Names.*;
+
+/**
+ * Converter of OIM facts (as read by XbrlJsonReader or XbrlCsvReader) to the XBRL 2.1 fact model, passing contexts,
+ * units and item facts to a consumer as they are needed. Each distinct combination of entity, period and
+ * taxonomy-defined dimensions becomes one context, and each distinct OIM unit string becomes one unit, which are
+ * passed on just before the first fact using them.
+ * <p>
+ * Concepts and dimensions are resolved against the taxonomy, through their element declarations. The type of the
+ * concept declaration, classified through its derivation chain (see ItemTypes), determines whether a fact without
+ * unit is numeric (with implied unit "xbrli:pure"), and the
+ * "xbrldt:typedDomainRef" of a dimension declaration determines whether a dimension is typed, and if so, the name
+ * of the typed member content element. These lookups are cached per concept and dimension.
+ * <p>
+ * Taxonomy-defined dimensions are placed in the context segment. Since OIM has no equivalent of precision, facts
+ * only get decimals, except for non-nil numeric facts without decimals: in OIM their values are exact, so they
+ * get precision "INF".
+ * <p>
+ * This class is not thread-safe.
+ *
+ * @author Chris de Vreeze
+ */
+final class OimComponentBuilder {
+
+    private static final QName PURE_MEASURE = new QName(XBRLI_NS, "pure", "xbrli");
+
+    private record ConceptInfo(QName name, boolean numeric) {
+    }
+
+    private record TypedDomain(QName elementName, NamespaceScope namespaceScope) {
+    }
+
+    private final TaxonomyBase taxonomyBase;
+    private final ItemTypes itemTypes;
+    private final ImmutableMap<String, String> namespaces;
+    private final NamespaceScope namespaceScope;
+    private final Consumer<? super InstanceComponent> consumer;
+    private final List<OimIssue> issues;
+
+    private final Map<String, ConceptInfo> concepts = new HashMap<>();
+    private final Map<QName, Optional<TypedDomain>> typedDomains = new HashMap<>();
+    private final Map<String, String> contextIds = new HashMap<>();
+    private final Map<String, String> unitIds = new HashMap<>();
+
+    OimComponentBuilder(
+            TaxonomyBase taxonomyBase,
+            ItemTypes itemTypes,
+            ImmutableMap<String, String> namespaces,
+            Consumer<? super InstanceComponent> consumer,
+            List<OimIssue> issues
+    ) {
+        this.taxonomyBase = taxonomyBase;
+        this.itemTypes = itemTypes;
+        this.namespaces = namespaces;
+        this.namespaceScope = NamespaceScope.from(namespaces);
+        this.consumer = consumer;
+        this.issues = issues;
+    }
+
+    /**
+     * Passes the schemaRefs for the given "taxonomy" entries of the OIM document info to the consumer.
+     */
+    void addTaxonomy(List<String> taxonomy) {
+        for (String href : taxonomy) {
+            consumer.accept(new DtsReference(LINK_SCHEMA_REF_QNAME, URI.create(href)));
+        }
+    }
+
+    void addFact(OimFact fact) {
+        try {
+            convertFact(fact).ifPresent(consumer);
+        } catch (RuntimeException e) {
+            issues.add(new OimIssue(Optional.of(fact.id()), e.getMessage()));
+        }
+    }
+
+    private Optional<ItemFact> convertFact(OimFact fact) {
+        String conceptValue = fact.dimensions().get(CONCEPT);
+        String entityValue = fact.dimensions().get(ENTITY);
+
+        if (conceptValue == null || entityValue == null) {
+            issues.add(new OimIssue(Optional.of(fact.id()), "Missing concept or entity"));
+            return Optional.empty();
+        }
+
+        ConceptInfo concept = concepts.computeIfAbsent(conceptValue, this::resolveConcept);
+        if (!taxonomyBase.conceptIndex().containsConcept(concept.name())) {
+            issues.add(new OimIssue(Optional.of(fact.id()), "Concept " + concept.name() + " not found in taxonomy"));
+        }
+
+        // Decimals "INF" is the same as no decimals
+        Optional<String> decimalsOption = fact.decimalsOption().filter(d -> !d.strip().equals("INF"));
+        Optional<String> unitValueOption = Optional.ofNullable(fact.dimensions().get(UNIT))
+                .or(() -> (concept.numeric() || decimalsOption.isPresent()) ?
+                        Optional.of(format(PURE_MEASURE)) : Optional.empty());
+        boolean nil = fact.valueOption().isEmpty();
+        Optional<String> precisionOption = (unitValueOption.isPresent() && !nil && decimalsOption.isEmpty()) ?
+                Optional.of("INF") : Optional.empty();
+
+        String contextId = findOrAddContext(fact);
+        Optional<String> unitIdOption = unitValueOption.map(this::findOrAddUnit);
+
+        return Optional.of(new ItemFact(
+                concept.name(),
+                Optional.of(fact.id()),
+                contextId,
+                unitIdOption,
+                decimalsOption,
+                precisionOption,
+                Optional.ofNullable(fact.dimensions().get(LANGUAGE)),
+                nil,
+                fact.valueOption().orElse("")
+        ));
+    }
+
+    private String findOrAddContext(OimFact fact) {
+        StringBuilder key = new StringBuilder();
+        ImmutableList<Map.Entry<String, String>> taxonomyDefinedDimensions = fact.dimensions().entrySet().stream()
+                .filter(kv -> kv.getKey().contains(":"))
+                .sorted(Map.Entry.comparingByKey())
+                .collect(ImmutableList.toImmutableList());
+
+        key.append(fact.dimensions().get(ENTITY)).append('\n').append(fact.dimensions().getOrDefault(PERIOD, ""));
+        taxonomyDefinedDimensions.forEach(kv -> key.append('\n').append(kv.getKey()).append('=').append(kv.getValue()));
+
+        String existingId = contextIds.get(key.toString());
+        if (existingId != null) {
+            return existingId;
+        }
+
+        String id = "c" + contextIds.size();
+        Context context = new Context(
+                id,
+                parseEntity(fact.dimensions().get(ENTITY)),
+                parsePeriod(Optional.ofNullable(fact.dimensions().get(PERIOD))),
+                taxonomyDefinedDimensions.stream()
+                        .map(kv -> convertDimension(kv.getKey(), kv.getValue()))
+                        .collect(ImmutableList.toImmutableList()),
+                ImmutableList.of(),
+                ImmutableList.of(),
+                ImmutableList.of()
+        );
+        consumer.accept(context);
+        contextIds.put(key.toString(), id);
+        return id;
+    }
+
+    private String findOrAddUnit(String unitValue) {
+        String existingId = unitIds.get(unitValue);
+        if (existingId != null) {
+            return existingId;
+        }
+
+        String id = "u" + unitIds.size();
+        String[] parts = unitValue.split("/", -1);
+        if (parts.length > 2) {
+            throw new IllegalArgumentException("Invalid unit '" + unitValue + "'");
+        }
+        Unit unit = new Unit(
+                id,
+                parseMeasures(parts[0]),
+                (parts.length == 2) ? parseMeasures(parts[1]) : ImmutableList.of()
+        );
+        consumer.accept(unit);
+        unitIds.put(unitValue, id);
+        return id;
+    }
+
+    private ImmutableList<QName> parseMeasures(String product) {
+        String s = product.strip();
+        if (s.startsWith("(") && s.endsWith(")")) {
+            s = s.substring(1, s.length() - 1);
+        }
+        return Arrays.stream(s.split("\\*")).map(this::parseQName).collect(ImmutableList.toImmutableList());
+    }
+
+    private DimensionMember convertDimension(String dimensionValue, String memberValue) {
+        QName dimension = parseQName(dimensionValue);
+        Optional<TypedDomain> typedDomainOption = typedDomains.computeIfAbsent(dimension, this::findTypedDomain);
+
+        if (typedDomainOption.isPresent()) {
+            Element content = new Element(
+                    typedDomainOption.get().elementName(),
+                    ImmutableMap.of(),
+                    typedDomainOption.get().namespaceScope(),
+                    ImmutableList.of(new Text(memberValue, false))
+            );
+            return new TypedMember(dimension, content);
+        } else {
+            return new ExplicitMember(dimension, parseQName(memberValue));
+        }
+    }
+
+    private EntityIdentifier parseEntity(String entityValue) {
+        int colonIndex = entityValue.indexOf(':');
+        String prefix = (colonIndex < 0) ? "" : entityValue.substring(0, colonIndex);
+        String scheme = namespaces.get(prefix);
+
+        if (scheme == null) {
+            throw new IllegalArgumentException("Unknown entity scheme prefix in '" + entityValue + "'");
+        }
+        return new EntityIdentifier(scheme, entityValue.substring(colonIndex + 1));
+    }
+
+    private static Period parsePeriod(Optional<String> periodValueOption) {
+        if (periodValueOption.isEmpty()) {
+            return new ForeverPeriod();
+        }
+
+        String periodValue = periodValueOption.get().strip();
+        int slashIndex = periodValue.indexOf('/');
+        Period period = (slashIndex < 0) ?
+                new InstantPeriod(periodValue) :
+                new DurationPeriod(periodValue.substring(0, slashIndex), periodValue.substring(slashIndex + 1));
+
+        if (PeriodInterval.fromPeriod(period).isEmpty()) {
+            throw new IllegalArgumentException("Invalid period '" + periodValue + "'");
+        }
+        return period;
+    }
+
+    private ConceptInfo resolveConcept(String conceptValue) {
+        QName conceptName = parseQName(conceptValue);
+        boolean numeric = taxonomyBase.findConceptDeclaration(conceptName)
+                .filter(d -> d instanceof ItemDeclaration)
+                .map(d -> itemTypes.itemKind((ItemDeclaration) d).isNumeric())
+                .orElse(false);
+        return new ConceptInfo(conceptName, numeric);
+    }
+
+    /**
+     * Returns the typed domain element of the given dimension, or an empty Optional if it is
+     * not a typed dimension (or if its typed domain cannot be resolved).
+     */
+    private Optional<TypedDomain> findTypedDomain(QName dimension) {
+        Optional<ConceptDeclaration> dimensionDeclarationOption = taxonomyBase.findConceptDeclaration(dimension);
+
+        return dimensionDeclarationOption
+                .flatMap(d -> d.attributeOption(XBRLDT_TYPED_DOMAIN_REF_QNAME)
+                        .flatMap(ref -> taxonomyBase.findElement(taxonomyBase.resolveUri(URI.create(ref.strip()), d))))
+                .filter(e -> e instanceof ElementDeclaration)
+                .flatMap(e -> toTypedDomain((ElementDeclaration) e));
+    }
+
+    private Optional<TypedDomain> toTypedDomain(ElementDeclaration elementDeclaration) {
+        String tns = elementDeclaration.docUriOption()
+                .flatMap(taxonomyBase::findRootElement)
+                .filter(e -> e instanceof Schema)
+                .flatMap(e -> ((Schema) e).targetNamespaceOption())
+                .orElse("");
+        Optional<String> prefixOption = namespaces.entrySet().stream()
+                .filter(kv -> kv.getValue().equals(tns))
+                .map(Map.Entry::getKey)
+                .findFirst();
+
+        // Without a declared prefix for the target namespace, the typed member element uses the default namespace
+        NamespaceScope scope = (prefixOption.isPresent() || tns.isEmpty()) ?
+                namespaceScope :
+                NamespaceScope.from(ImmutableMap.<String, String>builder().putAll(namespaces).put("", tns).buildKeepingLast());
+
+        return elementDeclaration.nameOption()
+                .map(nm -> new TypedDomain(new QName(tns, nm, prefixOption.orElse("")), scope));
+    }
+
+    private QName parseQName(String value) {
+        String s = value.strip();
+        int colonIndex = s.indexOf(':');
+        String prefix = (colonIndex < 0) ? "" : s.substring(0, colonIndex);
+        String namespace = prefix.equals("xbrli") ? namespaces.getOrDefault(prefix, XBRLI_NS) : namespaces.get(prefix);
+
+        if (namespace == null) {
+            throw new IllegalArgumentException("Unknown prefix in '" + s + "'");
+        }
+        return new QName(namespace, s.substring(colonIndex + 1), prefix);
+    }
+
+    private String format(QName name) {
+        return name.getPrefix() + ":" + name.getLocalPart();
+    }
+}
@@ -0,0 +1,39 @@
+/*
+ * Copyright 2024-2024 Chris de Vreeze
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package eu.cdevreeze.xbrl4j.instance.oim;
+
+import com.google.common.collect.ImmutableMap;
+
+import java.util.Optional;
+
+/**
+ * Fact in the Open Information Model (OIM), as exchanged between the OIM writers and readers in this package.
+ * The dimensions map from the OIM dimension name ("concept", "entity", "period", "unit", "language" or the
+ * "prefix:localName" of a taxonomy-defined dimension) to the OIM dimension value. The core dimensions come first,
+ * followed by the taxonomy-defined dimensions in the order of the XBRL context. An empty value means a nil fact,
+ * and an empty decimals means infinite precision (or a non-numeric fact).
+ *
+ * @author Chris de Vreeze
+ */
+record OimFact(
+        String id,
+        ImmutableMap<String, String> dimensions,
+        Optional<String> valueOption,
+        Optional<String> decimalsOption
+) {
+}
@@ -0,0 +1,190 @@
+/*
+ * Copyright 2024-2024 Chris de Vreeze
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package eu.cdevreeze.xbrl4j.instance.oim;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import eu.cdevreeze.xbrl4j.instance.*;
+
+import javax.xml.namespace.QName;
+import java.net.URI;
+import java.time.format.DateTimeFormatter;
+import java.util.*;
+import java.util.function.Consumer;
+
+import static eu.cdevreeze.xbrl4j.model.Names.LINK_SCHEMA_REF_QNAME;
+
+/**
+ * Converter of a stream of instance components to OIM facts, resolving context and unit references on the fly.
+ * Contexts, units and DTS references are retained (they are typically few compared to the facts). Item facts are
+ * converted and passed on as soon as their context and unit are known, so for the common case of an instance
+ * document in which contexts and units precede the facts, no facts are buffered at all. Facts referring to a
+ * context or unit that has not (yet) been seen are kept until {@link #finish()} is called.
+ * <p>
+ * Features of the XBRL 2.1 instance that have no OIM counterpart are dropped: tuples, footnote links,
+ * non-dimensional segment or scenario content and precision attributes (other than precision "INF").
+ * Fact ids are kept where present, and otherwise generated.
+ * <p>
+ * This class is not thread-safe.
+ *
+ * @author Chris de Vreeze
+ */
+final class OimFactConverter implements Consumer<InstanceComponent> {
+
+    static final String CONCEPT = "concept";
+    static final String ENTITY = "entity";
+    static final String PERIOD = "period";
+    static final String UNIT = "unit";
+    static final String LANGUAGE = "language";
+
+    private final NamespacePrefixes namespacePrefixes;
+    private final Consumer<OimFact> factConsumer;
+
+    private final Map<String, Context> contexts = new HashMap<>();
+    private final Map<String, Unit> units = new HashMap<>();
+    private final List<ItemFact> pendingFacts = new ArrayList<>();
+    private final ImmutableList.Builder<URI> taxonomy = ImmutableList.builder();
+
+    private long generatedIdCount = 0;
+    private long skippedTupleCount = 0;
+
+    OimFactConverter(NamespacePrefixes namespacePrefixes, Consumer<OimFact> factConsumer) {
+        this.namespacePrefixes = namespacePrefixes;
+        this.factConsumer = factConsumer;
+    }
+
+    @Override
+    public void accept(InstanceComponent component) {
+        if (component instanceof Context context) {
+            contexts.put(context.id(), context);
+        } else if (component instanceof Unit unit) {
+            units.put(unit.id(), unit);
+        } else if (component instanceof DtsReference dtsReference) {
+            if (dtsReference.elementName().equals(LINK_SCHEMA_REF_QNAME)) {
+                taxonomy.add(dtsReference.href());
+            }
+        } else if (component instanceof ItemFact fact) {
+            if (isResolvable(fact)) {
+                factConsumer.accept(convert(fact));
+            } else {
+                pendingFacts.add(fact);
+            }
+        } else if (component instanceof TupleFact) {
+            skippedTupleCount += 1;
+        }
+    }
+
+    /**
+     * Converts the facts that could not be resolved earlier. Throws an IllegalStateException if a fact refers
+     * to a context or unit that does not exist in the instance.
+     */
+    void finish() {
+        for (ItemFact fact : pendingFacts) {
+            if (!isResolvable(fact)) {
+                throw new IllegalStateException(
+                        "Missing context '" + fact.contextRef() + "' or unit '" +
+                                fact.unitRefOption().orElse("") + "' for fact " + fact.name());
+            }
+            factConsumer.accept(convert(fact));
+        }
+        pendingFacts.clear();
+    }
+
+    ImmutableList<URI> taxonomy() {
+        return taxonomy.build();
+    }
+
+    long skippedTupleCount() {
+        return skippedTupleCount;
+    }
+
+    private boolean isResolvable(ItemFact fact) {
+        return contexts.containsKey(fact.contextRef()) &&
+                fact.unitRefOption().map(units::containsKey).orElse(true);
+    }
+
+    private OimFact convert(ItemFact fact) {
+        Context context = contexts.get(fact.contextRef());
+
+        ImmutableMap.Builder<String, String> dimensions = ImmutableMap.builder();
+        dimensions.put(CONCEPT, namespacePrefixes.format(fact.name()));
+        dimensions.put(ENTITY, formatEntity(context.entityIdentifier()));
+        formatPeriod(context.period()).ifPresent(p -> dimensions.put(PERIOD, p));
+        fact.unitRefOption().map(units::get).ifPresent(u -> dimensions.put(UNIT, formatUnit(u)));
+        fact.langOption().filter(lang -> !fact.isNumeric()).ifPresent(lang -> dimensions.put(LANGUAGE, lang.strip().toLowerCase(Locale.ROOT)));
+
+        for (DimensionMember dimensionMember : context.dimensions()) {
+            String dimension = namespacePrefixes.format(dimensionMember.dimension());
+
+            if (dimensionMember instanceof ExplicitMember explicitMember) {
+                dimensions.put(dimension, namespacePrefixes.format(explicitMember.member()));
+            } else if (dimensionMember instanceof TypedMember typedMember) {
+                dimensions.put(dimension, typedMember.content().text().strip());
+            }
+        }
+
+        return new OimFact(
+                fact.idOption().orElseGet(() -> "_f" + (++generatedIdCount)),
+                dimensions.buildKeepingLast(),
+                fact.nil() ? Optional.empty() : Optional.of(fact.isNumeric() ? fact.value().strip() : fact.value()),
+                fact.decimalsOption()
+                        .or(() -> fact.precisionOption().filter(p -> p.equals("INF")))
+                        .filter(d -> !d.equals("INF"))
+        );
+    }
+
+    private String formatEntity(EntityIdentifier entityIdentifier) {
+        return namespacePrefixes.prefixFor(entityIdentifier.scheme(), "scheme") + ":" + entityIdentifier.value();
+    }
+
+    /**
+     * Returns the OIM period value, using the date-time notation. The OIM period is absent for forever periods.
+     */
+    static Optional<String> formatPeriod(Period period) {
+        if (period instanceof ForeverPeriod) {
+            return Optional.empty();
+        }
+
+        PeriodInterval interval = PeriodInterval.fromPeriod(period)
+                .orElseThrow(() -> new IllegalArgumentException("Invalid period " + period));
+
+        if (period instanceof InstantPeriod) {
+            return Optional.of(DateTimeFormatter.ISO_LOCAL_DATE_TIME.format(interval.end()));
+        } else {
+            return Optional.of(
+                    DateTimeFormatter.ISO_LOCAL_DATE_TIME.format(interval.start()) + "/" +
+                            DateTimeFormatter.ISO_LOCAL_DATE_TIME.format(interval.end()));
+        }
+    }
+
+    /**
+     * Returns the OIM unit string, with the measures of numerator and denominator sorted, and the numerator and
+     * denominator between parentheses if there is a denominator and they have more than one measure.
+     */
+    private String formatUnit(Unit unit) {
+        String numerator = formatMeasures(unit.numerators(), unit.isDivide());
+
+        return unit.isDivide() ? numerator + "/" + formatMeasures(unit.denominators(), true) : numerator;
+    }
+
+    private String formatMeasures(List<QName> measures, boolean parenthesizeProduct) {
+        String product = String.join("*", measures.stream().map(namespacePrefixes::format).sorted().toList());
+
+        return (parenthesizeProduct && measures.size() > 1) ? "(" + product + ")" : product;
+    }
+}
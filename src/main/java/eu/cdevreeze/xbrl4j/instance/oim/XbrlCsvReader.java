@@ -0,0 +1,291 @@
+/*
+ * Copyright 2024-2024 Chris de Vreeze
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package eu.cdevreeze.xbrl4j.instance.oim;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import eu.cdevreeze.xbrl4j.instance.InstanceComponent;
+import eu.cdevreeze.xbrl4j.taxonomy.ItemTypes;
+import eu.cdevreeze.xbrl4j.taxonomy.TaxonomyBase;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.function.Consumer;
+
+/**
+ * Streaming reader of xBRL-CSV reports (in unpacked form, that is, a JSON metadata file and the CSV table files
+ * it refers to), converting them to the same instance components that the
+ * {@link eu.cdevreeze.xbrl4j.instance.stax.StreamingInstanceReader} produces for XML instances.
+ * <p>
+ * Before reading a table, its table template is compiled: for each fact column (a column whose definition has
+ * "dimensions"), the dimension and decimals values are merged from the report, template and column levels, and
+ * each "$name" reference is resolved once, to either a column index in the CSV header or a (table or report)
+ * parameter value. Each row is then turned into facts by array lookups only. The CSV files are parsed from
+ * memory-mapped windows of bounded size (see CsvParser), and only one row at a time is held in memory.
+ * <p>
+ * Metadata features not supported here ("extends", property groups, row id columns and the like) are ignored;
+ * fact ids are derived from the table name, row number and column name.
+ * <p>
+ * This class is immutable and thread-safe, provided the taxonomy is not modified.
+ *
+ * @author Chris de Vreeze
+ */
+public final class XbrlCsvReader {
+
+    /**
+     * The source of a dimension or decimals value: either a cell in the given column, or a constant
+     * (if the column index is -1).
+     */
+    private record ValueSource(int columnIndex, String constant) {
+
+        String value(List<String> row) {
+            return (columnIndex < 0) ? constant : (columnIndex < row.size() ? row.get(columnIndex) : "");
+        }
+    }
+
+    private record CompiledFactColumn(
+            int columnIndex,
+            String columnName,
+            ImmutableList<String> dimensions,
+            ImmutableList<ValueSource> dimensionValueSources,
+            Optional<ValueSource> decimalsSourceOption
+    ) {
+    }
+
+    private final TaxonomyBase taxonomyBase;
+    private final ItemTypes itemTypes;
+
+    private XbrlCsvReader(TaxonomyBase taxonomyBase, ItemTypes itemTypes) {
+        this.taxonomyBase = taxonomyBase;
+        this.itemTypes = itemTypes;
+    }
+
+    public static XbrlCsvReader create(TaxonomyBase taxonomyBase) {
+        return new XbrlCsvReader(taxonomyBase, ItemTypes.from(taxonomyBase));
+    }
+
+    /**
+     * Reads the xBRL-CSV report with the given metadata file, passing each instance component to the given consumer,
+     * and returns the issues found. Table URLs are resolved against the directory of the metadata file.
+     */
+    public ImmutableList<OimIssue> read(Path metadataFile, Consumer<? super InstanceComponent> consumer) {
+        List<OimIssue> issues = new ArrayList<>();
+
+        try {
+            Map<?, ?> metadata;
+            try (Reader in = Files.newBufferedReader(metadataFile, StandardCharsets.UTF_8)) {
+                JsonParser parser = new JsonParser(in);
+                parser.next();
+                metadata = XbrlJsonReader.asMap(parser.readValue());
+            }
+
+            Map<?, ?> documentInfo = XbrlJsonReader.asMap(metadata.get("documentInfo"));
+            OimComponentBuilder builder = new OimComponentBuilder(
+                    taxonomyBase, itemTypes, XbrlJsonReader.readNamespaces(documentInfo), consumer, issues);
+            builder.addTaxonomy(XbrlJsonReader.readTaxonomy(documentInfo));
+
+            Map<?, ?> tableTemplates = optionalMap(metadata, "tableTemplates");
+            Map<?, ?> reportParameters = optionalMap(metadata, "parameters");
+            Map<?, ?> reportDimensions = optionalMap(metadata, "dimensions");
+            CsvParser csvParser = new CsvParser();
+
+            for (Map.Entry<?, ?> tableEntry : optionalMap(metadata, "tables").entrySet()) {
+                String tableName = tableEntry.getKey().toString();
+                Map<?, ?> table = XbrlJsonReader.asMap(tableEntry.getValue());
+                String templateName = JsonParser.asString(table.get("template")).orElse(tableName);
+                Optional<String> urlOption = JsonParser.asString(table.get("url"));
+
+                if (urlOption.isEmpty() || !(tableTemplates.get(templateName) instanceof Map<?, ?> template)) {
+                    issues.add(new OimIssue(Optional.empty(), "Missing url or table template for table " + tableName));
+                    continue;
+                }
+
+                Map<String, String> parameters = new HashMap<>();
+                putStrings(reportParameters, parameters);
+                putStrings(optionalMap(table, "parameters"), parameters);
+
+                readTable(
+                        tableName,
+                        metadataFile.resolveSibling(urlOption.get()),
+                        template,
+                        reportDimensions,
+                        parameters,
+                        csvParser,
+                        builder,
+                        issues
+                );
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return ImmutableList.copyOf(issues);
+    }
+
+    private void readTable(
+            String tableName,
+            Path csvFile,
+            Map<?, ?> template,
+            Map<?, ?> reportDimensions,
+            Map<String, String> parameters,
+            CsvParser csvParser,
+            OimComponentBuilder builder,
+            List<OimIssue> issues
+    ) throws IOException {
+        List<CompiledFactColumn> factColumns = new ArrayList<>();
+        long[] rowNumber = {0};
+
+        csvParser.forEachRow(csvFile, row -> {
+            if (rowNumber[0] == 0) {
+                factColumns.addAll(compile(tableName, template, reportDimensions, parameters, row, issues));
+            } else {
+                for (CompiledFactColumn factColumn : factColumns) {
+                    readFact(tableName, rowNumber[0], row, factColumn).ifPresent(builder::addFact);
+                }
+            }
+            rowNumber[0] += 1;
+        });
+    }
+
+    private static Optional<OimFact> readFact(String tableName, long rowNumber, List<String> row, CompiledFactColumn factColumn) {
+        String cell = (factColumn.columnIndex() < row.size()) ? row.get(factColumn.columnIndex()) : "";
+
+        if (cell.isEmpty() || cell.equals("#none")) {
+            return Optional.empty();
+        }
+
+        ImmutableMap.Builder<String, String> dimensions = ImmutableMap.builder();
+        for (int i = 0; i < factColumn.dimensions().size(); i++) {
+            String dimension = factColumn.dimensions().get(i);
+            specialValue(factColumn.dimensionValueSources().get(i).value(row)).ifPresent(v -> dimensions.put(dimension, v));
+        }
+
+        return Optional.of(new OimFact(
+                tableName + ".r_" + rowNumber + "." + factColumn.columnName(),
+                dimensions.buildKeepingLast(),
+                cell.equals("#nil") ? Optional.empty() : specialValue(cell).or(() -> Optional.of("")),
+                factColumn.decimalsSourceOption().flatMap(s -> specialValue(s.value(row)))
+        ));
+    }
+
+    /**
+     * Returns the value denoted by the given cell: empty for an empty cell or "#none", the empty string for "#empty",
+     * and the cell with the first "#" removed for cells starting with "##".
+     */
+    private static Optional<String> specialValue(String cell) {
+        if (cell.isEmpty() || cell.equals("#none")) {
+            return Optional.empty();
+        } else if (cell.equals("#empty")) {
+            return Optional.of("");
+        } else {
+            return Optional.of(cell.startsWith("##") ? cell.substring(1) : cell);
+        }
+    }
+
+    /**
+     * Compiles the fact columns of the given table template against the given CSV header row.
+     */
+    private static ImmutableList<CompiledFactColumn> compile(
+            String tableName,
+            Map<?, ?> template,
+            Map<?, ?> reportDimensions,
+            Map<String, String> parameters,
+            List<String> header,
+            List<OimIssue> issues
+    ) {
+        Map<String, Integer> columnIndexes = new HashMap<>();
+        for (int i = 0; i < header.size(); i++) {
+            columnIndexes.putIfAbsent(header.get(i).strip(), i);
+        }
+
+        ImmutableList.Builder<CompiledFactColumn> factColumns = ImmutableList.builder();
+
+        for (Map.Entry<?, ?> columnEntry : optionalMap(template, "columns").entrySet()) {
+            String columnName = columnEntry.getKey().toString();
+
+            if (!(columnEntry.getValue() instanceof Map<?, ?> column) || !column.containsKey("dimensions")) {
+                continue;
+            }
+            if (!columnIndexes.containsKey(columnName)) {
+                issues.add(new OimIssue(Optional.empty(), "Column " + columnName + " missing in table " + tableName));
+                continue;
+            }
+
+            Map<String, String> mergedDimensions = new LinkedHashMap<>();
+            putStrings(reportDimensions, mergedDimensions);
+            putStrings(optionalMap(template, "dimensions"), mergedDimensions);
+            putStrings(optionalMap(column, "dimensions"), mergedDimensions);
+
+            Optional<String> decimalsOption = Optional.ofNullable(column.get("decimals"))
+                    .or(() -> Optional.ofNullable(template.get("decimals")))
+                    .filter(d -> d instanceof String || d instanceof BigDecimal)
+                    .map(Object::toString);
+
+            try {
+                factColumns.add(new CompiledFactColumn(
+                        columnIndexes.get(columnName),
+                        columnName,
+                        ImmutableList.copyOf(mergedDimensions.keySet()),
+                        mergedDimensions.values().stream()
+                                .map(v -> compileValue(v, columnIndexes, parameters))
+                                .collect(ImmutableList.toImmutableList()),
+                        decimalsOption.map(v -> compileValue(v, columnIndexes, parameters))
+                ));
+            } catch (IllegalArgumentException e) {
+                issues.add(new OimIssue(Optional.empty(), "Column " + columnName + " in table " + tableName + ": " + e.getMessage()));
+            }
+        }
+        return factColumns.build();
+    }
+
+    private static ValueSource compileValue(String value, Map<String, Integer> columnIndexes, Map<String, String> parameters) {
+        if (!value.startsWith("$")) {
+            return new ValueSource(-1, value);
+        }
+
+        String reference = value.substring(1);
+        Integer columnIndex = columnIndexes.get(reference);
+
+        if (columnIndex != null) {
+            return new ValueSource(columnIndex, "");
+        } else if (parameters.containsKey(reference)) {
+            return new ValueSource(-1, parameters.get(reference));
+        } else {
+            throw new IllegalArgumentException("Unresolved reference '" + value + "'");
+        }
+    }
+
+    private static Map<?, ?> optionalMap(Map<?, ?> map, String key) {
+        return (map.get(key) instanceof Map<?, ?> value) ? value : ImmutableMap.of();
+    }
+
+    private static void putStrings(Map<?, ?> source, Map<String, String> target) {
+        for (Map.Entry<?, ?> entry : source.entrySet()) {
+            if (entry.getValue() == JsonParser.NULL) {
+                target.remove(entry.getKey().toString());
+            } else {
+                JsonParser.asString(entry.getValue()).ifPresent(v -> target.put(entry.getKey().toString(), v));
+            }
+        }
+    }
+}
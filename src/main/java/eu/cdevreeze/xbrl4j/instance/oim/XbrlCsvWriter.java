@@ -0,0 +1,228 @@
+/*
+ * Copyright 2024-2024 Chris de Vreeze
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package eu.cdevreeze.xbrl4j.instance.oim;
+
+import com.google.common.collect.ImmutableList;
+import eu.cdevreeze.xbrl4j.instance.InstanceComponent;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.function.Consumer;
+
+import static eu.cdevreeze.xbrl4j.instance.oim.OimFactConverter.UNIT;
+
+/**
+ * Streaming writer of xBRL-CSV report packages in "unpacked" form: a JSON metadata file plus one CSV file per
+ * table, in a given directory. There is one table template per combination of (core and taxonomy-defined)
+ * dimensions that occurs in the instance. Each table template has one column per dimension, a "decimals" column
+ * if the facts are numeric, and a "value" fact column whose dimensions refer to the other columns.
+ * <p>
+ * Like {@link XbrlJsonWriter}, facts are written as soon as their context and unit are known. The column layout of
+ * a table template is computed once, when the first fact with its combination of dimensions is seen, after which
+ * each fact is written as one CSV row through a bounded buffer. The metadata file is written by {@link #finish()},
+ * when all namespace prefixes and table templates are known.
+ * <p>
+ * This class is not thread-safe.
+ *
+ * @author Chris de Vreeze
+ */
+public final class XbrlCsvWriter implements Consumer<InstanceComponent> {
+
+    public static final String DOCUMENT_TYPE = "https://xbrl.org/2021/xbrl-csv";
+    public static final String METADATA_FILE_NAME = "metadata.json";
+
+    private static final String DECIMALS_COLUMN = "decimals";
+    private static final String VALUE_COLUMN = "value";
+
+    /**
+     * Table template, with its column names precomputed. The dimension columns are in the same order as the
+     * dimensions of the facts in the table.
+     */
+    private record TableTemplate(
+            String id,
+            ImmutableList<String> dimensions,
+            ImmutableList<String> dimensionColumns,
+            boolean hasDecimalsColumn,
+            Writer out,
+            CsvWriter csvWriter
+    ) {
+
+        ImmutableList<String> columns() {
+            ImmutableList.Builder<String> columns = ImmutableList.<String>builder().addAll(dimensionColumns);
+            if (hasDecimalsColumn) {
+                columns.add(DECIMALS_COLUMN);
+            }
+            return columns.add(VALUE_COLUMN).build();
+        }
+    }
+
+    private final Path directory;
+    private final NamespacePrefixes namespacePrefixes;
+    private final OimFactConverter converter;
+    private final Map<ImmutableList<String>, TableTemplate> tableTemplates = new LinkedHashMap<>();
+
+    private XbrlCsvWriter(Path directory) {
+        this.directory = directory;
+        this.namespacePrefixes = new NamespacePrefixes();
+        this.converter = new OimFactConverter(namespacePrefixes, this::writeFact);
+    }
+
+    /**
+     * Creates a writer to the given directory, which must exist. Existing table and metadata files are overwritten.
+     */
+    public static XbrlCsvWriter create(Path directory) {
+        return new XbrlCsvWriter(directory);
+    }
+
+    @Override
+    public void accept(InstanceComponent component) {
+        converter.accept(component);
+    }
+
+    /**
+     * Writes the remaining facts, closes the table files and writes the metadata file.
+     */
+    public void finish() {
+        try {
+            converter.finish();
+        } finally {
+            closeTables();
+        }
+
+        try (Writer out = Files.newBufferedWriter(directory.resolve(METADATA_FILE_NAME), StandardCharsets.UTF_8)) {
+            writeMetadata(new JsonWriter(out));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private void writeFact(OimFact fact) {
+        TableTemplate tableTemplate = tableTemplates.get(fact.dimensions().keySet().asList());
+
+        try {
+            if (tableTemplate == null) {
+                tableTemplate = openTable(fact.dimensions().keySet().asList());
+                tableTemplates.put(tableTemplate.dimensions(), tableTemplate);
+            }
+
+            List<String> row = new ArrayList<>(tableTemplate.dimensionColumns().size() + 2);
+            row.addAll(fact.dimensions().values());
+            if (tableTemplate.hasDecimalsColumn()) {
+                row.add(fact.decimalsOption().orElse(""));
+            }
+            row.add(fact.valueOption().map(XbrlCsvWriter::escapeValue).orElse("#nil"));
+
+            tableTemplate.csvWriter().writeRow(row);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private TableTemplate openTable(ImmutableList<String> dimensions) throws IOException {
+        String id = "t" + tableTemplates.size();
+
+        Set<String> usedColumns = new HashSet<>(Set.of(DECIMALS_COLUMN, VALUE_COLUMN));
+        ImmutableList<String> dimensionColumns = dimensions.stream()
+                .map(dim -> uniqueColumnName(dim.replace(':', '_'), usedColumns))
+                .collect(ImmutableList.toImmutableList());
+
+        Writer out = Files.newBufferedWriter(directory.resolve(id + ".csv"), StandardCharsets.UTF_8);
+        TableTemplate tableTemplate =
+                new TableTemplate(id, dimensions, dimensionColumns, dimensions.contains(UNIT), out, new CsvWriter(out));
+        tableTemplate.csvWriter().writeRow(tableTemplate.columns());
+        return tableTemplate;
+    }
+
+    private void closeTables() {
+        IOException exception = null;
+
+        for (TableTemplate tableTemplate : tableTemplates.values()) {
+            try {
+                tableTemplate.out().close();
+            } catch (IOException e) {
+                exception = (exception == null) ? e : exception;
+            }
+        }
+
+        if (exception != null) {
+            throw new UncheckedIOException(exception);
+        }
+    }
+
+    private void writeMetadata(JsonWriter jsonWriter) throws IOException {
+        jsonWriter.beginObject().name("documentInfo");
+        XbrlJsonWriter.writeDocumentInfo(jsonWriter, DOCUMENT_TYPE, namespacePrefixes.namespaces(), converter.taxonomy());
+
+        jsonWriter.name("tableTemplates").beginObject().newline();
+        for (TableTemplate tableTemplate : tableTemplates.values()) {
+            jsonWriter.name(tableTemplate.id()).beginObject().name("columns").beginObject();
+
+            for (String column : tableTemplate.dimensionColumns()) {
+                jsonWriter.name(column).beginObject().endObject();
+            }
+            if (tableTemplate.hasDecimalsColumn()) {
+                jsonWriter.name(DECIMALS_COLUMN).beginObject().endObject();
+            }
+
+            jsonWriter.name(VALUE_COLUMN).beginObject().name("dimensions").beginObject();
+            for (int i = 0; i < tableTemplate.dimensions().size(); i++) {
+                jsonWriter.name(tableTemplate.dimensions().get(i)).value("$" + tableTemplate.dimensionColumns().get(i));
+            }
+            jsonWriter.endObject();
+            if (tableTemplate.hasDecimalsColumn()) {
+                jsonWriter.name("decimals").value("$" + DECIMALS_COLUMN);
+            }
+            jsonWriter.endObject().endObject().endObject().newline();
+        }
+        jsonWriter.endObject();
+
+        jsonWriter.name("tables").beginObject();
+        for (TableTemplate tableTemplate : tableTemplates.values()) {
+            jsonWriter.name(tableTemplate.id()).beginObject()
+                    .name("template").value(tableTemplate.id())
+                    .name("url").value(tableTemplate.id() + ".csv")
+                    .endObject();
+        }
+        jsonWriter.endObject().endObject().newline();
+    }
+
+    private static String uniqueColumnName(String candidate, Set<String> usedColumns) {
+        String column = candidate;
+        for (int i = 1; !usedColumns.add(column); i++) {
+            column = candidate + "_" + i;
+        }
+        return column;
+    }
+
+    /**
+     * Escapes a fact value for an xBRL-CSV cell: the empty string and values starting with "#" would otherwise be
+     * read as special values.
+     */
+    private static String escapeValue(String value) {
+        if (value.isEmpty()) {
+            return "#empty";
+        }
+        return value.startsWith("#") ? "#" + value : value;
+    }
+}
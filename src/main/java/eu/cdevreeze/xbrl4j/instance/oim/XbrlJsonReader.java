@@ -0,0 +1,202 @@
+/*
+ * Copyright 2024-2024 Chris de Vreeze
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package eu.cdevreeze.xbrl4j.instance.oim;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import eu.cdevreeze.xbrl4j.instance.InstanceComponent;
+import eu.cdevreeze.xbrl4j.taxonomy.ItemTypes;
+import eu.cdevreeze.xbrl4j.taxonomy.TaxonomyBase;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Consumer;
+
+/**
+ * Streaming reader of xBRL-JSON documents, converting them to the same instance components that the
+ * {@link eu.cdevreeze.xbrl4j.instance.stax.StreamingInstanceReader} produces for XML instances. Hence OIM reports
+ * can be indexed and validated (e.g. by FactIndex and InstanceValidator) just like XML instances.
+ * <p>
+ * The document is parsed token by token, and only one fact at a time is held in memory. The "documentInfo" object
+ * is needed to resolve the facts, so if the "facts" object comes first (as written by {@link XbrlJsonWriter}), the
+ * facts are skipped in a first pass over the file, and read in a second pass.
+ * <p>
+ * Fact properties other than value, decimals and dimensions (such as links) are ignored.
+ * <p>
+ * This class is immutable and thread-safe, provided the taxonomy is not modified.
+ *
+ * @author Chris de Vreeze
+ */
+public final class XbrlJsonReader {
+
+    private final TaxonomyBase taxonomyBase;
+    private final ItemTypes itemTypes;
+
+    private XbrlJsonReader(TaxonomyBase taxonomyBase, ItemTypes itemTypes) {
+        this.taxonomyBase = taxonomyBase;
+        this.itemTypes = itemTypes;
+    }
+
+    public static XbrlJsonReader create(TaxonomyBase taxonomyBase) {
+        return new XbrlJsonReader(taxonomyBase, ItemTypes.from(taxonomyBase));
+    }
+
+    /**
+     * Reads the given xBRL-JSON file, passing each instance component to the given consumer, and returns the issues
+     * found. Facts with issues that prevent their conversion are skipped.
+     */
+    public ImmutableList<OimIssue> read(Path file, Consumer<? super InstanceComponent> consumer) {
+        List<OimIssue> issues = new ArrayList<>();
+
+        try {
+            Optional<Map<?, ?>> documentInfoOption = Optional.empty();
+            boolean factsSkipped = false;
+
+            try (Reader in = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+                JsonParser parser = new JsonParser(in);
+                expect(parser.next(), JsonParser.Token.BEGIN_OBJECT);
+
+                while (parser.next() == JsonParser.Token.NAME) {
+                    String name = parser.text();
+                    parser.next();
+
+                    if (name.equals("documentInfo")) {
+                        documentInfoOption = Optional.of(asMap(parser.readValue()));
+                    } else if (name.equals("facts") && documentInfoOption.isPresent()) {
+                        readFacts(parser, createBuilder(documentInfoOption.get(), consumer, issues));
+                    } else {
+                        factsSkipped |= name.equals("facts");
+                        parser.skipValue();
+                    }
+                }
+            }
+
+            if (documentInfoOption.isEmpty()) {
+                throw new IllegalStateException("Missing documentInfo in " + file);
+            }
+
+            if (factsSkipped) {
+                try (Reader in = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+                    JsonParser parser = new JsonParser(in);
+                    expect(parser.next(), JsonParser.Token.BEGIN_OBJECT);
+                    OimComponentBuilder builder = createBuilder(documentInfoOption.get(), consumer, issues);
+
+                    while (parser.next() == JsonParser.Token.NAME) {
+                        String name = parser.text();
+                        parser.next();
+
+                        if (name.equals("facts")) {
+                            readFacts(parser, builder);
+                        } else {
+                            parser.skipValue();
+                        }
+                    }
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return ImmutableList.copyOf(issues);
+    }
+
+    private OimComponentBuilder createBuilder(Map<?, ?> documentInfo, Consumer<? super InstanceComponent> consumer, List<OimIssue> issues) {
+        OimComponentBuilder builder = new OimComponentBuilder(taxonomyBase, itemTypes, readNamespaces(documentInfo), consumer, issues);
+        builder.addTaxonomy(readTaxonomy(documentInfo));
+        return builder;
+    }
+
+    private static void readFacts(JsonParser parser, OimComponentBuilder builder) throws IOException {
+        expect(parser.token(), JsonParser.Token.BEGIN_OBJECT);
+
+        while (parser.next() == JsonParser.Token.NAME) {
+            String id = parser.text();
+            parser.next();
+            builder.addFact(readFact(id, parser));
+        }
+    }
+
+    private static OimFact readFact(String id, JsonParser parser) throws IOException {
+        expect(parser.token(), JsonParser.Token.BEGIN_OBJECT);
+
+        ImmutableMap.Builder<String, String> dimensions = ImmutableMap.builder();
+        Optional<String> valueOption = Optional.empty();
+        Optional<String> decimalsOption = Optional.empty();
+
+        while (parser.next() == JsonParser.Token.NAME) {
+            String name = parser.text();
+            JsonParser.Token token = parser.next();
+
+            switch (name) {
+                case "value" -> valueOption = (token == JsonParser.Token.NULL) ? Optional.empty() : Optional.of(parser.text());
+                case "decimals" -> decimalsOption = Optional.of(parser.text());
+                case "dimensions" -> {
+                    expect(token, JsonParser.Token.BEGIN_OBJECT);
+                    while (parser.next() == JsonParser.Token.NAME) {
+                        String dimension = parser.text();
+                        JsonParser.Token valueToken = parser.next();
+                        // A null dimension value means that the dimension is absent
+                        if (valueToken != JsonParser.Token.NULL) {
+                            dimensions.put(dimension, parser.text());
+                        }
+                    }
+                }
+                default -> parser.skipValue();
+            }
+        }
+        return new OimFact(id, dimensions.buildKeepingLast(), valueOption, decimalsOption);
+    }
+
+    static ImmutableMap<String, String> readNamespaces(Map<?, ?> documentInfo) {
+        Object namespaces = documentInfo.get("namespaces");
+
+        return (namespaces instanceof Map<?, ?> map) ?
+                map.entrySet().stream()
+                        .filter(kv -> kv.getValue() instanceof String)
+                        .collect(ImmutableMap.toImmutableMap(kv -> kv.getKey().toString(), kv -> kv.getValue().toString())) :
+                ImmutableMap.of();
+    }
+
+    static ImmutableList<String> readTaxonomy(Map<?, ?> documentInfo) {
+        Object taxonomy = documentInfo.get("taxonomy");
+
+        return (taxonomy instanceof List<?> list) ?
+                list.stream().flatMap(v -> JsonParser.asString(v).stream()).collect(ImmutableList.toImmutableList()) :
+                ImmutableList.of();
+    }
+
+    static Map<?, ?> asMap(Object value) {
+        if (value instanceof Map<?, ?> map) {
+            return map;
+        }
+        throw new IllegalStateException("Expected JSON object but found " + value);
+    }
+
+    private static void expect(JsonParser.Token token, JsonParser.Token expectedToken) {
+        if (token != expectedToken) {
+            throw new IllegalStateException("Expected " + expectedToken + " but found " + token);
+        }
+    }
+}
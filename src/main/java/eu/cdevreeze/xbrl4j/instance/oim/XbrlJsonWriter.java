@@ -0,0 +1,135 @@
+/*
+ * Copyright 2024-2024 Chris de Vreeze
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package eu.cdevreeze.xbrl4j.instance.oim;
+
+import eu.cdevreeze.xbrl4j.instance.InstanceComponent;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.net.URI;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+/**
+ * Streaming writer of xBRL-JSON documents. Instance components (for example, as produced by a
+ * {@link eu.cdevreeze.xbrl4j.instance.stax.StreamingInstanceReader}) are passed to {@link #accept(InstanceComponent)}
+ * one at a time, and each fact is written as soon as its context and unit are known. After the last component,
+ * {@link #finish()} must be called, which writes the "documentInfo" object (after the "facts" object, which is
+ * allowed since JSON object members are unordered) and flushes the output.
+ * <p>
+ * Only a bounded output buffer is used, so an instance with millions of facts can be exported without holding
+ * the output (or the facts) in memory. See OimFactConverter for which XBRL 2.1 features are dropped.
+ * <p>
+ * This class is not thread-safe.
+ *
+ * @author Chris de Vreeze
+ */
+public final class XbrlJsonWriter implements Consumer<InstanceComponent> {
+
+    public static final String DOCUMENT_TYPE = "https://xbrl.org/2021/xbrl-json";
+
+    private final Writer out;
+    private final JsonWriter jsonWriter;
+    private final NamespacePrefixes namespacePrefixes;
+    private final OimFactConverter converter;
+
+    private XbrlJsonWriter(Writer out) {
+        this.out = out;
+        this.jsonWriter = new JsonWriter(out);
+        this.namespacePrefixes = new NamespacePrefixes();
+        this.converter = new OimFactConverter(namespacePrefixes, this::writeFact);
+
+        try {
+            jsonWriter.beginObject().name("facts").beginObject().newline();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Creates a writer to the given Writer, which is buffered, flushed by {@link #finish()}, and not closed.
+     */
+    public static XbrlJsonWriter create(Writer out) {
+        return new XbrlJsonWriter(new BufferedWriter(out));
+    }
+
+    @Override
+    public void accept(InstanceComponent component) {
+        converter.accept(component);
+    }
+
+    /**
+     * Writes the remaining facts and the document info, and flushes the output.
+     */
+    public void finish() {
+        converter.finish();
+
+        try {
+            jsonWriter.endObject().name("documentInfo");
+            writeDocumentInfo(jsonWriter, DOCUMENT_TYPE, namespacePrefixes.namespaces(), converter.taxonomy());
+            jsonWriter.endObject().newline();
+            out.flush();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private void writeFact(OimFact fact) {
+        try {
+            jsonWriter.name(fact.id()).beginObject();
+
+            jsonWriter.name("value");
+            if (fact.valueOption().isPresent()) {
+                jsonWriter.value(fact.valueOption().get());
+            } else {
+                jsonWriter.nullValue();
+            }
+
+            if (fact.decimalsOption().isPresent()) {
+                jsonWriter.name("decimals").value(Long.parseLong(fact.decimalsOption().get()));
+            }
+
+            jsonWriter.name("dimensions").beginObject();
+            for (Map.Entry<String, String> dimension : fact.dimensions().entrySet()) {
+                jsonWriter.name(dimension.getKey()).value(dimension.getValue());
+            }
+            jsonWriter.endObject().endObject().newline();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    static void writeDocumentInfo(JsonWriter jsonWriter, String documentType, Map<String, String> namespaces, List<URI> taxonomy) throws IOException {
+        jsonWriter.beginObject().name("documentType").value(documentType);
+
+        jsonWriter.name("namespaces").beginObject();
+        for (Map.Entry<String, String> namespace : namespaces.entrySet()) {
+            jsonWriter.name(namespace.getKey()).value(namespace.getValue());
+        }
+        jsonWriter.endObject();
+
+        jsonWriter.name("taxonomy").beginArray();
+        for (URI uri : taxonomy) {
+            jsonWriter.value(uri.toString());
+        }
+        jsonWriter.endArray().endObject();
+    }
+}
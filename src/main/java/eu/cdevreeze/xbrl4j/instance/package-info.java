@@ -0,0 +1,27 @@
+/*
+ * Copyright 2024-2024 Chris de Vreeze
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+/**
+ * Lightweight XBRL instance data model, independent of any XML element tree. Contexts, units, facts and
+ * footnote links are represented as immutable records, which makes them suitable for streaming
+ * (see subpackage "stax"), indexing and export to other formats.
+ * <p>
+ * For element-centric (tree-based) access to XBRL instances, see the XBRL model in package "model" instead.
+ *
+ * @author Chris de Vreeze
+ */
+package eu.cdevreeze.xbrl4j.instance;
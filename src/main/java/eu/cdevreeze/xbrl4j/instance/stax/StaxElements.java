@@ -0,0 +1,108 @@
+/*
+ * Copyright 2024-2024 Chris de Vreeze
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package eu.cdevreeze.xbrl4j.instance.stax;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import eu.cdevreeze.yaidom4j.core.NamespaceScope;
+import eu.cdevreeze.yaidom4j.dom.immutabledom.Element;
+import eu.cdevreeze.yaidom4j.dom.immutabledom.Node;
+import eu.cdevreeze.yaidom4j.dom.immutabledom.Text;
+
+import javax.xml.XMLConstants;
+import javax.xml.namespace.QName;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Utility to build small yaidom4j element trees from a StAX XMLStreamReader, for streaming readers that
+ * only materialize parts of a document at a time.
+ *
+ * @author Chris de Vreeze
+ */
+public class StaxElements {
+
+    private StaxElements() {
+    }
+
+    /**
+     * Reads the element at the current START_ELEMENT event, up to and including its END_ELEMENT event.
+     * Comments and processing instructions are ignored.
+     */
+    public static Element readElement(XMLStreamReader reader, NamespaceScope parentScope) throws XMLStreamException {
+        QName name = reader.getName();
+        NamespaceScope scope = resolveNamespaceScope(reader, parentScope);
+
+        ImmutableMap.Builder<QName, String> attributes = ImmutableMap.builder();
+        for (int i = 0; i < reader.getAttributeCount(); i++) {
+            attributes.put(reader.getAttributeName(i), reader.getAttributeValue(i));
+        }
+
+        ImmutableList.Builder<Node> children = ImmutableList.builder();
+        StringBuilder textBuffer = new StringBuilder();
+
+        while (true) {
+            int event = reader.next();
+
+            if (event == XMLStreamConstants.START_ELEMENT) {
+                flushText(textBuffer, children);
+                children.add(readElement(reader, scope));
+            } else if (event == XMLStreamConstants.CHARACTERS ||
+                    event == XMLStreamConstants.CDATA ||
+                    event == XMLStreamConstants.SPACE) {
+                textBuffer.append(reader.getText());
+            } else if (event == XMLStreamConstants.END_ELEMENT) {
+                flushText(textBuffer, children);
+                return new Element(name, attributes.buildKeepingLast(), scope, children.build());
+            }
+        }
+    }
+
+    /**
+     * Returns the namespace scope of the element at the current START_ELEMENT event, given the scope of its parent.
+     */
+    public static NamespaceScope resolveNamespaceScope(XMLStreamReader reader, NamespaceScope parentScope) {
+        if (reader.getNamespaceCount() == 0) {
+            return parentScope;
+        }
+        Map<String, String> namespaces = new LinkedHashMap<>(parentScope.inScopeNamespaces());
+
+        for (int i = 0; i < reader.getNamespaceCount(); i++) {
+            String prefix = Objects.requireNonNullElse(reader.getNamespacePrefix(i), XMLConstants.DEFAULT_NS_PREFIX);
+            String namespace = Objects.requireNonNullElse(reader.getNamespaceURI(i), "");
+
+            if (namespace.isEmpty()) {
+                namespaces.remove(prefix);
+            } else {
+                namespaces.put(prefix, namespace);
+            }
+        }
+        return NamespaceScope.from(namespaces);
+    }
+
+    private static void flushText(StringBuilder textBuffer, ImmutableList.Builder<Node> children) {
+        if (!textBuffer.isEmpty()) {
+            children.add(new Text(textBuffer.toString(), false));
+            textBuffer.setLength(0);
+        }
+    }
+}
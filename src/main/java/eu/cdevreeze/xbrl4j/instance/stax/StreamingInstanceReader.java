@@ -0,0 +1,198 @@
+/*
+ * Copyright 2024-2024 Chris de Vreeze
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package eu.cdevreeze.xbrl4j.instance.stax;
+
+import eu.cdevreeze.xbrl4j.instance.InstanceComponent;
+import eu.cdevreeze.xbrl4j.instance.InstanceComponents;
+import eu.cdevreeze.yaidom4j.core.NamespaceScope;
+
+import javax.xml.namespace.QName;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import javax.xml.transform.stream.StreamSource;
+import java.io.InputStream;
+import java.util.*;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+import static eu.cdevreeze.xbrl4j.model.Names.XBRLI_XBRL_QNAME;
+
+/**
+ * Streaming XBRL instance reader, based on StAX. It emits the contexts, units, facts, footnote links and
+ * DTS references of an XBRL instance one at a time, in document order, either to a callback or as a lazy Stream.
+ * <p>
+ * No element tree of the whole document is built. Only one child element of the "xbrli:xbrl" root element at a
+ * time is turned into a small yaidom4j element tree, which is then converted to an InstanceComponent (see
+ * InstanceComponents). Hence, memory usage is bounded by the size of the largest context, unit, footnote link or
+ * top-level tuple, regardless of the size of the instance document.
+ * <p>
+ * The reader does not process DTDs or external entities. Comments and processing instructions are ignored.
+ * <p>
+ * This class is immutable and thread-safe, provided the XMLInputFactory is not modified after construction.
+ *
+ * @author Chris de Vreeze
+ */
+public final class StreamingInstanceReader {
+
+    private final XMLInputFactory inputFactory;
+
+    public StreamingInstanceReader(XMLInputFactory inputFactory) {
+        this.inputFactory = inputFactory;
+    }
+
+    public static StreamingInstanceReader newInstance() {
+        XMLInputFactory inputFactory = XMLInputFactory.newFactory();
+        inputFactory.setProperty(XMLInputFactory.IS_NAMESPACE_AWARE, true);
+        inputFactory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+        inputFactory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+        return new StreamingInstanceReader(inputFactory);
+    }
+
+    /**
+     * Reads the instance from the given input stream, passing each instance component to the given consumer.
+     * The input stream is not closed by this method.
+     */
+    public void read(InputStream inputStream, Consumer<? super InstanceComponent> consumer) {
+        try (ComponentIterator iterator = new ComponentIterator(createXMLStreamReader(new StreamSource(inputStream)))) {
+            iterator.forEachRemaining(consumer);
+        }
+    }
+
+    public void read(StreamSource source, Consumer<? super InstanceComponent> consumer) {
+        try (ComponentIterator iterator = new ComponentIterator(createXMLStreamReader(source))) {
+            iterator.forEachRemaining(consumer);
+        }
+    }
+
+    /**
+     * Returns a lazy Stream of the instance components read from the given source. The Stream should be
+     * closed after use (e.g. in a try-with-resources statement), which closes the underlying StAX reader,
+     * but not the underlying input stream.
+     */
+    public Stream<InstanceComponent> stream(StreamSource source) {
+        ComponentIterator iterator = new ComponentIterator(createXMLStreamReader(source));
+        Spliterator<InstanceComponent> spliterator = Spliterators.spliteratorUnknownSize(
+                iterator,
+                Spliterator.ORDERED | Spliterator.NONNULL
+        );
+        return StreamSupport.stream(spliterator, false).onClose(iterator::close);
+    }
+
+    public Stream<InstanceComponent> stream(InputStream inputStream) {
+        return stream(new StreamSource(inputStream));
+    }
+
+    private XMLStreamReader createXMLStreamReader(StreamSource source) {
+        try {
+            return inputFactory.createXMLStreamReader(source);
+        } catch (XMLStreamException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    /**
+     * Iterator over the instance components, pulling StAX events on demand.
+     */
+    private static final class ComponentIterator implements Iterator<InstanceComponent>, AutoCloseable {
+
+        private final XMLStreamReader reader;
+        private NamespaceScope rootScope;
+        private InstanceComponent nextComponent;
+        private boolean done;
+
+        private ComponentIterator(XMLStreamReader reader) {
+            this.reader = reader;
+        }
+
+        @Override
+        public boolean hasNext() {
+            if (nextComponent == null && !done) {
+                nextComponent = readNextComponent().orElse(null);
+                done = (nextComponent == null);
+            }
+            return nextComponent != null;
+        }
+
+        @Override
+        public InstanceComponent next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            InstanceComponent result = nextComponent;
+            nextComponent = null;
+            return result;
+        }
+
+        @Override
+        public void close() {
+            try {
+                reader.close();
+            } catch (XMLStreamException e) {
+                throw new RuntimeException(e);
+            }
+        }
+
+        private Optional<InstanceComponent> readNextComponent() {
+            try {
+                if (rootScope == null) {
+                    readRootStartElement();
+                }
+
+                while (reader.hasNext()) {
+                    int event = reader.next();
+
+                    if (event == XMLStreamConstants.START_ELEMENT) {
+                        Optional<InstanceComponent> componentOption =
+                                InstanceComponents.convertTopLevelElement(StaxElements.readElement(reader, rootScope));
+
+                        if (componentOption.isPresent()) {
+                            return componentOption;
+                        }
+                    } else if (event == XMLStreamConstants.END_ELEMENT) {
+                        // End of the root element
+                        return Optional.empty();
+                    }
+                }
+                return Optional.empty();
+            } catch (XMLStreamException e) {
+                throw new RuntimeException(e);
+            }
+        }
+
+        private void readRootStartElement() throws XMLStreamException {
+            // Skip the prolog, without reading past the end of the document
+            int event = reader.getEventType();
+
+            while (event != XMLStreamConstants.START_ELEMENT) {
+                if (!reader.hasNext()) {
+                    throw new IllegalStateException("Expected root element " + XBRLI_XBRL_QNAME + " but found none");
+                }
+                event = reader.next();
+            }
+            QName rootName = reader.getName();
+
+            if (!new QName(rootName.getNamespaceURI(), rootName.getLocalPart()).equals(XBRLI_XBRL_QNAME)) {
+                throw new IllegalStateException("Expected root element " + XBRLI_XBRL_QNAME + " but found " + rootName);
+            }
+            rootScope = StaxElements.resolveNamespaceScope(reader, NamespaceScope.empty());
+        }
+    }
+}
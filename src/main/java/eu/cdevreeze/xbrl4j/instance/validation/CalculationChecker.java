@@ -0,0 +1,493 @@
+/*
+ * Copyright 2024-2024 Chris de Vreeze
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package eu.cdevreeze.xbrl4j.instance.validation;
+
+import com.google.common.collect.ImmutableList;
+import eu.cdevreeze.xbrl4j.common.collection.LongIntHashMap;
+import eu.cdevreeze.xbrl4j.common.collection.LongIntMultimap;
+import eu.cdevreeze.xbrl4j.instance.ItemFact;
+import eu.cdevreeze.xbrl4j.instance.index.FactIndex;
+import eu.cdevreeze.xbrl4j.instance.index.NumericColumns;
+import eu.cdevreeze.xbrl4j.model.XmlElement;
+import eu.cdevreeze.xbrl4j.model.link.CalculationArc;
+import eu.cdevreeze.xbrl4j.taxonomy.ConceptIndex;
+import eu.cdevreeze.xbrl4j.taxonomy.TaxonomyBase;
+import eu.cdevreeze.xbrl4j.taxonomy.relationship.NetworkGraph;
+import eu.cdevreeze.xbrl4j.taxonomy.relationship.NetworkGraphs;
+
+import javax.xml.namespace.QName;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.*;
+import java.util.function.Consumer;
+
+import static eu.cdevreeze.xbrl4j.model.Names.SUMMATION_ITEM_ARCROLE;
+
+/**
+ * Checker of calculation consistency of the numeric facts in a FactIndex, against the summation-item networks
+ * of a taxonomy. Two modes are supported: XBRL 2.1 calculations ("calc 1.0"), where each contributing value is
+ * rounded to its own inferred decimals and the weighted sum is rounded to the decimals of the total, and the
+ * Calculations 1.1 "round-to-nearest" mode, where all values in a binding are rounded to the minimum decimals
+ * of the facts in that binding.
+ * <p>
+ * The summations are compiled once per taxonomy into int/long arrays, indexed by the taxonomy concept ID of
+ * the total. The facts are grouped by (canonical) context and unit once per check, after which each group is
+ * checked against the summations of the concepts of its facts. Fact values are parsed once, into NumericColumns
+ * (unscaled long values with a scale), and bindings are evaluated in exact long arithmetic without any per-binding object
+ * allocation. Only values that do not fit in that representation make a binding fall back to BigDecimal arithmetic.
+ * <p>
+ * Bindings with duplicate facts are skipped in calc 1.0 mode. In calc 1.1 mode, consistent duplicates are
+ * resolved to the most precise fact, and bindings with inconsistent duplicates are skipped. Nil facts, and facts
+ * without unit or without (usable) decimals or precision, do not take part in any binding.
+ * <p>
+ * Inconsistencies are streamed to a consumer as soon as they are found, group by group. This class is immutable
+ * and thread-safe, and so are its check methods, as long as the consumer is.
+ *
+ * @author Chris de Vreeze
+ */
+public final class CalculationChecker {
+
+    public enum Mode {CALC_1_0, CALC_1_1_ROUND_TO_NEAREST}
+
+    /**
+     * Inconsistent calculation binding. The rounded total and rounded sum are the values that have been compared.
+     */
+    public record CalculationInconsistency(
+            Mode mode,
+            String linkRole,
+            QName totalConcept,
+            int totalFactId,
+            ItemFact totalFact,
+            BigDecimal roundedTotal,
+            BigDecimal roundedSum
+    ) {
+    }
+
+    private static final int NO_FACT = -1;
+    private static final int SKIP_BINDING = -2;
+
+    private final ConceptIndex conceptIndex;
+
+    // Summations, in columnar form, with CSR offsets into the item arrays
+    private final ImmutableList<String> summationLinkRoles;
+    private final int[] summationTotalConceptIds;
+    private final int[] itemOffsets;
+    private final int[] itemConceptIds;
+    private final long[] itemWeightUnscaled;
+    private final int[] itemWeightScales;
+    private final int maxItemCount;
+
+    // From total concept ID to summation IDs
+    private final LongIntMultimap summationsByTotalConcept;
+
+    private CalculationChecker(ConceptIndex conceptIndex, List<Summation> summations) {
+        this.conceptIndex = conceptIndex;
+        this.summationLinkRoles = summations.stream().map(Summation::linkRole).collect(ImmutableList.toImmutableList());
+        this.summationTotalConceptIds = summations.stream().mapToInt(Summation::totalConceptId).toArray();
+        this.itemOffsets = new int[summations.size() + 1];
+        for (int i = 0; i < summations.size(); i++) {
+            itemOffsets[i + 1] = itemOffsets[i] + summations.get(i).itemConceptIds().size();
+        }
+        this.itemConceptIds = summations.stream()
+                .flatMapToInt(s -> s.itemConceptIds().stream().mapToInt(Integer::intValue))
+                .toArray();
+        this.itemWeightUnscaled = summations.stream()
+                .flatMap(s -> s.weights().stream())
+                .mapToLong(w -> w.unscaledValue().longValueExact())
+                .toArray();
+        this.itemWeightScales = summations.stream()
+                .flatMap(s -> s.weights().stream())
+                .mapToInt(BigDecimal::scale)
+                .toArray();
+        this.maxItemCount = summations.stream().mapToInt(s -> s.itemConceptIds().size()).max().orElse(0);
+
+        LongIntMultimap.Builder summationsByTotalConceptBuilder = LongIntMultimap.builder();
+        for (int i = 0; i < summations.size(); i++) {
+            summationsByTotalConceptBuilder.put(summationTotalConceptIds[i], i);
+        }
+        this.summationsByTotalConcept = summationsByTotalConceptBuilder.build();
+    }
+
+    public int summationCount() {
+        return summationTotalConceptIds.length;
+    }
+
+    public ImmutableList<CalculationInconsistency> findInconsistencies(FactIndex factIndex, Mode mode) {
+        ImmutableList.Builder<CalculationInconsistency> result = ImmutableList.builder();
+        check(factIndex, mode, result::add);
+        return result.build();
+    }
+
+    /**
+     * Checks the facts of the given FactIndex, passing each inconsistency to the given consumer when it is found.
+     */
+    public void check(FactIndex factIndex, Mode mode, Consumer<CalculationInconsistency> consumer) {
+        new Run(factIndex, mode, consumer).checkAllGroups();
+    }
+
+    /**
+     * The state of one check: the parsed fact values, the fact groups, and reusable scratch arrays.
+     */
+    private final class Run {
+
+        private final FactIndex factIndex;
+        private final Mode mode;
+        private final Consumer<CalculationInconsistency> consumer;
+
+        private final NumericColumns numericColumns;
+        private final int[] decimals;
+
+        private final int[] groupFactCountByConcept;
+        private final int[] groupFirstFactByConcept;
+        private final int[] boundItemFacts;
+        private final LongIntMultimap factsByGroup;
+        private final int groupCount;
+
+        private int currentGroup;
+
+        Run(FactIndex factIndex, Mode mode, Consumer<CalculationInconsistency> consumer) {
+            this.factIndex = factIndex;
+            this.mode = mode;
+            this.consumer = consumer;
+
+            int factCount = factIndex.factCount();
+            this.numericColumns = NumericColumns.build(factIndex);
+            this.decimals = new int[factCount];
+            this.groupFactCountByConcept = new int[conceptIndex.size()];
+            this.groupFirstFactByConcept = new int[conceptIndex.size()];
+            this.boundItemFacts = new int[maxItemCount];
+
+            LongIntHashMap.Builder groupIds = LongIntHashMap.builder();
+            LongIntMultimap.Builder factsByGroupBuilder = LongIntMultimap.builder();
+
+            for (int factId = 0; factId < factCount; factId++) {
+                decimals[factId] = numericColumns.inferredDecimals(factId);
+                boolean usable = decimals[factId] != NumericColumns.NONE &&
+                        factIndex.conceptId(factId) < conceptIndex.size();
+
+                if (usable) {
+                    long groupKey = ((long) factIndex.contextKeyId(factId) << 32) | factIndex.unitKeyId(factId);
+                    groupIds.putIfAbsent(groupKey, groupIds.size());
+                    factsByGroupBuilder.put(groupIds.get(groupKey, -1), factId);
+                }
+            }
+            this.factsByGroup = factsByGroupBuilder.build();
+            this.groupCount = groupIds.size();
+        }
+
+        void checkAllGroups() {
+            for (int group = 0; group < groupCount; group++) {
+                currentGroup = group;
+                factsByGroup.forEach(group, factId -> {
+                    int conceptId = factIndex.conceptId(factId);
+                    if (groupFactCountByConcept[conceptId]++ == 0) {
+                        groupFirstFactByConcept[conceptId] = factId;
+                    }
+                });
+                factsByGroup.forEach(group, factId -> {
+                    int conceptId = factIndex.conceptId(factId);
+                    // Check the summations of each total concept only once per group
+                    if (groupFirstFactByConcept[conceptId] == factId) {
+                        summationsByTotalConcept.forEach(conceptId, this::checkBinding);
+                    }
+                });
+                factsByGroup.forEach(group, factId -> groupFactCountByConcept[factIndex.conceptId(factId)] = 0);
+            }
+        }
+
+        private void checkBinding(int summationId) {
+            int totalFact = chooseFact(summationTotalConceptIds[summationId]);
+
+            if (totalFact < 0) {
+                return;
+            }
+            int boundItemCount = 0;
+
+            for (int i = itemOffsets[summationId]; i < itemOffsets[summationId + 1]; i++) {
+                int itemFact = chooseFact(itemConceptIds[i]);
+                if (itemFact == SKIP_BINDING) {
+                    return;
+                }
+                boundItemFacts[i - itemOffsets[summationId]] = itemFact;
+                boundItemCount += (itemFact >= 0) ? 1 : 0;
+            }
+            if (boundItemCount == 0) {
+                return;
+            }
+
+            try {
+                checkBindingInLongArithmetic(summationId, totalFact);
+            } catch (ArithmeticException e) {
+                checkBindingInBigDecimalArithmetic(summationId, totalFact);
+            }
+        }
+
+        private void checkBindingInLongArithmetic(int summationId, int totalFact) {
+            int from = itemOffsets[summationId];
+            int to = itemOffsets[summationId + 1];
+            int targetScale;
+            int sumScale = Integer.MIN_VALUE;
+
+            if (mode == Mode.CALC_1_0) {
+                for (int i = from; i < to; i++) {
+                    int f = boundItemFacts[i - from];
+                    if (f >= 0) {
+                        sumScale = Math.max(sumScale, roundingScale(f) + itemWeightScales[i]);
+                    }
+                }
+                targetScale = (decimals[totalFact] == NumericColumns.INF) ?
+                        Math.max(sumScale, checkedScale(totalFact)) :
+                        decimals[totalFact];
+            } else {
+                targetScale = commonRoundingScale(summationId, totalFact);
+                for (int i = from; i < to; i++) {
+                    if (boundItemFacts[i - from] >= 0) {
+                        sumScale = Math.max(sumScale, targetScale + itemWeightScales[i]);
+                    }
+                }
+            }
+
+            long sum = 0L;
+            for (int i = from; i < to; i++) {
+                int f = boundItemFacts[i - from];
+                if (f >= 0) {
+                    int itemScale = (mode == Mode.CALC_1_0) ? roundingScale(f) : targetScale;
+                    long roundedItem = numericColumns.roundedUnscaledValue(f, itemScale);
+                    long term = Math.multiplyExact(roundedItem, itemWeightUnscaled[i]);
+                    sum = Math.addExact(sum, NumericColumns.round(term, itemScale + itemWeightScales[i], sumScale));
+                }
+            }
+            long roundedSum = NumericColumns.round(sum, sumScale, targetScale);
+            long roundedTotal = numericColumns.roundedUnscaledValue(totalFact, targetScale);
+
+            if (roundedSum != roundedTotal) {
+                report(summationId, totalFact, BigDecimal.valueOf(roundedTotal, targetScale), BigDecimal.valueOf(roundedSum, targetScale));
+            }
+        }
+
+        private void checkBindingInBigDecimalArithmetic(int summationId, int totalFact) {
+            int from = itemOffsets[summationId];
+            int to = itemOffsets[summationId + 1];
+            BigDecimal total = bigDecimalValue(totalFact);
+            int commonScale = (mode == Mode.CALC_1_0) ? 0 : commonRoundingScaleOfBigDecimals(summationId, totalFact);
+
+            BigDecimal sum = BigDecimal.ZERO;
+            for (int i = from; i < to; i++) {
+                int f = boundItemFacts[i - from];
+                if (f >= 0) {
+                    BigDecimal item = bigDecimalValue(f);
+                    int itemScale = (mode == Mode.CALC_1_0) ?
+                            ((decimals[f] == NumericColumns.INF) ? item.scale() : decimals[f]) :
+                            commonScale;
+                    BigDecimal weight = BigDecimal.valueOf(itemWeightUnscaled[i], itemWeightScales[i]);
+                    sum = sum.add(item.setScale(itemScale, RoundingMode.HALF_EVEN).multiply(weight));
+                }
+            }
+            int targetScale = (mode == Mode.CALC_1_0) ?
+                    ((decimals[totalFact] == NumericColumns.INF) ? Math.max(sum.scale(), total.scale()) : decimals[totalFact]) :
+                    commonScale;
+            BigDecimal roundedSum = sum.setScale(targetScale, RoundingMode.HALF_EVEN);
+            BigDecimal roundedTotal = total.setScale(targetScale, RoundingMode.HALF_EVEN);
+
+            if (roundedSum.compareTo(roundedTotal) != 0) {
+                report(summationId, totalFact, roundedTotal, roundedSum);
+            }
+        }
+
+        private void report(int summationId, int totalFact, BigDecimal roundedTotal, BigDecimal roundedSum) {
+            consumer.accept(new CalculationInconsistency(
+                    mode,
+                    summationLinkRoles.get(summationId),
+                    conceptIndex.conceptName(summationTotalConceptIds[summationId]),
+                    totalFact,
+                    factIndex.fact(totalFact),
+                    roundedTotal,
+                    roundedSum
+            ));
+        }
+
+        /**
+         * Returns the scale to which all values of the binding are rounded in calc 1.1 mode, that is, the minimum
+         * decimals of the bound facts, or the maximum scale of their values if all decimals are INF.
+         */
+        private int commonRoundingScale(int summationId, int totalFact) {
+            int minDecimals = decimals[totalFact];
+            int maxScale = checkedScale(totalFact);
+
+            for (int i = itemOffsets[summationId]; i < itemOffsets[summationId + 1]; i++) {
+                int f = boundItemFacts[i - itemOffsets[summationId]];
+                if (f >= 0) {
+                    minDecimals = Math.min(minDecimals, decimals[f]);
+                    maxScale = Math.max(maxScale, checkedScale(f));
+                }
+            }
+            return (minDecimals == NumericColumns.INF) ? maxScale : minDecimals;
+        }
+
+        private int commonRoundingScaleOfBigDecimals(int summationId, int totalFact) {
+            int minDecimals = decimals[totalFact];
+            int maxScale = bigDecimalValue(totalFact).scale();
+
+            for (int i = itemOffsets[summationId]; i < itemOffsets[summationId + 1]; i++) {
+                int f = boundItemFacts[i - itemOffsets[summationId]];
+                if (f >= 0) {
+                    minDecimals = Math.min(minDecimals, decimals[f]);
+                    maxScale = Math.max(maxScale, bigDecimalValue(f).scale());
+                }
+            }
+            return (minDecimals == NumericColumns.INF) ? maxScale : minDecimals;
+        }
+
+        /**
+         * Returns the fact of the given concept in the current group, NO_FACT if there is none, or SKIP_BINDING
+         * if the duplicates of the concept make the binding unusable.
+         */
+        private int chooseFact(int conceptId) {
+            int count = groupFactCountByConcept[conceptId];
+
+            if (count == 0) {
+                return NO_FACT;
+            } else if (count == 1) {
+                return groupFirstFactByConcept[conceptId];
+            } else if (mode == Mode.CALC_1_0) {
+                return SKIP_BINDING;
+            }
+
+            int mostPrecise = NO_FACT;
+            int minDecimals = NumericColumns.INF;
+            for (int i = 0, n = factsByGroup.count(currentGroup); i < n; i++) {
+                int f = factsByGroup.get(currentGroup, i);
+                if (factIndex.conceptId(f) == conceptId) {
+                    minDecimals = Math.min(minDecimals, decimals[f]);
+                    if (mostPrecise < 0 || decimals[f] > decimals[mostPrecise]) {
+                        mostPrecise = f;
+                    }
+                }
+            }
+            for (int i = 0, n = factsByGroup.count(currentGroup); i < n; i++) {
+                int f = factsByGroup.get(currentGroup, i);
+                if (factIndex.conceptId(f) == conceptId && !equalWhenRounded(f, mostPrecise, minDecimals)) {
+                    return SKIP_BINDING;
+                }
+            }
+            return mostPrecise;
+        }
+
+        private boolean equalWhenRounded(int fact1, int fact2, int decimalsToRoundTo) {
+            try {
+                int targetScale = (decimalsToRoundTo == NumericColumns.INF) ?
+                        Math.max(checkedScale(fact1), checkedScale(fact2)) :
+                        decimalsToRoundTo;
+                return numericColumns.roundedUnscaledValue(fact1, targetScale) ==
+                        numericColumns.roundedUnscaledValue(fact2, targetScale);
+            } catch (ArithmeticException e) {
+                BigDecimal value1 = bigDecimalValue(fact1);
+                BigDecimal value2 = bigDecimalValue(fact2);
+                int targetScale = (decimalsToRoundTo == NumericColumns.INF) ?
+                        Math.max(value1.scale(), value2.scale()) :
+                        decimalsToRoundTo;
+                return value1.setScale(targetScale, RoundingMode.HALF_EVEN)
+                        .compareTo(value2.setScale(targetScale, RoundingMode.HALF_EVEN)) == 0;
+            }
+        }
+
+        private int roundingScale(int factId) {
+            return (decimals[factId] == NumericColumns.INF) ? checkedScale(factId) : decimals[factId];
+        }
+
+        private int checkedScale(int factId) {
+            return numericColumns.scale(factId);
+        }
+
+        private BigDecimal bigDecimalValue(int factId) {
+            return numericColumns.value(factId);
+        }
+    }
+
+    private record Summation(
+            String linkRole,
+            int totalConceptId,
+            ImmutableList<Integer> itemConceptIds,
+            ImmutableList<BigDecimal> weights
+    ) {
+    }
+
+    /**
+     * Creates a CalculationChecker from the summation-item networks of the given taxonomy base. Relationships
+     * whose endpoints are no concepts, or whose weight is missing or too large, are ignored.
+     * <p>
+     * The network graphs only contain the effective relationships, after prohibition and overriding, and without
+     * equivalent duplicates. Remaining (non-equivalent) relationships between the same total and item in one network
+     * would count the item more than once, so only the first one (in network order) is used.
+     */
+    public static CalculationChecker create(TaxonomyBase taxonomyBase) {
+        List<Summation> summations = new ArrayList<>();
+
+        for (NetworkGraph graph : NetworkGraphs.create(taxonomyBase, SUMMATION_ITEM_ARCROLE::equals)) {
+            for (int node = 0; node < graph.nodeCount(); node++) {
+                OptionalInt totalConceptIdOption = findConceptId(taxonomyBase, graph.nodeHandle(node));
+
+                if (graph.outDegree(node) == 0 || totalConceptIdOption.isEmpty()) {
+                    continue;
+                }
+                List<Integer> itemConceptIds = new ArrayList<>();
+                List<BigDecimal> weights = new ArrayList<>();
+                Set<Integer> seenItemConceptIds = new HashSet<>();
+
+                for (int i = 0; i < graph.outDegree(node); i++) {
+                    int edge = graph.outgoingEdge(node, i);
+                    OptionalInt itemConceptIdOption = findConceptId(taxonomyBase, graph.nodeHandle(graph.edgeTarget(edge)));
+                    XmlElement arc = taxonomyBase.element(graph.edgeArcHandle(edge));
+
+                    if (itemConceptIdOption.isPresent() && arc instanceof CalculationArc calculationArc) {
+                        Optional<BigDecimal> weightOption = findWeight(calculationArc);
+
+                        if (weightOption.isPresent() && seenItemConceptIds.add(itemConceptIdOption.getAsInt())) {
+                            itemConceptIds.add(itemConceptIdOption.getAsInt());
+                            weights.add(weightOption.get());
+                        }
+                    }
+                }
+                if (!itemConceptIds.isEmpty()) {
+                    summations.add(new Summation(
+                            graph.networkKey().linkRole(),
+                            totalConceptIdOption.getAsInt(),
+                            ImmutableList.copyOf(itemConceptIds),
+                            ImmutableList.copyOf(weights)
+                    ));
+                }
+            }
+        }
+        return new CalculationChecker(taxonomyBase.conceptIndex(), summations);
+    }
+
+    private static OptionalInt findConceptId(TaxonomyBase taxonomyBase, long elementHandle) {
+        return taxonomyBase.findConceptName(taxonomyBase.element(elementHandle))
+                .map(n -> taxonomyBase.conceptIndex().conceptIdOption(n))
+                .orElse(OptionalInt.empty());
+    }
+
+    private static Optional<BigDecimal> findWeight(CalculationArc arc) {
+        try {
+            BigDecimal weight = arc.weight();
+            return (weight.unscaledValue().bitLength() < 63) ? Optional.of(weight) : Optional.empty();
+        } catch (RuntimeException e) {
+            return Optional.empty();
+        }
+    }
+}
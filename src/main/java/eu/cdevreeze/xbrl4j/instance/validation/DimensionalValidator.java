@@ -0,0 +1,455 @@
+/*
+ * Copyright 2024-2024 Chris de Vreeze
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package eu.cdevreeze.xbrl4j.instance.validation;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableListMultimap;
+import eu.cdevreeze.xbrl4j.common.collection.LongIntHashMap;
+import eu.cdevreeze.xbrl4j.instance.Context;
+import eu.cdevreeze.xbrl4j.instance.DimensionMember;
+import eu.cdevreeze.xbrl4j.instance.ExplicitMember;
+import eu.cdevreeze.xbrl4j.instance.ItemFact;
+import eu.cdevreeze.xbrl4j.instance.index.FactIndex;
+import eu.cdevreeze.xbrl4j.model.XmlElement;
+import eu.cdevreeze.xbrl4j.taxonomy.ConceptIndex;
+import eu.cdevreeze.xbrl4j.taxonomy.TaxonomyBase;
+import eu.cdevreeze.xbrl4j.taxonomy.relationship.NetworkGraph;
+import eu.cdevreeze.xbrl4j.taxonomy.relationship.NetworkGraphs;
+
+import javax.xml.namespace.QName;
+import java.util.*;
+
+import static eu.cdevreeze.xbrl4j.model.Names.*;
+
+/**
+ * Dimensional (XBRL Dimensions 1.0) validator of item facts. A fact whose concept has hypercubes (directly or
+ * inherited through domain-member relationships) is dimensionally valid if, in at least one base ELR, all its
+ * "all" hypercubes are satisfied by the context and none of its "notAll" hypercubes are. A hypercube is satisfied
+ * if each of its dimensions has an allowed member in the relevant context element, or has no member in the context
+ * and a default member that is allowed in the hypercube, and, if the hypercube is closed, that context element has
+ * no other dimensions.
+ * <p>
+ * The taxonomy side is compiled once: each (has-hypercube) relationship becomes an array of dimension IDs, with per
+ * dimension a BitSet of allowed member concept IDs and the default member ID, taking targetRole and usable
+ * attributes into account. The hypercubes of each primary item are grouped per base ELR, and identical groupings
+ * are shared between concepts. On the instance side, the dimension-member combinations of each distinct
+ * (canonical) context are encoded once as int arrays, and the outcome is memoized per distinct context and
+ * hypercube grouping, so most facts cost only a hash lookup.
+ * <p>
+ * Typed dimensions only require a typed member to be present; its content is not validated against the typed
+ * domain. This class is immutable and thread-safe.
+ *
+ * @author Chris de Vreeze
+ */
+public final class DimensionalValidator {
+
+    /**
+     * A fact that is not dimensionally valid, identified by its fact ID in the FactIndex.
+     */
+    public record DimensionalViolation(int factId, ItemFact fact) {
+    }
+
+    private static final int TYPED_MEMBER = -2;
+    private static final int NO_HYPERCUBES = -1;
+
+    /**
+     * Compiled has-hypercube relationship. Arrays are indexed by position of the dimension in the hypercube.
+     * For typed dimensions, the allowed members BitSet is null.
+     */
+    private record HasHypercube(
+            boolean all,
+            boolean closed,
+            boolean scenario,
+            int[] dimensionIds,
+            BitSet[] allowedMembers,
+            int[] defaultMembers
+    ) {
+    }
+
+    /**
+     * Encoded dimension-member combinations of a context, one pair of arrays per context element.
+     */
+    private record EncodedContext(int[] segmentDimensions, int[] segmentMembers, int[] scenarioDimensions, int[] scenarioMembers) {
+    }
+
+    private final ConceptIndex conceptIndex;
+    private final ImmutableList<HasHypercube> hasHypercubes;
+
+    // Per hypercube grouping, per base ELR, the indexes of the has-hypercubes
+    private final ImmutableList<int[][]> hypercubeGroupings;
+    private final int[] hypercubeGroupingByConcept;
+
+    private DimensionalValidator(
+            ConceptIndex conceptIndex,
+            ImmutableList<HasHypercube> hasHypercubes,
+            ImmutableList<int[][]> hypercubeGroupings,
+            int[] hypercubeGroupingByConcept
+    ) {
+        this.conceptIndex = conceptIndex;
+        this.hasHypercubes = hasHypercubes;
+        this.hypercubeGroupings = hypercubeGroupings;
+        this.hypercubeGroupingByConcept = hypercubeGroupingByConcept;
+    }
+
+    public boolean hasHypercubes(QName conceptName) {
+        int conceptId = conceptIndex.conceptIdOrMinusOne(conceptName);
+        return conceptId >= 0 && hypercubeGroupingByConcept[conceptId] != NO_HYPERCUBES;
+    }
+
+    /**
+     * Returns true if a fact of the given concept with the given context would be dimensionally valid.
+     */
+    public boolean isDimensionallyValid(QName conceptName, Context context) {
+        int conceptId = conceptIndex.conceptIdOrMinusOne(conceptName);
+
+        if (conceptId < 0 || hypercubeGroupingByConcept[conceptId] == NO_HYPERCUBES) {
+            return true;
+        }
+        return isValid(hypercubeGroupings.get(hypercubeGroupingByConcept[conceptId]), encode(context));
+    }
+
+    public ImmutableList<DimensionalViolation> findViolations(FactIndex factIndex) {
+        int contextCount = factIndex.contextCanonicalizer().distinctContextCount();
+        EncodedContext[] encodedContexts = new EncodedContext[contextCount];
+        LongIntHashMap.Builder memo = LongIntHashMap.builder();
+        ImmutableList.Builder<DimensionalViolation> result = ImmutableList.builder();
+
+        for (int factId = 0; factId < factIndex.factCount(); factId++) {
+            int conceptId = factIndex.conceptId(factId);
+
+            if (conceptId >= hypercubeGroupingByConcept.length || hypercubeGroupingByConcept[conceptId] == NO_HYPERCUBES) {
+                continue;
+            }
+            int grouping = hypercubeGroupingByConcept[conceptId];
+            int contextKeyId = factIndex.contextKeyId(factId);
+            long memoKey = ((long) contextKeyId << 32) | grouping;
+            int valid = memo.get(memoKey, -1);
+
+            if (valid < 0) {
+                if (encodedContexts[contextKeyId] == null) {
+                    var contextCanonicalizer = factIndex.contextCanonicalizer();
+                    encodedContexts[contextKeyId] =
+                            encode(contextCanonicalizer.canonicalContext(contextCanonicalizer.contextKey(contextKeyId)));
+                }
+                valid = isValid(hypercubeGroupings.get(grouping), encodedContexts[contextKeyId]) ? 1 : 0;
+                memo.put(memoKey, valid);
+            }
+            if (valid == 0) {
+                result.add(new DimensionalViolation(factId, factIndex.fact(factId)));
+            }
+        }
+        return result.build();
+    }
+
+    private boolean isValid(int[][] hasHypercubesPerElr, EncodedContext context) {
+        for (int[] hasHypercubeIndexes : hasHypercubesPerElr) {
+            boolean validInElr = true;
+
+            for (int i = 0; i < hasHypercubeIndexes.length && validInElr; i++) {
+                HasHypercube hasHypercube = hasHypercubes.get(hasHypercubeIndexes[i]);
+                validInElr = isSatisfied(hasHypercube, context) == hasHypercube.all();
+            }
+            if (validInElr) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean isSatisfied(HasHypercube hasHypercube, EncodedContext context) {
+        int[] contextDimensions = hasHypercube.scenario() ? context.scenarioDimensions() : context.segmentDimensions();
+        int[] contextMembers = hasHypercube.scenario() ? context.scenarioMembers() : context.segmentMembers();
+        int[] dimensionIds = hasHypercube.dimensionIds();
+
+        for (int i = 0; i < dimensionIds.length; i++) {
+            int index = findDimension(dimensionIds[i], contextDimensions);
+            BitSet allowedMembers = hasHypercube.allowedMembers()[i];
+            int defaultMember = hasHypercube.defaultMembers()[i];
+
+            if (index < 0) {
+                // An absent dimension takes its default member, which must be in the domain of this hypercube
+                if (defaultMember < 0 || allowedMembers == null || !allowedMembers.get(defaultMember)) {
+                    return false;
+                }
+            } else if (allowedMembers == null) {
+                if (contextMembers[index] != TYPED_MEMBER) {
+                    return false;
+                }
+            } else {
+                int member = contextMembers[index];
+                // The default member must not occur explicitly in a context
+                if (member < 0 || !allowedMembers.get(member) || member == defaultMember) {
+                    return false;
+                }
+            }
+        }
+        if (hasHypercube.closed()) {
+            for (int contextDimension : contextDimensions) {
+                if (Arrays.binarySearch(hasHypercube.dimensionIds(), contextDimension) < 0) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    private static int findDimension(int dimensionId, int[] contextDimensions) {
+        for (int i = 0; i < contextDimensions.length; i++) {
+            if (contextDimensions[i] == dimensionId) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private EncodedContext encode(Context context) {
+        int[] segmentDimensions = new int[context.segmentDimensions().size()];
+        int[] segmentMembers = new int[segmentDimensions.length];
+        encode(context.segmentDimensions(), segmentDimensions, segmentMembers);
+        int[] scenarioDimensions = new int[context.scenarioDimensions().size()];
+        int[] scenarioMembers = new int[scenarioDimensions.length];
+        encode(context.scenarioDimensions(), scenarioDimensions, scenarioMembers);
+        return new EncodedContext(segmentDimensions, segmentMembers, scenarioDimensions, scenarioMembers);
+    }
+
+    private void encode(List<DimensionMember> dimensionMembers, int[] dimensions, int[] members) {
+        for (int i = 0; i < dimensionMembers.size(); i++) {
+            DimensionMember dimensionMember = dimensionMembers.get(i);
+            // Unknown dimensions get distinct negative IDs, so they never match a hypercube dimension
+            int dimensionId = conceptIndex.conceptIdOrMinusOne(dimensionMember.dimension());
+            dimensions[i] = (dimensionId >= 0) ? dimensionId : Integer.MIN_VALUE + i;
+            members[i] = (dimensionMember instanceof ExplicitMember explicitMember) ?
+                    conceptIndex.conceptIdOrMinusOne(explicitMember.member()) :
+                    TYPED_MEMBER;
+        }
+    }
+
+    /**
+     * Dimensional relationship, with the concept IDs of source and target.
+     */
+    private record XdtRelationship(
+            String arcrole,
+            String elr,
+            int source,
+            int target,
+            Optional<String> targetRoleOption,
+            boolean usable,
+            boolean closed,
+            boolean scenario
+    ) {
+
+        String consecutiveElr() {
+            return targetRoleOption.orElse(elr);
+        }
+    }
+
+    private record RelationshipKey(String arcrole, String elr, int source) {
+    }
+
+    /**
+     * Compiler of the dimensional relationships of a taxonomy into has-hypercubes per primary item.
+     */
+    private static final class Compiler {
+
+        private final TaxonomyBase taxonomyBase;
+        private final ImmutableListMultimap<RelationshipKey, XdtRelationship> relationships;
+        private final Map<Integer, Integer> defaultMembers;
+
+        Compiler(TaxonomyBase taxonomyBase) {
+            this.taxonomyBase = taxonomyBase;
+            ImmutableListMultimap.Builder<RelationshipKey, XdtRelationship> relationshipsBuilder =
+                    ImmutableListMultimap.builder();
+            this.defaultMembers = new HashMap<>();
+
+            Set<String> xdtArcroles = Set.of(
+                    ALL_ARCROLE, NOT_ALL_ARCROLE, HYPERCUBE_DIMENSION_ARCROLE, DIMENSION_DOMAIN_ARCROLE,
+                    DOMAIN_MEMBER_ARCROLE, DIMENSION_DEFAULT_ARCROLE
+            );
+            for (NetworkGraph graph : NetworkGraphs.create(taxonomyBase, xdtArcroles::contains)) {
+                String arcrole = graph.networkKey().arcrole();
+                String elr = graph.networkKey().linkRole();
+
+                for (int edge = 0; edge < graph.edgeCount(); edge++) {
+                    int source = conceptId(graph.nodeHandle(graph.edgeSource(edge)));
+                    int target = conceptId(graph.nodeHandle(graph.edgeTarget(edge)));
+
+                    if (source < 0 || target < 0) {
+                        continue;
+                    }
+                    if (arcrole.equals(DIMENSION_DEFAULT_ARCROLE)) {
+                        defaultMembers.putIfAbsent(source, target);
+                        continue;
+                    }
+                    XmlElement arc = taxonomyBase.element(graph.edgeArcHandle(edge));
+                    relationshipsBuilder.put(
+                            new RelationshipKey(arcrole, elr, source),
+                            new XdtRelationship(
+                                    arcrole,
+                                    elr,
+                                    source,
+                                    target,
+                                    arc.attributeOption(XBRLDT_TARGET_ROLE_QNAME).map(String::strip),
+                                    !arc.attributeOption(XBRLDT_USABLE_QNAME).map(Compiler::isFalse).orElse(false),
+                                    arc.attributeOption(XBRLDT_CLOSED_QNAME).map(v -> !isFalse(v)).orElse(false),
+                                    arc.attributeOption(XBRLDT_CONTEXT_ELEMENT_QNAME).map(v -> v.strip().equals("scenario")).orElse(false)
+                            )
+                    );
+                }
+            }
+            this.relationships = relationshipsBuilder.build();
+        }
+
+        DimensionalValidator compile() {
+            ConceptIndex conceptIndex = taxonomyBase.conceptIndex();
+            List<HasHypercube> hasHypercubes = new ArrayList<>();
+            // Per primary item, per base ELR, the has-hypercube indexes
+            List<Map<String, List<Integer>>> hasHypercubesByPrimary = new ArrayList<>(conceptIndex.size());
+            for (int i = 0; i < conceptIndex.size(); i++) {
+                hasHypercubesByPrimary.add(null);
+            }
+
+            for (XdtRelationship relationship : relationships.values()) {
+                if (!relationship.arcrole().equals(ALL_ARCROLE) && !relationship.arcrole().equals(NOT_ALL_ARCROLE)) {
+                    continue;
+                }
+                int hasHypercubeIndex = hasHypercubes.size();
+                hasHypercubes.add(compileHasHypercube(relationship));
+
+                Set<Integer> primaries = new LinkedHashSet<>();
+                primaries.add(relationship.source());
+                collectDomainMembers(relationship.source(), relationship.elr(), new HashSet<>(), primaries, primaries);
+
+                for (int primary : primaries) {
+                    if (hasHypercubesByPrimary.get(primary) == null) {
+                        hasHypercubesByPrimary.set(primary, new LinkedHashMap<>());
+                    }
+                    hasHypercubesByPrimary.get(primary)
+                            .computeIfAbsent(relationship.elr(), k -> new ArrayList<>())
+                            .add(hasHypercubeIndex);
+                }
+            }
+
+            Map<List<List<Integer>>, Integer> groupingIds = new LinkedHashMap<>();
+            int[] groupingByConcept = new int[conceptIndex.size()];
+            for (int conceptId = 0; conceptId < conceptIndex.size(); conceptId++) {
+                Map<String, List<Integer>> hasHypercubesPerElr = hasHypercubesByPrimary.get(conceptId);
+                groupingByConcept[conceptId] = (hasHypercubesPerElr == null) ?
+                        NO_HYPERCUBES :
+                        groupingIds.computeIfAbsent(List.copyOf(hasHypercubesPerElr.values()), k -> groupingIds.size());
+            }
+            ImmutableList<int[][]> groupings = groupingIds.keySet().stream()
+                    .map(grouping -> grouping.stream()
+                            .map(indexes -> indexes.stream().mapToInt(Integer::intValue).toArray())
+                            .toArray(int[][]::new))
+                    .collect(ImmutableList.toImmutableList());
+
+            return new DimensionalValidator(conceptIndex, ImmutableList.copyOf(hasHypercubes), groupings, groupingByConcept);
+        }
+
+        private HasHypercube compileHasHypercube(XdtRelationship hasHypercubeRelationship) {
+            int hypercube = hasHypercubeRelationship.target();
+            String elr = hasHypercubeRelationship.consecutiveElr();
+            TreeMap<Integer, XdtRelationship> dimensionRelationships = new TreeMap<>();
+
+            for (XdtRelationship rel : relationships.get(new RelationshipKey(HYPERCUBE_DIMENSION_ARCROLE, elr, hypercube))) {
+                dimensionRelationships.putIfAbsent(rel.target(), rel);
+            }
+            // Sorted on dimension ID, which enables binary search for closed hypercube checks
+            int[] dimensionIds = dimensionRelationships.keySet().stream().mapToInt(Integer::intValue).toArray();
+            BitSet[] allowedMembers = new BitSet[dimensionIds.length];
+            int[] defaults = new int[dimensionIds.length];
+
+            for (int i = 0; i < dimensionIds.length; i++) {
+                int dimension = dimensionIds[i];
+                defaults[i] = defaultMembers.getOrDefault(dimension, -1);
+                allowedMembers[i] = isTypedDimension(dimension) ?
+                        null :
+                        compileAllowedMembers(dimension, dimensionRelationships.get(dimension).consecutiveElr());
+            }
+            return new HasHypercube(
+                    hasHypercubeRelationship.arcrole().equals(ALL_ARCROLE),
+                    hasHypercubeRelationship.closed(),
+                    hasHypercubeRelationship.scenario(),
+                    dimensionIds,
+                    allowedMembers,
+                    defaults
+            );
+        }
+
+        private BitSet compileAllowedMembers(int dimension, String elr) {
+            Set<Integer> usableMembers = new HashSet<>();
+            Set<Integer> unusableMembers = new HashSet<>();
+
+            for (XdtRelationship rel : relationships.get(new RelationshipKey(DIMENSION_DOMAIN_ARCROLE, elr, dimension))) {
+                (rel.usable() ? usableMembers : unusableMembers).add(rel.target());
+                collectDomainMembers(rel.target(), rel.consecutiveElr(), new HashSet<>(), usableMembers, unusableMembers);
+            }
+            BitSet result = new BitSet();
+            usableMembers.stream().filter(m -> !unusableMembers.contains(m)).forEach(result::set);
+            return result;
+        }
+
+        /**
+         * Collects the domain-member descendants of the given concept in the given ELR, following targetRole
+         * attributes, and guarding against cycles.
+         */
+        private void collectDomainMembers(
+                int concept,
+                String elr,
+                Set<RelationshipKey> visited,
+                Set<Integer> usableMembers,
+                Set<Integer> unusableMembers
+        ) {
+            Deque<RelationshipKey> stack = new ArrayDeque<>();
+            stack.push(new RelationshipKey(DOMAIN_MEMBER_ARCROLE, elr, concept));
+
+            while (!stack.isEmpty()) {
+                RelationshipKey key = stack.pop();
+                if (!visited.add(key)) {
+                    continue;
+                }
+                for (XdtRelationship rel : relationships.get(key)) {
+                    (rel.usable() ? usableMembers : unusableMembers).add(rel.target());
+                    stack.push(new RelationshipKey(DOMAIN_MEMBER_ARCROLE, rel.consecutiveElr(), rel.target()));
+                }
+            }
+        }
+
+        private boolean isTypedDimension(int dimension) {
+            QName dimensionName = taxonomyBase.conceptIndex().conceptName(dimension);
+            return taxonomyBase.findConceptDeclaration(dimensionName)
+                    .flatMap(decl -> decl.attributeOption(XBRLDT_TYPED_DOMAIN_REF_QNAME))
+                    .isPresent();
+        }
+
+        private int conceptId(long elementHandle) {
+            return taxonomyBase.findConceptName(taxonomyBase.element(elementHandle))
+                    .map(n -> taxonomyBase.conceptIndex().conceptIdOrMinusOne(n))
+                    .orElse(-1);
+        }
+
+        private static boolean isFalse(String booleanValue) {
+            String s = booleanValue.strip();
+            return s.equals("false") || s.equals("0");
+        }
+    }
+
+    public static DimensionalValidator create(TaxonomyBase taxonomyBase) {
+        return new Compiler(taxonomyBase).compile();
+    }
+}
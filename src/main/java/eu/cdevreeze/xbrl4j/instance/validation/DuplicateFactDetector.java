@@ -0,0 +1,303 @@
+/*
+ * Copyright 2024-2024 Chris de Vreeze
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package eu.cdevreeze.xbrl4j.instance.validation;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMultiset;
+import eu.cdevreeze.xbrl4j.instance.*;
+import eu.cdevreeze.xbrl4j.instance.canonical.ContextCanonicalizer;
+import eu.cdevreeze.xbrl4j.instance.index.NumericColumns;
+
+import javax.xml.namespace.QName;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.*;
+import java.util.function.Consumer;
+
+/**
+ * Detector of duplicate facts, that is, facts with the same parent, concept, s-equal context and unit, and language
+ * (for items), or with the same parent and name and pairwise duplicate child facts (for tuples), as in XBRL 2.1.
+ * Duplicate sets are classified as in the "Handling Duplicate Facts" specification: complete duplicates have equal
+ * values and decimals, consistent (numeric) duplicates have equal values when rounded to the lowest decimals in the
+ * set, and all other duplicates are inconsistent. Tuple duplicates are either complete or inconsistent. Numeric facts
+ * without decimals attribute have the decimals inferred from their precision (section 4.6.6 of XBRL 2.1), or are
+ * exact if they have no precision attribute either.
+ * <p>
+ * Instead of comparing facts pairwise, each fact is reduced to a canonical signature once, which is hashed, so facts
+ * are grouped in a single pass over the instance. Contexts and units are canonicalized by a ContextCanonicalizer,
+ * so signatures hold dense context and unit key IDs. The signature of a tuple contains the multiset of the
+ * (parent-independent) signatures of its child facts, recursively, so tuples whose children are duplicates of each
+ * other get equal signatures.
+ * <p>
+ * The detector consumes instance components one at a time (for example, from a StreamingInstanceReader), keeping
+ * one group per distinct signature, which holds its first fact. Only once a duplicate shows up does the group
+ * keep a list of its facts. Hence, apart from contexts and units, memory usage is proportional to the number of
+ * distinct signatures plus the number of duplicates. Facts referring to a context or
+ * unit that has not been seen yet are kept until {@link #finish()}. Facts whose context or unit is missing altogether
+ * are ignored.
+ * <p>
+ * This class is not thread-safe.
+ *
+ * @author Chris de Vreeze
+ */
+public final class DuplicateFactDetector implements Consumer<InstanceComponent> {
+
+    public enum Classification {COMPLETE, CONSISTENT, INCONSISTENT}
+
+    /**
+     * Set of (at least two) duplicate facts, in document order.
+     */
+    public record DuplicateSet(Classification classification, ImmutableList<Fact> facts) {
+    }
+
+    private static final int NO_PARENT = -1;
+    private static final int ANY_PARENT = -2;
+
+    /**
+     * Canonical signature of a fact. For items, the children are empty, and for tuples, the context and unit key
+     * IDs are -1. The child signatures use parent number ANY_PARENT, making them independent of the parent tuple.
+     */
+    private record Signature(
+            int parentTupleNumber,
+            QName name,
+            int contextKeyId,
+            int unitKeyId,
+            Optional<String> langOption,
+            ImmutableMultiset<Signature> children
+    ) {
+
+        Signature withAnyParent() {
+            return new Signature(ANY_PARENT, name, contextKeyId, unitKeyId, langOption, children);
+        }
+    }
+
+    /**
+     * Value of a fact, for classifying duplicates. For tuples, it holds the signatures and values of the children.
+     */
+    private record ValueSignature(String value, ImmutableMultiset<Map.Entry<Signature, ValueSignature>> children) {
+    }
+
+    private static final class Group {
+
+        private final long sequenceNumber;
+        private final Fact firstFact;
+        private final ValueSignature firstValue;
+        // Created only once a duplicate is added
+        private List<Fact> facts;
+        private List<ValueSignature> values;
+
+        Group(long sequenceNumber, Fact firstFact, ValueSignature firstValue) {
+            this.sequenceNumber = sequenceNumber;
+            this.firstFact = firstFact;
+            this.firstValue = firstValue;
+        }
+
+        void addDuplicate(Fact fact, ValueSignature value) {
+            if (facts == null) {
+                facts = new ArrayList<>(2);
+                facts.add(firstFact);
+                values = new ArrayList<>(2);
+                values.add(firstValue);
+            }
+            facts.add(fact);
+            values.add(value);
+        }
+
+        boolean hasDuplicates() {
+            return facts != null;
+        }
+    }
+
+    private final ContextCanonicalizer contextCanonicalizer = new ContextCanonicalizer();
+    private final Map<Signature, Group> groups = new HashMap<>();
+    private final List<Fact> pendingFacts = new ArrayList<>();
+    private long factCount = 0;
+    private int tupleCount = 0;
+
+    private DuplicateFactDetector() {
+    }
+
+    public static DuplicateFactDetector newInstance() {
+        return new DuplicateFactDetector();
+    }
+
+    /**
+     * Finds the duplicate sets among the given instance components.
+     */
+    public static ImmutableList<DuplicateSet> findDuplicates(Iterable<? extends InstanceComponent> instanceComponents) {
+        DuplicateFactDetector detector = newInstance();
+        instanceComponents.forEach(detector);
+        return detector.finish();
+    }
+
+    @Override
+    public void accept(InstanceComponent component) {
+        if (component instanceof Context context) {
+            contextCanonicalizer.addContext(context);
+        } else if (component instanceof Unit unit) {
+            contextCanonicalizer.addUnit(unit);
+        } else if (component instanceof Fact fact) {
+            if (isResolvable(fact)) {
+                addFact(fact, NO_PARENT);
+            } else {
+                pendingFacts.add(fact);
+            }
+        }
+    }
+
+    /**
+     * Processes the facts that could not be resolved earlier, and returns the duplicate sets, ordered by their
+     * first fact.
+     */
+    public ImmutableList<DuplicateSet> finish() {
+        pendingFacts.stream().filter(this::isResolvable).forEach(f -> addFact(f, NO_PARENT));
+        pendingFacts.clear();
+
+        return groups.values().stream()
+                .filter(Group::hasDuplicates)
+                .sorted(Comparator.comparingLong(g -> g.sequenceNumber))
+                .map(g -> new DuplicateSet(classify(g), ImmutableList.copyOf(g.facts)))
+                .collect(ImmutableList.toImmutableList());
+    }
+
+    private boolean isResolvable(Fact fact) {
+        if (fact instanceof ItemFact item) {
+            return contextCanonicalizer.contextKeyIdOrMinusOne(item.contextRef()) >= 0 &&
+                    item.unitRefOption().map(u -> contextCanonicalizer.unitKeyIdOrMinusOne(u) >= 0).orElse(true);
+        } else {
+            return ((TupleFact) fact).children().stream().allMatch(this::isResolvable);
+        }
+    }
+
+    /**
+     * Adds the given fact (and its descendants) to the groups, returning its signature (with any parent) and value.
+     */
+    private Map.Entry<Signature, ValueSignature> addFact(Fact fact, int parentTupleNumber) {
+        long sequenceNumber = factCount++;
+        Signature signature;
+        ValueSignature value;
+
+        if (fact instanceof ItemFact item) {
+            signature = new Signature(
+                    parentTupleNumber,
+                    item.name(),
+                    contextCanonicalizer.contextKeyIdOrMinusOne(item.contextRef()),
+                    item.unitRefOption().map(contextCanonicalizer::unitKeyIdOrMinusOne).orElse(-1),
+                    item.langOption().map(lang -> lang.strip().toLowerCase(Locale.ROOT)),
+                    ImmutableMultiset.of()
+            );
+            value = new ValueSignature(normalizedValue(item), ImmutableMultiset.of());
+        } else {
+            TupleFact tuple = (TupleFact) fact;
+            int tupleNumber = tupleCount++;
+            ImmutableMultiset<Map.Entry<Signature, ValueSignature>> children = tuple.children().stream()
+                    .map(ch -> addFact(ch, tupleNumber))
+                    .collect(ImmutableMultiset.toImmutableMultiset());
+
+            signature = new Signature(
+                    parentTupleNumber,
+                    tuple.name(),
+                    -1,
+                    -1,
+                    Optional.empty(),
+                    children.stream().map(Map.Entry::getKey).collect(ImmutableMultiset.toImmutableMultiset())
+            );
+            value = new ValueSignature(tuple.nil() ? "#nil" : "", children);
+        }
+
+        Group group = groups.get(signature);
+        if (group == null) {
+            groups.put(signature, new Group(sequenceNumber, fact, value));
+        } else {
+            group.addDuplicate(fact, value);
+        }
+        return Map.entry(signature.withAnyParent(), value);
+    }
+
+    private static String normalizedValue(ItemFact fact) {
+        if (fact.nil()) {
+            return "#nil";
+        } else if (fact.isNumeric()) {
+            try {
+                BigDecimal value = new BigDecimal(fact.value().strip());
+                return value.stripTrailingZeros().toPlainString() + "|" + inferredDecimals(fact, value);
+            } catch (NumberFormatException e) {
+                return fact.value().strip() + "|" + fact.decimalsOption().or(fact::precisionOption).orElse("");
+            }
+        } else {
+            return fact.value().strip().replaceAll("\\s+", " ");
+        }
+    }
+
+    /**
+     * Returns the decimals of the given numeric fact, or, if absent, the decimals inferred from its precision, and
+     * INF if both are absent. Returns NumericColumns.NONE for precision 0. Throws a NumberFormatException if the
+     * decimals or precision are not valid.
+     */
+    private static int inferredDecimals(ItemFact fact, BigDecimal value) {
+        if (fact.decimalsOption().isPresent()) {
+            return parseIntOrInf(fact.decimalsOption().get());
+        } else {
+            int precision = fact.precisionOption().map(DuplicateFactDetector::parseIntOrInf).orElse(NumericColumns.INF);
+            return NumericColumns.inferredDecimals(value, precision);
+        }
+    }
+
+    private static int parseIntOrInf(String decimalsOrPrecision) {
+        String s = decimalsOrPrecision.strip();
+        return s.equals("INF") ? NumericColumns.INF : Integer.parseInt(s);
+    }
+
+    private static Classification classify(Group group) {
+        if (group.values.stream().distinct().count() == 1) {
+            return Classification.COMPLETE;
+        }
+        if (!group.facts.stream().allMatch(f -> f instanceof ItemFact item && item.isNumeric() && !item.nil())) {
+            return Classification.INCONSISTENT;
+        }
+
+        try {
+            List<BigDecimal> values = new ArrayList<>(group.facts.size());
+            int minDecimals = Integer.MAX_VALUE;
+
+            for (Fact fact : group.facts) {
+                ItemFact item = (ItemFact) fact;
+                BigDecimal value = new BigDecimal(item.value().strip());
+                int decimals = inferredDecimals(item, value);
+                if (decimals == NumericColumns.NONE) {
+                    // Precision 0, so the values are unknown
+                    return Classification.INCONSISTENT;
+                }
+                values.add(value);
+                minDecimals = Math.min(minDecimals, decimals);
+            }
+
+            if (minDecimals == NumericColumns.INF) {
+                // Exact values that are not complete duplicates
+                return Classification.INCONSISTENT;
+            }
+
+            int scale = minDecimals;
+            BigDecimal first = values.get(0).setScale(scale, RoundingMode.HALF_EVEN);
+            return values.stream().allMatch(v -> v.setScale(scale, RoundingMode.HALF_EVEN).compareTo(first) == 0) ?
+                    Classification.CONSISTENT : Classification.INCONSISTENT;
+        } catch (NumberFormatException e) {
+            return Classification.INCONSISTENT;
+        }
+    }
+}
@@ -0,0 +1,413 @@
+/*
+ * Copyright 2024-2024 Chris de Vreeze
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package eu.cdevreeze.xbrl4j.instance.validation;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import eu.cdevreeze.xbrl4j.instance.*;
+import eu.cdevreeze.xbrl4j.instance.canonical.ContextCanonicalizer;
+import eu.cdevreeze.xbrl4j.instance.canonical.UnitKey;
+import eu.cdevreeze.xbrl4j.instance.validation.DuplicateFactDetector.Classification;
+import eu.cdevreeze.xbrl4j.instance.validation.DuplicateFactDetector.DuplicateSet;
+import eu.cdevreeze.xbrl4j.model.xs.ConceptDeclaration;
+import eu.cdevreeze.xbrl4j.model.xs.ItemDeclaration;
+import eu.cdevreeze.xbrl4j.taxonomy.ItemTypes;
+import eu.cdevreeze.xbrl4j.taxonomy.ItemTypes.ItemKind;
+import eu.cdevreeze.xbrl4j.taxonomy.TaxonomyBase;
+
+import javax.xml.namespace.QName;
+import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveTask;
+import java.util.regex.Pattern;
+
+import static eu.cdevreeze.xbrl4j.model.Names.ISO4217_NS;
+import static eu.cdevreeze.xbrl4j.model.Names.XBRLI_NS;
+
+/**
+ * Validator of XBRL 2.1 instance constraints on item facts, against a taxonomy base. The checks are:
+ * <ul>
+ *     <li>context references must resolve to a context, and unit references to a unit</li>
+ *     <li>the concept of each fact must be an item declaration in the taxonomy</li>
+ *     <li>the period of the context must match the periodType of the concept</li>
+ *     <li>numeric facts must have a unit and non-numeric facts must not, and monetary, shares and pure facts
+ *     must have the matching measure</li>
+ *     <li>non-nil numeric facts (except fractions) must have either decimals or precision, with a valid value,
+ *     and other facts must have neither</li>
+ *     <li>item facts must not be inconsistent duplicates (see DuplicateFactDetector); complete and consistent
+ *     duplicates are allowed</li>
+ * </ul>
+ * Whether a concept is numeric is determined by its type, following the derivation chain to one of the XBRL 2.1
+ * item types (see ItemTypes). For types that cannot be classified, the presence of the unitRef attribute decides,
+ * and the numeric/monetary checks are skipped.
+ * <p>
+ * Constraints on the concept declarations themselves, such as the presence of the periodType attribute and the
+ * balance attribute only occurring on monetary concepts, are not checked per fact, but once per taxonomy, by the
+ * ConceptDeclarationChecker.
+ * <p>
+ * The facts are split into chunks, and each chunk is checked as an independent work unit on a ForkJoinPool,
+ * accumulating its violations locally, without any shared mutable state. Duplicate detection runs as a work unit
+ * of its own. Finally, the violations are merged deterministically, in fact order and then check order, so the
+ * result does not depend on the number of threads or on scheduling.
+ * <p>
+ * This class is immutable and thread-safe.
+ *
+ * @author Chris de Vreeze
+ */
+public final class InstanceValidator {
+
+    public static final int DEFAULT_CHUNK_SIZE = 2048;
+
+    public enum Check {
+        CONTEXT_REF, UNIT_REF, CONCEPT, PERIOD_TYPE, ITEM_TYPE, DECIMALS_PRECISION, DUPLICATE_FACT
+    }
+
+    /**
+     * Violation of a check by an item fact. The fact index is the position of the fact among all item facts of the
+     * instance, in document order, including the item facts nested in tuples.
+     */
+    public record InstanceViolation(Check check, int factIndex, ItemFact fact, String message) {
+    }
+
+    private record ConceptInfo(Optional<String> periodTypeOption, ItemKind itemKind) {
+    }
+
+    private static final QName SHARES_MEASURE = new QName(XBRLI_NS, "shares");
+    private static final QName PURE_MEASURE = new QName(XBRLI_NS, "pure");
+
+    private static final Pattern DECIMALS_PATTERN = Pattern.compile("INF|[+-]?[0-9]+");
+    private static final Pattern PRECISION_PATTERN = Pattern.compile("INF|\\+?[0-9]+");
+
+    private final TaxonomyBase taxonomyBase;
+    private final ItemTypes itemTypes;
+    private final int chunkSize;
+
+    private InstanceValidator(TaxonomyBase taxonomyBase, ItemTypes itemTypes, int chunkSize) {
+        this.taxonomyBase = taxonomyBase;
+        this.itemTypes = itemTypes;
+        this.chunkSize = chunkSize;
+    }
+
+    public InstanceValidator withChunkSize(int newChunkSize) {
+        if (newChunkSize <= 0) {
+            throw new IllegalArgumentException("Chunk size must be positive");
+        }
+        return new InstanceValidator(taxonomyBase, itemTypes, newChunkSize);
+    }
+
+    /**
+     * Validates the given instance components (typically produced by the StreamingInstanceReader) on the common pool.
+     */
+    public ImmutableList<InstanceViolation> validate(List<? extends InstanceComponent> instanceComponents) {
+        return validate(instanceComponents, ForkJoinPool.commonPool());
+    }
+
+    public ImmutableList<InstanceViolation> validate(List<? extends InstanceComponent> instanceComponents, ForkJoinPool pool) {
+        ValidationInput input = ValidationInput.from(instanceComponents, taxonomyBase, itemTypes);
+
+        return pool.invoke(new RecursiveTask<>() {
+            @Override
+            protected ImmutableList<InstanceViolation> compute() {
+                ForkJoinTask<List<InstanceViolation>> duplicateCheck = ForkJoinTask.adapt(() -> input.findInconsistentDuplicates(instanceComponents)).fork();
+                List<InstanceViolation> factViolations = new FactChunkTask(input, 0, input.facts.size(), chunkSize).invoke();
+                List<InstanceViolation> duplicateViolations = duplicateCheck.join();
+
+                List<InstanceViolation> result = new ArrayList<>(factViolations.size() + duplicateViolations.size());
+                result.addAll(factViolations);
+                result.addAll(duplicateViolations);
+                // Stable sort, so within one fact and check the original order is retained
+                result.sort(Comparator.comparingInt(InstanceViolation::factIndex)
+                        .thenComparing(InstanceViolation::check));
+                return ImmutableList.copyOf(result);
+            }
+        });
+    }
+
+    public static InstanceValidator create(TaxonomyBase taxonomyBase) {
+        return new InstanceValidator(taxonomyBase, ItemTypes.from(taxonomyBase), DEFAULT_CHUNK_SIZE);
+    }
+
+    /**
+     * Work unit checking a range of facts. Above the chunk size, the range is split in two halves, and the
+     * violations of both halves are concatenated in order.
+     */
+    private static final class FactChunkTask extends RecursiveTask<List<InstanceViolation>> {
+
+        private final ValidationInput input;
+        private final int from;
+        private final int to;
+        private final int chunkSize;
+
+        FactChunkTask(ValidationInput input, int from, int to, int chunkSize) {
+            this.input = input;
+            this.from = from;
+            this.to = to;
+            this.chunkSize = chunkSize;
+        }
+
+        @Override
+        protected List<InstanceViolation> compute() {
+            if (to - from <= chunkSize) {
+                List<InstanceViolation> violations = new ArrayList<>();
+                for (int i = from; i < to; i++) {
+                    input.checkFact(i, violations);
+                }
+                return violations;
+            }
+            int mid = (from + to) >>> 1;
+            FactChunkTask left = new FactChunkTask(input, from, mid, chunkSize);
+            FactChunkTask right = new FactChunkTask(input, mid, to, chunkSize);
+            left.fork();
+            List<InstanceViolation> rightViolations = right.compute();
+            List<InstanceViolation> leftViolations = left.join();
+
+            if (rightViolations.isEmpty()) {
+                return leftViolations;
+            }
+            List<InstanceViolation> result = new ArrayList<>(leftViolations);
+            result.addAll(rightViolations);
+            return result;
+        }
+    }
+
+    /**
+     * The read-only input of all work units: the item facts (including those nested in tuples), the canonicalized
+     * contexts and units, and the relevant data of the concepts used in the facts.
+     */
+    private static final class ValidationInput {
+
+        private final ImmutableList<ItemFact> facts;
+        private final ContextCanonicalizer contextCanonicalizer;
+        private final ImmutableMap<QName, ConceptInfo> conceptInfos;
+
+        private ValidationInput(
+                ImmutableList<ItemFact> facts,
+                ContextCanonicalizer contextCanonicalizer,
+                ImmutableMap<QName, ConceptInfo> conceptInfos
+        ) {
+            this.facts = facts;
+            this.contextCanonicalizer = contextCanonicalizer;
+            this.conceptInfos = conceptInfos;
+        }
+
+        void checkFact(int factIndex, List<InstanceViolation> violations) {
+            ItemFact fact = facts.get(factIndex);
+            Optional<Context> contextOption = contextCanonicalizer.findCanonicalContext(fact.contextRef());
+            Optional<Unit> unitOption = fact.unitRefOption().flatMap(contextCanonicalizer::findCanonicalUnit);
+
+            if (contextOption.isEmpty()) {
+                violations.add(new InstanceViolation(
+                        Check.CONTEXT_REF, factIndex, fact, "Missing context '" + fact.contextRef() + "'"));
+            }
+            if (fact.unitRefOption().isPresent() && unitOption.isEmpty()) {
+                violations.add(new InstanceViolation(
+                        Check.UNIT_REF, factIndex, fact, "Missing unit '" + fact.unitRefOption().get() + "'"));
+            }
+
+            ConceptInfo conceptInfo = conceptInfos.get(fact.name());
+            if (conceptInfo == null) {
+                violations.add(new InstanceViolation(
+                        Check.CONCEPT, factIndex, fact, "No item declaration found for " + fact.name()));
+                return;
+            }
+
+            contextOption.ifPresent(context -> checkPeriodType(factIndex, fact, context, conceptInfo, violations));
+            checkItemType(factIndex, fact, unitOption, conceptInfo, violations);
+            checkDecimalsAndPrecision(factIndex, fact, conceptInfo, violations);
+        }
+
+        private void checkPeriodType(
+                int factIndex,
+                ItemFact fact,
+                Context context,
+                ConceptInfo conceptInfo,
+                List<InstanceViolation> violations
+        ) {
+            Optional<String> periodTypeOption = conceptInfo.periodTypeOption();
+
+            // A missing periodType is reported by the ConceptDeclarationChecker
+            if (periodTypeOption.isEmpty()) {
+                return;
+            }
+            if (periodTypeOption.get().equals("instant") && !(context.period() instanceof InstantPeriod)) {
+                violations.add(new InstanceViolation(
+                        Check.PERIOD_TYPE, factIndex, fact, "Instant concept, but context '" + context.id() + "' has no instant period"));
+            } else if (periodTypeOption.get().equals("duration") && (context.period() instanceof InstantPeriod)) {
+                violations.add(new InstanceViolation(
+                        Check.PERIOD_TYPE, factIndex, fact, "Duration concept, but context '" + context.id() + "' has an instant period"));
+            }
+        }
+
+        private void checkItemType(
+                int factIndex,
+                ItemFact fact,
+                Optional<Unit> unitOption,
+                ConceptInfo conceptInfo,
+                List<InstanceViolation> violations
+        ) {
+            ItemKind itemKind = conceptInfo.itemKind();
+
+            if (itemKind == ItemKind.UNKNOWN) {
+                return;
+            }
+            if (itemKind == ItemKind.NON_NUMERIC) {
+                if (fact.unitRefOption().isPresent()) {
+                    violations.add(new InstanceViolation(
+                            Check.ITEM_TYPE, factIndex, fact, "Non-numeric fact with unitRef"));
+                }
+                return;
+            }
+            if (fact.unitRefOption().isEmpty()) {
+                violations.add(new InstanceViolation(
+                        Check.ITEM_TYPE, factIndex, fact, "Numeric fact without unitRef"));
+                return;
+            }
+            if (unitOption.isEmpty()) {
+                return;
+            }
+            Unit unit = unitOption.get();
+            UnitKey unitKey = contextCanonicalizer.findUnitKey(unit.id()).orElseThrow();
+            boolean singleMeasure = unitKey.numerators().size() == 1 && unitKey.denominators().isEmpty();
+
+            if (itemKind == ItemKind.MONETARY &&
+                    !(singleMeasure && unitKey.numerators().get(0).getNamespaceURI().equals(ISO4217_NS))) {
+                violations.add(new InstanceViolation(
+                        Check.ITEM_TYPE, factIndex, fact, "Monetary fact with unit '" + unit.id() + "' not being an ISO 4217 currency"));
+            } else if (itemKind == ItemKind.SHARES && !(singleMeasure && unitKey.numerators().get(0).equals(SHARES_MEASURE))) {
+                violations.add(new InstanceViolation(
+                        Check.ITEM_TYPE, factIndex, fact, "Shares fact with unit '" + unit.id() + "' not being xbrli:shares"));
+            } else if (itemKind == ItemKind.PURE && !(singleMeasure && unitKey.numerators().get(0).equals(PURE_MEASURE))) {
+                violations.add(new InstanceViolation(
+                        Check.ITEM_TYPE, factIndex, fact, "Pure fact with unit '" + unit.id() + "' not being xbrli:pure"));
+            }
+        }
+
+        private void checkDecimalsAndPrecision(
+                int factIndex,
+                ItemFact fact,
+                ConceptInfo conceptInfo,
+                List<InstanceViolation> violations
+        ) {
+            boolean numeric = (conceptInfo.itemKind() == ItemKind.UNKNOWN) ?
+                    fact.unitRefOption().isPresent() :
+                    conceptInfo.itemKind() != ItemKind.NON_NUMERIC;
+            boolean decimalsOrPrecisionRequired = numeric && !fact.nil() && conceptInfo.itemKind() != ItemKind.FRACTION;
+            boolean hasDecimals = fact.decimalsOption().isPresent();
+            boolean hasPrecision = fact.precisionOption().isPresent();
+
+            if (decimalsOrPrecisionRequired) {
+                if (hasDecimals == hasPrecision) {
+                    violations.add(new InstanceViolation(
+                            Check.DECIMALS_PRECISION, factIndex, fact, "Exactly one of decimals and precision required"));
+                } else if (hasDecimals && !DECIMALS_PATTERN.matcher(fact.decimalsOption().get().strip()).matches()) {
+                    violations.add(new InstanceViolation(
+                            Check.DECIMALS_PRECISION, factIndex, fact, "Invalid decimals '" + fact.decimalsOption().get() + "'"));
+                } else if (hasPrecision && !PRECISION_PATTERN.matcher(fact.precisionOption().get().strip()).matches()) {
+                    violations.add(new InstanceViolation(
+                            Check.DECIMALS_PRECISION, factIndex, fact, "Invalid precision '" + fact.precisionOption().get() + "'"));
+                }
+            } else if (hasDecimals || hasPrecision) {
+                violations.add(new InstanceViolation(
+                        Check.DECIMALS_PRECISION, factIndex, fact, "Decimals and precision not allowed on this fact"));
+            }
+        }
+
+        /**
+         * Reports the item facts of inconsistent duplicate sets, except the first fact of each set, which is
+         * referred to in the message. Complete and consistent duplicates are not reported.
+         */
+        List<InstanceViolation> findInconsistentDuplicates(List<? extends InstanceComponent> instanceComponents) {
+            Map<ItemFact, Integer> factIndices = new IdentityHashMap<>();
+            for (int i = 0; i < facts.size(); i++) {
+                factIndices.put(facts.get(i), i);
+            }
+
+            List<InstanceViolation> violations = new ArrayList<>();
+
+            for (DuplicateSet duplicateSet : DuplicateFactDetector.findDuplicates(instanceComponents)) {
+                if (duplicateSet.classification() != Classification.INCONSISTENT ||
+                        !(duplicateSet.facts().get(0) instanceof ItemFact firstFact)) {
+                    continue;
+                }
+                int firstFactIndex = factIndices.get(firstFact);
+
+                for (Fact fact : duplicateSet.facts().subList(1, duplicateSet.facts().size())) {
+                    ItemFact itemFact = (ItemFact) fact;
+                    violations.add(new InstanceViolation(
+                            Check.DUPLICATE_FACT,
+                            factIndices.get(itemFact),
+                            itemFact,
+                            "Inconsistent duplicate of fact at index " + firstFactIndex));
+                }
+            }
+            return violations;
+        }
+
+        static ValidationInput from(
+                List<? extends InstanceComponent> instanceComponents,
+                TaxonomyBase taxonomyBase,
+                ItemTypes itemTypes
+        ) {
+            ContextCanonicalizer contextCanonicalizer = new ContextCanonicalizer();
+            ImmutableList.Builder<ItemFact> factsBuilder = ImmutableList.builder();
+
+            for (InstanceComponent component : instanceComponents) {
+                if (component instanceof Context context) {
+                    contextCanonicalizer.addContext(context);
+                } else if (component instanceof Unit unit) {
+                    contextCanonicalizer.addUnit(unit);
+                } else if (component instanceof Fact fact) {
+                    collectItemFacts(fact, factsBuilder);
+                }
+            }
+            ImmutableList<ItemFact> facts = factsBuilder.build();
+
+            Map<QName, ConceptInfo> conceptInfos = new HashMap<>();
+            for (ItemFact fact : facts) {
+                if (!conceptInfos.containsKey(fact.name())) {
+                    findItemDeclaration(fact.name(), taxonomyBase)
+                            .ifPresent(decl -> conceptInfos.put(
+                                    fact.name(),
+                                    new ConceptInfo(decl.periodTypeOption().map(String::strip), itemTypes.itemKind(decl))));
+                }
+            }
+
+            return new ValidationInput(
+                    facts,
+                    contextCanonicalizer,
+                    ImmutableMap.copyOf(conceptInfos)
+            );
+        }
+
+        private static void collectItemFacts(Fact fact, ImmutableList.Builder<ItemFact> factsBuilder) {
+            if (fact instanceof ItemFact itemFact) {
+                factsBuilder.add(itemFact);
+            } else {
+                for (Fact childFact : ((TupleFact) fact).children()) {
+                    collectItemFacts(childFact, factsBuilder);
+                }
+            }
+        }
+
+        private static Optional<ItemDeclaration> findItemDeclaration(QName conceptName, TaxonomyBase taxonomyBase) {
+            Optional<ConceptDeclaration> conceptDeclarationOption = taxonomyBase.findConceptDeclaration(conceptName);
+            return conceptDeclarationOption.filter(d -> d instanceof ItemDeclaration).map(d -> (ItemDeclaration) d);
+        }
+    }
+}
@@ -36,10 +36,15 @@ public class Names {
     public static final String XBRLDI_NS = "http://xbrl.org/2006/xbrldi";
     public static final String XBRLDT_NS = "http://xbrl.org/2005/xbrldt";
     public static final String XS_NS = "http://www.w3.org/2001/XMLSchema"; // Schema 1.0 and 1.1
+    public static final String XSI_NS = "http://www.w3.org/2001/XMLSchema-instance";
     public static final String GEN_NS = "http://xbrl.org/2008/generic";
     public static final String LABEL_NS = "http://xbrl.org/2008/label";
     public static final String REFERENCE_NS = "http://xbrl.org/2008/reference";
     public static final String REF_NS = "http://www.xbrl.org/2006/ref";
+    public static final String ISO4217_NS = "http://www.xbrl.org/2003/iso4217";
+    public static final String IX_NS = "http://www.xbrl.org/2013/inlineXBRL";
+    public static final String IXT_TR3_NS = "http://www.xbrl.org/inlineXBRL/transformation/2015-02-26";
+    public static final String IXT_TR4_NS = "http://www.xbrl.org/inlineXBRL/transformation/2020-02-12";
 
     // Element names (including substitution groups, which normally are abstract elements)
 
@@ -51,6 +56,10 @@ public class Names {
     public static final QName XS_ANNOTATION_QNAME = new QName(XS_NS, "annotation");
     public static final QName XS_COMPLEX_TYPE_QNAME = new QName(XS_NS, "complexType");
     public static final QName XS_SIMPLE_TYPE_QNAME = new QName(XS_NS, "simpleType");
+    public static final QName XS_SIMPLE_CONTENT_QNAME = new QName(XS_NS, "simpleContent");
+    public static final QName XS_COMPLEX_CONTENT_QNAME = new QName(XS_NS, "complexContent");
+    public static final QName XS_RESTRICTION_QNAME = new QName(XS_NS, "restriction");
+    public static final QName XS_EXTENSION_QNAME = new QName(XS_NS, "extension");
     public static final QName XS_SCHEMA_QNAME = new QName(XS_NS, "schema");
     public static final QName XS_IMPORT_QNAME = new QName(XS_NS, "import");
     public static final QName XS_INCLUDE_QNAME = new QName(XS_NS, "include");
@@ -58,6 +67,38 @@ public class Names {
     public static final QName XBRLI_ITEM_QNAME = new QName(XBRLI_NS, "item");
     public static final QName XBRLI_TUPLE_QNAME = new QName(XBRLI_NS, "tuple");
 
+    public static final QName XBRLI_XBRL_QNAME = new QName(XBRLI_NS, "xbrl");
+    public static final QName XBRLI_CONTEXT_QNAME = new QName(XBRLI_NS, "context");
+    public static final QName XBRLI_ENTITY_QNAME = new QName(XBRLI_NS, "entity");
+    public static final QName XBRLI_IDENTIFIER_QNAME = new QName(XBRLI_NS, "identifier");
+    public static final QName XBRLI_SEGMENT_QNAME = new QName(XBRLI_NS, "segment");
+    public static final QName XBRLI_PERIOD_QNAME = new QName(XBRLI_NS, "period");
+    public static final QName XBRLI_INSTANT_QNAME = new QName(XBRLI_NS, "instant");
+    public static final QName XBRLI_START_DATE_QNAME = new QName(XBRLI_NS, "startDate");
+    public static final QName XBRLI_END_DATE_QNAME = new QName(XBRLI_NS, "endDate");
+    public static final QName XBRLI_FOREVER_QNAME = new QName(XBRLI_NS, "forever");
+    public static final QName XBRLI_SCENARIO_QNAME = new QName(XBRLI_NS, "scenario");
+    public static final QName XBRLI_UNIT_QNAME = new QName(XBRLI_NS, "unit");
+    public static final QName XBRLI_MEASURE_QNAME = new QName(XBRLI_NS, "measure");
+    public static final QName XBRLI_DIVIDE_QNAME = new QName(XBRLI_NS, "divide");
+    public static final QName XBRLI_UNIT_NUMERATOR_QNAME = new QName(XBRLI_NS, "unitNumerator");
+    public static final QName XBRLI_UNIT_DENOMINATOR_QNAME = new QName(XBRLI_NS, "unitDenominator");
+
+    public static final QName XBRLDI_EXPLICIT_MEMBER_QNAME = new QName(XBRLDI_NS, "explicitMember");
+    public static final QName XBRLDI_TYPED_MEMBER_QNAME = new QName(XBRLDI_NS, "typedMember");
+
+    public static final QName IX_CONTINUATION_QNAME = new QName(IX_NS, "continuation");
+    public static final QName IX_EXCLUDE_QNAME = new QName(IX_NS, "exclude");
+    public static final QName IX_FOOTNOTE_QNAME = new QName(IX_NS, "footnote");
+    public static final QName IX_FRACTION_QNAME = new QName(IX_NS, "fraction");
+    public static final QName IX_HEADER_QNAME = new QName(IX_NS, "header");
+    public static final QName IX_HIDDEN_QNAME = new QName(IX_NS, "hidden");
+    public static final QName IX_NON_FRACTION_QNAME = new QName(IX_NS, "nonFraction");
+    public static final QName IX_NON_NUMERIC_QNAME = new QName(IX_NS, "nonNumeric");
+    public static final QName IX_REFERENCES_QNAME = new QName(IX_NS, "references");
+    public static final QName IX_RESOURCES_QNAME = new QName(IX_NS, "resources");
+    public static final QName IX_TUPLE_QNAME = new QName(IX_NS, "tuple");
+
     public static final QName XBRLDT_HYPERCUBE_ITEM_QNAME = new QName(XBRLDT_NS, "hypercubeItem");
     public static final QName XBRLDT_DIMENSION_ITEM_QNAME = new QName(XBRLDT_NS, "dimensionItem");
 
@@ -124,16 +165,30 @@ public class Names {
     // Attribute names
 
     public static final QName ARCROLE_URI_QNAME = new QName("arcroleURI");
+    public static final QName BASE_QNAME = new QName("base");
+    public static final QName CONTEXT_REF_QNAME = new QName("contextRef");
     public static final QName CYCLES_ALLOWED_QNAME = new QName("cyclesAllowed");
+    public static final QName CONTINUED_AT_QNAME = new QName("continuedAt");
+    public static final QName DECIMALS_QNAME = new QName("decimals");
+    public static final QName DIMENSION_QNAME = new QName("dimension");
+    public static final QName ESCAPE_QNAME = new QName("escape");
+    public static final QName FORMAT_QNAME = new QName("format");
     public static final QName ID_QNAME = new QName("id");
     public static final QName NAME_QNAME = new QName("name");
     public static final QName ORDER_QNAME = new QName("order");
     public static final QName PREFERRED_LABEL_QNAME = new QName("preferredLabel");
+    public static final QName PRECISION_QNAME = new QName("precision");
     public static final QName PRIORITY_QNAME = new QName("priority");
     public static final QName ROLE_URI_QNAME = new QName("roleURI");
+    public static final QName SCALE_QNAME = new QName("scale");
+    public static final QName SCHEME_QNAME = new QName("scheme");
+    public static final QName SIGN_QNAME = new QName("sign");
+    public static final QName UNIT_REF_QNAME = new QName("unitRef");
     public static final QName USE_QNAME = new QName("use");
     public static final QName WEIGHT_QNAME = new QName("weight");
     public static final QName SUBSTITUTION_GROUP_QNAME = new QName("substitutionGroup");
+    public static final QName TARGET_NAMESPACE_QNAME = new QName("targetNamespace");
+    public static final QName TYPE_QNAME = new QName("type");
 
     public static final QName XLINK_ACTUATE_QNAME = new QName(XLINK_NS, "actuate");
     public static final QName XLINK_ARCROLE_QNAME = new QName(XLINK_NS, "arcrole");
@@ -146,5 +201,45 @@ public class Names {
     public static final QName XLINK_TO_QNAME = new QName(XLINK_NS, "to");
     public static final QName XLINK_TYPE_QNAME = new QName(XLINK_NS, "type");
 
+    public static final QName XBRLDT_CLOSED_QNAME = new QName(XBRLDT_NS, "closed");
+    public static final QName XBRLDT_CONTEXT_ELEMENT_QNAME = new QName(XBRLDT_NS, "contextElement");
+    public static final QName XBRLDT_TARGET_ROLE_QNAME = new QName(XBRLDT_NS, "targetRole");
+    public static final QName XBRLDT_TYPED_DOMAIN_REF_QNAME = new QName(XBRLDT_NS, "typedDomainRef");
+    public static final QName XBRLDT_USABLE_QNAME = new QName(XBRLDT_NS, "usable");
+
+    public static final QName XBRLI_BALANCE_QNAME = new QName(XBRLI_NS, "balance");
+    public static final QName XBRLI_PERIOD_TYPE_QNAME = new QName(XBRLI_NS, "periodType");
+
+    public static final QName XSI_NIL_QNAME = new QName(XSI_NS, "nil");
+
     public static final QName XML_BASE_QNAME = new QName(XML_NS, "base");
+    public static final QName XML_LANG_QNAME = new QName(XML_NS, "lang");
+
+    // Standard role and arcrole URIs
+
+    public static final String STANDARD_LINK_ROLE = "http://www.xbrl.org/2003/role/link";
+    public static final String STANDARD_FOOTNOTE_ROLE = "http://www.xbrl.org/2003/role/footnote";
+    public static final String STANDARD_LABEL_ROLE = "http://www.xbrl.org/2003/role/label";
+    public static final String STANDARD_REFERENCE_ROLE = "http://www.xbrl.org/2003/role/reference";
+
+    public static final String CONCEPT_LABEL_ARCROLE = "http://www.xbrl.org/2003/arcrole/concept-label";
+    public static final String CONCEPT_REFERENCE_ARCROLE = "http://www.xbrl.org/2003/arcrole/concept-reference";
+    public static final String ELEMENT_LABEL_ARCROLE = "http://xbrl.org/arcrole/2008/element-label";
+    public static final String ELEMENT_REFERENCE_ARCROLE = "http://xbrl.org/arcrole/2008/element-reference";
+
+    public static final String FACT_FOOTNOTE_ARCROLE = "http://www.xbrl.org/2003/arcrole/fact-footnote";
+
+    public static final String PARENT_CHILD_ARCROLE = "http://www.xbrl.org/2003/arcrole/parent-child";
+    public static final String SUMMATION_ITEM_ARCROLE = "http://www.xbrl.org/2003/arcrole/summation-item";
+    public static final String GENERAL_SPECIAL_ARCROLE = "http://www.xbrl.org/2003/arcrole/general-special";
+    public static final String ESSENCE_ALIAS_ARCROLE = "http://www.xbrl.org/2003/arcrole/essence-alias";
+    public static final String SIMILAR_TUPLES_ARCROLE = "http://www.xbrl.org/2003/arcrole/similar-tuples";
+    public static final String REQUIRES_ELEMENT_ARCROLE = "http://www.xbrl.org/2003/arcrole/requires-element";
+
+    public static final String ALL_ARCROLE = "http://xbrl.org/int/dim/arcrole/all";
+    public static final String NOT_ALL_ARCROLE = "http://xbrl.org/int/dim/arcrole/notAll";
+    public static final String HYPERCUBE_DIMENSION_ARCROLE = "http://xbrl.org/int/dim/arcrole/hypercube-dimension";
+    public static final String DIMENSION_DOMAIN_ARCROLE = "http://xbrl.org/int/dim/arcrole/dimension-domain";
+    public static final String DOMAIN_MEMBER_ARCROLE = "http://xbrl.org/int/dim/arcrole/domain-member";
+    public static final String DIMENSION_DEFAULT_ARCROLE = "http://xbrl.org/int/dim/arcrole/dimension-default";
 }
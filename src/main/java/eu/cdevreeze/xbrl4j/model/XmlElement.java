@@ -19,6 +19,7 @@ package eu.cdevreeze.xbrl4j.model;
 import eu.cdevreeze.yaidom4j.core.NamespaceScope;
 import eu.cdevreeze.yaidom4j.queryapi.ElementApi;
 
+import javax.xml.namespace.QName;
 import java.net.URI;
 import java.util.Optional;
 import java.util.function.Predicate;
@@ -39,6 +40,11 @@ public interface XmlElement extends ElementApi<XmlElement> {
 
     Optional<URI> docUriOption();
 
+    /**
+     * Returns the optional base URI of this element, taking xml:base attributes into account.
+     */
+    Optional<URI> baseUriOption();
+
     NamespaceScope namespaceScope();
 
     Optional<String> idOption();
@@ -73,4 +79,25 @@ public interface XmlElement extends ElementApi<XmlElement> {
     <T extends XmlElement> Stream<T> topmostDescendantElementOrSelfStream(Class<T> cls, Predicate<T> predicate);
 
     <T extends XmlElement> Stream<T> topmostDescendantElementStream(Class<T> cls, Predicate<T> predicate);
+
+    // Name-filtered queries. The element name filter is applied to the underlying elements, before any
+    // XmlElement is created, so these queries are much cheaper than their Predicate-based counterparts.
+
+    /**
+     * Alias of descendantElementOrSelfStream, filtering on the given element name
+     */
+    Stream<XmlElement> elementStream(QName elementName);
+
+    Stream<XmlElement> childElementStream(QName elementName);
+
+    Stream<XmlElement> descendantElementStream(QName elementName);
+
+    /**
+     * Alias of descendantElementOrSelfStream, filtering on the given element namespace (empty for no namespace)
+     */
+    Stream<XmlElement> elementStreamInNamespace(String namespace);
+
+    Stream<XmlElement> childElementStreamInNamespace(String namespace);
+
+    Stream<XmlElement> descendantElementStreamInNamespace(String namespace);
 }
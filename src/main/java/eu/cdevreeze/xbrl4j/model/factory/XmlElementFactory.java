@@ -31,6 +31,10 @@ import eu.cdevreeze.xbrl4j.model.internal.link.*;
 import eu.cdevreeze.xbrl4j.model.internal.ref.*;
 import eu.cdevreeze.xbrl4j.model.internal.reference.GenericReferenceImpl;
 import eu.cdevreeze.xbrl4j.model.internal.reference.OtherReferenceElementImpl;
+import eu.cdevreeze.xbrl4j.model.internal.xbrldi.ExplicitMemberImpl;
+import eu.cdevreeze.xbrl4j.model.internal.xbrldi.OtherXbrldiElementImpl;
+import eu.cdevreeze.xbrl4j.model.internal.xbrldi.TypedMemberImpl;
+import eu.cdevreeze.xbrl4j.model.internal.xbrli.*;
 import eu.cdevreeze.xbrl4j.model.internal.xl.OtherXlArcImpl;
 import eu.cdevreeze.xbrl4j.model.internal.xl.OtherXlExtendedLinkImpl;
 import eu.cdevreeze.xbrl4j.model.internal.xl.OtherXlResourceImpl;
@@ -40,6 +44,8 @@ import eu.cdevreeze.xbrl4j.model.link.LinkElement;
 import eu.cdevreeze.xbrl4j.model.link.Linkbase;
 import eu.cdevreeze.xbrl4j.model.ref.RefElement;
 import eu.cdevreeze.xbrl4j.model.reference.ReferenceElement;
+import eu.cdevreeze.xbrl4j.model.xbrldi.XbrldiElement;
+import eu.cdevreeze.xbrl4j.model.xbrli.XbrliElement;
 import eu.cdevreeze.xbrl4j.model.xl.XlArc;
 import eu.cdevreeze.xbrl4j.model.xl.XlExtendedLink;
 import eu.cdevreeze.xbrl4j.model.xl.XlResource;
@@ -64,6 +70,9 @@ public class XmlElementFactory {
 
     private final SchemaContext schemaContext;
 
+    // One element creator instance, shared by all created elements, so that they share per-document indexes
+    private final Function<AncestryAwareElement<?>, XmlElement> xmlElementCreator = this::createXmlElement;
+
     private final ImmutableMap<QName, Function<AncestryAwareElement<?>, SchemaElement>> schemaElementCreators =
             createSchemaElementCreatorMap();
 
@@ -82,6 +91,12 @@ public class XmlElementFactory {
     private final ImmutableMap<QName, Function<AncestryAwareElement<?>, ReferenceElement>> referenceElementCreators =
             createReferenceElementCreatorMap();
 
+    private final ImmutableMap<QName, Function<AncestryAwareElement<?>, XbrliElement>> xbrliElementCreators =
+            createXbrliElementCreatorMap();
+
+    private final ImmutableMap<QName, Function<AncestryAwareElement<?>, XbrldiElement>> xbrldiElementCreators =
+            createXbrldiElementCreatorMap();
+
     private final ImmutableMap<QName, Function<AncestryAwareElement<?>, XmlElement>> commonlyUsedElementCreators =
             createCommonlyUsedElementCreatorMap();
 
@@ -114,7 +129,7 @@ public class XmlElementFactory {
                 .or(() -> optionallyCreateOtherXlLink(underlyingElement, substitutionGroupsOrSelf).map(e -> (XmlElement) e))
                 .or(() -> optionallyCreateOtherXlResource(underlyingElement, substitutionGroupsOrSelf).map(e -> (XmlElement) e))
                 .orElse(
-                        new OtherXmlElementImpl(underlyingElement, this::createXmlElement)
+                        new OtherXmlElementImpl(underlyingElement, xmlElementCreator)
                 );
     }
 
@@ -124,14 +139,16 @@ public class XmlElementFactory {
                 .or(() -> optionallyCreateLabelElement(underlyingElement, substitutionGroupsOrSelf).map(e -> (XmlElement) e))
                 .or(() -> optionallyCreateReferenceElement(underlyingElement, substitutionGroupsOrSelf).map(e -> (XmlElement) e))
                 .or(() -> optionallyCreateGenElement(underlyingElement, substitutionGroupsOrSelf).map(e -> (XmlElement) e))
-                .or(() -> optionallyCreateLinkElement(underlyingElement, substitutionGroupsOrSelf).map(e -> (XmlElement) e));
+                .or(() -> optionallyCreateLinkElement(underlyingElement, substitutionGroupsOrSelf).map(e -> (XmlElement) e))
+                .or(() -> optionallyCreateXbrliElement(underlyingElement, substitutionGroupsOrSelf).map(e -> (XmlElement) e))
+                .or(() -> optionallyCreateXbrldiElement(underlyingElement, substitutionGroupsOrSelf).map(e -> (XmlElement) e));
     }
 
     public Optional<SchemaElement> optionallyCreateSchemaElement(AncestryAwareElement<?> underlyingElement, Set<QName> substitutionGroupsOrSelf) {
         if (underlyingElement.elementName().getNamespaceURI().equals(XS_NS)) {
             return Optional.ofNullable(schemaElementCreators.get(underlyingElement.elementName()))
                     .map(f -> f.apply(underlyingElement))
-                    .or(() -> Optional.of(new OtherSchemaElementImpl(underlyingElement, this::createXmlElement)));
+                    .or(() -> Optional.of(new OtherSchemaElementImpl(underlyingElement, xmlElementCreator)));
         } else {
             return Optional.empty();
         }
@@ -143,7 +160,7 @@ public class XmlElementFactory {
                 substitutionGroupsOrSelf,
                 LINK_NS,
                 linkElementCreators,
-                e -> new OtherLinkElementImpl(e, this::createXmlElement)
+                e -> new OtherLinkElementImpl(e, xmlElementCreator)
         );
     }
 
@@ -153,7 +170,7 @@ public class XmlElementFactory {
                 substitutionGroupsOrSelf,
                 REF_NS,
                 refElementCreators,
-                e -> new OtherRefElementImpl(e, this::createXmlElement)
+                e -> new OtherRefElementImpl(e, xmlElementCreator)
         );
     }
 
@@ -163,7 +180,7 @@ public class XmlElementFactory {
                 substitutionGroupsOrSelf,
                 GEN_NS,
                 genElementCreators,
-                e -> new OtherGenElementImpl(e, this::createXmlElement)
+                e -> new OtherGenElementImpl(e, xmlElementCreator)
         );
     }
 
@@ -173,7 +190,7 @@ public class XmlElementFactory {
                 substitutionGroupsOrSelf,
                 LABEL_NS,
                 labelElementCreators,
-                e -> new OtherLabelElementImpl(e, this::createXmlElement)
+                e -> new OtherLabelElementImpl(e, xmlElementCreator)
         );
     }
 
@@ -183,7 +200,32 @@ public class XmlElementFactory {
                 substitutionGroupsOrSelf,
                 REFERENCE_NS,
                 referenceElementCreators,
-                e -> new OtherReferenceElementImpl(e, this::createXmlElement)
+                e -> new OtherReferenceElementImpl(e, xmlElementCreator)
+        );
+    }
+
+    /**
+     * Creates an XbrliElement, if applicable. Note that item and tuple facts are recognized through their
+     * substitution groups ("xbrli:item" and "xbrli:tuple", respectively), so the SchemaContext must know
+     * the substitution groups of the concepts for facts to be recognized as such.
+     */
+    public Optional<XbrliElement> optionallyCreateXbrliElement(AncestryAwareElement<?> underlyingElement, Set<QName> substitutionGroupsOrSelf) {
+        return optionallyCreate(
+                underlyingElement,
+                substitutionGroupsOrSelf,
+                XBRLI_NS,
+                xbrliElementCreators,
+                e -> new OtherXbrliElementImpl(e, xmlElementCreator)
+        );
+    }
+
+    public Optional<XbrldiElement> optionallyCreateXbrldiElement(AncestryAwareElement<?> underlyingElement, Set<QName> substitutionGroupsOrSelf) {
+        return optionallyCreate(
+                underlyingElement,
+                substitutionGroupsOrSelf,
+                XBRLDI_NS,
+                xbrldiElementCreators,
+                e -> new OtherXbrldiElementImpl(e, xmlElementCreator)
         );
     }
 
@@ -199,15 +241,15 @@ public class XmlElementFactory {
                                     .orElse(ImmutableSet.of());
 
                     if (substGroups.contains(XBRLDT_HYPERCUBE_ITEM_QNAME)) {
-                        return new HypercubeItemDeclarationImpl(underlyingElement, this::createXmlElement);
+                        return new HypercubeItemDeclarationImpl(underlyingElement, xmlElementCreator);
                     } else if (substGroups.contains(XBRLDT_DIMENSION_ITEM_QNAME)) {
-                        return new DimensionItemDeclarationImpl(underlyingElement, this::createXmlElement);
+                        return new DimensionItemDeclarationImpl(underlyingElement, xmlElementCreator);
                     } else if (substGroups.contains(XBRLI_ITEM_QNAME)) {
-                        return new ItemDeclarationImpl(underlyingElement, this::createXmlElement);
+                        return new ItemDeclarationImpl(underlyingElement, xmlElementCreator);
                     } else if (substGroups.contains(XBRLI_TUPLE_QNAME)) {
-                        return new TupleDeclarationImpl(underlyingElement, this::createXmlElement);
+                        return new TupleDeclarationImpl(underlyingElement, xmlElementCreator);
                     } else {
-                        return new ElementDeclarationImpl(underlyingElement, this::createXmlElement);
+                        return new ElementDeclarationImpl(underlyingElement, xmlElementCreator);
                     }
                 });
     }
@@ -241,7 +283,7 @@ public class XmlElementFactory {
             return Optional.empty();
         } else {
             return Optional.of(
-                    new OtherXlArcImpl(underlyingElement, this::createXmlElement)
+                    new OtherXlArcImpl(underlyingElement, xmlElementCreator)
             );
         }
     }
@@ -253,7 +295,7 @@ public class XmlElementFactory {
             return Optional.empty();
         } else {
             return Optional.of(
-                    new OtherXlExtendedLinkImpl(underlyingElement, this::createXmlElement)
+                    new OtherXlExtendedLinkImpl(underlyingElement, xmlElementCreator)
             );
         }
     }
@@ -265,7 +307,7 @@ public class XmlElementFactory {
             return Optional.empty();
         } else {
             return Optional.of(
-                    new OtherXlResourceImpl(underlyingElement, this::createXmlElement)
+                    new OtherXlResourceImpl(underlyingElement, xmlElementCreator)
             );
         }
     }
@@ -294,97 +336,120 @@ public class XmlElementFactory {
         ImmutableMap.Builder<QName, Function<AncestryAwareElement<?>, SchemaElement>> builder =
                 new ImmutableMap.Builder<>();
         builder.put(XS_ELEMENT_QNAME, e -> optionallyCreateElementDeclaration(e).orElseThrow());
-        builder.put(XS_ATTRIBUTE_QNAME, e -> new AttributeDeclarationImpl(e, this::createXmlElement));
-        builder.put(XS_GROUP_QNAME, e -> new GroupImpl(e, this::createXmlElement));
-        builder.put(XS_ATTRIBUTE_GROUP_QNAME, e -> new AttributeGroupImpl(e, this::createXmlElement));
-        builder.put(XS_ANNOTATION_QNAME, e -> new AnnotationSchemaElementImpl(e, this::createXmlElement));
-        builder.put(XS_APPINFO_QNAME, e -> new AppInfoImpl(e, this::createXmlElement));
-        builder.put(XS_SCHEMA_QNAME, e -> new SchemaImpl(e, this::createXmlElement));
-        builder.put(XS_COMPLEX_TYPE_QNAME, e -> new ComplexTypeImpl(e, this::createXmlElement));
-        builder.put(XS_SIMPLE_TYPE_QNAME, e -> new SimpleTypeImpl(e, this::createXmlElement));
-        builder.put(XS_IMPORT_QNAME, e -> new ImportImpl(e, this::createXmlElement));
-        builder.put(XS_INCLUDE_QNAME, e -> new IncludeImpl(e, this::createXmlElement));
+        builder.put(XS_ATTRIBUTE_QNAME, e -> new AttributeDeclarationImpl(e, xmlElementCreator));
+        builder.put(XS_GROUP_QNAME, e -> new GroupImpl(e, xmlElementCreator));
+        builder.put(XS_ATTRIBUTE_GROUP_QNAME, e -> new AttributeGroupImpl(e, xmlElementCreator));
+        builder.put(XS_ANNOTATION_QNAME, e -> new AnnotationSchemaElementImpl(e, xmlElementCreator));
+        builder.put(XS_APPINFO_QNAME, e -> new AppInfoImpl(e, xmlElementCreator));
+        builder.put(XS_SCHEMA_QNAME, e -> new SchemaImpl(e, xmlElementCreator));
+        builder.put(XS_COMPLEX_TYPE_QNAME, e -> new ComplexTypeImpl(e, xmlElementCreator));
+        builder.put(XS_SIMPLE_TYPE_QNAME, e -> new SimpleTypeImpl(e, xmlElementCreator));
+        builder.put(XS_IMPORT_QNAME, e -> new ImportImpl(e, xmlElementCreator));
+        builder.put(XS_INCLUDE_QNAME, e -> new IncludeImpl(e, xmlElementCreator));
         return builder.build();
     }
 
     private ImmutableMap<QName, Function<AncestryAwareElement<?>, LinkElement>> createLinkElementCreatorMap() {
         ImmutableMap.Builder<QName, Function<AncestryAwareElement<?>, LinkElement>> builder =
                 new ImmutableMap.Builder<>();
-        builder.put(LINK_ARCROLE_REF_QNAME, e -> new ArcroleRefImpl(e, this::createXmlElement));
-        builder.put(LINK_ARCROLE_TYPE_QNAME, e -> new ArcroleTypeImpl(e, this::createXmlElement));
-        builder.put(LINK_CALCULATION_ARC_QNAME, e -> new CalculationArcImpl(e, this::createXmlElement));
-        builder.put(LINK_CALCULATION_LINK_QNAME, e -> new CalculationLinkImpl(e, this::createXmlElement));
-        builder.put(LINK_DEFINITION_QNAME, e -> new DefinitionImpl(e, this::createXmlElement));
-        builder.put(LINK_DEFINITION_ARC_QNAME, e -> new DefinitionArcImpl(e, this::createXmlElement));
-        builder.put(LINK_DEFINITION_LINK_QNAME, e -> new DefinitionLinkImpl(e, this::createXmlElement));
-        builder.put(LINK_FOOTNOTE_QNAME, e -> new FootnoteImpl(e, this::createXmlElement));
-        builder.put(LINK_FOOTNOTE_ARC_QNAME, e -> new FootnoteArcImpl(e, this::createXmlElement));
-        builder.put(LINK_FOOTNOTE_LINK_QNAME, e -> new FootnoteLinkImpl(e, this::createXmlElement));
-        builder.put(LINK_LABEL_QNAME, e -> new LabelImpl(e, this::createXmlElement));
-        builder.put(LINK_LABEL_ARC_QNAME, e -> new LabelArcImpl(e, this::createXmlElement));
-        builder.put(LINK_LABEL_LINK_QNAME, e -> new LabelLinkImpl(e, this::createXmlElement));
-        builder.put(LINK_LINKBASE_QNAME, e -> new LinkbaseImpl(e, this::createXmlElement));
-        builder.put(LINK_LINKBASE_REF_QNAME, e -> new LinkbaseRefImpl(e, this::createXmlElement));
-        builder.put(LINK_LOC_QNAME, e -> new LocImpl(e, this::createXmlElement));
-        builder.put(LINK_PART_QNAME, e -> new PartImpl(e, this::createXmlElement));
-        builder.put(LINK_PRESENTATION_ARC_QNAME, e -> new PresentationArcImpl(e, this::createXmlElement));
-        builder.put(LINK_PRESENTATION_LINK_QNAME, e -> new PresentationLinkImpl(e, this::createXmlElement));
-        builder.put(LINK_REFERENCE_QNAME, e -> new ReferenceImpl(e, this::createXmlElement));
-        builder.put(LINK_REFERENCE_ARC_QNAME, e -> new ReferenceArcImpl(e, this::createXmlElement));
-        builder.put(LINK_REFERENCE_LINK_QNAME, e -> new ReferenceLinkImpl(e, this::createXmlElement));
-        builder.put(LINK_ROLE_REF_QNAME, e -> new RoleRefImpl(e, this::createXmlElement));
-        builder.put(LINK_ROLE_TYPE_QNAME, e -> new RoleTypeImpl(e, this::createXmlElement));
-        builder.put(LINK_SCHEMA_REF_QNAME, e -> new SchemaRefImpl(e, this::createXmlElement));
-        builder.put(LINK_USED_ON_QNAME, e -> new UsedOnImpl(e, this::createXmlElement));
+        builder.put(LINK_ARCROLE_REF_QNAME, e -> new ArcroleRefImpl(e, xmlElementCreator));
+        builder.put(LINK_ARCROLE_TYPE_QNAME, e -> new ArcroleTypeImpl(e, xmlElementCreator));
+        builder.put(LINK_CALCULATION_ARC_QNAME, e -> new CalculationArcImpl(e, xmlElementCreator));
+        builder.put(LINK_CALCULATION_LINK_QNAME, e -> new CalculationLinkImpl(e, xmlElementCreator));
+        builder.put(LINK_DEFINITION_QNAME, e -> new DefinitionImpl(e, xmlElementCreator));
+        builder.put(LINK_DEFINITION_ARC_QNAME, e -> new DefinitionArcImpl(e, xmlElementCreator));
+        builder.put(LINK_DEFINITION_LINK_QNAME, e -> new DefinitionLinkImpl(e, xmlElementCreator));
+        builder.put(LINK_FOOTNOTE_QNAME, e -> new FootnoteImpl(e, xmlElementCreator));
+        builder.put(LINK_FOOTNOTE_ARC_QNAME, e -> new FootnoteArcImpl(e, xmlElementCreator));
+        builder.put(LINK_FOOTNOTE_LINK_QNAME, e -> new FootnoteLinkImpl(e, xmlElementCreator));
+        builder.put(LINK_LABEL_QNAME, e -> new LabelImpl(e, xmlElementCreator));
+        builder.put(LINK_LABEL_ARC_QNAME, e -> new LabelArcImpl(e, xmlElementCreator));
+        builder.put(LINK_LABEL_LINK_QNAME, e -> new LabelLinkImpl(e, xmlElementCreator));
+        builder.put(LINK_LINKBASE_QNAME, e -> new LinkbaseImpl(e, xmlElementCreator));
+        builder.put(LINK_LINKBASE_REF_QNAME, e -> new LinkbaseRefImpl(e, xmlElementCreator));
+        builder.put(LINK_LOC_QNAME, e -> new LocImpl(e, xmlElementCreator));
+        builder.put(LINK_PART_QNAME, e -> new PartImpl(e, xmlElementCreator));
+        builder.put(LINK_PRESENTATION_ARC_QNAME, e -> new PresentationArcImpl(e, xmlElementCreator));
+        builder.put(LINK_PRESENTATION_LINK_QNAME, e -> new PresentationLinkImpl(e, xmlElementCreator));
+        builder.put(LINK_REFERENCE_QNAME, e -> new ReferenceImpl(e, xmlElementCreator));
+        builder.put(LINK_REFERENCE_ARC_QNAME, e -> new ReferenceArcImpl(e, xmlElementCreator));
+        builder.put(LINK_REFERENCE_LINK_QNAME, e -> new ReferenceLinkImpl(e, xmlElementCreator));
+        builder.put(LINK_ROLE_REF_QNAME, e -> new RoleRefImpl(e, xmlElementCreator));
+        builder.put(LINK_ROLE_TYPE_QNAME, e -> new RoleTypeImpl(e, xmlElementCreator));
+        builder.put(LINK_SCHEMA_REF_QNAME, e -> new SchemaRefImpl(e, xmlElementCreator));
+        builder.put(LINK_USED_ON_QNAME, e -> new UsedOnImpl(e, xmlElementCreator));
         return builder.build();
     }
 
     private ImmutableMap<QName, Function<AncestryAwareElement<?>, RefElement>> createRefElementCreatorMap() {
         ImmutableMap.Builder<QName, Function<AncestryAwareElement<?>, RefElement>> builder =
                 new ImmutableMap.Builder<>();
-        builder.put(REF_APPENDIX_QNAME, e -> new RefAppendixImpl(e, this::createXmlElement));
-        builder.put(REF_ARTICLE_QNAME, e -> new RefArticleImpl(e, this::createXmlElement));
-        builder.put(REF_CHAPTER_QNAME, e -> new RefChapterImpl(e, this::createXmlElement));
-        builder.put(REF_CLAUSE_QNAME, e -> new RefClauseImpl(e, this::createXmlElement));
-        builder.put(REF_EXAMPLE_QNAME, e -> new RefExampleImpl(e, this::createXmlElement));
-        builder.put(REF_EXHIBIT_QNAME, e -> new RefExhibitImpl(e, this::createXmlElement));
-        builder.put(REF_FOOTNOTE_QNAME, e -> new RefFootnoteImpl(e, this::createXmlElement));
-        builder.put(REF_ISSUE_DATE_QNAME, e -> new RefIssueDateImpl(e, this::createXmlElement));
-        builder.put(REF_NAME_QNAME, e -> new RefNameImpl(e, this::createXmlElement));
-        builder.put(REF_NOTE_QNAME, e -> new RefNoteImpl(e, this::createXmlElement));
-        builder.put(REF_NUMBER_QNAME, e -> new RefNumberImpl(e, this::createXmlElement));
-        builder.put(REF_PAGE_QNAME, e -> new RefPageImpl(e, this::createXmlElement));
-        builder.put(REF_PARAGRAPH_QNAME, e -> new RefParagraphImpl(e, this::createXmlElement));
-        builder.put(REF_PUBLISHER_QNAME, e -> new RefPublisherImpl(e, this::createXmlElement));
-        builder.put(REF_SECTION_QNAME, e -> new RefSectionImpl(e, this::createXmlElement));
-        builder.put(REF_SENTENCE_QNAME, e -> new RefSentenceImpl(e, this::createXmlElement));
-        builder.put(REF_SUBCLAUSE_QNAME, e -> new RefSubclauseImpl(e, this::createXmlElement));
-        builder.put(REF_SUBPARAGRAPH_QNAME, e -> new RefSubparagraphImpl(e, this::createXmlElement));
-        builder.put(REF_SUBSECTION_QNAME, e -> new RefSubsectionImpl(e, this::createXmlElement));
-        builder.put(REF_URI_QNAME, e -> new RefUriImpl(e, this::createXmlElement));
-        builder.put(REF_URI_DATE_QNAME, e -> new RefUriDateImpl(e, this::createXmlElement));
+        builder.put(REF_APPENDIX_QNAME, e -> new RefAppendixImpl(e, xmlElementCreator));
+        builder.put(REF_ARTICLE_QNAME, e -> new RefArticleImpl(e, xmlElementCreator));
+        builder.put(REF_CHAPTER_QNAME, e -> new RefChapterImpl(e, xmlElementCreator));
+        builder.put(REF_CLAUSE_QNAME, e -> new RefClauseImpl(e, xmlElementCreator));
+        builder.put(REF_EXAMPLE_QNAME, e -> new RefExampleImpl(e, xmlElementCreator));
+        builder.put(REF_EXHIBIT_QNAME, e -> new RefExhibitImpl(e, xmlElementCreator));
+        builder.put(REF_FOOTNOTE_QNAME, e -> new RefFootnoteImpl(e, xmlElementCreator));
+        builder.put(REF_ISSUE_DATE_QNAME, e -> new RefIssueDateImpl(e, xmlElementCreator));
+        builder.put(REF_NAME_QNAME, e -> new RefNameImpl(e, xmlElementCreator));
+        builder.put(REF_NOTE_QNAME, e -> new RefNoteImpl(e, xmlElementCreator));
+        builder.put(REF_NUMBER_QNAME, e -> new RefNumberImpl(e, xmlElementCreator));
+        builder.put(REF_PAGE_QNAME, e -> new RefPageImpl(e, xmlElementCreator));
+        builder.put(REF_PARAGRAPH_QNAME, e -> new RefParagraphImpl(e, xmlElementCreator));
+        builder.put(REF_PUBLISHER_QNAME, e -> new RefPublisherImpl(e, xmlElementCreator));
+        builder.put(REF_SECTION_QNAME, e -> new RefSectionImpl(e, xmlElementCreator));
+        builder.put(REF_SENTENCE_QNAME, e -> new RefSentenceImpl(e, xmlElementCreator));
+        builder.put(REF_SUBCLAUSE_QNAME, e -> new RefSubclauseImpl(e, xmlElementCreator));
+        builder.put(REF_SUBPARAGRAPH_QNAME, e -> new RefSubparagraphImpl(e, xmlElementCreator));
+        builder.put(REF_SUBSECTION_QNAME, e -> new RefSubsectionImpl(e, xmlElementCreator));
+        builder.put(REF_URI_QNAME, e -> new RefUriImpl(e, xmlElementCreator));
+        builder.put(REF_URI_DATE_QNAME, e -> new RefUriDateImpl(e, xmlElementCreator));
         return builder.build();
     }
 
     private ImmutableMap<QName, Function<AncestryAwareElement<?>, GenElement>> createGenElementCreatorMap() {
         ImmutableMap.Builder<QName, Function<AncestryAwareElement<?>, GenElement>> builder =
                 new ImmutableMap.Builder<>();
-        builder.put(GEN_ARC_QNAME, e -> new GenericArcImpl(e, this::createXmlElement));
-        builder.put(GEN_LINK_QNAME, e -> new GenericLinkImpl(e, this::createXmlElement));
+        builder.put(GEN_ARC_QNAME, e -> new GenericArcImpl(e, xmlElementCreator));
+        builder.put(GEN_LINK_QNAME, e -> new GenericLinkImpl(e, xmlElementCreator));
         return builder.build();
     }
 
     private ImmutableMap<QName, Function<AncestryAwareElement<?>, LabelElement>> createLabelElementCreatorMap() {
         ImmutableMap.Builder<QName, Function<AncestryAwareElement<?>, LabelElement>> builder =
                 new ImmutableMap.Builder<>();
-        builder.put(LABEL_LABEL_QNAME, e -> new GenericLabelImpl(e, this::createXmlElement));
+        builder.put(LABEL_LABEL_QNAME, e -> new GenericLabelImpl(e, xmlElementCreator));
         return builder.build();
     }
 
     private ImmutableMap<QName, Function<AncestryAwareElement<?>, ReferenceElement>> createReferenceElementCreatorMap() {
         ImmutableMap.Builder<QName, Function<AncestryAwareElement<?>, ReferenceElement>> builder =
                 new ImmutableMap.Builder<>();
-        builder.put(REFERENCE_REFERENCE_QNAME, e -> new GenericReferenceImpl(e, this::createXmlElement));
+        builder.put(REFERENCE_REFERENCE_QNAME, e -> new GenericReferenceImpl(e, xmlElementCreator));
+        return builder.build();
+    }
+
+    private ImmutableMap<QName, Function<AncestryAwareElement<?>, XbrliElement>> createXbrliElementCreatorMap() {
+        ImmutableMap.Builder<QName, Function<AncestryAwareElement<?>, XbrliElement>> builder =
+                new ImmutableMap.Builder<>();
+        builder.put(XBRLI_XBRL_QNAME, e -> new XbrlInstanceImpl(e, xmlElementCreator));
+        builder.put(XBRLI_CONTEXT_QNAME, e -> new ContextImpl(e, xmlElementCreator));
+        builder.put(XBRLI_ENTITY_QNAME, e -> new EntityImpl(e, xmlElementCreator));
+        builder.put(XBRLI_PERIOD_QNAME, e -> new PeriodImpl(e, xmlElementCreator));
+        builder.put(XBRLI_SEGMENT_QNAME, e -> new SegmentImpl(e, xmlElementCreator));
+        builder.put(XBRLI_SCENARIO_QNAME, e -> new ScenarioImpl(e, xmlElementCreator));
+        builder.put(XBRLI_UNIT_QNAME, e -> new UnitImpl(e, xmlElementCreator));
+        builder.put(XBRLI_ITEM_QNAME, e -> new ItemFactImpl(e, xmlElementCreator));
+        builder.put(XBRLI_TUPLE_QNAME, e -> new TupleFactImpl(e, xmlElementCreator));
+        return builder.build();
+    }
+
+    private ImmutableMap<QName, Function<AncestryAwareElement<?>, XbrldiElement>> createXbrldiElementCreatorMap() {
+        ImmutableMap.Builder<QName, Function<AncestryAwareElement<?>, XbrldiElement>> builder =
+                new ImmutableMap.Builder<>();
+        builder.put(XBRLDI_EXPLICIT_MEMBER_QNAME, e -> new ExplicitMemberImpl(e, xmlElementCreator));
+        builder.put(XBRLDI_TYPED_MEMBER_QNAME, e -> new TypedMemberImpl(e, xmlElementCreator));
         return builder.build();
     }
 
@@ -392,31 +457,34 @@ public class XmlElementFactory {
         ImmutableMap.Builder<QName, Function<AncestryAwareElement<?>, XmlElement>> builder =
                 new ImmutableMap.Builder<>();
         builder.put(XS_ELEMENT_QNAME, e -> optionallyCreateElementDeclaration(e).orElseThrow());
-        builder.put(XS_SCHEMA_QNAME, e -> new SchemaImpl(e, this::createXmlElement));
-        builder.put(XS_ANNOTATION_QNAME, e -> new AnnotationSchemaElementImpl(e, this::createXmlElement));
-        builder.put(XS_APPINFO_QNAME, e -> new AppInfoImpl(e, this::createXmlElement));
-        builder.put(XS_IMPORT_QNAME, e -> new ImportImpl(e, this::createXmlElement));
-        builder.put(LINK_LOC_QNAME, e -> new LocImpl(e, this::createXmlElement));
-        builder.put(GEN_ARC_QNAME, e -> new GenericArcImpl(e, this::createXmlElement));
-        builder.put(GEN_LINK_QNAME, e -> new GenericLinkImpl(e, this::createXmlElement));
-        builder.put(LINK_LINKBASE_QNAME, e -> new LinkbaseImpl(e, this::createXmlElement));
-        builder.put(LINK_LINKBASE_REF_QNAME, e -> new LinkbaseRefImpl(e, this::createXmlElement));
-        builder.put(LINK_ROLE_REF_QNAME, e -> new RoleRefImpl(e, this::createXmlElement));
-        builder.put(LINK_ARCROLE_REF_QNAME, e -> new ArcroleRefImpl(e, this::createXmlElement));
-        builder.put(LABEL_LABEL_QNAME, e -> new GenericLabelImpl(e, this::createXmlElement));
-        builder.put(REFERENCE_REFERENCE_QNAME, e -> new GenericReferenceImpl(e, this::createXmlElement));
-        builder.put(LINK_PRESENTATION_ARC_QNAME, e -> new PresentationArcImpl(e, this::createXmlElement));
-        builder.put(LINK_DEFINITION_ARC_QNAME, e -> new DefinitionArcImpl(e, this::createXmlElement));
-        builder.put(LINK_CALCULATION_ARC_QNAME, e -> new CalculationArcImpl(e, this::createXmlElement));
-        builder.put(LINK_LABEL_ARC_QNAME, e -> new LabelArcImpl(e, this::createXmlElement));
-        builder.put(LINK_REFERENCE_ARC_QNAME, e -> new ReferenceArcImpl(e, this::createXmlElement));
-        builder.put(LINK_PRESENTATION_LINK_QNAME, e -> new PresentationLinkImpl(e, this::createXmlElement));
-        builder.put(LINK_DEFINITION_LINK_QNAME, e -> new DefinitionLinkImpl(e, this::createXmlElement));
-        builder.put(LINK_CALCULATION_LINK_QNAME, e -> new CalculationLinkImpl(e, this::createXmlElement));
-        builder.put(LINK_LABEL_LINK_QNAME, e -> new LabelLinkImpl(e, this::createXmlElement));
-        builder.put(LINK_REFERENCE_LINK_QNAME, e -> new ReferenceLinkImpl(e, this::createXmlElement));
-        builder.put(LINK_LABEL_QNAME, e -> new LabelImpl(e, this::createXmlElement));
-        builder.put(LINK_REFERENCE_QNAME, e -> new ReferenceImpl(e, this::createXmlElement));
+        builder.put(XS_SCHEMA_QNAME, e -> new SchemaImpl(e, xmlElementCreator));
+        builder.put(XS_ANNOTATION_QNAME, e -> new AnnotationSchemaElementImpl(e, xmlElementCreator));
+        builder.put(XS_APPINFO_QNAME, e -> new AppInfoImpl(e, xmlElementCreator));
+        builder.put(XS_IMPORT_QNAME, e -> new ImportImpl(e, xmlElementCreator));
+        builder.put(LINK_LOC_QNAME, e -> new LocImpl(e, xmlElementCreator));
+        builder.put(GEN_ARC_QNAME, e -> new GenericArcImpl(e, xmlElementCreator));
+        builder.put(GEN_LINK_QNAME, e -> new GenericLinkImpl(e, xmlElementCreator));
+        builder.put(LINK_LINKBASE_QNAME, e -> new LinkbaseImpl(e, xmlElementCreator));
+        builder.put(LINK_LINKBASE_REF_QNAME, e -> new LinkbaseRefImpl(e, xmlElementCreator));
+        builder.put(LINK_ROLE_REF_QNAME, e -> new RoleRefImpl(e, xmlElementCreator));
+        builder.put(LINK_ARCROLE_REF_QNAME, e -> new ArcroleRefImpl(e, xmlElementCreator));
+        builder.put(LABEL_LABEL_QNAME, e -> new GenericLabelImpl(e, xmlElementCreator));
+        builder.put(REFERENCE_REFERENCE_QNAME, e -> new GenericReferenceImpl(e, xmlElementCreator));
+        builder.put(LINK_PRESENTATION_ARC_QNAME, e -> new PresentationArcImpl(e, xmlElementCreator));
+        builder.put(LINK_DEFINITION_ARC_QNAME, e -> new DefinitionArcImpl(e, xmlElementCreator));
+        builder.put(LINK_CALCULATION_ARC_QNAME, e -> new CalculationArcImpl(e, xmlElementCreator));
+        builder.put(LINK_LABEL_ARC_QNAME, e -> new LabelArcImpl(e, xmlElementCreator));
+        builder.put(LINK_REFERENCE_ARC_QNAME, e -> new ReferenceArcImpl(e, xmlElementCreator));
+        builder.put(LINK_PRESENTATION_LINK_QNAME, e -> new PresentationLinkImpl(e, xmlElementCreator));
+        builder.put(LINK_DEFINITION_LINK_QNAME, e -> new DefinitionLinkImpl(e, xmlElementCreator));
+        builder.put(LINK_CALCULATION_LINK_QNAME, e -> new CalculationLinkImpl(e, xmlElementCreator));
+        builder.put(LINK_LABEL_LINK_QNAME, e -> new LabelLinkImpl(e, xmlElementCreator));
+        builder.put(LINK_REFERENCE_LINK_QNAME, e -> new ReferenceLinkImpl(e, xmlElementCreator));
+        builder.put(LINK_LABEL_QNAME, e -> new LabelImpl(e, xmlElementCreator));
+        builder.put(LINK_REFERENCE_QNAME, e -> new ReferenceImpl(e, xmlElementCreator));
+        builder.put(XBRLI_CONTEXT_QNAME, e -> new ContextImpl(e, xmlElementCreator));
+        builder.put(XBRLI_UNIT_QNAME, e -> new UnitImpl(e, xmlElementCreator));
+        builder.put(XBRLDI_EXPLICIT_MEMBER_QNAME, e -> new ExplicitMemberImpl(e, xmlElementCreator));
         return builder.build();
     }
 
@@ -0,0 +1,244 @@
+/*
+ * Copyright 2024-2024 Chris de Vreeze
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package eu.cdevreeze.xbrl4j.model.internal;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.MapMaker;
+import com.google.common.primitives.Ints;
+import eu.cdevreeze.xbrl4j.common.dom.AncestryAwareElement;
+import eu.cdevreeze.xbrl4j.model.XmlElement;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.stream.Stream;
+
+/**
+ * Per-document index from XmlElement implementation classes to element positions in document order. It is built
+ * lazily, once per document and element creator, and cached in the document-scoped cache of the underlying
+ * elements (see AncestryAwareElement). Building the index wraps each element of the document once, to learn its
+ * class, but keeps only the underlying elements. After that, typed queries such as "elementStream(Class)" only
+ * touch and wrap the elements of the requested type, found by binary search within the subtree of the queried
+ * element.
+ * <p>
+ * The document cache holds the indexes in a map with weak keys, which are the element creators (compared by
+ * identity). The indexes themselves only hold the underlying elements and element classes. Hence the document
+ * does not keep element factories (or their schema contexts) alive.
+ * <p>
+ * The index assumes that the element creator always creates an element of the same class for the same
+ * underlying element, which is true for XmlElementFactory.
+ * <p>
+ * This class is immutable and thread-safe, apart from its internal cache of positions per type.
+ *
+ * @author Chris de Vreeze
+ */
+final class ElementTypeIndex {
+
+    private final ImmutableList<AncestryAwareElement<?>> elements;
+    private final ImmutableMap<AncestryAwareElement<?>, Integer> positions;
+    private final int[] subtreeEnds;
+    private final ImmutableList<Class<?>> elementClasses;
+    private final ConcurrentMap<Class<?>, int[]> positionsByType = new ConcurrentHashMap<>();
+
+    private ElementTypeIndex(
+            ImmutableList<AncestryAwareElement<?>> elements,
+            int[] subtreeEnds,
+            ImmutableList<Class<?>> elementClasses
+    ) {
+        this.elements = elements;
+        this.subtreeEnds = subtreeEnds;
+        this.elementClasses = elementClasses;
+
+        ImmutableMap.Builder<AncestryAwareElement<?>, Integer> positionsBuilder =
+                ImmutableMap.builderWithExpectedSize(elements.size());
+        for (int i = 0; i < elements.size(); i++) {
+            positionsBuilder.put(elements.get(i), i);
+        }
+        this.positions = positionsBuilder.build();
+    }
+
+    /**
+     * Returns the (lazily built and cached) index of the document containing the given element.
+     */
+    static ElementTypeIndex of(
+            AncestryAwareElement<?> element,
+            Function<AncestryAwareElement<?>, XmlElement> xmlElementCreator
+    ) {
+        ConcurrentMap<Function<AncestryAwareElement<?>, XmlElement>, ElementTypeIndex> indexesByCreator =
+                element.computeDocumentValueIfAbsent(
+                        ElementTypeIndex.class,
+                        () -> new MapMaker().weakKeys().makeMap()
+                );
+        ElementTypeIndex index = indexesByCreator.get(xmlElementCreator);
+
+        if (index == null) {
+            // Built outside the map, like values of the document cache
+            ElementTypeIndex builtIndex = build(rootElement(element), xmlElementCreator);
+            index = Optional.ofNullable(indexesByCreator.putIfAbsent(xmlElementCreator, builtIndex)).orElse(builtIndex);
+        }
+        return index;
+    }
+
+    /**
+     * Returns the elements of the given type in the subtree of the given element, in document order.
+     * If "includeSelf" is false, the given element itself is excluded.
+     */
+    <T extends XmlElement> Stream<T> elementStream(
+            AncestryAwareElement<?> element,
+            Class<T> cls,
+            boolean includeSelf,
+            Function<AncestryAwareElement<?>, XmlElement> xmlElementCreator
+    ) {
+        int[] typedPositions = positionsOf(cls);
+        int position = position(element);
+        int start = lowerBound(typedPositions, includeSelf ? position : position + 1);
+        int end = lowerBound(typedPositions, subtreeEnds[position]);
+
+        return Arrays.stream(typedPositions, start, end)
+                .mapToObj(i -> cls.cast(xmlElementCreator.apply(elements.get(i))));
+    }
+
+    /**
+     * Returns the topmost elements of the given type obeying the given predicate in the subtree of the given element,
+     * in document order. If "includeSelf" is false, the given element itself is excluded.
+     */
+    <T extends XmlElement> Stream<T> topmostElementStream(
+            AncestryAwareElement<?> element,
+            Class<T> cls,
+            Predicate<T> predicate,
+            boolean includeSelf,
+            Function<AncestryAwareElement<?>, XmlElement> xmlElementCreator
+    ) {
+        int[] typedPositions = positionsOf(cls);
+        int position = position(element);
+        int start = lowerBound(typedPositions, includeSelf ? position : position + 1);
+        int end = lowerBound(typedPositions, subtreeEnds[position]);
+
+        List<T> result = new ArrayList<>();
+        int skipUntil = 0;
+
+        for (int i = start; i < end; i++) {
+            int typedPosition = typedPositions[i];
+
+            if (typedPosition >= skipUntil) {
+                T elem = cls.cast(xmlElementCreator.apply(elements.get(typedPosition)));
+
+                if (predicate.test(elem)) {
+                    result.add(elem);
+                    // Skip the descendants of the found element
+                    skipUntil = subtreeEnds[typedPosition];
+                }
+            }
+        }
+        return result.stream();
+    }
+
+    private int position(AncestryAwareElement<?> element) {
+        Integer position = positions.get(element);
+
+        if (position == null) {
+            throw new IllegalStateException("Element " + element.elementName() + " not found in its document index");
+        }
+        return position;
+    }
+
+    private int[] positionsOf(Class<?> cls) {
+        return positionsByType.computeIfAbsent(cls, c -> {
+            List<Integer> result = new ArrayList<>();
+            for (int i = 0; i < elementClasses.size(); i++) {
+                if (c.isAssignableFrom(elementClasses.get(i))) {
+                    result.add(i);
+                }
+            }
+            return Ints.toArray(result);
+        });
+    }
+
+    private static int lowerBound(int[] sortedPositions, int position) {
+        int idx = Arrays.binarySearch(sortedPositions, position);
+        return (idx >= 0) ? idx : -idx - 1;
+    }
+
+    private static AncestryAwareElement<?> rootElement(AncestryAwareElement<?> element) {
+        @SuppressWarnings("unchecked")
+        Stream<AncestryAwareElement<?>> ancestorsOrSelf =
+                (Stream<AncestryAwareElement<?>>) element.ancestorElementOrSelfStream();
+
+        return ancestorsOrSelf.reduce((first, second) -> second).orElseThrow();
+    }
+
+    private static ElementTypeIndex build(
+            AncestryAwareElement<?> rootElement,
+            Function<AncestryAwareElement<?>, XmlElement> xmlElementCreator
+    ) {
+        List<AncestryAwareElement<?>> elements = new ArrayList<>();
+        List<Integer> subtreeEnds = new ArrayList<>();
+        List<Class<?>> elementClasses = new ArrayList<>();
+
+        // Iterative depth-first traversal in document order, so that deeply nested documents cannot overflow the stack
+        Deque<Integer> positionStack = new ArrayDeque<>();
+        Deque<Iterator<AncestryAwareElement<?>>> childElementIteratorStack = new ArrayDeque<>();
+
+        positionStack.push(elements.size());
+        addElement(rootElement, xmlElementCreator, elements, subtreeEnds, elementClasses);
+        childElementIteratorStack.push(childElementIterator(rootElement));
+
+        while (!childElementIteratorStack.isEmpty()) {
+            Iterator<AncestryAwareElement<?>> childElementIterator = childElementIteratorStack.peek();
+
+            if (childElementIterator.hasNext()) {
+                AncestryAwareElement<?> childElement = childElementIterator.next();
+                positionStack.push(elements.size());
+                addElement(childElement, xmlElementCreator, elements, subtreeEnds, elementClasses);
+                childElementIteratorStack.push(childElementIterator(childElement));
+            } else {
+                childElementIteratorStack.pop();
+                subtreeEnds.set(positionStack.pop(), elements.size());
+            }
+        }
+
+        return new ElementTypeIndex(
+                ImmutableList.copyOf(elements),
+                Ints.toArray(subtreeEnds),
+                ImmutableList.copyOf(elementClasses)
+        );
+    }
+
+    private static void addElement(
+            AncestryAwareElement<?> element,
+            Function<AncestryAwareElement<?>, XmlElement> xmlElementCreator,
+            List<AncestryAwareElement<?>> elements,
+            List<Integer> subtreeEnds,
+            List<Class<?>> elementClasses
+    ) {
+        elements.add(element);
+        // Set when the subtree has been traversed
+        subtreeEnds.add(-1);
+        elementClasses.add(xmlElementCreator.apply(element).getClass());
+    }
+
+    private static Iterator<AncestryAwareElement<?>> childElementIterator(AncestryAwareElement<?> element) {
+        @SuppressWarnings("unchecked")
+        Stream<AncestryAwareElement<?>> childElements =
+                (Stream<AncestryAwareElement<?>>) element.childElementStream();
+        return childElements.iterator();
+    }
+}
@@ -50,15 +50,28 @@ public abstract class XmlElementImpl implements XmlElement {
         this.xmlElementCreator = xmlElementCreator;
     }
 
+    private ElementTypeIndex elementTypeIndex() {
+        return ElementTypeIndex.of(underlyingElement, xmlElementCreator);
+    }
+
     public AncestryAwareElement<?> underlyingElement() {
         return underlyingElement;
     }
 
+    public Function<AncestryAwareElement<?>, XmlElement> xmlElementCreator() {
+        return xmlElementCreator;
+    }
+
     @Override
     public Optional<URI> docUriOption() {
         return underlyingElement.docUriOption();
     }
 
+    @Override
+    public Optional<URI> baseUriOption() {
+        return underlyingElement.baseUriOption();
+    }
+
     @Override
     public NamespaceScope namespaceScope() {
         return namespaceScopeOption().orElseThrow();
@@ -74,11 +87,12 @@ public abstract class XmlElementImpl implements XmlElement {
         return attributeOption(ID_QNAME);
     }
 
+    // Typed queries (except for child element queries) use the per-document ElementTypeIndex,
+    // so that only elements of the requested type are wrapped
+
     @Override
     public <T extends XmlElement> Stream<T> elementStream(Class<T> cls) {
-        @SuppressWarnings("unchecked")
-        var resultStream = elementStream(cls::isInstance).map(e -> (T) e);
-        return resultStream;
+        return elementTypeIndex().elementStream(underlyingElement, cls, true, xmlElementCreator);
     }
 
     @Override
@@ -88,10 +102,7 @@ public abstract class XmlElementImpl implements XmlElement {
 
     @Override
     public <T extends XmlElement> Stream<T> topmostElementStream(Class<T> cls, Predicate<T> predicate) {
-        @SuppressWarnings("unchecked")
-        var resultStream = topmostElementStream(e -> cls.isInstance(e) && predicate.test((T) e))
-                .map(e -> (T) e);
-        return resultStream;
+        return elementTypeIndex().topmostElementStream(underlyingElement, cls, predicate, true, xmlElementCreator);
     }
 
     @Override
@@ -108,9 +119,7 @@ public abstract class XmlElementImpl implements XmlElement {
 
     @Override
     public <T extends XmlElement> Stream<T> descendantElementOrSelfStream(Class<T> cls) {
-        @SuppressWarnings("unchecked")
-        var resultStream = descendantElementOrSelfStream(cls::isInstance).map(e -> (T) e);
-        return resultStream;
+        return elementTypeIndex().elementStream(underlyingElement, cls, true, xmlElementCreator);
     }
 
     @Override
@@ -120,9 +129,7 @@ public abstract class XmlElementImpl implements XmlElement {
 
     @Override
     public <T extends XmlElement> Stream<T> descendantElementStream(Class<T> cls) {
-        @SuppressWarnings("unchecked")
-        var resultStream = descendantElementStream(cls::isInstance).map(e -> (T) e);
-        return resultStream;
+        return elementTypeIndex().elementStream(underlyingElement, cls, false, xmlElementCreator);
     }
 
     @Override
@@ -132,18 +139,66 @@ public abstract class XmlElementImpl implements XmlElement {
 
     @Override
     public <T extends XmlElement> Stream<T> topmostDescendantElementOrSelfStream(Class<T> cls, Predicate<T> predicate) {
-        @SuppressWarnings("unchecked")
-        var resultStream = topmostDescendantElementOrSelfStream(e -> cls.isInstance(e) && predicate.test((T) e))
-                .map(e -> (T) e);
-        return resultStream;
+        return elementTypeIndex().topmostElementStream(underlyingElement, cls, predicate, true, xmlElementCreator);
     }
 
     @Override
     public <T extends XmlElement> Stream<T> topmostDescendantElementStream(Class<T> cls, Predicate<T> predicate) {
+        return elementTypeIndex().topmostElementStream(underlyingElement, cls, predicate, false, xmlElementCreator);
+    }
+
+    @Override
+    public Stream<XmlElement> elementStream(QName elementName) {
         @SuppressWarnings("unchecked")
-        var resultStream = topmostDescendantElementStream(e -> cls.isInstance(e) && predicate.test((T) e))
-                .map(e -> (T) e);
-        return resultStream;
+        Stream<AncestryAwareElement<?>> elemStream =
+                (Stream<AncestryAwareElement<?>>) underlyingElement.elementStream(elementName);
+
+        return elemStream.map(xmlElementCreator);
+    }
+
+    @Override
+    public Stream<XmlElement> childElementStream(QName elementName) {
+        @SuppressWarnings("unchecked")
+        Stream<AncestryAwareElement<?>> elemStream =
+                (Stream<AncestryAwareElement<?>>) underlyingElement.childElementStream(elementName);
+
+        return elemStream.map(xmlElementCreator);
+    }
+
+    @Override
+    public Stream<XmlElement> descendantElementStream(QName elementName) {
+        @SuppressWarnings("unchecked")
+        Stream<AncestryAwareElement<?>> elemStream =
+                (Stream<AncestryAwareElement<?>>) underlyingElement.descendantElementStream(elementName);
+
+        return elemStream.map(xmlElementCreator);
+    }
+
+    @Override
+    public Stream<XmlElement> elementStreamInNamespace(String namespace) {
+        @SuppressWarnings("unchecked")
+        Stream<AncestryAwareElement<?>> elemStream =
+                (Stream<AncestryAwareElement<?>>) underlyingElement.elementStreamInNamespace(namespace);
+
+        return elemStream.map(xmlElementCreator);
+    }
+
+    @Override
+    public Stream<XmlElement> childElementStreamInNamespace(String namespace) {
+        @SuppressWarnings("unchecked")
+        Stream<AncestryAwareElement<?>> elemStream =
+                (Stream<AncestryAwareElement<?>>) underlyingElement.childElementStreamInNamespace(namespace);
+
+        return elemStream.map(xmlElementCreator);
+    }
+
+    @Override
+    public Stream<XmlElement> descendantElementStreamInNamespace(String namespace) {
+        @SuppressWarnings("unchecked")
+        Stream<AncestryAwareElement<?>> elemStream =
+                (Stream<AncestryAwareElement<?>>) underlyingElement.descendantElementStreamInNamespace(namespace);
+
+        return elemStream.map(xmlElementCreator);
     }
 
     @Override
@@ -187,13 +242,7 @@ public abstract class XmlElementImpl implements XmlElement {
 
     @Override
     public Stream<XmlElement> topmostElementStream(Predicate<? super XmlElement> predicate) {
-        @SuppressWarnings("unchecked")
-        Stream<AncestryAwareElement<?>> elemStream =
-                (Stream<AncestryAwareElement<?>>) underlyingElement.topmostElementStream(
-                        e -> predicate.test(xmlElementCreator.apply((AncestryAwareElement<?>) e))
-                );
-
-        return elemStream.map(xmlElementCreator);
+        return topmostDescendantElementOrSelfStream(predicate);
     }
 
     @Override
@@ -238,25 +287,33 @@ public abstract class XmlElementImpl implements XmlElement {
         return descendantElementStream().filter(predicate);
     }
 
+    // The topmost element queries traverse the XmlElement tree itself, so each visited element is wrapped
+    // only once, and the wrapper that satisfies the predicate is the one that is returned
+
     @Override
     public Stream<XmlElement> topmostDescendantElementOrSelfStream(Predicate<? super XmlElement> predicate) {
-        @SuppressWarnings("unchecked")
-        Stream<AncestryAwareElement<?>> elemStream =
-                (Stream<AncestryAwareElement<?>>) underlyingElement.topmostDescendantElementOrSelfStream(
-                        e -> predicate.test(xmlElementCreator.apply((AncestryAwareElement<?>) e))
-                );
-
-        return elemStream.map(xmlElementCreator);
+        Stream.Builder<XmlElement> result = Stream.builder();
+        collectTopmostElements(this, predicate, result);
+        return result.build();
     }
 
     @Override
     public Stream<XmlElement> topmostDescendantElementStream(Predicate<? super XmlElement> predicate) {
-        @SuppressWarnings("unchecked")
-        Stream<AncestryAwareElement<?>> elemStream =
-                (Stream<AncestryAwareElement<?>>) underlyingElement.topmostDescendantElementStream(
-                        e -> predicate.test(xmlElementCreator.apply((AncestryAwareElement<?>) e))
-                );
+        Stream.Builder<XmlElement> result = Stream.builder();
+        childElementStream().forEach(e -> collectTopmostElements(e, predicate, result));
+        return result.build();
+    }
 
-        return elemStream.map(xmlElementCreator);
+    private static void collectTopmostElements(
+            XmlElement element,
+            Predicate<? super XmlElement> predicate,
+            Stream.Builder<XmlElement> result
+    ) {
+        if (predicate.test(element)) {
+            result.add(element);
+        } else {
+            // Recursive
+            element.childElementStream().forEach(e -> collectTopmostElements(e, predicate, result));
+        }
     }
 }
@@ -25,6 +25,8 @@ import eu.cdevreeze.xbrl4j.model.label.GenericLabel;
 import java.util.Optional;
 import java.util.function.Function;
 
+import static eu.cdevreeze.xbrl4j.model.Names.XML_LANG_QNAME;
+
 /**
  * Implementation of GenericLabel.
  *
@@ -59,6 +61,11 @@ public class GenericLabelImpl extends XmlElementImpl implements GenericLabel {
         return XLinkSupport.titleOption(underlyingElement());
     }
 
+    @Override
+    public Optional<String> xmlLangOption() {
+        return attributeOption(XML_LANG_QNAME);
+    }
+
     @Override
     public Optional<XLinkType> xlinkTypeOption() {
         return Optional.of(xlinkType());
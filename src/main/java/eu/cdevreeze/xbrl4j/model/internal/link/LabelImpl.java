@@ -25,6 +25,8 @@ import eu.cdevreeze.xbrl4j.model.link.Label;
 import java.util.Optional;
 import java.util.function.Function;
 
+import static eu.cdevreeze.xbrl4j.model.Names.XML_LANG_QNAME;
+
 /**
  * Implementation of Label.
  *
@@ -59,6 +61,11 @@ public class LabelImpl extends XmlElementImpl implements Label {
         return XLinkSupport.titleOption(underlyingElement());
     }
 
+    @Override
+    public Optional<String> xmlLangOption() {
+        return attributeOption(XML_LANG_QNAME);
+    }
+
     @Override
     public Optional<XLinkType> xlinkTypeOption() {
         return Optional.of(xlinkType());
@@ -16,10 +16,12 @@
 
 package eu.cdevreeze.xbrl4j.model.internal.link;
 
+import com.google.common.collect.ImmutableList;
 import eu.cdevreeze.xbrl4j.common.dom.AncestryAwareElement;
 import eu.cdevreeze.xbrl4j.model.XmlElement;
 import eu.cdevreeze.xbrl4j.model.internal.XmlElementImpl;
 import eu.cdevreeze.xbrl4j.model.internal.xl.XLinkSupport;
+import eu.cdevreeze.xbrl4j.model.link.Part;
 import eu.cdevreeze.xbrl4j.model.link.Reference;
 
 import java.util.Optional;
@@ -63,4 +65,9 @@ public class ReferenceImpl extends XmlElementImpl implements Reference {
     public Optional<XLinkType> xlinkTypeOption() {
         return Optional.of(xlinkType());
     }
+
+    @Override
+    public ImmutableList<? extends Part> parts() {
+        return childElementStream(Part.class).collect(ImmutableList.toImmutableList());
+    }
 }
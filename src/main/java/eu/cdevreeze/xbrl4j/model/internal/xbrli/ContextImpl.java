@@ -0,0 +1,87 @@
+/*
+ * Copyright 2024-2024 Chris de Vreeze
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package eu.cdevreeze.xbrl4j.model.internal.xbrli;
+
+import com.google.common.collect.ImmutableList;
+import eu.cdevreeze.xbrl4j.common.dom.AncestryAwareElement;
+import eu.cdevreeze.xbrl4j.model.XmlElement;
+import eu.cdevreeze.xbrl4j.model.internal.XmlElementImpl;
+import eu.cdevreeze.xbrl4j.model.xbrldi.ExplicitMember;
+import eu.cdevreeze.xbrl4j.model.xbrldi.TypedMember;
+import eu.cdevreeze.xbrl4j.model.xbrli.Context;
+import eu.cdevreeze.xbrl4j.model.xbrli.Entity;
+import eu.cdevreeze.xbrl4j.model.xbrli.Period;
+import eu.cdevreeze.xbrl4j.model.xbrli.Scenario;
+import eu.cdevreeze.xbrl4j.model.xbrli.Segment;
+
+import java.util.Optional;
+import java.util.function.Function;
+import java.util.stream.Stream;
+
+import static eu.cdevreeze.xbrl4j.model.Names.ID_QNAME;
+
+/**
+ * Implementation of Context.
+ *
+ * @author Chris de Vreeze
+ */
+public class ContextImpl extends XmlElementImpl implements Context {
+
+    public ContextImpl(
+            AncestryAwareElement<?> underlyingElement,
+            Function<AncestryAwareElement<?>, XmlElement> xmlElementCreator
+    ) {
+        super(underlyingElement, xmlElementCreator);
+    }
+
+    @Override
+    public String id() {
+        return attribute(ID_QNAME);
+    }
+
+    @Override
+    public Entity entity() {
+        return childElementStream(Entity.class).findFirst().orElseThrow();
+    }
+
+    @Override
+    public Period period() {
+        return childElementStream(Period.class).findFirst().orElseThrow();
+    }
+
+    @Override
+    public Optional<Scenario> scenarioOption() {
+        return childElementStream(Scenario.class).findFirst();
+    }
+
+    @Override
+    public ImmutableList<? extends ExplicitMember> explicitMembers() {
+        return Stream.concat(
+                entity().segmentOption().stream().flatMap(e -> e.explicitMembers().stream()),
+                scenarioOption().stream().flatMap(e -> e.explicitMembers().stream())
+        ).collect(ImmutableList.toImmutableList());
+    }
+
+    @Override
+    public ImmutableList<? extends TypedMember> typedMembers() {
+        return Stream.concat(
+                entity().segmentOption().stream().flatMap(e -> e.typedMembers().stream()),
+                scenarioOption().stream().flatMap(e -> e.typedMembers().stream())
+        ).collect(ImmutableList.toImmutableList());
+    }
+}
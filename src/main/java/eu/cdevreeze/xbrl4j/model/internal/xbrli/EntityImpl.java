@@ -0,0 +1,63 @@
+/*
+ * Copyright 2024-2024 Chris de Vreeze
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package eu.cdevreeze.xbrl4j.model.internal.xbrli;
+
+import eu.cdevreeze.xbrl4j.common.dom.AncestryAwareElement;
+import eu.cdevreeze.xbrl4j.model.XmlElement;
+import eu.cdevreeze.xbrl4j.model.internal.XmlElementImpl;
+import eu.cdevreeze.xbrl4j.model.xbrli.Entity;
+import eu.cdevreeze.xbrl4j.model.xbrli.Segment;
+
+import java.util.Optional;
+import java.util.function.Function;
+
+import static eu.cdevreeze.xbrl4j.model.Names.*;
+
+/**
+ * Implementation of Entity.
+ *
+ * @author Chris de Vreeze
+ */
+public class EntityImpl extends XmlElementImpl implements Entity {
+
+    public EntityImpl(
+            AncestryAwareElement<?> underlyingElement,
+            Function<AncestryAwareElement<?>, XmlElement> xmlElementCreator
+    ) {
+        super(underlyingElement, xmlElementCreator);
+    }
+
+    @Override
+    public String identifierScheme() {
+        return identifier().attribute(SCHEME_QNAME).strip();
+    }
+
+    @Override
+    public String identifierValue() {
+        return identifier().text().strip();
+    }
+
+    @Override
+    public Optional<Segment> segmentOption() {
+        return childElementStream(Segment.class).findFirst();
+    }
+
+    private XmlElement identifier() {
+        return childElementStream(e -> e.elementName().equals(XBRLI_IDENTIFIER_QNAME)).findFirst().orElseThrow();
+    }
+}
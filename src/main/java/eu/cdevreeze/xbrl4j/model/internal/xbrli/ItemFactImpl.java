@@ -0,0 +1,83 @@
+/*
+ * Copyright 2024-2024 Chris de Vreeze
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package eu.cdevreeze.xbrl4j.model.internal.xbrli;
+
+import eu.cdevreeze.xbrl4j.common.dom.AncestryAwareElement;
+import eu.cdevreeze.xbrl4j.model.XmlElement;
+import eu.cdevreeze.xbrl4j.model.internal.XmlElementImpl;
+import eu.cdevreeze.xbrl4j.model.xbrli.ItemFact;
+
+import java.util.Optional;
+import java.util.function.Function;
+
+import static eu.cdevreeze.xbrl4j.model.Names.*;
+
+/**
+ * Implementation of ItemFact.
+ *
+ * @author Chris de Vreeze
+ */
+public class ItemFactImpl extends XmlElementImpl implements ItemFact {
+
+    // Parsed once, at construction time
+    private final String contextRef;
+    private final Optional<String> unitRefOption;
+    private final Optional<String> decimalsOption;
+    private final Optional<String> precisionOption;
+
+    public ItemFactImpl(
+            AncestryAwareElement<?> underlyingElement,
+            Function<AncestryAwareElement<?>, XmlElement> xmlElementCreator
+    ) {
+        super(underlyingElement, xmlElementCreator);
+        this.contextRef = underlyingElement.attributeOption(CONTEXT_REF_QNAME).map(String::strip).orElse("");
+        this.unitRefOption = underlyingElement.attributeOption(UNIT_REF_QNAME).map(String::strip);
+        this.decimalsOption = underlyingElement.attributeOption(DECIMALS_QNAME).map(String::strip);
+        this.precisionOption = underlyingElement.attributeOption(PRECISION_QNAME).map(String::strip);
+    }
+
+    @Override
+    public boolean isNil() {
+        return attributeOption(XSI_NIL_QNAME).map(v -> v.strip().equals("true") || v.strip().equals("1")).orElse(false);
+    }
+
+    @Override
+    public String contextRef() {
+        return contextRef;
+    }
+
+    @Override
+    public Optional<String> unitRefOption() {
+        return unitRefOption;
+    }
+
+    @Override
+    public Optional<String> decimalsOption() {
+        return decimalsOption;
+    }
+
+    @Override
+    public Optional<String> precisionOption() {
+        return precisionOption;
+    }
+
+    @Override
+    public boolean isNumeric() {
+        return unitRefOption.isPresent();
+    }
+}
@@ -0,0 +1,78 @@
+/*
+ * Copyright 2024-2024 Chris de Vreeze
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package eu.cdevreeze.xbrl4j.model.internal.xbrli;
+
+import eu.cdevreeze.xbrl4j.common.dom.AncestryAwareElement;
+import eu.cdevreeze.xbrl4j.model.XmlElement;
+import eu.cdevreeze.xbrl4j.model.internal.XmlElementImpl;
+import eu.cdevreeze.xbrl4j.model.xbrli.Period;
+
+import javax.xml.namespace.QName;
+import java.util.Optional;
+import java.util.function.Function;
+
+import static eu.cdevreeze.xbrl4j.model.Names.*;
+
+/**
+ * Implementation of Period.
+ *
+ * @author Chris de Vreeze
+ */
+public class PeriodImpl extends XmlElementImpl implements Period {
+
+    public PeriodImpl(
+            AncestryAwareElement<?> underlyingElement,
+            Function<AncestryAwareElement<?>, XmlElement> xmlElementCreator
+    ) {
+        super(underlyingElement, xmlElementCreator);
+    }
+
+    @Override
+    public boolean isInstant() {
+        return instantOption().isPresent();
+    }
+
+    @Override
+    public boolean isStartEndDuration() {
+        return startDateOption().isPresent();
+    }
+
+    @Override
+    public boolean isForever() {
+        return childElementStream(e -> e.elementName().equals(XBRLI_FOREVER_QNAME)).findAny().isPresent();
+    }
+
+    @Override
+    public Optional<String> instantOption() {
+        return findChildText(XBRLI_INSTANT_QNAME);
+    }
+
+    @Override
+    public Optional<String> startDateOption() {
+        return findChildText(XBRLI_START_DATE_QNAME);
+    }
+
+    @Override
+    public Optional<String> endDateOption() {
+        return findChildText(XBRLI_END_DATE_QNAME);
+    }
+
+    private Optional<String> findChildText(QName childName) {
+        return childElementStream(e -> e.elementName().equals(childName)).findFirst().map(e -> e.text().strip());
+    }
+}
@@ -0,0 +1,53 @@
+/*
+ * Copyright 2024-2024 Chris de Vreeze
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package eu.cdevreeze.xbrl4j.model.internal.xbrli;
+
+import com.google.common.collect.ImmutableList;
+import eu.cdevreeze.xbrl4j.common.dom.AncestryAwareElement;
+import eu.cdevreeze.xbrl4j.model.XmlElement;
+import eu.cdevreeze.xbrl4j.model.internal.XmlElementImpl;
+import eu.cdevreeze.xbrl4j.model.xbrldi.ExplicitMember;
+import eu.cdevreeze.xbrl4j.model.xbrldi.TypedMember;
+import eu.cdevreeze.xbrl4j.model.xbrli.Segment;
+
+import java.util.function.Function;
+
+/**
+ * Implementation of Segment.
+ *
+ * @author Chris de Vreeze
+ */
+public class SegmentImpl extends XmlElementImpl implements Segment {
+
+    public SegmentImpl(
+            AncestryAwareElement<?> underlyingElement,
+            Function<AncestryAwareElement<?>, XmlElement> xmlElementCreator
+    ) {
+        super(underlyingElement, xmlElementCreator);
+    }
+
+    @Override
+    public ImmutableList<? extends ExplicitMember> explicitMembers() {
+        return childElementStream(ExplicitMember.class).collect(ImmutableList.toImmutableList());
+    }
+
+    @Override
+    public ImmutableList<? extends TypedMember> typedMembers() {
+        return childElementStream(TypedMember.class).collect(ImmutableList.toImmutableList());
+    }
+}
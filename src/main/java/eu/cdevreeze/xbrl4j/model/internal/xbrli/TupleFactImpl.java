@@ -0,0 +1,54 @@
+/*
+ * Copyright 2024-2024 Chris de Vreeze
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package eu.cdevreeze.xbrl4j.model.internal.xbrli;
+
+import com.google.common.collect.ImmutableList;
+import eu.cdevreeze.xbrl4j.common.dom.AncestryAwareElement;
+import eu.cdevreeze.xbrl4j.model.XmlElement;
+import eu.cdevreeze.xbrl4j.model.internal.XmlElementImpl;
+import eu.cdevreeze.xbrl4j.model.xbrli.Fact;
+import eu.cdevreeze.xbrl4j.model.xbrli.TupleFact;
+
+import java.util.function.Function;
+
+import static eu.cdevreeze.xbrl4j.model.Names.XSI_NIL_QNAME;
+
+/**
+ * Implementation of TupleFact.
+ *
+ * @author Chris de Vreeze
+ */
+public class TupleFactImpl extends XmlElementImpl implements TupleFact {
+
+    public TupleFactImpl(
+            AncestryAwareElement<?> underlyingElement,
+            Function<AncestryAwareElement<?>, XmlElement> xmlElementCreator
+    ) {
+        super(underlyingElement, xmlElementCreator);
+    }
+
+    @Override
+    public boolean isNil() {
+        return attributeOption(XSI_NIL_QNAME).map(v -> v.strip().equals("true") || v.strip().equals("1")).orElse(false);
+    }
+
+    @Override
+    public ImmutableList<? extends Fact> childFacts() {
+        return childElementStream(Fact.class).collect(ImmutableList.toImmutableList());
+    }
+}
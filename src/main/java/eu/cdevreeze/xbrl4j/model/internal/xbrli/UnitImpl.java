@@ -0,0 +1,83 @@
+/*
+ * Copyright 2024-2024 Chris de Vreeze
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package eu.cdevreeze.xbrl4j.model.internal.xbrli;
+
+import com.google.common.collect.ImmutableList;
+import eu.cdevreeze.xbrl4j.common.dom.AncestryAwareElement;
+import eu.cdevreeze.xbrl4j.model.XmlElement;
+import eu.cdevreeze.xbrl4j.model.internal.XmlElementImpl;
+import eu.cdevreeze.xbrl4j.model.xbrli.Unit;
+
+import javax.xml.namespace.QName;
+import java.util.Optional;
+import java.util.function.Function;
+
+import static eu.cdevreeze.xbrl4j.model.Names.*;
+
+/**
+ * Implementation of Unit.
+ *
+ * @author Chris de Vreeze
+ */
+public class UnitImpl extends XmlElementImpl implements Unit {
+
+    public UnitImpl(
+            AncestryAwareElement<?> underlyingElement,
+            Function<AncestryAwareElement<?>, XmlElement> xmlElementCreator
+    ) {
+        super(underlyingElement, xmlElementCreator);
+    }
+
+    @Override
+    public String id() {
+        return attribute(ID_QNAME);
+    }
+
+    @Override
+    public boolean isDivide() {
+        return divideOption().isPresent();
+    }
+
+    @Override
+    public ImmutableList<QName> numeratorMeasures() {
+        return divideOption()
+                .map(e -> measures(findChildElement(e, XBRLI_UNIT_NUMERATOR_QNAME).orElseThrow()))
+                .orElse(measures(this));
+    }
+
+    @Override
+    public ImmutableList<QName> denominatorMeasures() {
+        return divideOption()
+                .map(e -> measures(findChildElement(e, XBRLI_UNIT_DENOMINATOR_QNAME).orElseThrow()))
+                .orElse(ImmutableList.of());
+    }
+
+    private Optional<XmlElement> divideOption() {
+        return findChildElement(this, XBRLI_DIVIDE_QNAME);
+    }
+
+    private static ImmutableList<QName> measures(XmlElement measureParent) {
+        return measureParent.childElementStream(e -> e.elementName().equals(XBRLI_MEASURE_QNAME))
+                .map(e -> e.namespaceScope().resolveSyntacticElementQName(e.text().strip()))
+                .collect(ImmutableList.toImmutableList());
+    }
+
+    private static Optional<XmlElement> findChildElement(XmlElement element, QName childName) {
+        return element.childElementStream(e -> e.elementName().equals(childName)).findFirst();
+    }
+}
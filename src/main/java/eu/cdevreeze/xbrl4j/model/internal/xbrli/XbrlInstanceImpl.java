@@ -0,0 +1,164 @@
+/*
+ * Copyright 2024-2024 Chris de Vreeze
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package eu.cdevreeze.xbrl4j.model.internal.xbrli;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Maps;
+import eu.cdevreeze.xbrl4j.common.dom.AncestryAwareElement;
+import eu.cdevreeze.xbrl4j.model.XmlElement;
+import eu.cdevreeze.xbrl4j.model.internal.XmlElementImpl;
+import eu.cdevreeze.xbrl4j.model.link.ArcroleRef;
+import eu.cdevreeze.xbrl4j.model.link.FootnoteLink;
+import eu.cdevreeze.xbrl4j.model.link.LinkbaseRef;
+import eu.cdevreeze.xbrl4j.model.link.RoleRef;
+import eu.cdevreeze.xbrl4j.model.link.SchemaRef;
+import eu.cdevreeze.xbrl4j.model.xbrli.Context;
+import eu.cdevreeze.xbrl4j.model.xbrli.Fact;
+import eu.cdevreeze.xbrl4j.model.xbrli.ItemFact;
+import eu.cdevreeze.xbrl4j.model.xbrli.Unit;
+import eu.cdevreeze.xbrl4j.model.xbrli.XbrlInstance;
+
+import javax.xml.namespace.QName;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Function;
+import java.util.stream.Stream;
+
+import static eu.cdevreeze.xbrl4j.model.Names.*;
+
+/**
+ * Implementation of XbrlInstance.
+ *
+ * @author Chris de Vreeze
+ */
+public class XbrlInstanceImpl extends XmlElementImpl implements XbrlInstance {
+
+    public XbrlInstanceImpl(
+            AncestryAwareElement<?> underlyingElement,
+            Function<AncestryAwareElement<?>, XmlElement> xmlElementCreator
+    ) {
+        super(underlyingElement, xmlElementCreator);
+    }
+
+    @Override
+    public ImmutableList<? extends SchemaRef> schemaRefs() {
+        return childElementStream(SchemaRef.class).collect(ImmutableList.toImmutableList());
+    }
+
+    @Override
+    public ImmutableList<? extends LinkbaseRef> linkbaseRefs() {
+        return childElementStream(LinkbaseRef.class).collect(ImmutableList.toImmutableList());
+    }
+
+    @Override
+    public ImmutableList<? extends RoleRef> roleRefs() {
+        return childElementStream(RoleRef.class).collect(ImmutableList.toImmutableList());
+    }
+
+    @Override
+    public ImmutableList<? extends ArcroleRef> arcroleRefs() {
+        return childElementStream(ArcroleRef.class).collect(ImmutableList.toImmutableList());
+    }
+
+    @Override
+    public ImmutableList<? extends Context> contexts() {
+        return childElementStream(Context.class).collect(ImmutableList.toImmutableList());
+    }
+
+    @Override
+    public ImmutableList<? extends Unit> units() {
+        return childElementStream(Unit.class).collect(ImmutableList.toImmutableList());
+    }
+
+    @Override
+    public ImmutableList<? extends Fact> facts() {
+        return childElementStream(Fact.class).collect(ImmutableList.toImmutableList());
+    }
+
+    @Override
+    public ImmutableList<? extends FootnoteLink> footnoteLinks() {
+        return childElementStream(FootnoteLink.class).collect(ImmutableList.toImmutableList());
+    }
+
+    @Override
+    public ImmutableMap<String, ? extends Context> contextsById() {
+        return ImmutableMap.copyOf(
+                Maps.transformValues(idIndex(XBRLI_CONTEXT_QNAME), e -> wrap(e, Context.class))
+        );
+    }
+
+    @Override
+    public ImmutableMap<String, ? extends Unit> unitsById() {
+        return ImmutableMap.copyOf(
+                Maps.transformValues(idIndex(XBRLI_UNIT_QNAME), e -> wrap(e, Unit.class))
+        );
+    }
+
+    @Override
+    public Optional<Context> findContext(String id) {
+        return Optional.ofNullable(idIndex(XBRLI_CONTEXT_QNAME).get(id)).map(e -> wrap(e, Context.class));
+    }
+
+    @Override
+    public Optional<Unit> findUnit(String id) {
+        return Optional.ofNullable(idIndex(XBRLI_UNIT_QNAME).get(id)).map(e -> wrap(e, Unit.class));
+    }
+
+    @Override
+    public Optional<Context> findContextOfFact(ItemFact fact) {
+        return findContext(fact.contextRef());
+    }
+
+    @Override
+    public Optional<Unit> findUnitOfFact(ItemFact fact) {
+        return fact.unitRefOption().flatMap(this::findUnit);
+    }
+
+    // The ID indexes live in the document-scoped cache, so they are built once per document, and not once per
+    // (short-lived) XbrlInstanceImpl wrapper. They only hold underlying elements, and no element factories.
+
+    private ImmutableMap<String, AncestryAwareElement<?>> idIndex(QName childElementName) {
+        return underlyingElement().computeDocumentValueIfAbsent(
+                new IdIndexKey(underlyingElement(), childElementName),
+                () -> buildIdIndex(underlyingElement(), childElementName)
+        );
+    }
+
+    private <T extends XmlElement> T wrap(AncestryAwareElement<?> element, Class<T> cls) {
+        return cls.cast(xmlElementCreator().apply(element));
+    }
+
+    private static ImmutableMap<String, AncestryAwareElement<?>> buildIdIndex(
+            AncestryAwareElement<?> instanceElement,
+            QName childElementName
+    ) {
+        // Keep the first element in case of duplicate IDs (which are not allowed)
+        @SuppressWarnings("unchecked")
+        Stream<AncestryAwareElement<?>> childElemStream =
+                (Stream<AncestryAwareElement<?>>) instanceElement.childElementStream(childElementName);
+
+        Map<String, AncestryAwareElement<?>> result = new LinkedHashMap<>();
+        childElemStream.forEach(e -> e.attributeOption(ID_QNAME).ifPresent(id -> result.putIfAbsent(id, e)));
+        return ImmutableMap.copyOf(result);
+    }
+
+    private record IdIndexKey(AncestryAwareElement<?> instanceElement, QName childElementName) {
+    }
+}
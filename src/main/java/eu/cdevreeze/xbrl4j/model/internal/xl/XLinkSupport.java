@@ -16,6 +16,7 @@
 
 package eu.cdevreeze.xbrl4j.model.internal.xl;
 
+import eu.cdevreeze.xbrl4j.common.xmlbase.Rfc3986UriResolver;
 import eu.cdevreeze.xbrl4j.model.xl.XlElement;
 import eu.cdevreeze.xbrl4j.model.xlink.XLinkElement;
 import eu.cdevreeze.yaidom4j.queryapi.ElementApi;
@@ -40,7 +41,7 @@ public class XLinkSupport {
     // XLink attributes
 
     public static URI href(ElementApi<?> element) {
-        return URI.create(element.attribute(XLINK_HREF_QNAME));
+        return Rfc3986UriResolver.toUri(element.attribute(XLINK_HREF_QNAME));
     }
 
     public static Optional<String> arcroleOption(ElementApi<?> element) {
@@ -18,7 +18,6 @@ package eu.cdevreeze.xbrl4j.model.internal.xs;
 
 import eu.cdevreeze.xbrl4j.common.dom.AncestryAwareElement;
 import eu.cdevreeze.xbrl4j.model.XmlElement;
-import eu.cdevreeze.xbrl4j.model.internal.XmlElementImpl;
 import eu.cdevreeze.xbrl4j.model.xs.ComplexType;
 
 import java.util.function.Function;
@@ -28,7 +27,7 @@ import java.util.function.Function;
  *
  * @author Chris de Vreeze
  */
-public class ComplexTypeImpl extends XmlElementImpl implements ComplexType {
+public class ComplexTypeImpl extends TypeDefinitionImpl implements ComplexType {
 
     public ComplexTypeImpl(
             AncestryAwareElement<?> underlyingElement,
@@ -27,6 +27,7 @@ import java.util.function.Function;
 
 import static eu.cdevreeze.xbrl4j.model.Names.NAME_QNAME;
 import static eu.cdevreeze.xbrl4j.model.Names.SUBSTITUTION_GROUP_QNAME;
+import static eu.cdevreeze.xbrl4j.model.Names.TYPE_QNAME;
 
 /**
  * Implementation of ElementDeclaration.
@@ -52,4 +53,10 @@ public class ElementDeclarationImpl extends XmlElementImpl implements ElementDec
         Optional<String> syntacticQNameOption = attributeOption(SUBSTITUTION_GROUP_QNAME);
         return syntacticQNameOption.map(n -> namespaceScope().resolveSyntacticElementQName(n));
     }
+
+    @Override
+    public Optional<QName> typeOption() {
+        Optional<String> syntacticQNameOption = attributeOption(TYPE_QNAME);
+        return syntacticQNameOption.map(n -> namespaceScope().resolveSyntacticElementQName(n));
+    }
 }
@@ -20,8 +20,12 @@ import eu.cdevreeze.xbrl4j.common.dom.AncestryAwareElement;
 import eu.cdevreeze.xbrl4j.model.XmlElement;
 import eu.cdevreeze.xbrl4j.model.xs.ItemDeclaration;
 
+import java.util.Optional;
 import java.util.function.Function;
 
+import static eu.cdevreeze.xbrl4j.model.Names.XBRLI_BALANCE_QNAME;
+import static eu.cdevreeze.xbrl4j.model.Names.XBRLI_PERIOD_TYPE_QNAME;
+
 /**
  * Implementation of ItemDeclaration.
  *
@@ -35,4 +39,14 @@ public class ItemDeclarationImpl extends ElementDeclarationImpl implements ItemD
     ) {
         super(underlyingElement, xmlElementCreator);
     }
+
+    @Override
+    public Optional<String> periodTypeOption() {
+        return attributeOption(XBRLI_PERIOD_TYPE_QNAME);
+    }
+
+    @Override
+    public Optional<String> balanceOption() {
+        return attributeOption(XBRLI_BALANCE_QNAME);
+    }
 }
@@ -16,13 +16,19 @@
 
 package eu.cdevreeze.xbrl4j.model.internal.xs;
 
+import com.google.common.collect.ImmutableList;
 import eu.cdevreeze.xbrl4j.common.dom.AncestryAwareElement;
 import eu.cdevreeze.xbrl4j.model.XmlElement;
 import eu.cdevreeze.xbrl4j.model.internal.XmlElementImpl;
+import eu.cdevreeze.xbrl4j.model.xs.ElementDeclaration;
 import eu.cdevreeze.xbrl4j.model.xs.Schema;
+import eu.cdevreeze.xbrl4j.model.xs.TypeDefinition;
 
+import java.util.Optional;
 import java.util.function.Function;
 
+import static eu.cdevreeze.xbrl4j.model.Names.TARGET_NAMESPACE_QNAME;
+
 /**
  * Implementation of Schema.
  *
@@ -36,4 +42,19 @@ public class SchemaImpl extends XmlElementImpl implements Schema {
     ) {
         super(underlyingElement, xmlElementCreator);
     }
+
+    @Override
+    public Optional<String> targetNamespaceOption() {
+        return attributeOption(TARGET_NAMESPACE_QNAME);
+    }
+
+    @Override
+    public ImmutableList<? extends ElementDeclaration> globalElementDeclarations() {
+        return childElementStream(ElementDeclaration.class).collect(ImmutableList.toImmutableList());
+    }
+
+    @Override
+    public ImmutableList<? extends TypeDefinition> globalTypeDefinitions() {
+        return childElementStream(TypeDefinition.class).collect(ImmutableList.toImmutableList());
+    }
 }
@@ -18,7 +18,6 @@ package eu.cdevreeze.xbrl4j.model.internal.xs;
 
 import eu.cdevreeze.xbrl4j.common.dom.AncestryAwareElement;
 import eu.cdevreeze.xbrl4j.model.XmlElement;
-import eu.cdevreeze.xbrl4j.model.internal.XmlElementImpl;
 import eu.cdevreeze.xbrl4j.model.xs.SimpleType;
 
 import java.util.function.Function;
@@ -28,7 +27,7 @@ import java.util.function.Function;
  *
  * @author Chris de Vreeze
  */
-public class SimpleTypeImpl extends XmlElementImpl implements SimpleType {
+public class SimpleTypeImpl extends TypeDefinitionImpl implements SimpleType {
 
     public SimpleTypeImpl(
             AncestryAwareElement<?> underlyingElement,
@@ -0,0 +1,63 @@
+/*
+ * Copyright 2024-2024 Chris de Vreeze
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package eu.cdevreeze.xbrl4j.model.internal.xs;
+
+import eu.cdevreeze.xbrl4j.common.dom.AncestryAwareElement;
+import eu.cdevreeze.xbrl4j.model.XmlElement;
+import eu.cdevreeze.xbrl4j.model.internal.XmlElementImpl;
+import eu.cdevreeze.xbrl4j.model.xs.TypeDefinition;
+
+import javax.xml.namespace.QName;
+import java.util.Optional;
+import java.util.function.Function;
+import java.util.stream.Stream;
+
+import static eu.cdevreeze.xbrl4j.model.Names.*;
+
+/**
+ * Partial implementation of TypeDefinition, shared by ComplexTypeImpl and SimpleTypeImpl.
+ *
+ * @author Chris de Vreeze
+ */
+public abstract class TypeDefinitionImpl extends XmlElementImpl implements TypeDefinition {
+
+    protected TypeDefinitionImpl(
+            AncestryAwareElement<?> underlyingElement,
+            Function<AncestryAwareElement<?>, XmlElement> xmlElementCreator
+    ) {
+        super(underlyingElement, xmlElementCreator);
+    }
+
+    @Override
+    public Optional<String> nameOption() {
+        return attributeOption(NAME_QNAME);
+    }
+
+    @Override
+    public Optional<QName> baseTypeOption() {
+        return childElementStream()
+                .flatMap(che -> isContentModel(che.elementName()) ? che.childElementStream() : Stream.of(che))
+                .filter(e -> e.elementName().equals(XS_RESTRICTION_QNAME) || e.elementName().equals(XS_EXTENSION_QNAME))
+                .findFirst()
+                .flatMap(e -> e.attributeOption(BASE_QNAME).map(n -> e.namespaceScope().resolveSyntacticElementQName(n)));
+    }
+
+    private static boolean isContentModel(QName elementName) {
+        return elementName.equals(XS_SIMPLE_CONTENT_QNAME) || elementName.equals(XS_COMPLEX_CONTENT_QNAME);
+    }
+}
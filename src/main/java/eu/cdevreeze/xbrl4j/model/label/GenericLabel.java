@@ -18,10 +18,14 @@ package eu.cdevreeze.xbrl4j.model.label;
 
 import eu.cdevreeze.xbrl4j.model.xl.XlResource;
 
+import java.util.Optional;
+
 /**
  * Any "label:label" element in the context of XBRL.
  *
  * @author Chris de Vreeze
  */
 public interface GenericLabel extends LabelElement, XlResource {
+
+    Optional<String> xmlLangOption();
 }
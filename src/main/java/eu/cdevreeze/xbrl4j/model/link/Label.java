@@ -18,6 +18,8 @@ package eu.cdevreeze.xbrl4j.model.link;
 
 import eu.cdevreeze.xbrl4j.model.xl.XlResource;
 
+import java.util.Optional;
+
 /**
  * Any "link:label" element in the context of XBRL. See schema xbrl-linkbase-2003-12-31.xsd, which has target namespace
  * "http://www.xbrl.org/2003/linkbase".
@@ -25,4 +27,6 @@ import eu.cdevreeze.xbrl4j.model.xl.XlResource;
  * @author Chris de Vreeze
  */
 public interface Label extends LinkElement, XlResource {
+
+    Optional<String> xmlLangOption();
 }
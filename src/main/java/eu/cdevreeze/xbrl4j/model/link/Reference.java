@@ -16,6 +16,7 @@
 
 package eu.cdevreeze.xbrl4j.model.link;
 
+import com.google.common.collect.ImmutableList;
 import eu.cdevreeze.xbrl4j.model.xl.XlResource;
 
 /**
@@ -25,4 +26,6 @@ import eu.cdevreeze.xbrl4j.model.xl.XlResource;
  * @author Chris de Vreeze
  */
 public interface Reference extends LinkElement, XlResource {
+
+    ImmutableList<? extends Part> parts();
 }
@@ -0,0 +1,37 @@
+/*
+ * Copyright 2024-2024 Chris de Vreeze
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package eu.cdevreeze.xbrl4j.model.xbrldi;
+
+import eu.cdevreeze.xbrl4j.model.XmlElement;
+import javax.xml.namespace.QName;
+
+/**
+ * Any "xbrldi:typedMember" element. See schema xbrldi-2006.xsd, which has target namespace
+ * "http://xbrl.org/2006/xbrldi".
+ *
+ * @author Chris de Vreeze
+ */
+public interface TypedMember extends XbrldiElement {
+
+    QName dimension();
+
+    /**
+     * Returns the typed dimension value, which is the only child element.
+     */
+    XmlElement content();
+}
@@ -0,0 +1,35 @@
+/*
+ * Copyright 2024-2024 Chris de Vreeze
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package eu.cdevreeze.xbrl4j.model.xbrli;
+
+import java.util.Optional;
+
+/**
+ * Any "xbrli:entity" element. See schema xbrl-instance-2003-12-31.xsd, which has target namespace
+ * "http://www.xbrl.org/2003/instance".
+ *
+ * @author Chris de Vreeze
+ */
+public interface Entity extends XbrliElement {
+
+    String identifierScheme();
+
+    String identifierValue();
+
+    Optional<Segment> segmentOption();
+}
@@ -0,0 +1,42 @@
+/*
+ * Copyright 2024-2024 Chris de Vreeze
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package eu.cdevreeze.xbrl4j.model.xbrli;
+
+import java.util.Optional;
+
+/**
+ * Any item fact, that is, any element in the substitution group of "xbrli:item". See schema xbrl-instance-2003-12-31.xsd, which has target namespace
+ * "http://www.xbrl.org/2003/instance".
+ * <p>
+ * The contextRef, unitRef, decimals and precision attributes are parsed once, when the ItemFact is created.
+ * The decimals and precision are returned as (whitespace-stripped) lexical values, so they may be "INF".
+ *
+ * @author Chris de Vreeze
+ */
+public interface ItemFact extends Fact {
+
+    String contextRef();
+
+    Optional<String> unitRefOption();
+
+    Optional<String> decimalsOption();
+
+    Optional<String> precisionOption();
+
+    boolean isNumeric();
+}
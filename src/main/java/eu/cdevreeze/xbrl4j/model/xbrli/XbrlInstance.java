@@ -0,0 +1,72 @@
+/*
+ * Copyright 2024-2024 Chris de Vreeze
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package eu.cdevreeze.xbrl4j.model.xbrli;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import eu.cdevreeze.xbrl4j.model.link.ArcroleRef;
+import eu.cdevreeze.xbrl4j.model.link.FootnoteLink;
+import eu.cdevreeze.xbrl4j.model.link.LinkbaseRef;
+import eu.cdevreeze.xbrl4j.model.link.RoleRef;
+import eu.cdevreeze.xbrl4j.model.link.SchemaRef;
+import java.util.Optional;
+
+/**
+ * Any "xbrli:xbrl" element, that is, the root element of an XBRL instance. See schema xbrl-instance-2003-12-31.xsd, which has target namespace
+ * "http://www.xbrl.org/2003/instance".
+ * <p>
+ * The contexts and units are indexed by ID (lazily, and only once per document), so resolving the
+ * context or unit of a fact is a map lookup rather than a search through the instance. The indexes are cached
+ * with the underlying document, so re-creating XbrlInstance objects does not rebuild them.
+ *
+ * @author Chris de Vreeze
+ */
+public interface XbrlInstance extends XbrliElement {
+
+    ImmutableList<? extends SchemaRef> schemaRefs();
+
+    ImmutableList<? extends LinkbaseRef> linkbaseRefs();
+
+    ImmutableList<? extends RoleRef> roleRefs();
+
+    ImmutableList<? extends ArcroleRef> arcroleRefs();
+
+    ImmutableList<? extends Context> contexts();
+
+    ImmutableList<? extends Unit> units();
+
+    /**
+     * Returns the top-level facts, that is, the item and tuple facts that are child elements of this root element.
+     * Note that facts are recognized by their substitution groups, as known to the SchemaContext.
+     */
+    ImmutableList<? extends Fact> facts();
+
+    ImmutableList<? extends FootnoteLink> footnoteLinks();
+
+    ImmutableMap<String, ? extends Context> contextsById();
+
+    ImmutableMap<String, ? extends Unit> unitsById();
+
+    Optional<Context> findContext(String id);
+
+    Optional<Unit> findUnit(String id);
+
+    Optional<Context> findContextOfFact(ItemFact fact);
+
+    Optional<Unit> findUnitOfFact(ItemFact fact);
+}
@@ -21,5 +21,5 @@ package eu.cdevreeze.xbrl4j.model.xs;
  *
  * @author Chris de Vreeze
  */
-public interface ComplexType extends SchemaElement {
+public interface ComplexType extends TypeDefinition {
 }
@@ -30,4 +30,6 @@ public interface ElementDeclaration extends SchemaElement {
     Optional<String> nameOption();
 
     Optional<QName> substitutionGroupOption();
+
+    Optional<QName> typeOption();
 }
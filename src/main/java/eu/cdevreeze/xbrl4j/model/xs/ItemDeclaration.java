@@ -16,10 +16,22 @@
 
 package eu.cdevreeze.xbrl4j.model.xs;
 
+import java.util.Optional;
+
 /**
  * An element declaration for an item.
  *
  * @author Chris de Vreeze
  */
 public interface ItemDeclaration extends ConceptDeclaration {
+
+    /**
+     * Returns the xbrli:periodType attribute, which should be "instant" or "duration".
+     */
+    Optional<String> periodTypeOption();
+
+    /**
+     * Returns the optional xbrli:balance attribute, which should be "debit" or "credit".
+     */
+    Optional<String> balanceOption();
 }
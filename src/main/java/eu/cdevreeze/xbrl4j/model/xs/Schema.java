@@ -16,10 +16,26 @@
 
 package eu.cdevreeze.xbrl4j.model.xs;
 
+import com.google.common.collect.ImmutableList;
+
+import java.util.Optional;
+
 /**
  * An xs:schema element, so an XML Schema.
  *
  * @author Chris de Vreeze
  */
 public interface Schema extends SchemaElement {
+
+    Optional<String> targetNamespaceOption();
+
+    /**
+     * Returns the global element declarations, that is, the xs:element children of this xs:schema element.
+     */
+    ImmutableList<? extends ElementDeclaration> globalElementDeclarations();
+
+    /**
+     * Returns the global type definitions, that is, the xs:complexType and xs:simpleType children of this xs:schema element.
+     */
+    ImmutableList<? extends TypeDefinition> globalTypeDefinitions();
 }
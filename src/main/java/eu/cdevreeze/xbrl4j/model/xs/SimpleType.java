@@ -21,5 +21,5 @@ package eu.cdevreeze.xbrl4j.model.xs;
  *
  * @author Chris de Vreeze
  */
-public interface SimpleType extends SchemaElement {
+public interface SimpleType extends TypeDefinition {
 }
@@ -0,0 +1,41 @@
+/*
+ * Copyright 2024-2024 Chris de Vreeze
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package eu.cdevreeze.xbrl4j.model.xs;
+
+import javax.xml.namespace.QName;
+import java.util.Optional;
+
+/**
+ * An xs:complexType or xs:simpleType element, so a type definition.
+ *
+ * @author Chris de Vreeze
+ */
+public interface TypeDefinition extends SchemaElement {
+
+    /**
+     * Returns the name attribute, which is only present for global type definitions.
+     */
+    Optional<String> nameOption();
+
+    /**
+     * Returns the base type of the restriction or extension that defines this type, if any. For complex types,
+     * this is the base type of the restriction or extension in the xs:simpleContent or xs:complexContent child.
+     * Types defined as list or union, and complex types without content model derivation, have no base type.
+     */
+    Optional<QName> baseTypeOption();
+}
@@ -0,0 +1,90 @@
+/*
+ * Copyright 2024-2024 Chris de Vreeze
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package eu.cdevreeze.xbrl4j.taxonomy;
+
+import com.google.common.base.Preconditions;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+
+import javax.xml.namespace.QName;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.OptionalInt;
+
+/**
+ * Dense numbering of the concepts (global item and tuple declarations) of a taxonomy. Concept IDs are consecutive
+ * ints starting at 0, so they can be used as array indexes and as parts of primitive keys in other indexes.
+ * <p>
+ * This class is immutable and thread-safe.
+ *
+ * @author Chris de Vreeze
+ */
+public final class ConceptIndex {
+
+    private final ImmutableList<QName> conceptNames;
+    private final ImmutableMap<QName, Integer> conceptIds;
+
+    private ConceptIndex(ImmutableList<QName> conceptNames) {
+        this.conceptNames = Objects.requireNonNull(conceptNames);
+
+        ImmutableMap.Builder<QName, Integer> builder = ImmutableMap.builderWithExpectedSize(conceptNames.size());
+        for (int i = 0; i < conceptNames.size(); i++) {
+            builder.put(conceptNames.get(i), i);
+        }
+        this.conceptIds = builder.buildOrThrow();
+    }
+
+    public int size() {
+        return conceptNames.size();
+    }
+
+    public ImmutableList<QName> conceptNames() {
+        return conceptNames;
+    }
+
+    public QName conceptName(int conceptId) {
+        return conceptNames.get(conceptId);
+    }
+
+    public OptionalInt conceptIdOption(QName conceptName) {
+        Integer id = conceptIds.get(conceptName);
+        return (id == null) ? OptionalInt.empty() : OptionalInt.of(id);
+    }
+
+    /**
+     * Returns the concept ID of the given concept name, or -1 if the concept is unknown.
+     */
+    public int conceptIdOrMinusOne(QName conceptName) {
+        return Optional.ofNullable(conceptIds.get(conceptName)).orElse(-1);
+    }
+
+    public boolean containsConcept(QName conceptName) {
+        return conceptIds.containsKey(conceptName);
+    }
+
+    /**
+     * Creates a ConceptIndex from the given concept names, in that order. The concept names must be unique.
+     */
+    public static ConceptIndex from(ImmutableList<QName> conceptNames) {
+        Preconditions.checkArgument(
+                conceptNames.stream().distinct().count() == conceptNames.size(),
+                "Duplicate concept names not allowed"
+        );
+        return new ConceptIndex(conceptNames);
+    }
+}
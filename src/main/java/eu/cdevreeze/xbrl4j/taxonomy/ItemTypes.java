@@ -0,0 +1,137 @@
+/*
+ * Copyright 2024-2024 Chris de Vreeze
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package eu.cdevreeze.xbrl4j.taxonomy;
+
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import eu.cdevreeze.xbrl4j.model.xs.ItemDeclaration;
+import eu.cdevreeze.xbrl4j.model.xs.TypeDefinition;
+
+import javax.xml.namespace.QName;
+import java.util.HashSet;
+import java.util.Optional;
+import java.util.Set;
+
+import static eu.cdevreeze.xbrl4j.model.Names.XBRLI_NS;
+
+/**
+ * Classification of item types, by following the type derivation chain through the type definitions of a
+ * taxonomy base until one of the XBRL 2.1 item types in the xbrli namespace is reached. For example, a type
+ * derived by restriction from xbrli:pureItemType (such as num:percentItemType) is classified as PURE, and a type
+ * derived from xbrli:decimalItemType (such as dtr-types:perShareItemType) as OTHER_NUMERIC.
+ * <p>
+ * Types whose derivation chain cannot be followed up to the xbrli namespace (for example, because a schema is
+ * missing from the taxonomy base, or because of a derivation cycle) are classified as UNKNOWN.
+ * <p>
+ * The classifications of all global type definitions are computed once, at construction. This class is immutable
+ * and thread-safe.
+ *
+ * @author Chris de Vreeze
+ */
+public final class ItemTypes {
+
+    public enum ItemKind {
+        MONETARY, SHARES, PURE, FRACTION, OTHER_NUMERIC, NON_NUMERIC, UNKNOWN;
+
+        /**
+         * Returns true for the numeric item kinds (including FRACTION), and false for NON_NUMERIC and UNKNOWN.
+         */
+        public boolean isNumeric() {
+            return this != NON_NUMERIC && this != UNKNOWN;
+        }
+    }
+
+    private static final ImmutableSet<String> OTHER_NUMERIC_ITEM_TYPES = ImmutableSet.of(
+            "decimalItemType", "floatItemType", "doubleItemType", "integerItemType", "nonPositiveIntegerItemType",
+            "negativeIntegerItemType", "longItemType", "intItemType", "shortItemType", "byteItemType",
+            "nonNegativeIntegerItemType", "unsignedLongItemType", "unsignedIntItemType", "unsignedShortItemType",
+            "unsignedByteItemType", "positiveIntegerItemType"
+    );
+
+    private final ImmutableMap<QName, ItemKind> itemKindsByTypeName;
+
+    private ItemTypes(ImmutableMap<QName, ItemKind> itemKindsByTypeName) {
+        this.itemKindsByTypeName = itemKindsByTypeName;
+    }
+
+    public ItemKind itemKind(QName typeName) {
+        if (typeName.getNamespaceURI().equals(XBRLI_NS)) {
+            return xbrliItemKind(typeName);
+        }
+        return itemKindsByTypeName.getOrDefault(typeName, ItemKind.UNKNOWN);
+    }
+
+    /**
+     * Returns the item kind of the type of the given item declaration, or UNKNOWN if it has no type attribute.
+     */
+    public ItemKind itemKind(ItemDeclaration itemDeclaration) {
+        return itemDeclaration.typeOption().map(this::itemKind).orElse(ItemKind.UNKNOWN);
+    }
+
+    public boolean isNumeric(QName typeName) {
+        return itemKind(typeName).isNumeric();
+    }
+
+    /**
+     * Returns the item kind of the given type in the xbrli namespace, without consulting any taxonomy.
+     * Types in other namespaces are UNKNOWN.
+     */
+    public static ItemKind xbrliItemKind(QName typeName) {
+        if (!typeName.getNamespaceURI().equals(XBRLI_NS)) {
+            return ItemKind.UNKNOWN;
+        }
+        String localName = typeName.getLocalPart();
+        return switch (localName) {
+            case "monetaryItemType" -> ItemKind.MONETARY;
+            case "sharesItemType" -> ItemKind.SHARES;
+            case "pureItemType" -> ItemKind.PURE;
+            case "fractionItemType" -> ItemKind.FRACTION;
+            default -> OTHER_NUMERIC_ITEM_TYPES.contains(localName) ? ItemKind.OTHER_NUMERIC : ItemKind.NON_NUMERIC;
+        };
+    }
+
+    public static ItemTypes from(TaxonomyBase taxonomyBase) {
+        ImmutableMap<QName, TypeDefinition> typeDefinitions = taxonomyBase.typeDefinitionsByName();
+
+        ImmutableMap.Builder<QName, ItemKind> builder = ImmutableMap.builderWithExpectedSize(typeDefinitions.size());
+        for (QName typeName : typeDefinitions.keySet()) {
+            builder.put(typeName, resolveItemKind(typeName, typeDefinitions));
+        }
+        return new ItemTypes(builder.buildOrThrow());
+    }
+
+    private static ItemKind resolveItemKind(QName typeName, ImmutableMap<QName, TypeDefinition> typeDefinitions) {
+        Set<QName> visited = new HashSet<>();
+        QName currentTypeName = typeName;
+
+        // Iterative, so long derivation chains cannot exhaust the stack, and cycles are detected
+        while (visited.add(currentTypeName)) {
+            if (currentTypeName.getNamespaceURI().equals(XBRLI_NS)) {
+                return xbrliItemKind(currentTypeName);
+            }
+            Optional<QName> baseTypeOption = Optional.ofNullable(typeDefinitions.get(currentTypeName))
+                    .flatMap(TypeDefinition::baseTypeOption);
+
+            if (baseTypeOption.isEmpty()) {
+                return ItemKind.UNKNOWN;
+            }
+            currentTypeName = baseTypeOption.get();
+        }
+        return ItemKind.UNKNOWN;
+    }
+}
@@ -0,0 +1,587 @@
+/*
+ * Copyright 2024-2024 Chris de Vreeze
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package eu.cdevreeze.xbrl4j.taxonomy;
+
+import com.google.common.base.Preconditions;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableListMultimap;
+import com.google.common.collect.ImmutableMap;
+import eu.cdevreeze.xbrl4j.common.dom.AncestryAwareElement;
+import eu.cdevreeze.xbrl4j.common.xmlbase.Rfc3986UriResolver;
+import eu.cdevreeze.xbrl4j.common.xpointer.IdPointer;
+import eu.cdevreeze.xbrl4j.common.xpointer.ShorthandPointer;
+import eu.cdevreeze.xbrl4j.common.xpointer.XPointer;
+import eu.cdevreeze.xbrl4j.common.xpointer.XPointers;
+import eu.cdevreeze.xbrl4j.model.XmlElement;
+import eu.cdevreeze.xbrl4j.model.internal.XmlElementImpl;
+import eu.cdevreeze.xbrl4j.model.link.Linkbase;
+import eu.cdevreeze.xbrl4j.model.xl.XlExtendedLink;
+import eu.cdevreeze.xbrl4j.model.xl.XlLocator;
+import eu.cdevreeze.xbrl4j.model.xl.XlResource;
+import eu.cdevreeze.xbrl4j.model.xs.ConceptDeclaration;
+import eu.cdevreeze.xbrl4j.model.xs.ElementDeclaration;
+import eu.cdevreeze.xbrl4j.model.xs.Schema;
+import eu.cdevreeze.xbrl4j.model.xs.TypeDefinition;
+
+import javax.xml.namespace.QName;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.util.*;
+import java.util.function.Function;
+import java.util.stream.Stream;
+
+import static eu.cdevreeze.xbrl4j.model.Names.XLINK_HREF_QNAME;
+import static eu.cdevreeze.xbrl4j.model.Names.XML_BASE_QNAME;
+
+/**
+ * Taxonomy base, which is a collection of taxonomy documents (represented by their root elements), keyed by
+ * document URI, along with some indexes that almost all taxonomy queries need. These indexes are a per-document
+ * ID index and a concept index. Typically, a taxonomy base contains a closed DTS, but that is not enforced.
+ * <p>
+ * Locators are resolved against the document URIs of this taxonomy base, taking xml:base into account.
+ * Shorthand pointers and element scheme ID pointers are resolved through the ID index, without any
+ * document search.
+ * <p>
+ * Each document gets a dense document ID, and each element within a document gets a node index, which is
+ * its position in document order. Together they form an "element handle" (a long), which identifies the
+ * element within this taxonomy base. Element handles are cheap to store in primitive collections, unlike the
+ * XmlElement wrappers themselves, which have no notion of equality. Only the underlying elements are kept per
+ * document; XmlElement wrappers are created on demand when an element handle is resolved.
+ * <p>
+ * This class is immutable and thread-safe.
+ *
+ * @author Chris de Vreeze
+ */
+public final class TaxonomyBase {
+
+    /**
+     * Element handle of an unresolved locator target, in the result of method "resolveLocators".
+     */
+    public static final long NO_HANDLE = -1L;
+
+    private final ImmutableMap<URI, XmlElement> rootElementsByUri;
+    private final ImmutableMap<URI, Integer> documentIds;
+    private final ImmutableList<ImmutableList<AncestryAwareElement<?>>> underlyingElementsPerDocument;
+    private final ImmutableList<Function<AncestryAwareElement<?>, XmlElement>> xmlElementCreatorsPerDocument;
+    private final ImmutableList<ImmutableMap<AncestryAwareElement<?>, Integer>> nodeIndexesPerDocument;
+    private final ImmutableMap<URI, ImmutableMap<String, XmlElement>> elementsByIdPerDocument;
+    private final ImmutableMap<QName, ConceptDeclaration> conceptDeclarationsByName;
+    private final ImmutableMap<QName, TypeDefinition> typeDefinitionsByName;
+    private final ConceptIndex conceptIndex;
+
+    private TaxonomyBase(
+            ImmutableMap<URI, XmlElement> rootElementsByUri,
+            ImmutableList<ImmutableList<AncestryAwareElement<?>>> underlyingElementsPerDocument,
+            ImmutableList<Function<AncestryAwareElement<?>, XmlElement>> xmlElementCreatorsPerDocument,
+            ImmutableMap<URI, ImmutableMap<String, XmlElement>> elementsByIdPerDocument,
+            ImmutableMap<QName, ConceptDeclaration> conceptDeclarationsByName,
+            ImmutableMap<QName, TypeDefinition> typeDefinitionsByName
+    ) {
+        this.rootElementsByUri = rootElementsByUri;
+        this.documentIds = toIdMap(rootElementsByUri.keySet().asList());
+        this.underlyingElementsPerDocument = underlyingElementsPerDocument;
+        this.xmlElementCreatorsPerDocument = xmlElementCreatorsPerDocument;
+        this.nodeIndexesPerDocument = underlyingElementsPerDocument.stream()
+                .map(TaxonomyBase::toNodeIndexMap)
+                .collect(ImmutableList.toImmutableList());
+        this.elementsByIdPerDocument = elementsByIdPerDocument;
+        this.conceptDeclarationsByName = conceptDeclarationsByName;
+        this.typeDefinitionsByName = typeDefinitionsByName;
+        this.conceptIndex = ConceptIndex.from(conceptDeclarationsByName.keySet().asList());
+    }
+
+    public ImmutableMap<URI, XmlElement> rootElementsByUri() {
+        return rootElementsByUri;
+    }
+
+    public ImmutableList<XmlElement> rootElements() {
+        return rootElementsByUri.values().asList();
+    }
+
+    public ImmutableList<Schema> schemas() {
+        return rootElements().stream()
+                .filter(e -> e instanceof Schema)
+                .map(e -> (Schema) e)
+                .collect(ImmutableList.toImmutableList());
+    }
+
+    public ImmutableList<Linkbase> linkbases() {
+        return rootElements().stream()
+                .filter(e -> e instanceof Linkbase)
+                .map(e -> (Linkbase) e)
+                .collect(ImmutableList.toImmutableList());
+    }
+
+    public Optional<XmlElement> findRootElement(URI docUri) {
+        return Optional.ofNullable(rootElementsByUri.get(docUri));
+    }
+
+    public Optional<XmlElement> findElementById(URI docUri, String id) {
+        return Optional.ofNullable(elementsByIdPerDocument.get(docUri)).flatMap(m -> Optional.ofNullable(m.get(id)));
+    }
+
+    // Document IDs, node indexes and element handles
+
+    public int documentCount() {
+        return underlyingElementsPerDocument.size();
+    }
+
+    public URI documentUri(int documentId) {
+        return rootElementsByUri.keySet().asList().get(documentId);
+    }
+
+    public OptionalInt documentIdOption(URI docUri) {
+        Integer documentId = documentIds.get(docUri);
+        return (documentId == null) ? OptionalInt.empty() : OptionalInt.of(documentId);
+    }
+
+    /**
+     * Returns all elements of the given document, in document order. The node index of an element is
+     * its position in this list. The XmlElement wrappers are created anew on each call.
+     */
+    public ImmutableList<XmlElement> elements(int documentId) {
+        Function<AncestryAwareElement<?>, XmlElement> xmlElementCreator = xmlElementCreatorsPerDocument.get(documentId);
+
+        return underlyingElementsPerDocument.get(documentId)
+                .stream()
+                .map(xmlElementCreator)
+                .collect(ImmutableList.toImmutableList());
+    }
+
+    public XmlElement element(long elementHandle) {
+        int documentId = documentId(elementHandle);
+        AncestryAwareElement<?> underlyingElement =
+                underlyingElementsPerDocument.get(documentId).get(nodeIndex(elementHandle));
+        return xmlElementCreatorsPerDocument.get(documentId).apply(underlyingElement);
+    }
+
+    /**
+     * Returns the element handle of the given element, if it belongs to a document in this taxonomy base.
+     */
+    public OptionalLong findElementHandle(XmlElement element) {
+        OptionalInt documentIdOption = element.docUriOption()
+                .map(this::documentIdOption)
+                .orElse(OptionalInt.empty());
+
+        if (documentIdOption.isEmpty() || !(element instanceof XmlElementImpl elementImpl)) {
+            return OptionalLong.empty();
+        }
+        int documentId = documentIdOption.getAsInt();
+        Integer nodeIndex = nodeIndexesPerDocument.get(documentId).get(elementImpl.underlyingElement());
+        return (nodeIndex == null) ? OptionalLong.empty() : OptionalLong.of(elementHandle(documentId, nodeIndex));
+    }
+
+    public static long elementHandle(int documentId, int nodeIndex) {
+        Preconditions.checkArgument(documentId >= 0 && nodeIndex >= 0);
+        return ((long) documentId << 32) | nodeIndex;
+    }
+
+    public static int documentId(long elementHandle) {
+        return (int) (elementHandle >>> 32);
+    }
+
+    public static int nodeIndex(long elementHandle) {
+        return (int) elementHandle;
+    }
+
+    /**
+     * Returns the element handles of the endpoints (resolved locators and resources) of the given extended link,
+     * keyed by xlink:label. The locators are resolved in one batch (see method "resolveLocators"), so identical
+     * hrefs are resolved only once. Locators that cannot be resolved are left out.
+     */
+    public ImmutableListMultimap<String, Long> findEndpointHandlesByXLinkLabel(XlExtendedLink extendedLink) {
+        ImmutableListMultimap.Builder<String, Long> builder = ImmutableListMultimap.builder();
+        LocatorTargets locatorTargets = resolveLocators(List.of(extendedLink));
+
+        for (int i = 0; i < locatorTargets.size(); i++) {
+            if (locatorTargets.isResolved(i)) {
+                builder.put(locatorTargets.locator(i).xlinkLabel(), locatorTargets.targetHandle(i));
+            }
+        }
+        for (XlResource resource : extendedLink.resources()) {
+            OptionalLong handleOption = findElementHandle(resource);
+            handleOption.ifPresent(h -> builder.put(resource.label(), h));
+        }
+        return builder.build();
+    }
+
+    /**
+     * Resolves all locators of the given linkbase in one batch, returning their target element handles in the same
+     * order as the locators. The locators are those of the extended links of the linkbase, in document order.
+     * The target handles are the same as those of the locators resolved one by one with method "resolveLocator".
+     */
+    public LocatorTargets resolveLocators(Linkbase linkbase) {
+        return resolveLocators(linkbase.elementStream(XlExtendedLink.class).toList());
+    }
+
+    /**
+     * Resolves all locators of the given extended links in one batch, returning their target element handles in the
+     * same order as the locators.
+     * <p>
+     * Base URIs are computed once per extended link, unless a locator has its own xml:base attribute. Identical
+     * hrefs (for the same base URI) are resolved only once. The resolved hrefs are grouped by target document, so
+     * that the document ID and ID index are looked up once per document, after which each shorthand or ID pointer
+     * costs one ID index lookup. Unresolved locators get target handle NO_HANDLE.
+     */
+    public LocatorTargets resolveLocators(List<? extends XlExtendedLink> extendedLinks) {
+        List<XlLocator> locators = new ArrayList<>();
+        List<Integer> hrefIndexes = new ArrayList<>();
+        Map<HrefKey, Integer> distinctHrefIndexes = new HashMap<>();
+        List<HrefKey> distinctHrefs = new ArrayList<>();
+
+        for (XlExtendedLink extendedLink : extendedLinks) {
+            Optional<URI> linkBaseUriOption = extendedLink.baseUriOption().or(extendedLink::docUriOption);
+
+            for (XlLocator locator : extendedLink.locators()) {
+                Optional<URI> baseUriOption = locator.attributeOption(XML_BASE_QNAME).isPresent() ?
+                        locator.baseUriOption().or(locator::docUriOption) :
+                        linkBaseUriOption;
+                HrefKey hrefKey = new HrefKey(baseUriOption, locator.attribute(XLINK_HREF_QNAME));
+
+                Integer hrefIndex = distinctHrefIndexes.computeIfAbsent(hrefKey, k -> {
+                    distinctHrefs.add(k);
+                    return distinctHrefs.size() - 1;
+                });
+                locators.add(locator);
+                hrefIndexes.add(hrefIndex);
+            }
+        }
+
+        // Group the distinct resolved hrefs by target document
+
+        Map<URI, List<Integer>> hrefIndexesPerDocument = new LinkedHashMap<>();
+        List<Optional<String>> fragmentOptions = new ArrayList<>();
+
+        for (int i = 0; i < distinctHrefs.size(); i++) {
+            HrefKey hrefKey = distinctHrefs.get(i);
+            URI absoluteUri = Rfc3986UriResolver.resolve(hrefKey.baseUriOption(), Rfc3986UriResolver.toUri(hrefKey.href()));
+
+            fragmentOptions.add(Optional.ofNullable(absoluteUri.getFragment()));
+            hrefIndexesPerDocument.computeIfAbsent(withoutFragment(absoluteUri), u -> new ArrayList<>()).add(i);
+        }
+
+        long[] distinctTargetHandles = new long[distinctHrefs.size()];
+        Arrays.fill(distinctTargetHandles, NO_HANDLE);
+
+        for (var docUriAndHrefIndexes : hrefIndexesPerDocument.entrySet()) {
+            OptionalInt documentIdOption = documentIdOption(docUriAndHrefIndexes.getKey());
+
+            if (documentIdOption.isPresent()) {
+                int documentId = documentIdOption.getAsInt();
+                ImmutableMap<String, XmlElement> elementsById =
+                        elementsByIdPerDocument.getOrDefault(docUriAndHrefIndexes.getKey(), ImmutableMap.of());
+
+                for (int hrefIndex : docUriAndHrefIndexes.getValue()) {
+                    distinctTargetHandles[hrefIndex] =
+                            resolveTargetHandle(documentId, elementsById, fragmentOptions.get(hrefIndex));
+                }
+            }
+        }
+
+        long[] targetHandles = new long[locators.size()];
+        for (int i = 0; i < targetHandles.length; i++) {
+            targetHandles[i] = distinctTargetHandles[hrefIndexes.get(i)];
+        }
+        return new LocatorTargets(ImmutableList.copyOf(locators), targetHandles);
+    }
+
+    public ConceptIndex conceptIndex() {
+        return conceptIndex;
+    }
+
+    public ImmutableMap<QName, ConceptDeclaration> conceptDeclarationsByName() {
+        return conceptDeclarationsByName;
+    }
+
+    public Optional<ConceptDeclaration> findConceptDeclaration(QName conceptName) {
+        return Optional.ofNullable(conceptDeclarationsByName.get(conceptName));
+    }
+
+    public ImmutableMap<QName, TypeDefinition> typeDefinitionsByName() {
+        return typeDefinitionsByName;
+    }
+
+    /**
+     * Finds the global type definition with the given name. Built-in XML Schema types and the types of schemas
+     * outside this taxonomy base (such as the XBRL instance schema, if not loaded) are not found.
+     */
+    public Optional<TypeDefinition> findTypeDefinition(QName typeName) {
+        return Optional.ofNullable(typeDefinitionsByName.get(typeName));
+    }
+
+    /**
+     * Returns the absolute URI of the given href, resolved against the base URI of the given element.
+     * The base URI takes xml:base attributes into account. Resolution is RFC 3986 compliant.
+     */
+    public URI resolveUri(URI href, XmlElement elementContainingHref) {
+        return Rfc3986UriResolver.resolve(
+                elementContainingHref.baseUriOption().or(elementContainingHref::docUriOption),
+                href
+        );
+    }
+
+    /**
+     * Finds the element referred to by the given absolute URI, which may or may not have a fragment.
+     * If there is no fragment, the document root element is returned.
+     */
+    public Optional<XmlElement> findElement(URI absoluteUri) {
+        URI docUri = withoutFragment(absoluteUri);
+        Optional<String> fragmentOption = Optional.ofNullable(absoluteUri.getFragment());
+
+        if (fragmentOption.isEmpty()) {
+            return findRootElement(docUri);
+        } else {
+            return findElement(docUri, XPointers.parseXPointers(fragmentOption.get()));
+        }
+    }
+
+    public Optional<XmlElement> findElement(URI docUri, ImmutableList<XPointer> xpointers) {
+        for (XPointer xpointer : xpointers) {
+            Optional<XmlElement> elementOption = findElement(docUri, xpointer);
+
+            if (elementOption.isPresent()) {
+                return elementOption;
+            }
+        }
+        return Optional.empty();
+    }
+
+    public Optional<XmlElement> findElement(URI docUri, XPointer xpointer) {
+        if (xpointer instanceof ShorthandPointer p) {
+            return findElementById(docUri, p.id());
+        } else if (xpointer instanceof IdPointer p) {
+            return findElementById(docUri, p.id());
+        } else {
+            return findRootElement(docUri).flatMap(e -> XPointers.findElement(e, xpointer));
+        }
+    }
+
+    public Optional<XmlElement> resolveLocator(XlLocator locator) {
+        return findElement(resolveUri(locator.xlinkHref(), locator));
+    }
+
+    /**
+     * Returns the concept name of the given element, if it is a concept declaration in this taxonomy base.
+     */
+    public Optional<QName> findConceptName(XmlElement element) {
+        if (element instanceof ConceptDeclaration conceptDecl) {
+            Optional<String> tnsOption = conceptDecl.docUriOption()
+                    .flatMap(this::findRootElement)
+                    .filter(e -> e instanceof Schema)
+                    .flatMap(e -> ((Schema) e).targetNamespaceOption());
+
+            return conceptDecl.nameOption()
+                    .map(nm -> new QName(tnsOption.orElse(""), nm))
+                    .filter(conceptDeclarationsByName::containsKey);
+        } else {
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * Resolves the given locator, returning the concept ID if the locator points to a concept declaration.
+     */
+    public OptionalInt findConceptId(XlLocator locator) {
+        return resolveLocator(locator)
+                .flatMap(this::findConceptName)
+                .map(conceptIndex::conceptIdOption)
+                .orElse(OptionalInt.empty());
+    }
+
+    /**
+     * Creates a TaxonomyBase from the given document root elements. Each root element must have a document URI,
+     * and document URIs must be unique. The order of the root elements determines the concept IDs.
+     */
+    public static TaxonomyBase from(Collection<? extends XmlElement> rootElements) {
+        Preconditions.checkArgument(rootElements.stream().allMatch(e -> e.docUriOption().isPresent()));
+
+        ImmutableMap<URI, XmlElement> rootElementsByUri = rootElements.stream()
+                .collect(ImmutableMap.toImmutableMap(e -> e.docUriOption().orElseThrow(), e -> e));
+
+        ImmutableMap.Builder<URI, ImmutableMap<String, XmlElement>> elementsByIdBuilder = ImmutableMap.builder();
+
+        for (var docUriAndRoot : rootElementsByUri.entrySet()) {
+            Map<String, XmlElement> elementsById = new LinkedHashMap<>();
+            docUriAndRoot.getValue()
+                    .elementStream(e -> e.idOption().isPresent())
+                    .forEach(e -> elementsById.putIfAbsent(e.idOption().orElseThrow(), e));
+            elementsByIdBuilder.put(docUriAndRoot.getKey(), ImmutableMap.copyOf(elementsById));
+        }
+
+        Map<QName, ConceptDeclaration> conceptDecls = new LinkedHashMap<>();
+        Map<QName, TypeDefinition> typeDefs = new LinkedHashMap<>();
+
+        for (XmlElement rootElement : rootElementsByUri.values()) {
+            if (rootElement instanceof Schema schema) {
+                String tns = schema.targetNamespaceOption().orElse("");
+
+                for (ElementDeclaration elemDecl : schema.globalElementDeclarations()) {
+                    if (elemDecl instanceof ConceptDeclaration conceptDecl && conceptDecl.nameOption().isPresent()) {
+                        conceptDecls.putIfAbsent(new QName(tns, conceptDecl.nameOption().get()), conceptDecl);
+                    }
+                }
+                for (TypeDefinition typeDef : schema.globalTypeDefinitions()) {
+                    typeDef.nameOption().ifPresent(nm -> typeDefs.putIfAbsent(new QName(tns, nm), typeDef));
+                }
+            }
+        }
+
+        // Only the underlying elements are retained, and no XmlElement wrappers for all elements of all documents
+        ImmutableList<ImmutableList<AncestryAwareElement<?>>> underlyingElementsPerDocument = rootElementsByUri.values()
+                .stream()
+                .map(TaxonomyBase::underlyingElements)
+                .collect(ImmutableList.toImmutableList());
+        ImmutableList<Function<AncestryAwareElement<?>, XmlElement>> xmlElementCreatorsPerDocument = rootElementsByUri.values()
+                .stream()
+                .map(TaxonomyBase::xmlElementCreator)
+                .collect(ImmutableList.toImmutableList());
+
+        return new TaxonomyBase(
+                rootElementsByUri,
+                underlyingElementsPerDocument,
+                xmlElementCreatorsPerDocument,
+                elementsByIdBuilder.build(),
+                ImmutableMap.copyOf(conceptDecls),
+                ImmutableMap.copyOf(typeDefs)
+        );
+    }
+
+    private long resolveTargetHandle(
+            int documentId,
+            ImmutableMap<String, XmlElement> elementsById,
+            Optional<String> fragmentOption
+    ) {
+        if (fragmentOption.isEmpty()) {
+            // The root element is the first element in document order
+            return elementHandle(documentId, 0);
+        }
+
+        for (XPointer xpointer : XPointers.parseXPointers(fragmentOption.get())) {
+            Optional<XmlElement> elementOption;
+
+            if (xpointer instanceof ShorthandPointer p) {
+                elementOption = Optional.ofNullable(elementsById.get(p.id()));
+            } else if (xpointer instanceof IdPointer p) {
+                elementOption = Optional.ofNullable(elementsById.get(p.id()));
+            } else {
+                elementOption = XPointers.findElement(rootElements().get(documentId), xpointer);
+            }
+
+            if (elementOption.isPresent() && elementOption.get() instanceof XmlElementImpl elementImpl) {
+                Integer nodeIndex = nodeIndexesPerDocument.get(documentId).get(elementImpl.underlyingElement());
+
+                if (nodeIndex != null) {
+                    return elementHandle(documentId, nodeIndex);
+                }
+            }
+        }
+        return NO_HANDLE;
+    }
+
+    private static ImmutableMap<AncestryAwareElement<?>, Integer> toNodeIndexMap(ImmutableList<AncestryAwareElement<?>> elements) {
+        ImmutableMap.Builder<AncestryAwareElement<?>, Integer> builder = ImmutableMap.builderWithExpectedSize(elements.size());
+        for (int i = 0; i < elements.size(); i++) {
+            builder.put(elements.get(i), i);
+        }
+        return builder.buildKeepingLast();
+    }
+
+    private static ImmutableList<AncestryAwareElement<?>> underlyingElements(XmlElement rootElement) {
+        if (rootElement instanceof XmlElementImpl elementImpl) {
+            @SuppressWarnings("unchecked")
+            Stream<AncestryAwareElement<?>> elements =
+                    (Stream<AncestryAwareElement<?>>) elementImpl.underlyingElement().elementStream();
+            return elements.collect(ImmutableList.toImmutableList());
+        } else {
+            return ImmutableList.of();
+        }
+    }
+
+    private static Function<AncestryAwareElement<?>, XmlElement> xmlElementCreator(XmlElement rootElement) {
+        if (rootElement instanceof XmlElementImpl elementImpl) {
+            return elementImpl.xmlElementCreator();
+        } else {
+            // There are no underlying elements for such documents, so this function is never called
+            return e -> {
+                throw new IllegalStateException("No underlying elements for document " + rootElement.docUriOption());
+            };
+        }
+    }
+
+    private static ImmutableMap<URI, Integer> toIdMap(ImmutableList<URI> uris) {
+        ImmutableMap.Builder<URI, Integer> builder = ImmutableMap.builderWithExpectedSize(uris.size());
+        for (int i = 0; i < uris.size(); i++) {
+            builder.put(uris.get(i), i);
+        }
+        return builder.buildOrThrow();
+    }
+
+    private static URI withoutFragment(URI uri) {
+        try {
+            return new URI(uri.getScheme(), uri.getSchemeSpecificPart(), null);
+        } catch (URISyntaxException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    /**
+     * Locators along with the element handles of their targets, as a dense array aligned with the locators.
+     * Unresolved locators have target handle NO_HANDLE.
+     */
+    public static final class LocatorTargets {
+
+        private final ImmutableList<XlLocator> locators;
+        private final long[] targetHandles;
+
+        private LocatorTargets(ImmutableList<XlLocator> locators, long[] targetHandles) {
+            Preconditions.checkArgument(locators.size() == targetHandles.length);
+            this.locators = locators;
+            this.targetHandles = targetHandles;
+        }
+
+        public int size() {
+            return locators.size();
+        }
+
+        public ImmutableList<XlLocator> locators() {
+            return locators;
+        }
+
+        public XlLocator locator(int index) {
+            return locators.get(index);
+        }
+
+        public long targetHandle(int index) {
+            return targetHandles[index];
+        }
+
+        public boolean isResolved(int index) {
+            return targetHandles[index] != NO_HANDLE;
+        }
+
+        /**
+         * Returns a copy of the target handles array.
+         */
+        public long[] targetHandles() {
+            return targetHandles.clone();
+        }
+    }
+
+    private record HrefKey(Optional<URI> baseUriOption, String href) {
+    }
+}
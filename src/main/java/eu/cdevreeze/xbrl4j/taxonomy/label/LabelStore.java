@@ -0,0 +1,420 @@
+/*
+ * Copyright 2024-2024 Chris de Vreeze
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package eu.cdevreeze.xbrl4j.taxonomy.label;
+
+import com.google.common.base.Preconditions;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableListMultimap;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import eu.cdevreeze.xbrl4j.common.collection.LongIntHashMap;
+import eu.cdevreeze.xbrl4j.model.XmlElement;
+import eu.cdevreeze.xbrl4j.model.gen.GenericLink;
+import eu.cdevreeze.xbrl4j.model.label.GenericLabel;
+import eu.cdevreeze.xbrl4j.model.link.Label;
+import eu.cdevreeze.xbrl4j.model.link.LabelLink;
+import eu.cdevreeze.xbrl4j.model.xl.XlArc;
+import eu.cdevreeze.xbrl4j.model.xl.XlExtendedLink;
+import eu.cdevreeze.xbrl4j.model.xl.XlResource;
+import eu.cdevreeze.xbrl4j.taxonomy.ConceptIndex;
+import eu.cdevreeze.xbrl4j.taxonomy.TaxonomyBase;
+import eu.cdevreeze.xbrl4j.taxonomy.relationship.EffectiveRelationships;
+import eu.cdevreeze.xbrl4j.taxonomy.relationship.NetworkGraph;
+
+import javax.xml.namespace.QName;
+import java.util.*;
+import java.util.function.Predicate;
+
+import static eu.cdevreeze.xbrl4j.model.Names.*;
+
+/**
+ * Compact store of concept labels, both standard labels (via "link:labelLink", "link:labelArc" and "link:label")
+ * and generic labels (via "gen:link", "gen:arc" and "label:label"), keyed by (concept ID, label role ID, language ID).
+ * <p>
+ * Label texts are deduplicated, and the keys are packed into primitive longs, so a lookup is a single
+ * allocation-free hash probe per (role, language) candidate. Label roles and languages are numbered densely.
+ * Fallback chains for roles and languages are computed once, when the store is built. Languages are compared
+ * case-insensitively (they are stored in lowercase).
+ * <p>
+ * Only labels of concepts are stored. Relationship prohibition and overriding are applied while loading (see
+ * EffectiveRelationships), so labels whose relationships are prohibited or overridden are never stored. If there
+ * are multiple labels for the same key, the first one (in document order) wins.
+ * <p>
+ * This class is immutable and thread-safe.
+ *
+ * @author Chris de Vreeze
+ */
+public final class LabelStore {
+
+    private static final int MAX_ROLE_OR_LANGUAGE_COUNT = 1 << 16;
+
+    private final ConceptIndex conceptIndex;
+    private final Config config;
+    private final ImmutableList<String> roles;
+    private final ImmutableMap<String, Integer> roleIds;
+    private final ImmutableList<String> languages;
+    private final ImmutableMap<String, Integer> languageIds;
+    private final String[] labelTexts;
+    private final LongIntHashMap labelTextIndexes;
+    private final int[][] roleFallbackChains;
+    private final int[][] languageFallbackChains;
+
+    private LabelStore(
+            ConceptIndex conceptIndex,
+            Config config,
+            ImmutableList<String> roles,
+            ImmutableList<String> languages,
+            String[] labelTexts,
+            LongIntHashMap labelTextIndexes
+    ) {
+        this.conceptIndex = conceptIndex;
+        this.config = config;
+        this.roles = roles;
+        this.roleIds = toIdMap(roles);
+        this.languages = languages;
+        this.languageIds = toIdMap(languages);
+        this.labelTexts = labelTexts;
+        this.labelTextIndexes = labelTextIndexes;
+
+        this.roleFallbackChains = roles.stream()
+                .map(this::computeRoleFallbackChain)
+                .toArray(int[][]::new);
+        this.languageFallbackChains = languages.stream()
+                .map(this::computeLanguageFallbackChain)
+                .toArray(int[][]::new);
+    }
+
+    /**
+     * Configuration of a label store. The language filter is applied while loading labels, so that labels in unwanted
+     * languages are never stored. The role fallbacks map a label role to the roles to try next, in that order.
+     * The standard label role is always the last fallback role. The default languages are the last fallback languages,
+     * after the language itself and its less specific forms (for example, "en-gb" falls back to "en").
+     */
+    public record Config(
+            Predicate<String> languageFilter,
+            ImmutableMap<String, ImmutableList<String>> roleFallbacks,
+            ImmutableList<String> defaultLanguages
+    ) {
+
+        public Config {
+            Objects.requireNonNull(languageFilter);
+            Objects.requireNonNull(roleFallbacks);
+            Objects.requireNonNull(defaultLanguages);
+        }
+
+        public Config withLanguageFilter(Predicate<String> languageFilter) {
+            return new Config(languageFilter, roleFallbacks, defaultLanguages);
+        }
+
+        /**
+         * Returns an adapted Config that only accepts the given languages (compared case-insensitively).
+         */
+        public Config withLanguages(Set<String> languages) {
+            Set<String> normalizedLanguages =
+                    languages.stream().map(LabelStore::normalizeLanguage).collect(ImmutableSet.toImmutableSet());
+            return withLanguageFilter(normalizedLanguages::contains);
+        }
+
+        public Config withRoleFallback(String role, List<String> fallbackRoles) {
+            Map<String, ImmutableList<String>> newRoleFallbacks = new LinkedHashMap<>(roleFallbacks);
+            newRoleFallbacks.put(role, ImmutableList.copyOf(fallbackRoles));
+            return new Config(languageFilter, ImmutableMap.copyOf(newRoleFallbacks), defaultLanguages);
+        }
+
+        public Config withDefaultLanguages(List<String> defaultLanguages) {
+            return new Config(
+                    languageFilter,
+                    roleFallbacks,
+                    defaultLanguages.stream().map(LabelStore::normalizeLanguage).collect(ImmutableList.toImmutableList())
+            );
+        }
+
+        public static Config defaultInstance() {
+            return new Config(lang -> true, ImmutableMap.of(), ImmutableList.of());
+        }
+    }
+
+    public Config config() {
+        return config;
+    }
+
+    public ImmutableList<String> roles() {
+        return roles;
+    }
+
+    public ImmutableList<String> languages() {
+        return languages;
+    }
+
+    public int labelCount() {
+        return labelTextIndexes.size();
+    }
+
+    public int distinctLabelTextCount() {
+        return labelTexts.length;
+    }
+
+    public OptionalInt roleIdOption(String role) {
+        Integer id = roleIds.get(role);
+        return (id == null) ? OptionalInt.empty() : OptionalInt.of(id);
+    }
+
+    public OptionalInt languageIdOption(String language) {
+        Integer id = languageIds.get(normalizeLanguage(language));
+        return (id == null) ? OptionalInt.empty() : OptionalInt.of(id);
+    }
+
+    /**
+     * Finds the label for the given concept, label role and language, without any fallback.
+     */
+    public Optional<String> findLabelWithoutFallback(QName conceptName, String role, String language) {
+        OptionalInt conceptIdOption = conceptIndex.conceptIdOption(conceptName);
+        OptionalInt roleIdOption = roleIdOption(role);
+        OptionalInt languageIdOption = languageIdOption(language);
+
+        if (conceptIdOption.isEmpty() || roleIdOption.isEmpty() || languageIdOption.isEmpty()) {
+            return Optional.empty();
+        } else {
+            return findLabelWithoutFallback(conceptIdOption.getAsInt(), roleIdOption.getAsInt(), languageIdOption.getAsInt());
+        }
+    }
+
+    public Optional<String> findLabelWithoutFallback(int conceptId, int roleId, int languageId) {
+        int textIndex = labelTextIndexes.get(key(conceptId, roleId, languageId), -1);
+        return (textIndex < 0) ? Optional.empty() : Optional.of(labelTexts[textIndex]);
+    }
+
+    /**
+     * Finds the label for the given concept, label role and language, using the precomputed fallback chains.
+     * Languages take precedence over roles: all fallback roles are tried in the requested language before
+     * trying the next fallback language.
+     */
+    public Optional<String> findLabel(QName conceptName, String role, String language) {
+        OptionalInt conceptIdOption = conceptIndex.conceptIdOption(conceptName);
+
+        if (conceptIdOption.isEmpty()) {
+            return Optional.empty();
+        }
+
+        int[] roleChain = roleIdOption(role).stream()
+                .mapToObj(id -> roleFallbackChains[id])
+                .findFirst()
+                .orElseGet(() -> computeRoleFallbackChain(role));
+        int[] languageChain = languageIdOption(language).stream()
+                .mapToObj(id -> languageFallbackChains[id])
+                .findFirst()
+                .orElseGet(() -> computeLanguageFallbackChain(normalizeLanguage(language)));
+
+        return findLabel(conceptIdOption.getAsInt(), roleChain, languageChain);
+    }
+
+    /**
+     * Finds the label for the given concept ID, role ID and language ID, using the precomputed fallback chains.
+     */
+    public Optional<String> findLabel(int conceptId, int roleId, int languageId) {
+        return findLabel(conceptId, roleFallbackChains[roleId], languageFallbackChains[languageId]);
+    }
+
+    private Optional<String> findLabel(int conceptId, int[] roleChain, int[] languageChain) {
+        for (int languageId : languageChain) {
+            for (int roleId : roleChain) {
+                int textIndex = labelTextIndexes.get(key(conceptId, roleId, languageId), -1);
+
+                if (textIndex >= 0) {
+                    return Optional.of(labelTexts[textIndex]);
+                }
+            }
+        }
+        return Optional.empty();
+    }
+
+    private int[] computeRoleFallbackChain(String role) {
+        List<String> chain = new ArrayList<>();
+        chain.add(role);
+        chain.addAll(config.roleFallbacks().getOrDefault(role, ImmutableList.of()));
+        chain.add(STANDARD_LABEL_ROLE);
+
+        return chain.stream()
+                .distinct()
+                .filter(roleIds::containsKey)
+                .mapToInt(roleIds::get)
+                .toArray();
+    }
+
+    private int[] computeLanguageFallbackChain(String language) {
+        List<String> chain = new ArrayList<>();
+        String lang = language;
+        chain.add(lang);
+
+        while (lang.contains("-")) {
+            lang = lang.substring(0, lang.lastIndexOf('-'));
+            chain.add(lang);
+        }
+        chain.addAll(config.defaultLanguages());
+
+        return chain.stream()
+                .distinct()
+                .filter(languageIds::containsKey)
+                .mapToInt(languageIds::get)
+                .toArray();
+    }
+
+    public static LabelStore create(TaxonomyBase taxonomyBase) {
+        return create(taxonomyBase, Config.defaultInstance());
+    }
+
+    public static LabelStore create(TaxonomyBase taxonomyBase, Config config) {
+        var loader = new Loader(taxonomyBase, config);
+
+        taxonomyBase.rootElements().forEach(rootElement -> {
+            rootElement.elementStream(LabelLink.class).forEach(link -> loader.addRelationships(link, CONCEPT_LABEL_ARCROLE));
+            rootElement.elementStream(GenericLink.class).forEach(link -> loader.addRelationships(link, ELEMENT_LABEL_ARCROLE));
+        });
+        loader.addLabelsOfEffectiveRelationships();
+
+        return new LabelStore(
+                taxonomyBase.conceptIndex(),
+                config,
+                ImmutableList.copyOf(loader.roleIds.keySet()),
+                ImmutableList.copyOf(loader.languageIds.keySet()),
+                loader.labelTexts.toArray(String[]::new),
+                loader.labelTextIndexes.build()
+        );
+    }
+
+    private static final class Loader {
+
+        private final TaxonomyBase taxonomyBase;
+        private final Config config;
+        private final Map<String, Integer> roleIds = new LinkedHashMap<>();
+        private final Map<String, Integer> languageIds = new LinkedHashMap<>();
+        private final Map<String, Integer> labelTextIndexesByText = new HashMap<>();
+        private final List<String> labelTexts = new ArrayList<>();
+        private final LongIntHashMap.Builder labelTextIndexes = LongIntHashMap.builder();
+        private final List<EffectiveRelationships.Relationship> relationships = new ArrayList<>();
+
+        private Loader(TaxonomyBase taxonomyBase, Config config) {
+            this.taxonomyBase = taxonomyBase;
+            this.config = config;
+        }
+
+        private void addRelationships(XlExtendedLink extendedLink, String arcrole) {
+            ImmutableList<? extends XlArc> arcs = extendedLink.arcs()
+                    .stream()
+                    .filter(arc -> arc.arcrole().equals(arcrole))
+                    .collect(ImmutableList.toImmutableList());
+
+            if (arcs.isEmpty()) {
+                return;
+            }
+
+            // Label resources may also be referred to by locators, typically in order to prohibit a relationship
+            ImmutableListMultimap<String, Long> endpointsByXLinkLabel =
+                    taxonomyBase.findEndpointHandlesByXLinkLabel(extendedLink);
+
+            for (XlArc arc : arcs) {
+                OptionalLong arcHandleOption = taxonomyBase.findElementHandle(arc);
+
+                if (arcHandleOption.isPresent()) {
+                    var networkKey = new NetworkGraph.NetworkKey(
+                            extendedLink.elementName(),
+                            extendedLink.role(),
+                            arc.elementName(),
+                            arc.arcrole()
+                    );
+
+                    for (long sourceHandle : endpointsByXLinkLabel.get(arc.from())) {
+                        for (long targetHandle : endpointsByXLinkLabel.get(arc.to())) {
+                            relationships.add(EffectiveRelationships.Relationship.of(
+                                    networkKey,
+                                    sourceHandle,
+                                    targetHandle,
+                                    arcHandleOption.getAsLong(),
+                                    arc
+                            ));
+                        }
+                    }
+                }
+            }
+        }
+
+        private void addLabelsOfEffectiveRelationships() {
+            for (EffectiveRelationships.Relationship relationship : EffectiveRelationships.resolve(relationships)) {
+                XmlElement target = taxonomyBase.element(relationship.targetHandle());
+
+                if (target instanceof Label || target instanceof GenericLabel) {
+                    taxonomyBase.findConceptName(taxonomyBase.element(relationship.sourceHandle()))
+                            .map(taxonomyBase.conceptIndex()::conceptIdOption)
+                            .orElse(OptionalInt.empty())
+                            .ifPresent(conceptId -> addLabel(conceptId, (XlResource) target));
+                }
+            }
+        }
+
+        private void addLabel(int conceptId, XlResource labelResource) {
+            Optional<String> languageOption;
+            if (labelResource instanceof Label label) {
+                languageOption = label.xmlLangOption();
+            } else if (labelResource instanceof GenericLabel label) {
+                languageOption = label.xmlLangOption();
+            } else {
+                languageOption = Optional.empty();
+            }
+            Optional<String> acceptedLanguageOption =
+                    languageOption.map(LabelStore::normalizeLanguage).filter(config.languageFilter());
+
+            if (acceptedLanguageOption.isEmpty()) {
+                return;
+            }
+
+            int roleId = idOf(labelResource.roleOption().orElse(STANDARD_LABEL_ROLE), roleIds);
+            int languageId = idOf(acceptedLanguageOption.get(), languageIds);
+            long key = key(conceptId, roleId, languageId);
+
+            if (!labelTextIndexes.containsKey(key)) {
+                String text = labelResource.text();
+                int textIndex = labelTextIndexesByText.computeIfAbsent(text, t -> {
+                    labelTexts.add(t);
+                    return labelTexts.size() - 1;
+                });
+                labelTextIndexes.put(key, textIndex);
+            }
+        }
+
+        private static int idOf(String value, Map<String, Integer> ids) {
+            Preconditions.checkArgument(ids.size() < MAX_ROLE_OR_LANGUAGE_COUNT || ids.containsKey(value));
+            return ids.computeIfAbsent(value, v -> ids.size());
+        }
+    }
+
+    private static long key(int conceptId, int roleId, int languageId) {
+        return ((long) conceptId << 32) | ((long) roleId << 16) | languageId;
+    }
+
+    private static String normalizeLanguage(String language) {
+        return language.trim().toLowerCase(Locale.ROOT);
+    }
+
+    private static ImmutableMap<String, Integer> toIdMap(ImmutableList<String> values) {
+        ImmutableMap.Builder<String, Integer> builder = ImmutableMap.builderWithExpectedSize(values.size());
+        for (int i = 0; i < values.size(); i++) {
+            builder.put(values.get(i), i);
+        }
+        return builder.buildOrThrow();
+    }
+}
@@ -0,0 +1,28 @@
+/*
+ * Copyright 2024-2024 Chris de Vreeze
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+/**
+ * Taxonomy-level query support on top of the XBRL model in package "model". Whereas the model offers
+ * element-centric navigation within one document, the classes in this package and its subpackages combine
+ * the documents of a taxonomy, resolve locators and build indexes that make common taxonomy queries fast.
+ * <p>
+ * Like the model, these classes are immutable and thread-safe. Building them may be relatively expensive,
+ * but querying them should be cheap.
+ *
+ * @author Chris de Vreeze
+ */
+package eu.cdevreeze.xbrl4j.taxonomy;
@@ -0,0 +1,388 @@
+/*
+ * Copyright 2024-2024 Chris de Vreeze
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package eu.cdevreeze.xbrl4j.taxonomy.reference;
+
+import com.google.common.base.Preconditions;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableListMultimap;
+import com.google.common.collect.ImmutableMap;
+import eu.cdevreeze.xbrl4j.common.collection.LongIntHashMap;
+import eu.cdevreeze.xbrl4j.common.collection.LongIntMultimap;
+import eu.cdevreeze.xbrl4j.common.dom.defaultimpl.ElementTree;
+import eu.cdevreeze.xbrl4j.model.XmlElement;
+import eu.cdevreeze.xbrl4j.model.factory.XmlElementFactory;
+import eu.cdevreeze.xbrl4j.model.gen.GenericLink;
+import eu.cdevreeze.xbrl4j.model.link.Part;
+import eu.cdevreeze.xbrl4j.model.link.Reference;
+import eu.cdevreeze.xbrl4j.model.link.ReferenceLink;
+import eu.cdevreeze.xbrl4j.model.ref.RefElement;
+import eu.cdevreeze.xbrl4j.model.reference.GenericReference;
+import eu.cdevreeze.xbrl4j.model.xl.XlArc;
+import eu.cdevreeze.xbrl4j.model.xl.XlExtendedLink;
+import eu.cdevreeze.xbrl4j.model.xl.XlResource;
+import eu.cdevreeze.xbrl4j.taxonomy.ConceptIndex;
+import eu.cdevreeze.xbrl4j.taxonomy.TaxonomyBase;
+import eu.cdevreeze.xbrl4j.taxonomy.relationship.EffectiveRelationships;
+import eu.cdevreeze.xbrl4j.taxonomy.relationship.NetworkGraph;
+import eu.cdevreeze.yaidom4j.core.NamespaceScope;
+
+import javax.xml.namespace.QName;
+import java.util.*;
+import java.util.stream.IntStream;
+
+import static eu.cdevreeze.xbrl4j.model.Names.*;
+
+/**
+ * Columnar store of the references of concepts, both standard references (via "link:referenceLink",
+ * "link:referenceArc" and "link:reference") and generic references (via "gen:link", "gen:arc" and
+ * "reference:reference"). Each reference resource is stored once, however many concepts refer to it,
+ * and gets a dense reference ID.
+ * <p>
+ * The reference parts (typically "ref:*" elements) are kept in parallel arrays: a part name ID and an
+ * interned part value per part, with the parts of one reference stored contiguously. No XmlElement trees
+ * are retained, so the heap usage is a small fraction of that of the original reference linkbases.
+ * If needed, the parts of a reference can be materialized again as (small, detached) Part elements,
+ * which are typically RefElement instances. Attributes on parts and nested part content are not retained.
+ * <p>
+ * References are indexed by concept ID and by (concept ID, reference role ID).
+ * Relationship prohibition and overriding are applied while loading (see EffectiveRelationships), so
+ * references whose relationships are prohibited or overridden are never stored.
+ * <p>
+ * This class is immutable and thread-safe.
+ *
+ * @author Chris de Vreeze
+ */
+public final class ReferenceStore {
+
+    private final ConceptIndex conceptIndex;
+    private final XmlElementFactory elementFactory;
+    private final ImmutableList<String> roles;
+    private final ImmutableMap<String, Integer> roleIds;
+    private final ImmutableList<QName> partNames;
+
+    // One entry per reference
+    private final int[] referenceRoleIds;
+    private final int[] partOffsets;
+
+    // One entry per part
+    private final int[] partNameIds;
+    private final String[] partValues;
+
+    private final LongIntMultimap referencesByConcept;
+    private final LongIntMultimap referencesByConceptAndRole;
+
+    private ReferenceStore(
+            ConceptIndex conceptIndex,
+            XmlElementFactory elementFactory,
+            ImmutableList<String> roles,
+            ImmutableList<QName> partNames,
+            int[] referenceRoleIds,
+            int[] partOffsets,
+            int[] partNameIds,
+            String[] partValues,
+            LongIntMultimap referencesByConcept,
+            LongIntMultimap referencesByConceptAndRole
+    ) {
+        this.conceptIndex = conceptIndex;
+        this.elementFactory = elementFactory;
+        this.roles = roles;
+        this.roleIds = toIdMap(roles);
+        this.partNames = partNames;
+        this.referenceRoleIds = referenceRoleIds;
+        this.partOffsets = partOffsets;
+        this.partNameIds = partNameIds;
+        this.partValues = partValues;
+        this.referencesByConcept = referencesByConcept;
+        this.referencesByConceptAndRole = referencesByConceptAndRole;
+    }
+
+    /**
+     * Reference part, as name-value pair.
+     */
+    public record ReferencePart(QName name, String value) {
+    }
+
+    public int referenceCount() {
+        return referenceRoleIds.length;
+    }
+
+    public int partCount() {
+        return partNameIds.length;
+    }
+
+    public ImmutableList<String> roles() {
+        return roles;
+    }
+
+    public ImmutableList<QName> partNames() {
+        return partNames;
+    }
+
+    public OptionalInt roleIdOption(String role) {
+        Integer id = roleIds.get(role);
+        return (id == null) ? OptionalInt.empty() : OptionalInt.of(id);
+    }
+
+    /**
+     * Returns the IDs of the references of the given concept, in any reference role.
+     */
+    public IntStream referenceIds(QName conceptName) {
+        OptionalInt conceptIdOption = conceptIndex.conceptIdOption(conceptName);
+        return conceptIdOption.isEmpty() ? IntStream.empty() : referenceIds(conceptIdOption.getAsInt());
+    }
+
+    public IntStream referenceIds(int conceptId) {
+        return referencesByConcept.values(conceptId);
+    }
+
+    /**
+     * Returns the IDs of the references of the given concept in the given reference role.
+     */
+    public IntStream referenceIds(QName conceptName, String role) {
+        OptionalInt conceptIdOption = conceptIndex.conceptIdOption(conceptName);
+        OptionalInt roleIdOption = roleIdOption(role);
+
+        if (conceptIdOption.isEmpty() || roleIdOption.isEmpty()) {
+            return IntStream.empty();
+        } else {
+            return referenceIds(conceptIdOption.getAsInt(), roleIdOption.getAsInt());
+        }
+    }
+
+    public IntStream referenceIds(int conceptId, int roleId) {
+        return referencesByConceptAndRole.values(key(conceptId, roleId));
+    }
+
+    public String role(int referenceId) {
+        return roles.get(referenceRoleIds[referenceId]);
+    }
+
+    public int partCount(int referenceId) {
+        return partOffsets[referenceId + 1] - partOffsets[referenceId];
+    }
+
+    public QName partName(int referenceId, int partIndex) {
+        return partNames.get(partNameIds[partPosition(referenceId, partIndex)]);
+    }
+
+    public String partValue(int referenceId, int partIndex) {
+        return partValues[partPosition(referenceId, partIndex)];
+    }
+
+    public ImmutableList<ReferencePart> parts(int referenceId) {
+        return IntStream.range(partOffsets[referenceId], partOffsets[referenceId + 1])
+                .mapToObj(i -> new ReferencePart(partNames.get(partNameIds[i]), partValues[i]))
+                .collect(ImmutableList.toImmutableList());
+    }
+
+    /**
+     * Finds the value of the first part with the given name in the given reference, if any.
+     */
+    public Optional<String> findPartValue(int referenceId, QName partName) {
+        int partNameId = partNames.indexOf(partName);
+
+        for (int i = partOffsets[referenceId]; i < partOffsets[referenceId + 1]; i++) {
+            if (partNameIds[i] == partNameId) {
+                return Optional.of(partValues[i]);
+            }
+        }
+        return Optional.empty();
+    }
+
+    /**
+     * Materializes the parts of the given reference as detached Part elements, using the XmlElementFactory
+     * of this store. Parts in the "ref" namespace are returned as RefElement instances.
+     */
+    public ImmutableList<Part> materializeParts(int referenceId) {
+        return IntStream.range(partOffsets[referenceId], partOffsets[referenceId + 1])
+                .mapToObj(i -> materializePart(partNames.get(partNameIds[i]), partValues[i]))
+                .flatMap(Optional::stream)
+                .collect(ImmutableList.toImmutableList());
+    }
+
+    public ImmutableList<RefElement> materializeRefElements(int referenceId) {
+        return materializeParts(referenceId).stream()
+                .filter(e -> e instanceof RefElement)
+                .map(e -> (RefElement) e)
+                .collect(ImmutableList.toImmutableList());
+    }
+
+    private Optional<Part> materializePart(QName partName, String partValue) {
+        String prefix = partName.getPrefix().isEmpty() && partName.getNamespaceURI().equals(REF_NS) ?
+                "ref" :
+                partName.getPrefix();
+        QName name = new QName(partName.getNamespaceURI(), partName.getLocalPart(), prefix);
+
+        var underlyingElement = new eu.cdevreeze.yaidom4j.dom.immutabledom.Element(
+                name,
+                ImmutableMap.of(),
+                NamespaceScope.from(ImmutableMap.of(prefix, partName.getNamespaceURI())),
+                ImmutableList.of(new eu.cdevreeze.yaidom4j.dom.immutabledom.Text(partValue, false))
+        );
+        XmlElement element = elementFactory.createXmlElement(
+                ElementTree.create(Optional.empty(), underlyingElement).rootElement()
+        );
+        return Optional.of(element).filter(e -> e instanceof Part).map(e -> (Part) e);
+    }
+
+    private int partPosition(int referenceId, int partIndex) {
+        Objects.checkIndex(partIndex, partCount(referenceId));
+        return partOffsets[referenceId] + partIndex;
+    }
+
+    public static ReferenceStore create(TaxonomyBase taxonomyBase, XmlElementFactory elementFactory) {
+        var loader = new Loader(taxonomyBase);
+
+        taxonomyBase.rootElements().forEach(rootElement -> {
+            rootElement.elementStream(ReferenceLink.class)
+                    .forEach(link -> loader.addRelationships(link, CONCEPT_REFERENCE_ARCROLE));
+            rootElement.elementStream(GenericLink.class)
+                    .forEach(link -> loader.addRelationships(link, ELEMENT_REFERENCE_ARCROLE));
+        });
+        loader.addReferencesOfEffectiveRelationships();
+
+        loader.partOffsets.add(loader.partNameIdList.size());
+
+        return new ReferenceStore(
+                taxonomyBase.conceptIndex(),
+                elementFactory,
+                ImmutableList.copyOf(loader.roleIds.keySet()),
+                ImmutableList.copyOf(loader.partNameIds.keySet()),
+                loader.referenceRoleIds.stream().mapToInt(Integer::intValue).toArray(),
+                loader.partOffsets.stream().mapToInt(Integer::intValue).toArray(),
+                loader.partNameIdList.stream().mapToInt(Integer::intValue).toArray(),
+                loader.partValueList.toArray(String[]::new),
+                loader.referencesByConcept.build(),
+                loader.referencesByConceptAndRole.build()
+        );
+    }
+
+    private static final class Loader {
+
+        private final TaxonomyBase taxonomyBase;
+        private final Map<String, Integer> roleIds = new LinkedHashMap<>();
+        private final Map<QName, Integer> partNameIds = new LinkedHashMap<>();
+        private final Map<String, String> internedPartValues = new HashMap<>();
+        private final List<Integer> referenceRoleIds = new ArrayList<>();
+        private final List<Integer> partOffsets = new ArrayList<>();
+        private final List<Integer> partNameIdList = new ArrayList<>();
+        private final List<String> partValueList = new ArrayList<>();
+        private final LongIntMultimap.Builder referencesByConcept = LongIntMultimap.builder();
+        private final LongIntMultimap.Builder referencesByConceptAndRole = LongIntMultimap.builder();
+        private final List<EffectiveRelationships.Relationship> relationships = new ArrayList<>();
+
+        private Loader(TaxonomyBase taxonomyBase) {
+            this.taxonomyBase = taxonomyBase;
+        }
+
+        private void addRelationships(XlExtendedLink extendedLink, String arcrole) {
+            ImmutableList<? extends XlArc> arcs = extendedLink.arcs()
+                    .stream()
+                    .filter(arc -> arc.arcrole().equals(arcrole))
+                    .collect(ImmutableList.toImmutableList());
+
+            if (arcs.isEmpty()) {
+                return;
+            }
+
+            ImmutableListMultimap<String, Long> endpointsByXLinkLabel =
+                    taxonomyBase.findEndpointHandlesByXLinkLabel(extendedLink);
+
+            for (XlArc arc : arcs) {
+                OptionalLong arcHandleOption = taxonomyBase.findElementHandle(arc);
+
+                if (arcHandleOption.isPresent()) {
+                    var networkKey = new NetworkGraph.NetworkKey(
+                            extendedLink.elementName(),
+                            extendedLink.role(),
+                            arc.elementName(),
+                            arc.arcrole()
+                    );
+
+                    for (long sourceHandle : endpointsByXLinkLabel.get(arc.from())) {
+                        for (long targetHandle : endpointsByXLinkLabel.get(arc.to())) {
+                            relationships.add(EffectiveRelationships.Relationship.of(
+                                    networkKey,
+                                    sourceHandle,
+                                    targetHandle,
+                                    arcHandleOption.getAsLong(),
+                                    arc
+                            ));
+                        }
+                    }
+                }
+            }
+        }
+
+        private void addReferencesOfEffectiveRelationships() {
+            // Each reference resource is stored at most once
+            LongIntHashMap.Builder referenceIdsByHandle = LongIntHashMap.builder();
+
+            for (EffectiveRelationships.Relationship relationship : EffectiveRelationships.resolve(relationships)) {
+                XmlElement target = taxonomyBase.element(relationship.targetHandle());
+                OptionalInt conceptIdOption = taxonomyBase.findConceptName(taxonomyBase.element(relationship.sourceHandle()))
+                        .map(taxonomyBase.conceptIndex()::conceptIdOption)
+                        .orElse(OptionalInt.empty());
+
+                if ((target instanceof Reference || target instanceof GenericReference) && conceptIdOption.isPresent()) {
+                    int referenceId = referenceIdsByHandle.get(relationship.targetHandle(), -1);
+
+                    if (referenceId < 0) {
+                        referenceId = addReference((XlResource) target);
+                        referenceIdsByHandle.put(relationship.targetHandle(), referenceId);
+                    }
+                    int conceptId = conceptIdOption.getAsInt();
+                    int roleId = referenceRoleIds.get(referenceId);
+
+                    referencesByConcept.put(conceptId, referenceId);
+                    referencesByConceptAndRole.put(key(conceptId, roleId), referenceId);
+                }
+            }
+        }
+
+        private int addReference(XlResource referenceResource) {
+            int referenceId = referenceRoleIds.size();
+            String role = referenceResource.roleOption().orElse(STANDARD_REFERENCE_ROLE);
+            referenceRoleIds.add(roleIds.computeIfAbsent(role, r -> roleIds.size()));
+            partOffsets.add(partNameIdList.size());
+
+            List<? extends Part> parts = (referenceResource instanceof Reference ref) ?
+                    ref.parts() :
+                    ((GenericReference) referenceResource).parts();
+
+            for (Part part : parts) {
+                partNameIdList.add(partNameIds.computeIfAbsent(part.elementName(), n -> partNameIds.size()));
+                partValueList.add(internedPartValues.computeIfAbsent(part.text(), v -> v));
+            }
+            return referenceId;
+        }
+    }
+
+    private static long key(int conceptId, int roleId) {
+        Preconditions.checkArgument(conceptId >= 0 && roleId >= 0);
+        return ((long) conceptId << 32) | roleId;
+    }
+
+    private static ImmutableMap<String, Integer> toIdMap(ImmutableList<String> values) {
+        ImmutableMap.Builder<String, Integer> builder = ImmutableMap.builderWithExpectedSize(values.size());
+        for (int i = 0; i < values.size(); i++) {
+            builder.put(values.get(i), i);
+        }
+        return builder.buildOrThrow();
+    }
+}
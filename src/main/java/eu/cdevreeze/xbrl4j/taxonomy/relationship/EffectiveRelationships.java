@@ -0,0 +1,174 @@
+/*
+ * Copyright 2024-2024 Chris de Vreeze
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package eu.cdevreeze.xbrl4j.taxonomy.relationship;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import eu.cdevreeze.xbrl4j.model.xl.XlArc;
+import eu.cdevreeze.xbrl4j.model.xl.XlElement;
+
+import javax.xml.namespace.QName;
+import java.math.BigDecimal;
+import java.util.*;
+
+import static eu.cdevreeze.xbrl4j.model.Names.*;
+
+/**
+ * Relationship prohibition and overriding, as specified in section 3.5.3.9 of the XBRL 2.1 specification.
+ * <p>
+ * Relationships are equivalent if they are in the same base set (see NetworkGraph.NetworkKey), have the same
+ * source and target elements (compared by element handle, so locators in different linkbases pointing to the same
+ * concept are the same source or target), and have equal non-exempt arc attributes. The exempt attributes are "use",
+ * "priority" and the attributes in the XLink namespace. The numeric "order" and "weight" attributes are compared
+ * by value, and a missing "order" attribute counts as order 1.
+ * <p>
+ * Of a set of equivalent relationships, only those with the highest priority matter. If one of them is prohibiting,
+ * none of the equivalent relationships remains. Otherwise the first of them (in the order passed) remains, so
+ * equivalent relationships that occur in several linkbases are counted once.
+ *
+ * @author Chris de Vreeze
+ */
+public class EffectiveRelationships {
+
+    private static final ImmutableSet<QName> NUMERIC_ATTRIBUTE_NAMES = ImmutableSet.of(ORDER_QNAME, WEIGHT_QNAME);
+
+    private EffectiveRelationships() {
+    }
+
+    /**
+     * Relationship candidate, with the arc data needed to determine equivalence, priority and prohibition.
+     */
+    public record Relationship(
+            NetworkGraph.NetworkKey networkKey,
+            long sourceHandle,
+            long targetHandle,
+            long arcHandle,
+            int priority,
+            boolean prohibiting,
+            ImmutableMap<QName, String> nonExemptAttributes
+    ) {
+
+        public static Relationship of(
+                NetworkGraph.NetworkKey networkKey,
+                long sourceHandle,
+                long targetHandle,
+                long arcHandle,
+                XlArc arc
+        ) {
+            return new Relationship(
+                    networkKey,
+                    sourceHandle,
+                    targetHandle,
+                    arcHandle,
+                    arc.priorityOption().orElse(0),
+                    arc.useOption().equals(Optional.of(XlElement.Use.PROHIBITED)),
+                    EffectiveRelationships.nonExemptAttributes(arc)
+            );
+        }
+    }
+
+    /**
+     * Returns the effective relationships among the given ones, that is, the non-prohibiting relationships that are
+     * neither prohibited nor overridden, and that are not equivalent to an earlier effective relationship. The
+     * relative order of the given relationships is retained.
+     */
+    public static ImmutableList<Relationship> resolve(List<Relationship> relationships) {
+        Map<EquivalenceKey, EquivalenceClassState> states = new HashMap<>();
+
+        for (int i = 0; i < relationships.size(); i++) {
+            Relationship relationship = relationships.get(i);
+            states.computeIfAbsent(EquivalenceKey.of(relationship), k -> new EquivalenceClassState())
+                    .add(relationship, i);
+        }
+
+        int[] effectiveIndexes = states.values()
+                .stream()
+                .filter(state -> !state.prohibitedAtMaxPriority && state.effectiveIndex >= 0)
+                .mapToInt(state -> state.effectiveIndex)
+                .sorted()
+                .toArray();
+
+        return Arrays.stream(effectiveIndexes)
+                .mapToObj(relationships::get)
+                .collect(ImmutableList.toImmutableList());
+    }
+
+    private static ImmutableMap<QName, String> nonExemptAttributes(XlArc arc) {
+        Map<QName, String> result = new TreeMap<>(Comparator.comparing(QName::toString));
+        result.put(ORDER_QNAME, "1");
+
+        arc.attributes().forEach((name, value) -> {
+            if (!name.getNamespaceURI().equals(XLINK_NS) && !name.equals(USE_QNAME) && !name.equals(PRIORITY_QNAME)) {
+                result.put(name, normalizeAttributeValue(name, value));
+            }
+        });
+        return ImmutableMap.copyOf(result);
+    }
+
+    private static String normalizeAttributeValue(QName name, String value) {
+        String strippedValue = value.strip();
+
+        if (NUMERIC_ATTRIBUTE_NAMES.contains(name)) {
+            try {
+                return new BigDecimal(strippedValue).stripTrailingZeros().toPlainString();
+            } catch (NumberFormatException e) {
+                return strippedValue;
+            }
+        }
+        return strippedValue;
+    }
+
+    private record EquivalenceKey(
+            NetworkGraph.NetworkKey networkKey,
+            long sourceHandle,
+            long targetHandle,
+            ImmutableMap<QName, String> nonExemptAttributes
+    ) {
+
+        private static EquivalenceKey of(Relationship relationship) {
+            return new EquivalenceKey(
+                    relationship.networkKey(),
+                    relationship.sourceHandle(),
+                    relationship.targetHandle(),
+                    relationship.nonExemptAttributes()
+            );
+        }
+    }
+
+    private static final class EquivalenceClassState {
+
+        private int maxPriority = Integer.MIN_VALUE;
+        private boolean prohibitedAtMaxPriority = false;
+        private int effectiveIndex = -1;
+
+        private void add(Relationship relationship, int index) {
+            if (relationship.priority() > maxPriority) {
+                maxPriority = relationship.priority();
+                prohibitedAtMaxPriority = relationship.prohibiting();
+                effectiveIndex = relationship.prohibiting() ? -1 : index;
+            } else if (relationship.priority() == maxPriority) {
+                if (relationship.prohibiting()) {
+                    prohibitedAtMaxPriority = true;
+                } else if (effectiveIndex < 0) {
+                    effectiveIndex = index;
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,263 @@
+/*
+ * Copyright 2024-2024 Chris de Vreeze
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package eu.cdevreeze.xbrl4j.taxonomy.relationship;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableListMultimap;
+import com.google.common.collect.ImmutableMap;
+import eu.cdevreeze.xbrl4j.common.collection.LongIntMultimap;
+import eu.cdevreeze.xbrl4j.model.XmlElement;
+import eu.cdevreeze.xbrl4j.model.gen.GenericArc;
+import eu.cdevreeze.xbrl4j.model.gen.GenericLink;
+import eu.cdevreeze.xbrl4j.model.xl.XlArc;
+import eu.cdevreeze.xbrl4j.model.xl.XlElement;
+import eu.cdevreeze.xbrl4j.taxonomy.TaxonomyBase;
+
+import java.util.*;
+import java.util.stream.IntStream;
+
+/**
+ * Index of generic relationships, that is, relationships expressed by "gen:arc" elements in "gen:link" extended
+ * links. Unlike standard relationships, generic relationships often have endpoints that are no concepts, such as
+ * "link:roleType" elements, other resources (e.g. generic labels) or table and formula linkbase objects.
+ * Therefore, relationship endpoints are identified by their element handles in the TaxonomyBase (document ID plus
+ * node index), and relationships are indexed by source and by target element handle, per arcrole.
+ * <p>
+ * Locators are resolved only once per extended link, through the ID index of the TaxonomyBase. Locators that
+ * cannot be resolved are ignored, and so are prohibiting arcs. Relationship prohibition and overriding are not
+ * taken into account otherwise.
+ * <p>
+ * For example, all generic labels of a "link:roleType" element can be found in constant time (apart from
+ * the size of the result) by querying for the outgoing relationships of that element having arcrole
+ * "http://xbrl.org/arcrole/2008/element-label".
+ * <p>
+ * This class is immutable and thread-safe.
+ *
+ * @author Chris de Vreeze
+ */
+public final class GenericRelationshipIndex {
+
+    private final TaxonomyBase taxonomyBase;
+    private final ImmutableList<String> arcroles;
+    private final ImmutableMap<String, Integer> arcroleIds;
+
+    // One entry per relationship
+    private final long[] sourceHandles;
+    private final long[] targetHandles;
+    private final long[] arcHandles;
+    private final int[] relationshipArcroleIds;
+
+    // One multimap per arcrole ID, from element handle to relationship IDs
+    private final ImmutableList<LongIntMultimap> outgoingRelationshipsPerArcrole;
+    private final ImmutableList<LongIntMultimap> incomingRelationshipsPerArcrole;
+
+    private GenericRelationshipIndex(
+            TaxonomyBase taxonomyBase,
+            ImmutableList<String> arcroles,
+            long[] sourceHandles,
+            long[] targetHandles,
+            long[] arcHandles,
+            int[] relationshipArcroleIds,
+            ImmutableList<LongIntMultimap> outgoingRelationshipsPerArcrole,
+            ImmutableList<LongIntMultimap> incomingRelationshipsPerArcrole
+    ) {
+        this.taxonomyBase = taxonomyBase;
+        this.arcroles = arcroles;
+        this.arcroleIds = IntStream.range(0, arcroles.size())
+                .boxed()
+                .collect(ImmutableMap.toImmutableMap(arcroles::get, i -> i));
+        this.sourceHandles = sourceHandles;
+        this.targetHandles = targetHandles;
+        this.arcHandles = arcHandles;
+        this.relationshipArcroleIds = relationshipArcroleIds;
+        this.outgoingRelationshipsPerArcrole = outgoingRelationshipsPerArcrole;
+        this.incomingRelationshipsPerArcrole = incomingRelationshipsPerArcrole;
+    }
+
+    /**
+     * Generic relationship, with resolved source and target elements.
+     */
+    public record GenericRelationship(XmlElement source, XmlElement target, GenericArc arc) {
+
+        public String arcrole() {
+            return arc.arcrole();
+        }
+    }
+
+    public TaxonomyBase taxonomyBase() {
+        return taxonomyBase;
+    }
+
+    public int relationshipCount() {
+        return sourceHandles.length;
+    }
+
+    public ImmutableList<String> arcroles() {
+        return arcroles;
+    }
+
+    public long sourceHandle(int relationshipId) {
+        return sourceHandles[relationshipId];
+    }
+
+    public long targetHandle(int relationshipId) {
+        return targetHandles[relationshipId];
+    }
+
+    public String arcrole(int relationshipId) {
+        return arcroles.get(relationshipArcroleIds[relationshipId]);
+    }
+
+    public GenericRelationship relationship(int relationshipId) {
+        return new GenericRelationship(
+                taxonomyBase.element(sourceHandles[relationshipId]),
+                taxonomyBase.element(targetHandles[relationshipId]),
+                (GenericArc) taxonomyBase.element(arcHandles[relationshipId])
+        );
+    }
+
+    public IntStream outgoingRelationshipIds(long sourceHandle, String arcrole) {
+        Integer arcroleId = arcroleIds.get(arcrole);
+        return (arcroleId == null) ?
+                IntStream.empty() :
+                outgoingRelationshipsPerArcrole.get(arcroleId).values(sourceHandle);
+    }
+
+    public IntStream incomingRelationshipIds(long targetHandle, String arcrole) {
+        Integer arcroleId = arcroleIds.get(arcrole);
+        return (arcroleId == null) ?
+                IntStream.empty() :
+                incomingRelationshipsPerArcrole.get(arcroleId).values(targetHandle);
+    }
+
+    public ImmutableList<GenericRelationship> findOutgoingRelationships(XmlElement source, String arcrole) {
+        return taxonomyBase.findElementHandle(source).stream()
+                .boxed()
+                .flatMap(h -> outgoingRelationshipIds(h, arcrole).boxed())
+                .map(this::relationship)
+                .collect(ImmutableList.toImmutableList());
+    }
+
+    public ImmutableList<GenericRelationship> findIncomingRelationships(XmlElement target, String arcrole) {
+        return taxonomyBase.findElementHandle(target).stream()
+                .boxed()
+                .flatMap(h -> incomingRelationshipIds(h, arcrole).boxed())
+                .map(this::relationship)
+                .collect(ImmutableList.toImmutableList());
+    }
+
+    /**
+     * Returns the targets of the outgoing relationships of the given source element having the given arcrole.
+     * For example, with the element-label arcrole, this returns the generic labels of the source element.
+     */
+    public ImmutableList<XmlElement> findTargets(XmlElement source, String arcrole) {
+        return taxonomyBase.findElementHandle(source).stream()
+                .boxed()
+                .flatMap(h -> outgoingRelationshipIds(h, arcrole).boxed())
+                .map(id -> taxonomyBase.element(targetHandles[id]))
+                .collect(ImmutableList.toImmutableList());
+    }
+
+    public ImmutableList<XmlElement> findSources(XmlElement target, String arcrole) {
+        return taxonomyBase.findElementHandle(target).stream()
+                .boxed()
+                .flatMap(h -> incomingRelationshipIds(h, arcrole).boxed())
+                .map(id -> taxonomyBase.element(sourceHandles[id]))
+                .collect(ImmutableList.toImmutableList());
+    }
+
+    public static GenericRelationshipIndex create(TaxonomyBase taxonomyBase) {
+        var loader = new Loader(taxonomyBase);
+
+        taxonomyBase.linkbases().forEach(linkbase -> linkbase.elementStream(GenericLink.class).forEach(loader::addRelationships));
+
+        return new GenericRelationshipIndex(
+                taxonomyBase,
+                ImmutableList.copyOf(loader.arcroleIds.keySet()),
+                loader.sourceHandles.stream().mapToLong(Long::longValue).toArray(),
+                loader.targetHandles.stream().mapToLong(Long::longValue).toArray(),
+                loader.arcHandles.stream().mapToLong(Long::longValue).toArray(),
+                loader.relationshipArcroleIds.stream().mapToInt(Integer::intValue).toArray(),
+                loader.outgoingRelationshipsPerArcrole.stream()
+                        .map(LongIntMultimap.Builder::build)
+                        .collect(ImmutableList.toImmutableList()),
+                loader.incomingRelationshipsPerArcrole.stream()
+                        .map(LongIntMultimap.Builder::build)
+                        .collect(ImmutableList.toImmutableList())
+        );
+    }
+
+    private static final class Loader {
+
+        private final TaxonomyBase taxonomyBase;
+        private final Map<String, Integer> arcroleIds = new LinkedHashMap<>();
+        private final List<Long> sourceHandles = new ArrayList<>();
+        private final List<Long> targetHandles = new ArrayList<>();
+        private final List<Long> arcHandles = new ArrayList<>();
+        private final List<Integer> relationshipArcroleIds = new ArrayList<>();
+        private final List<LongIntMultimap.Builder> outgoingRelationshipsPerArcrole = new ArrayList<>();
+        private final List<LongIntMultimap.Builder> incomingRelationshipsPerArcrole = new ArrayList<>();
+
+        private Loader(TaxonomyBase taxonomyBase) {
+            this.taxonomyBase = taxonomyBase;
+        }
+
+        private void addRelationships(GenericLink extendedLink) {
+            ImmutableListMultimap<String, Long> endpointsByXLinkLabel =
+                    taxonomyBase.findEndpointHandlesByXLinkLabel(extendedLink);
+
+            for (XlArc arc : extendedLink.arcs()) {
+                if (arc instanceof GenericArc && !arc.useOption().equals(Optional.of(XlElement.Use.PROHIBITED))) {
+                    Optional<Long> arcHandleOption = boxed(taxonomyBase.findElementHandle(arc));
+
+                    if (arcHandleOption.isPresent()) {
+                        int arcroleId = arcroleId(arc.arcrole());
+
+                        for (long sourceHandle : endpointsByXLinkLabel.get(arc.from())) {
+                            for (long targetHandle : endpointsByXLinkLabel.get(arc.to())) {
+                                addRelationship(sourceHandle, targetHandle, arcHandleOption.get(), arcroleId);
+                            }
+                        }
+                    }
+                }
+            }
+        }
+
+        private void addRelationship(long sourceHandle, long targetHandle, long arcHandle, int arcroleId) {
+            int relationshipId = sourceHandles.size();
+            sourceHandles.add(sourceHandle);
+            targetHandles.add(targetHandle);
+            arcHandles.add(arcHandle);
+            relationshipArcroleIds.add(arcroleId);
+            outgoingRelationshipsPerArcrole.get(arcroleId).put(sourceHandle, relationshipId);
+            incomingRelationshipsPerArcrole.get(arcroleId).put(targetHandle, relationshipId);
+        }
+
+        private int arcroleId(String arcrole) {
+            return arcroleIds.computeIfAbsent(arcrole, ar -> {
+                outgoingRelationshipsPerArcrole.add(LongIntMultimap.builder());
+                incomingRelationshipsPerArcrole.add(LongIntMultimap.builder());
+                return arcroleIds.size();
+            });
+        }
+
+        private static Optional<Long> boxed(OptionalLong optionalLong) {
+            return optionalLong.isPresent() ? Optional.of(optionalLong.getAsLong()) : Optional.empty();
+        }
+    }
+}
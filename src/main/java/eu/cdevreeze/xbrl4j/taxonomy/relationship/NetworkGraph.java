@@ -0,0 +1,246 @@
+/*
+ * Copyright 2024-2024 Chris de Vreeze
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package eu.cdevreeze.xbrl4j.taxonomy.relationship;
+
+import com.google.common.base.Preconditions;
+import eu.cdevreeze.xbrl4j.common.collection.LongIntHashMap;
+
+import javax.xml.namespace.QName;
+import java.util.Arrays;
+import java.util.OptionalInt;
+import java.util.stream.IntStream;
+
+/**
+ * Directed graph of one network of relationships, with dense int node IDs and edge IDs. A network is
+ * identified by its NetworkKey, which corresponds to the notion of a base set in the XBRL 2.1 specification.
+ * <p>
+ * Nodes correspond to the element handles (see TaxonomyBase) of relationship endpoints, and edges
+ * correspond to relationships. Outgoing and incoming edges are stored in compressed sparse row form,
+ * so graph algorithms can run over plain int arrays instead of element objects.
+ * <p>
+ * This class is immutable and thread-safe.
+ *
+ * @author Chris de Vreeze
+ */
+public final class NetworkGraph {
+
+    /**
+     * Network identification: extended link element name, extended link role, arc element name and arcrole.
+     */
+    public record NetworkKey(QName linkName, String linkRole, QName arcName, String arcrole) {
+    }
+
+    private final NetworkKey networkKey;
+    private final long[] nodeHandles;
+    private final LongIntHashMap nodeIds;
+
+    // One entry per edge
+    private final int[] edgeSources;
+    private final int[] edgeTargets;
+    private final long[] edgeArcHandles;
+
+    // Edges per node, in compressed sparse row form
+    private final int[] outgoingOffsets;
+    private final int[] outgoingEdges;
+    private final int[] incomingOffsets;
+    private final int[] incomingEdges;
+
+    private NetworkGraph(
+            NetworkKey networkKey,
+            long[] nodeHandles,
+            LongIntHashMap nodeIds,
+            int[] edgeSources,
+            int[] edgeTargets,
+            long[] edgeArcHandles
+    ) {
+        this.networkKey = networkKey;
+        this.nodeHandles = nodeHandles;
+        this.nodeIds = nodeIds;
+        this.edgeSources = edgeSources;
+        this.edgeTargets = edgeTargets;
+        this.edgeArcHandles = edgeArcHandles;
+
+        this.outgoingOffsets = new int[nodeHandles.length + 1];
+        this.outgoingEdges = new int[edgeSources.length];
+        fillAdjacency(edgeSources, outgoingOffsets, outgoingEdges);
+        this.incomingOffsets = new int[nodeHandles.length + 1];
+        this.incomingEdges = new int[edgeTargets.length];
+        fillAdjacency(edgeTargets, incomingOffsets, incomingEdges);
+    }
+
+    public NetworkKey networkKey() {
+        return networkKey;
+    }
+
+    public int nodeCount() {
+        return nodeHandles.length;
+    }
+
+    public int edgeCount() {
+        return edgeSources.length;
+    }
+
+    public long nodeHandle(int nodeId) {
+        return nodeHandles[nodeId];
+    }
+
+    public OptionalInt nodeIdOption(long elementHandle) {
+        int nodeId = nodeIds.get(elementHandle, -1);
+        return (nodeId < 0) ? OptionalInt.empty() : OptionalInt.of(nodeId);
+    }
+
+    public int edgeSource(int edgeId) {
+        return edgeSources[edgeId];
+    }
+
+    public int edgeTarget(int edgeId) {
+        return edgeTargets[edgeId];
+    }
+
+    /**
+     * Returns the element handle of the arc that gave rise to the given edge.
+     */
+    public long edgeArcHandle(int edgeId) {
+        return edgeArcHandles[edgeId];
+    }
+
+    public int outDegree(int nodeId) {
+        return outgoingOffsets[nodeId + 1] - outgoingOffsets[nodeId];
+    }
+
+    public int inDegree(int nodeId) {
+        return incomingOffsets[nodeId + 1] - incomingOffsets[nodeId];
+    }
+
+    /**
+     * Returns the edge ID of the i-th outgoing edge of the given node, in arc insertion order.
+     */
+    public int outgoingEdge(int nodeId, int i) {
+        Preconditions.checkElementIndex(i, outDegree(nodeId));
+        return outgoingEdges[outgoingOffsets[nodeId] + i];
+    }
+
+    public int incomingEdge(int nodeId, int i) {
+        Preconditions.checkElementIndex(i, inDegree(nodeId));
+        return incomingEdges[incomingOffsets[nodeId] + i];
+    }
+
+    public IntStream outgoingEdges(int nodeId) {
+        return Arrays.stream(outgoingEdges, outgoingOffsets[nodeId], outgoingOffsets[nodeId + 1]);
+    }
+
+    public IntStream incomingEdges(int nodeId) {
+        return Arrays.stream(incomingEdges, incomingOffsets[nodeId], incomingOffsets[nodeId + 1]);
+    }
+
+    public IntStream successors(int nodeId) {
+        return outgoingEdges(nodeId).map(e -> edgeTargets[e]);
+    }
+
+    public IntStream predecessors(int nodeId) {
+        return incomingEdges(nodeId).map(e -> edgeSources[e]);
+    }
+
+    /**
+     * Returns the node IDs of the nodes without incoming edges.
+     */
+    public IntStream rootNodes() {
+        return IntStream.range(0, nodeCount()).filter(n -> inDegree(n) == 0);
+    }
+
+    public static Builder builder(NetworkKey networkKey) {
+        return new Builder(networkKey);
+    }
+
+    public static final class Builder {
+
+        private final NetworkKey networkKey;
+        private final LongIntHashMap.Builder nodeIds = LongIntHashMap.builder();
+        private long[] nodeHandles = new long[16];
+        private int nodeCount = 0;
+        private int[] edgeSources = new int[16];
+        private int[] edgeTargets = new int[16];
+        private long[] edgeArcHandles = new long[16];
+        private int edgeCount = 0;
+
+        private Builder(NetworkKey networkKey) {
+            this.networkKey = networkKey;
+        }
+
+        public NetworkKey networkKey() {
+            return networkKey;
+        }
+
+        public Builder addEdge(long sourceHandle, long targetHandle, long arcHandle) {
+            int source = nodeId(sourceHandle);
+            int target = nodeId(targetHandle);
+
+            if (edgeCount == edgeSources.length) {
+                edgeSources = Arrays.copyOf(edgeSources, 2 * edgeCount);
+                edgeTargets = Arrays.copyOf(edgeTargets, 2 * edgeCount);
+                edgeArcHandles = Arrays.copyOf(edgeArcHandles, 2 * edgeCount);
+            }
+            edgeSources[edgeCount] = source;
+            edgeTargets[edgeCount] = target;
+            edgeArcHandles[edgeCount] = arcHandle;
+            edgeCount += 1;
+            return this;
+        }
+
+        public NetworkGraph build() {
+            return new NetworkGraph(
+                    networkKey,
+                    Arrays.copyOf(nodeHandles, nodeCount),
+                    nodeIds.build(),
+                    Arrays.copyOf(edgeSources, edgeCount),
+                    Arrays.copyOf(edgeTargets, edgeCount),
+                    Arrays.copyOf(edgeArcHandles, edgeCount)
+            );
+        }
+
+        private int nodeId(long elementHandle) {
+            int nodeId = nodeIds.get(elementHandle, -1);
+
+            if (nodeId < 0) {
+                nodeId = nodeCount;
+                nodeIds.put(elementHandle, nodeId);
+
+                if (nodeCount == nodeHandles.length) {
+                    nodeHandles = Arrays.copyOf(nodeHandles, 2 * nodeCount);
+                }
+                nodeHandles[nodeCount] = elementHandle;
+                nodeCount += 1;
+            }
+            return nodeId;
+        }
+    }
+
+    private static void fillAdjacency(int[] edgeEndpoints, int[] offsets, int[] edges) {
+        for (int endpoint : edgeEndpoints) {
+            offsets[endpoint + 1] += 1;
+        }
+        for (int i = 1; i < offsets.length; i++) {
+            offsets[i] += offsets[i - 1];
+        }
+        int[] positions = Arrays.copyOf(offsets, offsets.length - 1);
+
+        for (int edgeId = 0; edgeId < edgeEndpoints.length; edgeId++) {
+            edges[positions[edgeEndpoints[edgeId]]++] = edgeId;
+        }
+    }
+}
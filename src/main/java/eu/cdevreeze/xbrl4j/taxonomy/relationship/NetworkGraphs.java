@@ -0,0 +1,124 @@
+/*
+ * Copyright 2024-2024 Chris de Vreeze
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package eu.cdevreeze.xbrl4j.taxonomy.relationship;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableListMultimap;
+import eu.cdevreeze.xbrl4j.model.gen.GenericArc;
+import eu.cdevreeze.xbrl4j.model.link.CalculationArc;
+import eu.cdevreeze.xbrl4j.model.link.DefinitionArc;
+import eu.cdevreeze.xbrl4j.model.link.PresentationArc;
+import eu.cdevreeze.xbrl4j.model.xl.XlArc;
+import eu.cdevreeze.xbrl4j.model.xl.XlExtendedLink;
+import eu.cdevreeze.xbrl4j.taxonomy.TaxonomyBase;
+
+import java.util.*;
+import java.util.function.Predicate;
+
+/**
+ * Utility to build NetworkGraph instances from the definition, presentation, calculation and generic
+ * relationships in a TaxonomyBase. There is one graph per network (or base set). Relationship prohibition
+ * and overriding are resolved per base set (see EffectiveRelationships), so the graphs contain no prohibited
+ * or overridden relationships, and equivalent relationships from several linkbases become one edge.
+ *
+ * @author Chris de Vreeze
+ */
+public class NetworkGraphs {
+
+    private NetworkGraphs() {
+    }
+
+    public static ImmutableList<NetworkGraph> create(TaxonomyBase taxonomyBase) {
+        return create(taxonomyBase, arcrole -> true);
+    }
+
+    /**
+     * Creates the network graphs of the given taxonomy base, restricted to the arcroles that pass the given filter.
+     * The graphs are returned in the order in which their networks are first encountered.
+     */
+    public static ImmutableList<NetworkGraph> create(TaxonomyBase taxonomyBase, Predicate<String> arcroleFilter) {
+        List<EffectiveRelationships.Relationship> relationships = new ArrayList<>();
+
+        taxonomyBase.linkbases().forEach(linkbase ->
+                linkbase.elementStream(XlExtendedLink.class).forEach(extendedLink -> {
+                    ImmutableList<? extends XlArc> arcs = extendedLink.arcs()
+                            .stream()
+                            .filter(NetworkGraphs::isNetworkArc)
+                            .filter(arc -> arcroleFilter.test(arc.arcrole()))
+                            .collect(ImmutableList.toImmutableList());
+
+                    if (!arcs.isEmpty()) {
+                        addRelationships(taxonomyBase, extendedLink, arcs, relationships);
+                    }
+                }));
+
+        Map<NetworkGraph.NetworkKey, NetworkGraph.Builder> graphBuilders = new LinkedHashMap<>();
+
+        for (EffectiveRelationships.Relationship relationship : EffectiveRelationships.resolve(relationships)) {
+            graphBuilders.computeIfAbsent(relationship.networkKey(), NetworkGraph::builder)
+                    .addEdge(relationship.sourceHandle(), relationship.targetHandle(), relationship.arcHandle());
+        }
+
+        return graphBuilders.values()
+                .stream()
+                .map(NetworkGraph.Builder::build)
+                .collect(ImmutableList.toImmutableList());
+    }
+
+    private static void addRelationships(
+            TaxonomyBase taxonomyBase,
+            XlExtendedLink extendedLink,
+            ImmutableList<? extends XlArc> arcs,
+            List<EffectiveRelationships.Relationship> relationships
+    ) {
+        ImmutableListMultimap<String, Long> endpointsByXLinkLabel =
+                taxonomyBase.findEndpointHandlesByXLinkLabel(extendedLink);
+
+        for (XlArc arc : arcs) {
+            OptionalLong arcHandleOption = taxonomyBase.findElementHandle(arc);
+
+            if (arcHandleOption.isPresent()) {
+                var networkKey = new NetworkGraph.NetworkKey(
+                        extendedLink.elementName(),
+                        extendedLink.role(),
+                        arc.elementName(),
+                        arc.arcrole()
+                );
+
+                for (long sourceHandle : endpointsByXLinkLabel.get(arc.from())) {
+                    for (long targetHandle : endpointsByXLinkLabel.get(arc.to())) {
+                        relationships.add(EffectiveRelationships.Relationship.of(
+                                networkKey,
+                                sourceHandle,
+                                targetHandle,
+                                arcHandleOption.getAsLong(),
+                                arc
+                        ));
+                    }
+                }
+            }
+        }
+    }
+
+    private static boolean isNetworkArc(XlArc arc) {
+        return arc instanceof DefinitionArc ||
+                arc instanceof PresentationArc ||
+                arc instanceof CalculationArc ||
+                arc instanceof GenericArc;
+    }
+}
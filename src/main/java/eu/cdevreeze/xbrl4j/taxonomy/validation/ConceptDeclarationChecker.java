@@ -0,0 +1,110 @@
+/*
+ * Copyright 2024-2024 Chris de Vreeze
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package eu.cdevreeze.xbrl4j.taxonomy.validation;
+
+import com.google.common.collect.ImmutableList;
+import eu.cdevreeze.xbrl4j.model.xs.ConceptDeclaration;
+import eu.cdevreeze.xbrl4j.model.xs.ItemDeclaration;
+import eu.cdevreeze.xbrl4j.taxonomy.ItemTypes;
+import eu.cdevreeze.xbrl4j.taxonomy.ItemTypes.ItemKind;
+import eu.cdevreeze.xbrl4j.taxonomy.TaxonomyBase;
+
+import javax.xml.namespace.QName;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Checker of the XBRL 2.1 constraints on item declarations that do not depend on any instance:
+ * <ul>
+ *     <li>item declarations must have an xbrli:periodType attribute, with value "instant" or "duration"</li>
+ *     <li>the xbrli:balance attribute, if any, must have value "debit" or "credit", and is only allowed on
+ *     concepts of a monetary item type</li>
+ * </ul>
+ * Item types are classified through their derivation chain (see ItemTypes). The balance check is skipped for
+ * concepts whose item type cannot be classified. Since these checks hold per concept, they are done once per
+ * taxonomy, instead of once per fact in each instance validated against the taxonomy.
+ * <p>
+ * This class is immutable and thread-safe.
+ *
+ * @author Chris de Vreeze
+ */
+public final class ConceptDeclarationChecker {
+
+    public enum Check {PERIOD_TYPE, BALANCE}
+
+    public record ConceptViolation(Check check, QName conceptName, String message) {
+    }
+
+    private final TaxonomyBase taxonomyBase;
+    private final ItemTypes itemTypes;
+
+    private ConceptDeclarationChecker(TaxonomyBase taxonomyBase, ItemTypes itemTypes) {
+        this.taxonomyBase = taxonomyBase;
+        this.itemTypes = itemTypes;
+    }
+
+    public ItemTypes itemTypes() {
+        return itemTypes;
+    }
+
+    /**
+     * Checks all item declarations in the taxonomy base, returning the violations in concept order.
+     */
+    public ImmutableList<ConceptViolation> findViolations() {
+        List<ConceptViolation> violations = new ArrayList<>();
+
+        for (Map.Entry<QName, ConceptDeclaration> nameAndDecl : taxonomyBase.conceptDeclarationsByName().entrySet()) {
+            if (nameAndDecl.getValue() instanceof ItemDeclaration itemDecl) {
+                checkItemDeclaration(nameAndDecl.getKey(), itemDecl, violations);
+            }
+        }
+        return ImmutableList.copyOf(violations);
+    }
+
+    private void checkItemDeclaration(QName conceptName, ItemDeclaration itemDecl, List<ConceptViolation> violations) {
+        Optional<String> periodTypeOption = itemDecl.periodTypeOption().map(String::strip);
+
+        if (periodTypeOption.isEmpty()) {
+            violations.add(new ConceptViolation(
+                    Check.PERIOD_TYPE, conceptName, "Missing periodType on concept " + conceptName));
+        } else if (!periodTypeOption.get().equals("instant") && !periodTypeOption.get().equals("duration")) {
+            violations.add(new ConceptViolation(
+                    Check.PERIOD_TYPE, conceptName, "Invalid periodType '" + periodTypeOption.get() + "' on concept " + conceptName));
+        }
+
+        Optional<String> balanceOption = itemDecl.balanceOption().map(String::strip);
+
+        if (balanceOption.isPresent()) {
+            ItemKind itemKind = itemTypes.itemKind(itemDecl);
+
+            if (!balanceOption.get().equals("debit") && !balanceOption.get().equals("credit")) {
+                violations.add(new ConceptViolation(
+                        Check.BALANCE, conceptName, "Invalid balance '" + balanceOption.get() + "' on concept " + conceptName));
+            } else if (itemKind != ItemKind.MONETARY && itemKind != ItemKind.UNKNOWN) {
+                violations.add(new ConceptViolation(
+                        Check.BALANCE, conceptName, "Balance attribute on non-monetary concept " + conceptName));
+            }
+        }
+    }
+
+    public static ConceptDeclarationChecker create(TaxonomyBase taxonomyBase) {
+        return new ConceptDeclarationChecker(taxonomyBase, ItemTypes.from(taxonomyBase));
+    }
+}
@@ -0,0 +1,361 @@
+/*
+ * Copyright 2024-2024 Chris de Vreeze
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package eu.cdevreeze.xbrl4j.taxonomy.validation;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import eu.cdevreeze.xbrl4j.model.XmlElement;
+import eu.cdevreeze.xbrl4j.model.link.ArcroleType;
+import eu.cdevreeze.xbrl4j.model.link.ArcroleType.CyclesAllowed;
+import eu.cdevreeze.xbrl4j.taxonomy.TaxonomyBase;
+import eu.cdevreeze.xbrl4j.taxonomy.relationship.NetworkGraph;
+import eu.cdevreeze.xbrl4j.taxonomy.relationship.NetworkGraphs;
+
+import java.util.*;
+
+import static eu.cdevreeze.xbrl4j.model.Names.*;
+
+/**
+ * Checker of the "cyclesAllowed" constraints of arcroles, as declared by "link:arcroleType" elements or,
+ * for the standard arcroles, by the XBRL 2.1 specification.
+ * <p>
+ * Arcroles with "cyclesAllowed" equal to "none" must not have any (undirected) cycles in their networks.
+ * This is checked with union-find over the edges of each network graph. Arcroles with "cyclesAllowed" equal
+ * to "undirected" must not have any directed cycles in their networks. This is checked by computing the
+ * strongly connected components with an iterative (and therefore stack-safe) version of Tarjan's algorithm.
+ * Networks of arcroles with "cyclesAllowed" equal to "any" are not checked at all.
+ * <p>
+ * Networks are checked in parallel. Only the offending cycles are reported, each one as a path of
+ * relationship endpoints that starts and ends with the same element. For directed cycles, one cycle per
+ * strongly connected component is reported.
+ * <p>
+ * This class is immutable and thread-safe.
+ *
+ * @author Chris de Vreeze
+ */
+public final class CycleChecker {
+
+    /**
+     * The cyclesAllowed values of the standard arcroles, according to the XBRL 2.1 specification.
+     */
+    public static final ImmutableMap<String, CyclesAllowed> STANDARD_CYCLES_ALLOWED = ImmutableMap.of(
+            PARENT_CHILD_ARCROLE, CyclesAllowed.UNDIRECTED,
+            SUMMATION_ITEM_ARCROLE, CyclesAllowed.ANY,
+            GENERAL_SPECIAL_ARCROLE, CyclesAllowed.UNDIRECTED,
+            ESSENCE_ALIAS_ARCROLE, CyclesAllowed.UNDIRECTED,
+            SIMILAR_TUPLES_ARCROLE, CyclesAllowed.ANY,
+            REQUIRES_ELEMENT_ARCROLE, CyclesAllowed.ANY
+    );
+
+    /**
+     * Offending cycle in a network. The path starts and ends with the same element.
+     */
+    public record CycleViolation(
+            NetworkGraph.NetworkKey networkKey,
+            CyclesAllowed cyclesAllowed,
+            ImmutableList<XmlElement> path
+    ) {
+    }
+
+    private final TaxonomyBase taxonomyBase;
+    private final ImmutableMap<String, CyclesAllowed> cyclesAllowedByArcrole;
+
+    private CycleChecker(TaxonomyBase taxonomyBase, ImmutableMap<String, CyclesAllowed> cyclesAllowedByArcrole) {
+        this.taxonomyBase = taxonomyBase;
+        this.cyclesAllowedByArcrole = cyclesAllowedByArcrole;
+    }
+
+    public ImmutableMap<String, CyclesAllowed> cyclesAllowedByArcrole() {
+        return cyclesAllowedByArcrole;
+    }
+
+    /**
+     * Returns the cyclesAllowed value of the given arcrole, if known. Unknown arcroles are not checked.
+     */
+    public Optional<CyclesAllowed> findCyclesAllowed(String arcrole) {
+        return Optional.ofNullable(cyclesAllowedByArcrole.get(arcrole));
+    }
+
+    /**
+     * Builds the network graphs of the arcroles that need checking, and checks them in parallel.
+     */
+    public ImmutableList<CycleViolation> findViolations() {
+        return findViolations(NetworkGraphs.create(
+                taxonomyBase,
+                arcrole -> findCyclesAllowed(arcrole).filter(c -> c != CyclesAllowed.ANY).isPresent()
+        ));
+    }
+
+    /**
+     * Checks the given network graphs in parallel.
+     */
+    public ImmutableList<CycleViolation> findViolations(Collection<NetworkGraph> networkGraphs) {
+        return networkGraphs.parallelStream()
+                .flatMap(g -> findViolations(g).stream())
+                .collect(ImmutableList.toImmutableList());
+    }
+
+    public ImmutableList<CycleViolation> findViolations(NetworkGraph networkGraph) {
+        Optional<CyclesAllowed> cyclesAllowedOption = findCyclesAllowed(networkGraph.networkKey().arcrole());
+
+        if (cyclesAllowedOption.isEmpty() || cyclesAllowedOption.get() == CyclesAllowed.ANY) {
+            return ImmutableList.of();
+        }
+        CyclesAllowed cyclesAllowed = cyclesAllowedOption.get();
+        List<int[]> cycles = (cyclesAllowed == CyclesAllowed.NONE) ?
+                findUndirectedCycles(networkGraph) :
+                findDirectedCycles(networkGraph);
+
+        return cycles.stream()
+                .map(nodePath -> new CycleViolation(
+                        networkGraph.networkKey(),
+                        cyclesAllowed,
+                        Arrays.stream(nodePath)
+                                .mapToObj(n -> taxonomyBase.element(networkGraph.nodeHandle(n)))
+                                .collect(ImmutableList.toImmutableList())
+                ))
+                .collect(ImmutableList.toImmutableList());
+    }
+
+    /**
+     * Creates a CycleChecker for the given taxonomy base. The arcroleType declarations in the taxonomy base
+     * override the standard cyclesAllowed values.
+     */
+    public static CycleChecker create(TaxonomyBase taxonomyBase) {
+        Map<String, CyclesAllowed> cyclesAllowedByArcrole = new LinkedHashMap<>(STANDARD_CYCLES_ALLOWED);
+
+        taxonomyBase.schemas().forEach(schema ->
+                schema.elementStream(ArcroleType.class)
+                        .forEach(arcroleType -> cyclesAllowedByArcrole.put(
+                                arcroleType.arcroleUri(),
+                                arcroleType.cyclesAllowed()
+                        )));
+
+        return new CycleChecker(taxonomyBase, ImmutableMap.copyOf(cyclesAllowedByArcrole));
+    }
+
+    /**
+     * Finds the undirected cycles, using union-find. Each edge that connects two nodes that are already connected
+     * closes a cycle, which is reported as the path through the spanning forest built so far, plus that edge.
+     */
+    private static List<int[]> findUndirectedCycles(NetworkGraph graph) {
+        int nodeCount = graph.nodeCount();
+        int[] parents = new int[nodeCount];
+        for (int i = 0; i < nodeCount; i++) {
+            parents[i] = i;
+        }
+        boolean[] forestEdges = new boolean[graph.edgeCount()];
+        List<Integer> closingEdges = new ArrayList<>();
+
+        for (int edge = 0; edge < graph.edgeCount(); edge++) {
+            int sourceRoot = findRoot(parents, graph.edgeSource(edge));
+            int targetRoot = findRoot(parents, graph.edgeTarget(edge));
+
+            if (sourceRoot == targetRoot) {
+                closingEdges.add(edge);
+            } else {
+                parents[sourceRoot] = targetRoot;
+                forestEdges[edge] = true;
+            }
+        }
+
+        List<int[]> cycles = new ArrayList<>();
+        for (int edge : closingEdges) {
+            int[] forestPath = findForestPath(graph, forestEdges, graph.edgeTarget(edge), graph.edgeSource(edge));
+            int[] cycle = Arrays.copyOf(forestPath, forestPath.length + 1);
+            cycle[forestPath.length] = graph.edgeTarget(edge);
+            cycles.add(cycle);
+        }
+        return cycles;
+    }
+
+    private static int findRoot(int[] parents, int node) {
+        int root = node;
+        while (parents[root] != root) {
+            root = parents[root];
+        }
+        // Path compression
+        while (parents[node] != root) {
+            int next = parents[node];
+            parents[node] = root;
+            node = next;
+        }
+        return root;
+    }
+
+    /**
+     * Breadth-first search for the path from source to target, following the forest edges in either direction.
+     */
+    private static int[] findForestPath(NetworkGraph graph, boolean[] forestEdges, int source, int target) {
+        int[] predecessors = new int[graph.nodeCount()];
+        Arrays.fill(predecessors, -1);
+        predecessors[source] = source;
+        ArrayDeque<Integer> queue = new ArrayDeque<>();
+        queue.add(source);
+
+        while (!queue.isEmpty() && predecessors[target] < 0) {
+            int node = queue.poll();
+
+            for (int i = 0; i < graph.outDegree(node); i++) {
+                int edge = graph.outgoingEdge(node, i);
+                visitForestNeighbour(forestEdges, edge, graph.edgeTarget(edge), node, predecessors, queue);
+            }
+            for (int i = 0; i < graph.inDegree(node); i++) {
+                int edge = graph.incomingEdge(node, i);
+                visitForestNeighbour(forestEdges, edge, graph.edgeSource(edge), node, predecessors, queue);
+            }
+        }
+        return toPath(predecessors, source, target);
+    }
+
+    private static void visitForestNeighbour(
+            boolean[] forestEdges,
+            int edge,
+            int neighbour,
+            int node,
+            int[] predecessors,
+            ArrayDeque<Integer> queue
+    ) {
+        if (forestEdges[edge] && predecessors[neighbour] < 0) {
+            predecessors[neighbour] = node;
+            queue.add(neighbour);
+        }
+    }
+
+    /**
+     * Finds one directed cycle per non-trivial strongly connected component. The strongly connected components
+     * are computed with an iterative version of Tarjan's algorithm.
+     */
+    private static List<int[]> findDirectedCycles(NetworkGraph graph) {
+        int nodeCount = graph.nodeCount();
+        int[] indexes = new int[nodeCount];
+        Arrays.fill(indexes, -1);
+        int[] lowLinks = new int[nodeCount];
+        int[] components = new int[nodeCount];
+        Arrays.fill(components, -1);
+        int[] nextEdgePositions = new int[nodeCount];
+        boolean[] onStack = new boolean[nodeCount];
+        int[] sccStack = new int[nodeCount];
+        int sccStackSize = 0;
+        int[] callStack = new int[nodeCount];
+        int callStackSize = 0;
+        int index = 0;
+        int componentCount = 0;
+        List<int[]> cycles = new ArrayList<>();
+
+        for (int start = 0; start < nodeCount; start++) {
+            if (indexes[start] >= 0) {
+                continue;
+            }
+            indexes[start] = lowLinks[start] = index++;
+            sccStack[sccStackSize++] = start;
+            onStack[start] = true;
+            callStack[callStackSize++] = start;
+
+            while (callStackSize > 0) {
+                int node = callStack[callStackSize - 1];
+
+                if (nextEdgePositions[node] < graph.outDegree(node)) {
+                    int successor = graph.edgeTarget(graph.outgoingEdge(node, nextEdgePositions[node]++));
+
+                    if (indexes[successor] < 0) {
+                        indexes[successor] = lowLinks[successor] = index++;
+                        sccStack[sccStackSize++] = successor;
+                        onStack[successor] = true;
+                        callStack[callStackSize++] = successor;
+                    } else if (onStack[successor]) {
+                        lowLinks[node] = Math.min(lowLinks[node], indexes[successor]);
+                    }
+                } else {
+                    callStackSize -= 1;
+
+                    if (callStackSize > 0) {
+                        int caller = callStack[callStackSize - 1];
+                        lowLinks[caller] = Math.min(lowLinks[caller], lowLinks[node]);
+                    }
+                    if (lowLinks[node] == indexes[node]) {
+                        int component = componentCount++;
+                        int componentSize = 0;
+                        int member;
+                        do {
+                            member = sccStack[--sccStackSize];
+                            onStack[member] = false;
+                            components[member] = component;
+                            componentSize += 1;
+                        } while (member != node);
+
+                        if (componentSize > 1 || hasSelfLoop(graph, node)) {
+                            cycles.add(findCycleInComponent(graph, components, node));
+                        }
+                    }
+                }
+            }
+        }
+        return cycles;
+    }
+
+    private static boolean hasSelfLoop(NetworkGraph graph, int node) {
+        return graph.successors(node).anyMatch(n -> n == node);
+    }
+
+    /**
+     * Breadth-first search for a shortest directed cycle through the given node, within its strongly
+     * connected component.
+     */
+    private static int[] findCycleInComponent(NetworkGraph graph, int[] components, int node) {
+        int[] predecessors = new int[graph.nodeCount()];
+        Arrays.fill(predecessors, -1);
+        ArrayDeque<Integer> queue = new ArrayDeque<>();
+        queue.add(node);
+        int lastBeforeNode = -1;
+
+        while (!queue.isEmpty() && lastBeforeNode < 0) {
+            int current = queue.poll();
+
+            for (int i = 0; i < graph.outDegree(current); i++) {
+                int successor = graph.edgeTarget(graph.outgoingEdge(current, i));
+
+                if (successor == node) {
+                    lastBeforeNode = current;
+                    break;
+                } else if (components[successor] == components[node] && predecessors[successor] < 0) {
+                    predecessors[successor] = current;
+                    queue.add(successor);
+                }
+            }
+        }
+        predecessors[node] = node;
+        int[] path = toPath(predecessors, node, lastBeforeNode);
+        int[] cycle = Arrays.copyOf(path, path.length + 1);
+        cycle[path.length] = node;
+        return cycle;
+    }
+
+    private static int[] toPath(int[] predecessors, int source, int target) {
+        List<Integer> reversedPath = new ArrayList<>();
+        int node = target;
+        reversedPath.add(node);
+
+        while (node != source) {
+            node = predecessors[node];
+            reversedPath.add(node);
+        }
+        Collections.reverse(reversedPath);
+        return reversedPath.stream().mapToInt(Integer::intValue).toArray();
+    }
+}
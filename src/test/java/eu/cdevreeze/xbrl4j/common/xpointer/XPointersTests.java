@@ -0,0 +1,99 @@
+/*
+ * Copyright 2024-2024 Chris de Vreeze
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.cdevreeze.xbrl4j.common.xpointer;
+
+import com.google.common.collect.ImmutableList;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests of XPointer parsing, including the parse errors and the cache of parse results. In the same package as
+ * XPointers, in order to inspect the cache.
+ *
+ * @author Chris de Vreeze
+ */
+public class XPointersTests {
+
+    @Test
+    public void testParseXPointers() {
+        assertEquals(List.of(new ShorthandPointer("abc")), XPointers.parseXPointers("abc"));
+        assertEquals(List.of(new IdPointer("abc")), XPointers.parseXPointers("element(abc)"));
+        assertEquals(List.of(new IdPointer("")), XPointers.parseXPointers("element()"));
+        assertEquals(
+                List.of(new ChildSequencePointer(ImmutableList.of(1, 12, 3))),
+                XPointers.parseXPointers("element(/1/12/3)"));
+        assertEquals(
+                List.of(new IdChildSequencePointer("abc", ImmutableList.of(2, 1))),
+                XPointers.parseXPointers("element(abc/2/1)"));
+        assertEquals(
+                List.of(new IdPointer("abc"), new ChildSequencePointer(ImmutableList.of(1, 3)), new IdPointer("def")),
+                XPointers.parseXPointers("element(abc)element(/1/3)element(def)"));
+        assertEquals(
+                List.of(new ChildSequencePointer(ImmutableList.of(1, Integer.MAX_VALUE))),
+                XPointers.parseXPointers("element(/1/" + Integer.MAX_VALUE + ")"));
+    }
+
+    @Test
+    public void testParseErrors() {
+        // Invalid child sequence steps throw a NumberFormatException, as Integer.parseInt would
+        for (String s : List.of("element(/)", "element(/1//2)", "element(/1/)", "element(/1/a)", "element(abc/x)",
+                "element(abc/)", "element(/1/" + (Integer.MAX_VALUE + 1L) + ")", "element(/1/99999999999)")) {
+            assertThrows(NumberFormatException.class, () -> XPointers.parseXPointers(s), s);
+        }
+
+        // Other syntax errors throw an IllegalArgumentException
+        for (String s : List.of("element(/1", "element(", "xpointer(/a)")) {
+            IllegalArgumentException e = assertThrows(IllegalArgumentException.class, () -> XPointers.parseXPointers(s), s);
+            assertFalse(e instanceof NumberFormatException, s);
+        }
+    }
+
+    @Test
+    public void testCachedParseResults() {
+        ImmutableList<XPointer> xpointers = XPointers.parseXPointers("element(cached-id/4/2)");
+
+        assertSame(xpointers, XPointers.parseXPointers("element(cached-id/4/2)"));
+        // Keyed by string value, not by identity
+        assertSame(xpointers, XPointers.parseXPointers(new StringBuilder("element(cached-id/4/2)").toString()));
+    }
+
+    @Test
+    public void testParseErrorsAreNotCached() {
+        long countBefore = XPointers.cachedFragmentCount();
+
+        assertThrows(NumberFormatException.class, () -> XPointers.parseXPointers("element(/1/uncached)"));
+        assertThrows(NumberFormatException.class, () -> XPointers.parseXPointers("element(/1/uncached)"));
+
+        assertEquals(countBefore, XPointers.cachedFragmentCount());
+    }
+
+    @Test
+    public void testCacheIsBounded() {
+        int fragmentCount = XPointers.MAX_CACHED_XPOINTERS + 50_000;
+
+        for (int i = 0; i < fragmentCount; i++) {
+            assertEquals(List.of(new IdPointer("bounded-" + i)), XPointers.parseXPointers("element(bounded-" + i + ")"));
+        }
+
+        long cachedCount = XPointers.cachedFragmentCount();
+        assertTrue(cachedCount <= XPointers.MAX_CACHED_XPOINTERS, "Too many cached fragments: " + cachedCount);
+        assertTrue(cachedCount > XPointers.MAX_CACHED_XPOINTERS / 2, "Too few cached fragments: " + cachedCount);
+    }
+}
@@ -0,0 +1,123 @@
+/*
+ * Copyright 2024-2024 Chris de Vreeze
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.cdevreeze.xbrl4j.instance.oim;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests of the memory-mapped CSV parser, including rows crossing window boundaries and rows larger than
+ * the initial window. In the same package as the (package-private) parser.
+ *
+ * @author Chris de Vreeze
+ */
+public class CsvParserTests {
+
+    private static final String SAMPLE_CSV =
+            "concept,entity,value\r\n" +
+                    "sample:Assets,scheme:E1,1000\r\n" +
+                    "sample:Description,\"scheme:E1\",\"Line 1\nLine 2, with \"\"quotes\"\"\"\n" +
+                    ",,\n" +
+                    "sample:Name,scheme:E1,Z\u00FCrich \u20AC\r" +
+                    "sample:Empty,scheme:E1,\"\"";
+
+    private static final List<List<String>> SAMPLE_ROWS = List.of(
+            List.of("concept", "entity", "value"),
+            List.of("sample:Assets", "scheme:E1", "1000"),
+            List.of("sample:Description", "scheme:E1", "Line 1\nLine 2, with \"quotes\""),
+            List.of("", "", ""),
+            List.of("sample:Name", "scheme:E1", "Z\u00FCrich \u20AC"),
+            List.of("sample:Empty", "scheme:E1", "")
+    );
+
+    @Test
+    public void testParseRows() throws IOException {
+        Path file = writeTempFile(SAMPLE_CSV.getBytes(StandardCharsets.UTF_8));
+
+        assertEquals(SAMPLE_ROWS, parse(file, new CsvParser()));
+    }
+
+    @Test
+    public void testByteOrderMark() throws IOException {
+        byte[] csv = SAMPLE_CSV.getBytes(StandardCharsets.UTF_8);
+        byte[] csvWithBom = new byte[csv.length + 3];
+        csvWithBom[0] = (byte) 0xEF;
+        csvWithBom[1] = (byte) 0xBB;
+        csvWithBom[2] = (byte) 0xBF;
+        System.arraycopy(csv, 0, csvWithBom, 3, csv.length);
+        Path file = writeTempFile(csvWithBom);
+
+        assertEquals(SAMPLE_ROWS, parse(file, new CsvParser()));
+        assertEquals(SAMPLE_ROWS, parse(file, new CsvParser(2)));
+    }
+
+    @Test
+    public void testAllWindowBoundaries() throws IOException {
+        byte[] csv = (SAMPLE_CSV + "\r\n").getBytes(StandardCharsets.UTF_8);
+        Path file = writeTempFile(csv);
+
+        // Every window size up to the file size puts window boundaries at different places, including inside
+        // quoted fields, between CR and LF, inside multibyte characters and inside doubled quotes
+        for (int windowSize = 1; windowSize <= csv.length + 1; windowSize++) {
+            assertEquals(SAMPLE_ROWS, parse(file, new CsvParser(windowSize)), "Window size " + windowSize);
+        }
+    }
+
+    @Test
+    public void testRowLargerThanWindow() throws IOException {
+        String largeValue = "x".repeat(100_000);
+        String csv = "a,b\n1,\"" + largeValue + "\"\n2," + largeValue + "\n3,c\n";
+        Path file = writeTempFile(csv.getBytes(StandardCharsets.UTF_8));
+
+        // The window is doubled until the large rows fit
+        List<List<String>> rows = parse(file, new CsvParser(16));
+
+        assertEquals(
+                List.of(List.of("a", "b"), List.of("1", largeValue), List.of("2", largeValue), List.of("3", "c")),
+                rows);
+    }
+
+    @Test
+    public void testSyntaxErrors() throws IOException {
+        Path unterminated = writeTempFile("a,\"b\n".getBytes(StandardCharsets.UTF_8));
+        Path textAfterQuote = writeTempFile("a,\"b\"c\n".getBytes(StandardCharsets.UTF_8));
+
+        assertThrows(IllegalStateException.class, () -> parse(unterminated, new CsvParser()));
+        assertThrows(IllegalStateException.class, () -> parse(textAfterQuote, new CsvParser()));
+        assertThrows(IllegalArgumentException.class, () -> new CsvParser(0));
+    }
+
+    private static List<List<String>> parse(Path file, CsvParser parser) throws IOException {
+        List<List<String>> rows = new ArrayList<>();
+        parser.forEachRow(file, row -> rows.add(List.copyOf(row)));
+        return rows;
+    }
+
+    private static Path writeTempFile(byte[] content) throws IOException {
+        Path file = Files.createTempFile("csv-parser", ".csv");
+        file.toFile().deleteOnExit();
+        return Files.write(file, content);
+    }
+}
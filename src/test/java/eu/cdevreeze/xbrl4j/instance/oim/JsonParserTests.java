@@ -0,0 +1,163 @@
+/*
+ * Copyright 2024-2024 Chris de Vreeze
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.cdevreeze.xbrl4j.instance.oim;
+
+import eu.cdevreeze.xbrl4j.instance.oim.JsonParser.Token;
+import org.junit.jupiter.api.Test;
+
+import java.io.FilterReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests of the token-level JSON parser. In the same package as the (package-private) parser.
+ *
+ * @author Chris de Vreeze
+ */
+public class JsonParserTests {
+
+    private static final String SAMPLE_JSON = """
+            {"facts": {
+               "f1": {"value": "1000", "decimals": -2, "dimensions": {"concept": "sample:Assets"}},
+               "f2": {"value": null, "flag": true, "other": false, "list": [1.5e3, [], {}]}
+             },
+             "text": "A \\"quoted\\" \\\\ \\/ \\n \\u00e9\\u20AC"
+            }
+            """;
+
+    @Test
+    public void testTokens() throws IOException {
+        List<Token> tokens = new ArrayList<>();
+        List<String> texts = new ArrayList<>();
+        JsonParser parser = new JsonParser(new StringReader(SAMPLE_JSON));
+
+        while (parser.next() != Token.END_DOCUMENT) {
+            tokens.add(parser.token());
+            if (parser.token() == Token.NAME || parser.token() == Token.STRING || parser.token() == Token.NUMBER) {
+                texts.add(parser.text());
+            }
+        }
+
+        assertEquals(
+                List.of(
+                        Token.BEGIN_OBJECT, Token.NAME, Token.BEGIN_OBJECT,
+                        Token.NAME, Token.BEGIN_OBJECT, Token.NAME, Token.STRING, Token.NAME, Token.NUMBER,
+                        Token.NAME, Token.BEGIN_OBJECT, Token.NAME, Token.STRING, Token.END_OBJECT, Token.END_OBJECT,
+                        Token.NAME, Token.BEGIN_OBJECT, Token.NAME, Token.NULL, Token.NAME, Token.TRUE, Token.NAME, Token.FALSE,
+                        Token.NAME, Token.BEGIN_ARRAY, Token.NUMBER, Token.BEGIN_ARRAY, Token.END_ARRAY,
+                        Token.BEGIN_OBJECT, Token.END_OBJECT, Token.END_ARRAY, Token.END_OBJECT,
+                        Token.END_OBJECT, Token.NAME, Token.STRING, Token.END_OBJECT),
+                tokens);
+        assertEquals(
+                List.of("facts", "f1", "value", "1000", "decimals", "-2", "dimensions", "concept", "sample:Assets",
+                        "f2", "value", "flag", "other", "list", "1.5e3", "text", "A \"quoted\" \\ / \n \u00e9\u20ac"),
+                texts);
+    }
+
+    @Test
+    public void testReadAndSkipValues() throws IOException {
+        JsonParser parser = new JsonParser(new StringReader(SAMPLE_JSON));
+        parser.next();
+
+        assertEquals(Token.NAME, parser.next());
+        parser.next();
+        parser.skipValue();
+        assertEquals(Token.END_OBJECT, parser.token());
+
+        assertEquals(Token.NAME, parser.next());
+        assertEquals("text", parser.text());
+        parser.next();
+        parser.skipValue();
+        assertEquals(Token.STRING, parser.token());
+        assertEquals(Token.END_OBJECT, parser.next());
+        assertEquals(Token.END_DOCUMENT, parser.next());
+
+        JsonParser valueParser = new JsonParser(new StringReader(SAMPLE_JSON));
+        valueParser.next();
+        Map<?, ?> document = (Map<?, ?>) valueParser.readValue();
+        Map<?, ?> f2 = (Map<?, ?>) ((Map<?, ?>) document.get("facts")).get("f2");
+
+        assertSame(JsonParser.NULL, f2.get("value"));
+        assertEquals(Boolean.TRUE, f2.get("flag"));
+        assertEquals(List.of(new BigDecimal("1.5e3"), List.of(), Map.of()), f2.get("list"));
+    }
+
+    @Test
+    public void testBufferBoundaries() throws IOException {
+        // Strings, escapes, numbers and literals crossing buffer boundaries, both with a reader returning one
+        // character at a time, and with a document larger than the parser buffer
+        assertEquals(readAll(new StringReader(SAMPLE_JSON)), readAll(new OneCharReader(new StringReader(SAMPLE_JSON))));
+
+        String longValue = "x\\\"".repeat(5000);
+        String json = "{\"a\": [" + "12345678, null, true, ".repeat(1000) + "\"" + longValue + "\"]}";
+        List<String> texts = readAll(new StringReader(json));
+
+        assertEquals(readAll(new OneCharReader(new StringReader(json))), texts);
+        assertEquals(3002, texts.size());
+        assertEquals("x\"".repeat(5000), texts.get(texts.size() - 1));
+    }
+
+    @Test
+    public void testSyntaxErrors() {
+        assertThrows(IllegalStateException.class, () -> readAll(new StringReader("{\"a\": 1")));
+        assertThrows(IllegalStateException.class, () -> readAll(new StringReader("{\"a\": 1]")));
+        assertThrows(IllegalStateException.class, () -> readAll(new StringReader("{a: 1}")));
+        assertThrows(IllegalStateException.class, () -> readAll(new StringReader("{\"a\" 1}")));
+        assertThrows(IllegalStateException.class, () -> readAll(new StringReader("[\"abc]")));
+        assertThrows(IllegalStateException.class, () -> readAll(new StringReader("[nul]")));
+        assertThrows(IllegalStateException.class, () -> readAll(new StringReader("[\"\\x\"]")));
+    }
+
+    /**
+     * Returns the texts (or token names, for tokens without text) of all tokens of the document.
+     */
+    private static List<String> readAll(Reader reader) throws IOException {
+        List<String> result = new ArrayList<>();
+        JsonParser parser = new JsonParser(reader);
+
+        while (parser.next() != Token.END_DOCUMENT) {
+            switch (parser.token()) {
+                case STRING, NUMBER -> result.add(parser.text());
+                case NAME -> result.add(parser.text() + ":");
+                case NULL, TRUE, FALSE -> result.add(parser.token().toString());
+                default -> {
+                    // Structural tokens are implied by the other tokens in these tests
+                }
+            }
+        }
+        return result;
+    }
+
+    private static final class OneCharReader extends FilterReader {
+
+        OneCharReader(Reader in) {
+            super(in);
+        }
+
+        @Override
+        public int read(char[] buffer, int offset, int length) throws IOException {
+            return super.read(buffer, offset, Math.min(length, 1));
+        }
+    }
+}
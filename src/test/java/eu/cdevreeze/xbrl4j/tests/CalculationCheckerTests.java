@@ -0,0 +1,118 @@
+/*
+ * Copyright 2024-2024 Chris de Vreeze
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.cdevreeze.xbrl4j.tests;
+
+import eu.cdevreeze.xbrl4j.instance.index.FactIndex;
+import eu.cdevreeze.xbrl4j.instance.validation.CalculationChecker;
+import eu.cdevreeze.xbrl4j.instance.validation.CalculationChecker.CalculationInconsistency;
+import eu.cdevreeze.xbrl4j.instance.validation.CalculationChecker.Mode;
+import eu.cdevreeze.xbrl4j.taxonomy.TaxonomyBase;
+import org.junit.jupiter.api.Test;
+
+import javax.xml.namespace.QName;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+
+import static eu.cdevreeze.xbrl4j.tests.support.SampleFiles.createTaxonomyBase;
+import static eu.cdevreeze.xbrl4j.tests.support.SampleFiles.readInstanceComponents;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests of the calculation checker, in calc 1.0 and calc 1.1 (round-to-nearest) mode. Not a unit test.
+ * Uses the sample taxonomy and instances in the test resources.
+ *
+ * @author Chris de Vreeze
+ */
+public class CalculationCheckerTests {
+
+    private static final QName ASSETS = new QName("http://example.com/sample", "Assets");
+
+    @Test
+    public void testDuplicateRelationshipsCountOnce() {
+        // Without the wrong Assets-to-Cash relationship, the duplicate relationships are the only risk
+        TaxonomyBase taxonomyBase = createTaxonomyBase(List.of("sample.xsd", "sample-cal.xml", "sample-cal-ext.xml"));
+        CalculationChecker checker = CalculationChecker.create(taxonomyBase);
+        FactIndex factIndex = createFactIndex(taxonomyBase, "sample-instance.xml");
+
+        assertEquals(2, checker.summationCount());
+        assertEquals(List.of(), checker.findInconsistencies(factIndex, Mode.CALC_1_0));
+        assertEquals(List.of(), checker.findInconsistencies(factIndex, Mode.CALC_1_1_ROUND_TO_NEAREST));
+    }
+
+    @Test
+    public void testProhibitedRelationship() {
+        TaxonomyBase taxonomyBase = createTaxonomyBase(List.of("sample.xsd", "sample-cal.xml"));
+        CalculationChecker checker = CalculationChecker.create(taxonomyBase);
+        FactIndex factIndex = createFactIndex(taxonomyBase, "sample-instance.xml");
+
+        // The Assets-to-Cash relationship is not prohibited here, so Cash is counted in Assets as well
+        for (Mode mode : Mode.values()) {
+            List<CalculationInconsistency> inconsistencies = checker.findInconsistencies(factIndex, mode);
+
+            assertEquals(List.of("f1", "f6"), inconsistencies.stream().map(i -> i.totalFact().idOption().orElseThrow()).toList());
+            assertTrue(inconsistencies.stream().allMatch(i -> i.totalConcept().equals(ASSETS) && i.mode() == mode));
+            assertEquals(new BigDecimal("1150"), inconsistencies.get(0).roundedSum());
+            assertEquals(new BigDecimal("1000"), inconsistencies.get(0).roundedTotal());
+        }
+    }
+
+    @Test
+    public void testRoundingInCalc10() {
+        TaxonomyBase taxonomyBase = createTaxonomyBase(List.of("sample.xsd", "sample-cal.xml", "sample-cal-ext.xml"));
+        CalculationChecker checker = CalculationChecker.create(taxonomyBase);
+        FactIndex factIndex = createFactIndex(taxonomyBase, "sample-calc-rounding.xml");
+
+        List<CalculationInconsistency> inconsistencies = checker.findInconsistencies(factIndex, Mode.CALC_1_0);
+
+        assertEquals(List.of("R2"), inconsistencies.stream().map(i -> i.totalFact().contextRef()).toList());
+        assertEquals(new BigDecimal("3"), inconsistencies.get(0).roundedSum());
+        assertEquals(new BigDecimal("2"), inconsistencies.get(0).roundedTotal());
+    }
+
+    @Test
+    public void testRoundingInCalc11() {
+        TaxonomyBase taxonomyBase = createTaxonomyBase(List.of("sample.xsd", "sample-cal.xml", "sample-cal-ext.xml"));
+        CalculationChecker checker = CalculationChecker.create(taxonomyBase);
+        FactIndex factIndex = createFactIndex(taxonomyBase, "sample-calc-rounding.xml");
+
+        List<CalculationInconsistency> inconsistencies =
+                checker.findInconsistencies(factIndex, Mode.CALC_1_1_ROUND_TO_NEAREST);
+
+        assertEquals(List.of("R1", "R3", "R4"), inconsistencies.stream().map(i -> i.totalFact().contextRef()).toList());
+        assertEquals(new BigDecimal("2"), inconsistencies.get(0).roundedSum());
+        assertEquals(new BigDecimal("0.8"), inconsistencies.get(1).roundedSum());
+        assertEquals(new BigDecimal("0.9"), inconsistencies.get(1).roundedTotal());
+        assertEquals(new BigDecimal("200"), inconsistencies.get(2).roundedSum());
+    }
+
+    @Test
+    public void testStreamingConsumer() {
+        TaxonomyBase taxonomyBase = createTaxonomyBase(List.of("sample.xsd", "sample-cal.xml", "sample-cal-ext.xml"));
+        CalculationChecker checker = CalculationChecker.create(taxonomyBase);
+        FactIndex factIndex = createFactIndex(taxonomyBase, "sample-calc-rounding.xml");
+
+        List<CalculationInconsistency> consumed = new ArrayList<>();
+        checker.check(factIndex, Mode.CALC_1_1_ROUND_TO_NEAREST, consumed::add);
+
+        assertEquals(checker.findInconsistencies(factIndex, Mode.CALC_1_1_ROUND_TO_NEAREST), consumed);
+    }
+
+    private static FactIndex createFactIndex(TaxonomyBase taxonomyBase, String instanceUri) {
+        return FactIndex.build(readInstanceComponents(instanceUri), taxonomyBase.conceptIndex());
+    }
+}
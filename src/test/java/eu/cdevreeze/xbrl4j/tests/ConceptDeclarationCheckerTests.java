@@ -0,0 +1,104 @@
+/*
+ * Copyright 2024-2024 Chris de Vreeze
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.cdevreeze.xbrl4j.tests;
+
+import eu.cdevreeze.xbrl4j.taxonomy.ItemTypes;
+import eu.cdevreeze.xbrl4j.taxonomy.ItemTypes.ItemKind;
+import eu.cdevreeze.xbrl4j.taxonomy.TaxonomyBase;
+import eu.cdevreeze.xbrl4j.taxonomy.validation.ConceptDeclarationChecker;
+import eu.cdevreeze.xbrl4j.taxonomy.validation.ConceptDeclarationChecker.Check;
+import eu.cdevreeze.xbrl4j.taxonomy.validation.ConceptDeclarationChecker.ConceptViolation;
+import org.junit.jupiter.api.Test;
+
+import javax.xml.namespace.QName;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import static eu.cdevreeze.xbrl4j.model.Names.XBRLI_NS;
+import static eu.cdevreeze.xbrl4j.tests.support.SampleFiles.createTaxonomyBase;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests of item type classification and of the concept declaration checker. Not a unit test. Uses the sample
+ * taxonomy in the test resources.
+ *
+ * @author Chris de Vreeze
+ */
+public class ConceptDeclarationCheckerTests {
+
+    private static final String TYPES_NS = "http://example.com/sample-types";
+
+    @Test
+    public void testItemTypeDerivationChains() {
+        TaxonomyBase taxonomyBase = createTaxonomyBase(List.of("sample.xsd", "sample-types.xsd"));
+        ItemTypes itemTypes = ItemTypes.from(taxonomyBase);
+
+        assertEquals(ItemKind.PURE, itemTypes.itemKind(new QName(TYPES_NS, "percentItemType")));
+        assertEquals(ItemKind.PURE, itemTypes.itemKind(new QName(TYPES_NS, "marginItemType")));
+        assertEquals(ItemKind.OTHER_NUMERIC, itemTypes.itemKind(new QName(TYPES_NS, "perShareItemType")));
+        assertEquals(ItemKind.NON_NUMERIC, itemTypes.itemKind(new QName(TYPES_NS, "codeItemType")));
+        assertEquals(ItemKind.UNKNOWN, itemTypes.itemKind(new QName(TYPES_NS, "cyclicAItemType")));
+        assertEquals(ItemKind.UNKNOWN, itemTypes.itemKind(new QName(TYPES_NS, "externalItemType")));
+        assertEquals(ItemKind.UNKNOWN, itemTypes.itemKind(new QName(TYPES_NS, "noSuchItemType")));
+
+        assertEquals(ItemKind.MONETARY, itemTypes.itemKind(new QName(XBRLI_NS, "monetaryItemType")));
+        assertEquals(ItemKind.FRACTION, itemTypes.itemKind(new QName(XBRLI_NS, "fractionItemType")));
+        assertEquals(ItemKind.OTHER_NUMERIC, ItemTypes.xbrliItemKind(new QName(XBRLI_NS, "positiveIntegerItemType")));
+        assertEquals(ItemKind.NON_NUMERIC, ItemTypes.xbrliItemKind(new QName(XBRLI_NS, "stringItemType")));
+        assertEquals(ItemKind.UNKNOWN, ItemTypes.xbrliItemKind(new QName(TYPES_NS, "percentItemType")));
+
+        assertTrue(itemTypes.isNumeric(new QName(TYPES_NS, "marginItemType")));
+        assertFalse(itemTypes.isNumeric(new QName(TYPES_NS, "codeItemType")));
+        assertFalse(itemTypes.isNumeric(new QName(TYPES_NS, "externalItemType")));
+
+        assertEquals(
+                new QName(XBRLI_NS, "pureItemType"),
+                taxonomyBase.findTypeDefinition(new QName(TYPES_NS, "percentItemType")).orElseThrow()
+                        .baseTypeOption().orElseThrow());
+        assertEquals(7, taxonomyBase.typeDefinitionsByName().size());
+    }
+
+    @Test
+    public void testConceptDeclarationViolations() {
+        TaxonomyBase taxonomyBase = createTaxonomyBase(List.of("sample.xsd", "sample-types.xsd"));
+        List<ConceptViolation> violations = ConceptDeclarationChecker.create(taxonomyBase).findViolations();
+
+        Map<String, List<Check>> checksByConcept = violations.stream()
+                .collect(Collectors.groupingBy(
+                        v -> v.conceptName().getLocalPart(),
+                        Collectors.mapping(ConceptViolation::check, Collectors.toList())));
+
+        // The balance check is skipped for Cyclic and External, whose types cannot be classified
+        assertEquals(
+                Map.of(
+                        "Margin", List.of(Check.BALANCE),
+                        "Remark", List.of(Check.BALANCE),
+                        "Equity", List.of(Check.PERIOD_TYPE),
+                        "Liabilities", List.of(Check.PERIOD_TYPE, Check.BALANCE)
+                ),
+                checksByConcept);
+        assertTrue(violations.stream().allMatch(v -> v.conceptName().getNamespaceURI().equals(TYPES_NS)));
+    }
+
+    @Test
+    public void testNoViolationsInValidTaxonomy() {
+        TaxonomyBase taxonomyBase = createTaxonomyBase(List.of("sample.xsd"));
+
+        assertEquals(List.of(), ConceptDeclarationChecker.create(taxonomyBase).findViolations());
+    }
+}
@@ -0,0 +1,161 @@
+/*
+ * Copyright 2024-2024 Chris de Vreeze
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.cdevreeze.xbrl4j.tests;
+
+import com.google.common.collect.ImmutableList;
+import eu.cdevreeze.xbrl4j.instance.*;
+import eu.cdevreeze.xbrl4j.instance.canonical.ContextCanonicalizer;
+import eu.cdevreeze.xbrl4j.instance.canonical.ContextKey;
+import eu.cdevreeze.xbrl4j.instance.canonical.UnitKey;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+import static eu.cdevreeze.xbrl4j.tests.support.SampleFiles.readInstanceComponents;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests of context and unit canonicalization. Not a unit test. Uses the sample instances in the test resources.
+ *
+ * @author Chris de Vreeze
+ */
+public class ContextCanonicalizerTests {
+
+    @Test
+    public void testSEqualContextsShareOneKey() {
+        ContextCanonicalizer canonicalizer = createCanonicalizer();
+
+        // c1 and c2 (instant date versus date-time), c4 and c5 (member order, prefixes and whitespace), d1 and d2
+        assertEquals(canonicalizer.contextKeyIdOrMinusOne("c1"), canonicalizer.contextKeyIdOrMinusOne("c2"));
+        assertEquals(canonicalizer.contextKeyIdOrMinusOne("c4"), canonicalizer.contextKeyIdOrMinusOne("c5"));
+        assertEquals(canonicalizer.contextKeyIdOrMinusOne("d1"), canonicalizer.contextKeyIdOrMinusOne("d2"));
+        assertSame(canonicalizer.findContextKey("c4").orElseThrow(), canonicalizer.findContextKey("c5").orElseThrow());
+
+        // Other entity, other member, scenario instead of segment, other period type
+        assertNotEquals(canonicalizer.contextKeyIdOrMinusOne("c1"), canonicalizer.contextKeyIdOrMinusOne("c3"));
+        assertNotEquals(canonicalizer.contextKeyIdOrMinusOne("c4"), canonicalizer.contextKeyIdOrMinusOne("c6"));
+        assertNotEquals(canonicalizer.contextKeyIdOrMinusOne("c4"), canonicalizer.contextKeyIdOrMinusOne("c7"));
+        assertNotEquals(canonicalizer.contextKeyIdOrMinusOne("c1"), canonicalizer.contextKeyIdOrMinusOne("f1"));
+
+        // 10 contexts, 3 of which are s-equal to an earlier one
+        assertEquals(7, canonicalizer.distinctContextCount());
+        assertEquals(7, canonicalizer.contextKeys().size());
+        assertEquals(-1, canonicalizer.contextKeyIdOrMinusOne("unknown"));
+        assertEquals(Optional.empty(), canonicalizer.findContextKey("unknown"));
+    }
+
+    @Test
+    public void testDenseIdsAndCanonicalContexts() {
+        ContextCanonicalizer canonicalizer = createCanonicalizer();
+
+        ImmutableList<ContextKey> keys = canonicalizer.contextKeys();
+
+        for (int i = 0; i < keys.size(); i++) {
+            assertEquals(i, keys.get(i).id());
+            assertSame(keys.get(i), canonicalizer.contextKey(i));
+        }
+
+        // The first context added is the canonical one
+        assertEquals("c1", canonicalizer.findCanonicalContext("c2").orElseThrow().id());
+        assertEquals("c4", canonicalizer.findCanonicalContext("c5").orElseThrow().id());
+        assertEquals("c4", canonicalizer.canonicalContext(ContextKey.from(contextById("c5"))).id());
+
+        ContextKey key = canonicalizer.findContextKey("c1").orElseThrow();
+        LocalDateTime endOfYear = LocalDateTime.of(2024, 1, 1, 0, 0);
+
+        assertEquals(Optional.of(new PeriodInterval(endOfYear, endOfYear)), key.periodIntervalOption());
+        assertEquals(new EntityIdentifier("http://example.com/entity", "E1"), key.entityIdentifier());
+        assertEquals(
+                Optional.of(PeriodInterval.FOREVER),
+                canonicalizer.findContextKey("f1").orElseThrow().periodIntervalOption());
+
+        // Not interned keys have no ID, and the ID is not part of equality
+        ContextKey uninternedKey = ContextKey.from(contextById("c2"));
+
+        assertEquals(-1, uninternedKey.id());
+        assertEquals(key, uninternedKey);
+        assertEquals(key.hashCode(), uninternedKey.hashCode());
+    }
+
+    @Test
+    public void testDimensionalContent() {
+        ContextCanonicalizer canonicalizer = createCanonicalizer();
+
+        ContextKey key = canonicalizer.findContextKey("c5").orElseThrow();
+
+        // Sorted by dimension, so the typed CustomerAxis comes before the explicit RegionAxis
+        assertEquals(2, key.segmentContent().size());
+        assertTrue(key.segmentContent().get(0).startsWith("{http://example.com/sample}CustomerAxis="));
+        assertEquals(
+                "{http://example.com/sample}RegionAxis={http://example.com/sample}Europe",
+                key.segmentContent().get(1));
+        assertEquals(List.of(), key.scenarioContent());
+
+        TypedMember typedMember = (TypedMember) contextById("c5").segmentDimensions().get(0);
+
+        assertEquals(
+                "<{http://example.com/sample}CustomerId>C001</{http://example.com/sample}CustomerId>",
+                ContextKey.canonicalMemberString(typedMember));
+        assertEquals(key.segmentContent(), canonicalizer.findContextKey("c7").orElseThrow().scenarioContent());
+    }
+
+    @Test
+    public void testSEqualUnitsShareOneKey() {
+        ContextCanonicalizer canonicalizer = createCanonicalizer();
+
+        assertEquals(canonicalizer.unitKeyIdOrMinusOne("u1"), canonicalizer.unitKeyIdOrMinusOne("u2"));
+        assertEquals(canonicalizer.unitKeyIdOrMinusOne("u3"), canonicalizer.unitKeyIdOrMinusOne("u4"));
+        assertNotEquals(canonicalizer.unitKeyIdOrMinusOne("u1"), canonicalizer.unitKeyIdOrMinusOne("u3"));
+        assertNotEquals(canonicalizer.unitKeyIdOrMinusOne("u3"), canonicalizer.unitKeyIdOrMinusOne("u5"));
+        assertEquals(3, canonicalizer.distinctUnitCount());
+
+        assertEquals("u3", canonicalizer.findCanonicalUnit("u4").orElseThrow().id());
+
+        UnitKey key = canonicalizer.findUnitKey("u4").orElseThrow();
+
+        assertEquals(2, key.numerators().size());
+        // Sorted by namespace and local name
+        assertEquals("http://www.xbrl.org/2003/instance", key.numerators().get(0).getNamespaceURI());
+        assertEquals("http://www.xbrl.org/2003/iso4217", key.numerators().get(1).getNamespaceURI());
+        assertEquals(List.of(), key.denominators());
+        assertEquals(1, canonicalizer.findUnitKey("u5").orElseThrow().denominators().size());
+        assertEquals(-1, canonicalizer.unitKeyIdOrMinusOne("unknown"));
+    }
+
+    private static ContextCanonicalizer createCanonicalizer() {
+        ContextCanonicalizer canonicalizer = new ContextCanonicalizer();
+
+        for (InstanceComponent component : readInstanceComponents("sample-contexts.xml")) {
+            if (component instanceof Context context) {
+                canonicalizer.addContext(context);
+            } else if (component instanceof Unit unit) {
+                canonicalizer.addUnit(unit);
+            }
+        }
+        return canonicalizer;
+    }
+
+    private static Context contextById(String id) {
+        return readInstanceComponents("sample-contexts.xml").stream()
+                .filter(c -> c instanceof Context ctx && ctx.id().equals(id))
+                .map(c -> (Context) c)
+                .findFirst()
+                .orElseThrow();
+    }
+}
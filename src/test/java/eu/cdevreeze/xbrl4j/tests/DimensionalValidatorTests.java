@@ -0,0 +1,126 @@
+/*
+ * Copyright 2024-2024 Chris de Vreeze
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.cdevreeze.xbrl4j.tests;
+
+import eu.cdevreeze.xbrl4j.instance.Context;
+import eu.cdevreeze.xbrl4j.instance.InstanceComponent;
+import eu.cdevreeze.xbrl4j.instance.index.FactIndex;
+import eu.cdevreeze.xbrl4j.instance.validation.DimensionalValidator;
+import eu.cdevreeze.xbrl4j.instance.validation.DimensionalValidator.DimensionalViolation;
+import eu.cdevreeze.xbrl4j.taxonomy.TaxonomyBase;
+import org.junit.jupiter.api.Test;
+
+import javax.xml.namespace.QName;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import static eu.cdevreeze.xbrl4j.tests.support.SampleFiles.createTaxonomyBase;
+import static eu.cdevreeze.xbrl4j.tests.support.SampleFiles.readInstanceComponents;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests of the dimensional validator. Not a unit test. Uses the dimensional sample taxonomy and instance
+ * in the test resources, with "all" and "notAll" hypercubes, targetRole attributes, a default member, an
+ * unusable member and a typed dimension.
+ *
+ * @author Chris de Vreeze
+ */
+public class DimensionalValidatorTests {
+
+    private static final String NS = "http://example.com/sample-dim";
+
+    private static final QName REVENUE = new QName(NS, "Revenue");
+    private static final QName COSTS = new QName(NS, "Costs");
+    private static final QName HEADCOUNT = new QName(NS, "Headcount");
+
+    @Test
+    public void testHasHypercubes() {
+        DimensionalValidator validator = DimensionalValidator.create(createDimensionalTaxonomyBase());
+
+        assertTrue(validator.hasHypercubes(REVENUE));
+        assertTrue(validator.hasHypercubes(COSTS));
+        assertTrue(validator.hasHypercubes(new QName(NS, "SalesLineItems")));
+        assertFalse(validator.hasHypercubes(HEADCOUNT));
+        assertFalse(validator.hasHypercubes(new QName(NS, "Europe")));
+        assertFalse(validator.hasHypercubes(new QName(NS, "Unknown")));
+    }
+
+    @Test
+    public void testFindViolations() {
+        TaxonomyBase taxonomyBase = createDimensionalTaxonomyBase();
+        DimensionalValidator validator = DimensionalValidator.create(taxonomyBase);
+        FactIndex factIndex = FactIndex.build(readInstanceComponents("sample-dim.xml"), taxonomyBase.conceptIndex());
+
+        assertEquals(13, factIndex.factCount());
+
+        List<DimensionalViolation> violations = validator.findViolations(factIndex);
+
+        assertEquals(List.of(2, 3, 4, 6, 9), violations.stream().map(DimensionalViolation::factId).toList());
+        assertEquals(
+                List.of("f2", "f3", "f4", "f6", "f9"),
+                violations.stream().map(v -> v.fact().idOption().orElseThrow()).toList());
+        assertTrue(violations.stream().allMatch(v -> v.fact().equals(factIndex.fact(v.factId()))));
+    }
+
+    @Test
+    public void testValidityPerContext() {
+        DimensionalValidator validator = DimensionalValidator.create(createDimensionalTaxonomyBase());
+        Map<String, Context> contexts = readContexts();
+
+        assertTrue(validator.isDimensionallyValid(REVENUE, contexts.get("Europe_C1")));
+        assertTrue(validator.isDimensionallyValid(REVENUE, contexts.get("Asia_C2")));
+        // Japan is a member of Asia, so it is an allowed member of the RegionAxis
+        assertTrue(validator.isDimensionallyValid(REVENUE, contexts.get("Japan_C1")));
+        // The default member is used when the RegionAxis is absent, but must not occur explicitly
+        assertTrue(validator.isDimensionallyValid(REVENUE, contexts.get("C1")));
+        assertFalse(validator.isDimensionallyValid(REVENUE, contexts.get("AllRegions_C1")));
+        // The typed CustomerAxis has no default member
+        assertFalse(validator.isDimensionallyValid(REVENUE, contexts.get("Europe")));
+        assertFalse(validator.isDimensionallyValid(REVENUE, contexts.get("Antarctica_C1")));
+        // The hypercube is closed, and only constrains the segment
+        assertFalse(validator.isDimensionallyValid(REVENUE, contexts.get("Europe_C1_Product")));
+        assertTrue(validator.isDimensionallyValid(REVENUE, contexts.get("C1_EuropeInScenario")));
+
+        assertTrue(validator.isDimensionallyValid(HEADCOUNT, contexts.get("Europe")));
+    }
+
+    @Test
+    public void testNotAllHypercube() {
+        DimensionalValidator validator = DimensionalValidator.create(createDimensionalTaxonomyBase());
+        Map<String, Context> contexts = readContexts();
+
+        assertFalse(validator.isDimensionallyValid(COSTS, contexts.get("Japan_C1")));
+        assertTrue(validator.isDimensionallyValid(COSTS, contexts.get("Europe_C1")));
+        assertTrue(validator.isDimensionallyValid(COSTS, contexts.get("Asia_C2")));
+        // The default member AllRegions is not in the domain of the excluding hypercube
+        assertTrue(validator.isDimensionallyValid(COSTS, contexts.get("C1")));
+    }
+
+    private static TaxonomyBase createDimensionalTaxonomyBase() {
+        return createTaxonomyBase(List.of("sample-dim.xsd", "sample-dim-def.xml"));
+    }
+
+    private static Map<String, Context> readContexts() {
+        List<InstanceComponent> components = readInstanceComponents("sample-dim.xml");
+        return components.stream()
+                .filter(c -> c instanceof Context)
+                .map(c -> (Context) c)
+                .collect(Collectors.toMap(Context::id, Function.identity()));
+    }
+}
@@ -0,0 +1,98 @@
+/*
+ * Copyright 2024-2024 Chris de Vreeze
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.cdevreeze.xbrl4j.tests;
+
+import com.google.common.collect.ImmutableList;
+import eu.cdevreeze.xbrl4j.instance.Fact;
+import eu.cdevreeze.xbrl4j.instance.InstanceComponent;
+import eu.cdevreeze.xbrl4j.instance.validation.DuplicateFactDetector;
+import eu.cdevreeze.xbrl4j.instance.validation.DuplicateFactDetector.Classification;
+import eu.cdevreeze.xbrl4j.instance.validation.DuplicateFactDetector.DuplicateSet;
+import org.junit.jupiter.api.Test;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+
+import static eu.cdevreeze.xbrl4j.tests.support.SampleFiles.readInstanceComponents;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Tests of the duplicate fact detector. Not a unit test. Uses the sample instances in the test resources.
+ *
+ * @author Chris de Vreeze
+ */
+public class DuplicateFactDetectorTests {
+
+    @Test
+    public void testFindDuplicates() {
+        List<DuplicateSet> duplicateSets = DuplicateFactDetector.findDuplicates(readInstanceComponents("sample-duplicates.xml"));
+
+        assertEquals(
+                List.of(
+                        Map.entry(List.of("a1", "a2"), Classification.COMPLETE),
+                        Map.entry(List.of("c1", "c2"), Classification.COMPLETE),
+                        Map.entry(List.of("r1", "r2"), Classification.CONSISTENT),
+                        Map.entry(List.of("ca1", "ca2"), Classification.INCONSISTENT),
+                        Map.entry(List.of("n1", "n2"), Classification.INCONSISTENT),
+                        Map.entry(List.of("d1", "d2"), Classification.COMPLETE),
+                        Map.entry(List.of("k1", "k2"), Classification.INCONSISTENT),
+                        Map.entry(List.of("t1", "t2"), Classification.COMPLETE)
+                ),
+                duplicateSets.stream().map(s -> Map.entry(ids(s), s.classification())).toList());
+    }
+
+    @Test
+    public void testDecimalsInferredFromPrecision() {
+        List<DuplicateSet> duplicateSets = DuplicateFactDetector.findDuplicates(readInstanceComponents("sample-duplicates.xml"));
+
+        // Precision 4 of 1234 is the same as decimals 0, so these facts are complete duplicates
+        DuplicateSet cashSet = duplicateSets.stream().filter(s -> ids(s).contains("c1")).findFirst().orElseThrow();
+        assertEquals(Classification.COMPLETE, cashSet.classification());
+
+        // Precision 2 of 1200 implies decimals -2, not INF
+        DuplicateSet receivablesSet = duplicateSets.stream().filter(s -> ids(s).contains("r1")).findFirst().orElseThrow();
+        assertEquals(Classification.CONSISTENT, receivablesSet.classification());
+    }
+
+    @Test
+    public void testFactsBeforeContextsAndUnits() {
+        ImmutableList<InstanceComponent> components = readInstanceComponents("sample-duplicates.xml");
+        // Facts first, then contexts and units, so all facts are pending until the end
+        List<InstanceComponent> reordered = components.stream()
+                .sorted(Comparator.comparing(c -> !(c instanceof Fact)))
+                .toList();
+
+        DuplicateFactDetector detector = DuplicateFactDetector.newInstance();
+        reordered.forEach(detector);
+
+        assertEquals(DuplicateFactDetector.findDuplicates(components), detector.finish());
+    }
+
+    @Test
+    public void testNoDuplicates() {
+        List<InstanceComponent> components = readInstanceComponents("sample-duplicates.xml").stream()
+                .filter(c -> !(c instanceof Fact f) || f.idOption().map(id -> id.endsWith("1")).orElse(false))
+                .toList();
+
+        assertEquals(List.of(), DuplicateFactDetector.findDuplicates(components));
+    }
+
+    private static List<String> ids(DuplicateSet duplicateSet) {
+        return duplicateSet.facts().stream().map(f -> f.idOption().orElseThrow()).toList();
+    }
+}
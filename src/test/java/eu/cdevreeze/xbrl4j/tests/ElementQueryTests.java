@@ -0,0 +1,358 @@
+/*
+ * Copyright 2024-2024 Chris de Vreeze
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.cdevreeze.xbrl4j.tests;
+
+import eu.cdevreeze.xbrl4j.common.dom.AncestryAwareElement;
+import eu.cdevreeze.xbrl4j.common.dom.saxon.SaxonDocument;
+import eu.cdevreeze.xbrl4j.common.dom.saxon.SaxonNodes;
+import eu.cdevreeze.xbrl4j.common.xpointer.XPointer;
+import eu.cdevreeze.xbrl4j.common.xpointer.XPointers;
+import eu.cdevreeze.xbrl4j.model.XmlElement;
+import eu.cdevreeze.xbrl4j.model.factory.SchemaContext;
+import eu.cdevreeze.xbrl4j.model.factory.XmlElementFactory;
+import eu.cdevreeze.xbrl4j.model.internal.XmlElementImpl;
+import net.sf.saxon.s9api.Processor;
+import net.sf.saxon.s9api.SaxonApiException;
+import net.sf.saxon.s9api.XdmNode;
+import org.junit.jupiter.api.Test;
+
+import javax.xml.namespace.QName;
+import javax.xml.transform.stream.StreamSource;
+import java.io.StringReader;
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static eu.cdevreeze.xbrl4j.tests.support.SampleFiles.sampleTaxonomyRootDir;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests of element queries that have cheaper implementations than their Predicate-based counterparts, such as
+ * name-filtered queries. The results are compared with those counterparts. Uses Saxon trees of the sample taxonomy
+ * in the test resources, and some small in-memory documents.
+ *
+ * @author Chris de Vreeze
+ */
+public class ElementQueryTests {
+
+    private static final String LINK_NS = "http://www.xbrl.org/2003/linkbase";
+    private static final String XS_NS = "http://www.w3.org/2001/XMLSchema";
+
+    private static final Processor processor = new Processor(false);
+
+    private static final List<String> SAMPLE_DOCUMENTS =
+            List.of("sample.xsd", "sample-dim.xsd", "sample-lab.xml", "sample-def.xml", "sample-gen-lab.xml", "sample-ref.xml");
+
+    // Same local names in different namespaces, no namespace, and a default namespace
+    private static final String MIXED_NAMESPACES_XML = """
+            <root xmlns:a="http://example.com/a" xmlns:b="http://example.com/b">
+                <a:item>1</a:item>
+                <b:item>2</b:item>
+                <item>3</item>
+                <a:group>
+                    <a:item>4</a:item>
+                    <item xmlns="http://example.com/b">5</item>
+                    <a:group><b:item>6</b:item></a:group>
+                </a:group>
+                <!-- comment --><?pi data?>
+                <item/>
+            </root>
+            """;
+
+    @Test
+    public void testNameFilteredQueries() {
+        for (SaxonNodes.Element rootElement : sampleRootElements()) {
+            Set<QName> names = rootElement.elementStream().map(SaxonNodes.Element::elementName).collect(Collectors.toSet());
+
+            for (SaxonNodes.Element element : rootElement.elementStream().toList()) {
+                for (QName name : names) {
+                    assertEquals(
+                            element.elementStream(e -> e.elementName().equals(name)).toList(),
+                            element.elementStream(name).toList());
+                    assertEquals(
+                            element.childElementStream(e -> e.elementName().equals(name)).toList(),
+                            element.childElementStream(name).toList());
+                    assertEquals(
+                            element.descendantElementStream(e -> e.elementName().equals(name)).toList(),
+                            element.descendantElementStream(name).toList());
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testNamespaceFilteredQueries() {
+        for (SaxonNodes.Element rootElement : sampleRootElements()) {
+            Set<String> namespaces =
+                    rootElement.elementStream().map(e -> e.elementName().getNamespaceURI()).collect(Collectors.toSet());
+            assertTrue(namespaces.contains(XS_NS) || namespaces.contains(LINK_NS));
+
+            for (SaxonNodes.Element element : rootElement.elementStream().toList()) {
+                for (String namespace : namespaces) {
+                    assertEquals(
+                            element.elementStream(e -> e.elementName().getNamespaceURI().equals(namespace)).toList(),
+                            element.elementStreamInNamespace(namespace).toList());
+                    assertEquals(
+                            element.childElementStream(e -> e.elementName().getNamespaceURI().equals(namespace)).toList(),
+                            element.childElementStreamInNamespace(namespace).toList());
+                    assertEquals(
+                            element.descendantElementStream(e -> e.elementName().getNamespaceURI().equals(namespace)).toList(),
+                            element.descendantElementStreamInNamespace(namespace).toList());
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testNameFilteredQueriesWithMixedNamespaces() {
+        SaxonNodes.Element rootElement = parse(MIXED_NAMESPACES_XML);
+
+        assertEquals(List.of("1", "4"), texts(rootElement.elementStream(new QName("http://example.com/a", "item"))));
+        assertEquals(List.of("2", "5", "6"), texts(rootElement.elementStream(new QName("http://example.com/b", "item"))));
+        assertEquals(List.of("3", ""), texts(rootElement.elementStream(new QName("item"))));
+        assertEquals(List.of("3", ""), texts(rootElement.childElementStream(new QName("item"))));
+        assertEquals(List.of(), texts(rootElement.childElementStream(new QName("http://example.com/b", "group"))));
+        assertEquals(List.of(new QName("root")), names(rootElement.elementStream(new QName("root"))));
+        assertEquals(List.of(), names(rootElement.descendantElementStream(new QName("root"))));
+
+        assertEquals(List.of("1", "4"), texts(rootElement.elementStreamInNamespace("http://example.com/a")
+                .filter(e -> e.elementName().getLocalPart().equals("item"))));
+        assertEquals(List.of("root", "item", "item"), localNames(rootElement.elementStreamInNamespace("")));
+        assertEquals(List.of("item", "item"), localNames(rootElement.descendantElementStreamInNamespace("")));
+        assertEquals(List.of("item"), localNames(rootElement.childElementStreamInNamespace("http://example.com/b")));
+        assertEquals(List.of(), names(rootElement.elementStreamInNamespace("http://example.com/c")));
+    }
+
+    @Test
+    public void testNameFilteredXmlElementQueries() {
+        XmlElementFactory factory = new XmlElementFactory(SchemaContext.defaultInstance());
+
+        for (SaxonNodes.Element underlyingRootElement : sampleRootElements()) {
+            XmlElement rootElement = factory.createXmlElement(underlyingRootElement);
+            Set<QName> names = rootElement.elementStream().map(XmlElement::elementName).collect(Collectors.toSet());
+
+            for (XmlElement element : rootElement.elementStream().toList()) {
+                for (QName name : names) {
+                    assertEquals(
+                            underlying(element.elementStream(e -> e.elementName().equals(name))),
+                            underlying(element.elementStream(name)));
+                    assertEquals(
+                            underlying(element.childElementStream(e -> e.elementName().equals(name))),
+                            underlying(element.childElementStream(name)));
+                    assertEquals(
+                            underlying(element.descendantElementStream(e -> e.elementName().equals(name))),
+                            underlying(element.descendantElementStream(name)));
+                    assertEquals(
+                            underlying(element.elementStream(e -> e.elementName().getNamespaceURI().equals(name.getNamespaceURI()))),
+                            underlying(element.elementStreamInNamespace(name.getNamespaceURI())));
+                }
+            }
+
+            // The results are created by the same element factory, so they are typed like the other query results
+            for (QName name : names) {
+                assertEquals(
+                        rootElement.elementStream(e -> e.elementName().equals(name)).map(Object::getClass).toList(),
+                        rootElement.elementStream(name).map(Object::getClass).toList());
+            }
+        }
+    }
+
+    @Test
+    public void testTopmostXmlElementQueries() {
+        XmlElementFactory factory = new XmlElementFactory(SchemaContext.defaultInstance());
+
+        for (SaxonNodes.Element underlyingRootElement : sampleRootElements()) {
+            XmlElement rootElement = factory.createXmlElement(underlyingRootElement);
+            Set<QName> names = rootElement.elementStream().map(XmlElement::elementName).collect(Collectors.toSet());
+
+            for (XmlElement element : rootElement.elementStream().toList()) {
+                SaxonNodes.Element underlyingElement = (SaxonNodes.Element) ((XmlElementImpl) element).underlyingElement();
+
+                for (QName name : names) {
+                    assertEquals(
+                            underlyingElement.topmostElementStream(e -> e.elementName().equals(name)).toList(),
+                            underlying(element.topmostElementStream(e -> e.elementName().equals(name))));
+                    assertEquals(
+                            underlyingElement.topmostDescendantElementOrSelfStream(e -> e.elementName().equals(name)).toList(),
+                            underlying(element.topmostDescendantElementOrSelfStream(e -> e.elementName().equals(name))));
+                    assertEquals(
+                            underlyingElement.topmostDescendantElementStream(e -> e.elementName().equals(name)).toList(),
+                            underlying(element.topmostDescendantElementStream(e -> e.elementName().equals(name))));
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testTopmostXmlElementQueriesWrapEachElementOnce() {
+        XmlElementFactory factory = new XmlElementFactory(SchemaContext.defaultInstance());
+        XmlElement rootElement = factory.createXmlElement(parse(MIXED_NAMESPACES_XML));
+        QName groupName = new QName("http://example.com/a", "group");
+
+        List<XmlElement> testedElements = new ArrayList<>();
+        List<XmlElement> groups = rootElement.topmostElementStream(e -> {
+            testedElements.add(e);
+            return e.elementName().equals(groupName);
+        }).toList();
+
+        // The returned element is the very wrapper that satisfied the predicate
+        assertEquals(1, groups.size());
+        assertSame(groups.get(0), testedElements.stream().filter(e -> e.elementName().equals(groupName)).findFirst().orElseThrow());
+
+        // The root and its 5 child elements are tested once each, and the descendants of the match are never visited
+        assertEquals(6, testedElements.size());
+        assertEquals(
+                List.of("root", "item", "item", "item", "group", "item"),
+                testedElements.stream().map(e -> e.elementName().getLocalPart()).toList());
+
+        testedElements.clear();
+        assertEquals(List.of(), rootElement.topmostDescendantElementStream(e -> {
+            testedElements.add(e);
+            return e.elementName().getLocalPart().equals("root");
+        }).toList());
+        assertEquals(rootElement.descendantElementStream().count(), testedElements.size());
+    }
+
+    @Test
+    public void testChildElementOption() {
+        List<SaxonNodes.Element> rootElements = new ArrayList<>(sampleRootElements());
+        rootElements.add(parse(MIXED_NAMESPACES_XML));
+
+        for (SaxonNodes.Element rootElement : rootElements) {
+            for (SaxonNodes.Element element : rootElement.elementStream().toList()) {
+                List<SaxonNodes.Element> childElements = element.childElementStream().toList();
+
+                for (int i = -1; i <= childElements.size() + 1; i++) {
+                    Optional<SaxonNodes.Element> expected =
+                            (i >= 0 && i < childElements.size()) ? Optional.of(childElements.get(i)) : Optional.empty();
+                    assertEquals(expected, element.childElementOption(i));
+                }
+            }
+        }
+
+        // Text, comments and processing instructions do not count
+        SaxonNodes.Element rootElement = parse(MIXED_NAMESPACES_XML);
+        assertEquals(Optional.of(new QName("item")), rootElement.childElementOption(4).map(SaxonNodes.Element::elementName));
+        assertEquals(Optional.empty(), rootElement.childElementOption(5));
+        assertEquals(Optional.empty(), rootElement.childElementOption(Integer.MAX_VALUE));
+    }
+
+    @Test
+    public void testChildSequencePointers() {
+        XmlElementFactory factory = new XmlElementFactory(SchemaContext.defaultInstance());
+
+        for (SaxonNodes.Element rootElement : sampleRootElements()) {
+            XmlElement xmlRootElement = factory.createXmlElement(rootElement);
+
+            for (SaxonNodes.Element element : rootElement.elementStream().toList()) {
+                String childSequence = childSequence(element);
+                XPointer xpointer = XPointers.parseXPointer("element(" + childSequence + ")");
+
+                // Indexed child access for AncestryAwareElement, and skipping over child elements otherwise
+                assertEquals(Optional.of(element), XPointers.findElement(rootElement, xpointer));
+                assertEquals(
+                        Optional.of(element),
+                        XPointers.findElement(xmlRootElement, xpointer).map(e -> ((XmlElementImpl) e).underlyingElement()));
+
+                int childCount = (int) element.childElementStream().count();
+                XPointer pastLastChildPointer = XPointers.parseXPointer("element(" + childSequence + "/" + (childCount + 1) + ")");
+                assertEquals(Optional.empty(), XPointers.findElement(rootElement, pastLastChildPointer));
+                assertEquals(Optional.empty(), XPointers.findElement(xmlRootElement, pastLastChildPointer));
+            }
+
+            // There is only one root element
+            XPointer secondRootPointer = XPointers.parseXPointer("element(/2)");
+            assertThrows(IllegalArgumentException.class, () -> XPointers.findElement(rootElement, secondRootPointer));
+        }
+    }
+
+    @Test
+    public void testIdChildSequencePointers() {
+        SaxonNodes.Element rootElement = parse(sampleTaxonomyRootDir().resolve("sample.xsd"));
+        SaxonNodes.Element elementWithId = rootElement.elementStream(e -> e.attributeOption(new QName("id")).isPresent())
+                .filter(e -> e.childElementStream().findAny().isPresent())
+                .findFirst()
+                .orElseThrow();
+        String id = elementWithId.attribute(new QName("id"));
+
+        List<SaxonNodes.Element> childElements = elementWithId.childElementStream().toList();
+        for (int i = 0; i < childElements.size(); i++) {
+            XPointer xpointer = XPointers.parseXPointer("element(" + id + "/" + (i + 1) + ")");
+            assertEquals(Optional.of(childElements.get(i)), XPointers.findElement(rootElement, xpointer));
+        }
+
+        XPointer pastLastChildPointer = XPointers.parseXPointer("element(" + id + "/" + (childElements.size() + 1) + ")");
+        assertEquals(Optional.empty(), XPointers.findElement(rootElement, pastLastChildPointer));
+        assertEquals(Optional.empty(), XPointers.findElement(rootElement, XPointers.parseXPointer("element(unknown-id/1)")));
+    }
+
+    /**
+     * Returns the one-based child sequence of the given element, starting at the root element.
+     */
+    private static String childSequence(SaxonNodes.Element element) {
+        Optional<SaxonNodes.Element> parentOption = element.parentElementOption();
+
+        if (parentOption.isEmpty()) {
+            return "/1";
+        } else {
+            int position = parentOption.get().childElementStream().toList().indexOf(element) + 1;
+            return childSequence(parentOption.get()) + "/" + position;
+        }
+    }
+
+    private static List<SaxonNodes.Element> sampleRootElements() {
+        return SAMPLE_DOCUMENTS.stream().map(d -> parse(sampleTaxonomyRootDir().resolve(d))).toList();
+    }
+
+    private static List<AncestryAwareElement<?>> underlying(Stream<? extends XmlElement> elements) {
+        return elements.<AncestryAwareElement<?>>map(e -> ((XmlElementImpl) e).underlyingElement()).toList();
+    }
+
+    private static List<String> texts(Stream<SaxonNodes.Element> elements) {
+        return elements.map(SaxonNodes.Element::text).toList();
+    }
+
+    private static List<QName> names(Stream<SaxonNodes.Element> elements) {
+        return elements.map(SaxonNodes.Element::elementName).toList();
+    }
+
+    private static List<String> localNames(Stream<SaxonNodes.Element> elements) {
+        return elements.map(e -> e.elementName().getLocalPart()).toList();
+    }
+
+    private static SaxonNodes.Element parse(URI uri) {
+        try {
+            XdmNode docNode = processor.newDocumentBuilder().build(new StreamSource(uri.toString()));
+            return new SaxonDocument(docNode).withUri(uri).documentElement();
+        } catch (SaxonApiException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    private static SaxonNodes.Element parse(String xml) {
+        try {
+            XdmNode docNode = processor.newDocumentBuilder().build(new StreamSource(new StringReader(xml)));
+            return new SaxonDocument(docNode).documentElement();
+        } catch (SaxonApiException e) {
+            throw new RuntimeException(e);
+        }
+    }
+}
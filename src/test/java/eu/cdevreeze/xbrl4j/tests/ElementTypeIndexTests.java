@@ -0,0 +1,190 @@
+/*
+ * Copyright 2024-2024 Chris de Vreeze
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.cdevreeze.xbrl4j.tests;
+
+import eu.cdevreeze.xbrl4j.common.dom.AncestryAwareElement;
+import eu.cdevreeze.xbrl4j.common.dom.saxon.SaxonDocument;
+import eu.cdevreeze.xbrl4j.model.OtherXmlElement;
+import eu.cdevreeze.xbrl4j.model.XmlElement;
+import eu.cdevreeze.xbrl4j.model.factory.SchemaContext;
+import eu.cdevreeze.xbrl4j.model.factory.XmlElementFactory;
+import eu.cdevreeze.xbrl4j.model.internal.XmlElementImpl;
+import eu.cdevreeze.xbrl4j.model.link.*;
+import eu.cdevreeze.xbrl4j.model.xl.XlElement;
+import eu.cdevreeze.xbrl4j.model.xs.ElementDeclaration;
+import eu.cdevreeze.xbrl4j.model.xs.SchemaElement;
+import net.sf.saxon.s9api.Processor;
+import net.sf.saxon.s9api.SaxonApiException;
+import net.sf.saxon.s9api.XdmNode;
+import org.junit.jupiter.api.Test;
+
+import javax.xml.namespace.QName;
+import javax.xml.transform.stream.StreamSource;
+import java.io.StringReader;
+import java.net.URI;
+import java.util.List;
+import java.util.function.Predicate;
+import java.util.stream.Stream;
+
+import static eu.cdevreeze.xbrl4j.tests.support.SampleFiles.sampleTaxonomyRootDir;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests of the typed element queries of XmlElement implementations, which use a per-document element type index.
+ * They are compared with the corresponding untyped queries, which filter on the element class. Uses the sample
+ * taxonomy in the test resources.
+ *
+ * @author Chris de Vreeze
+ */
+public class ElementTypeIndexTests {
+
+    private static final String LINK_NS = "http://www.xbrl.org/2003/linkbase";
+
+    private static final Processor processor = new Processor(false);
+
+    private static final List<Class<? extends XmlElement>> ELEMENT_CLASSES = List.of(
+            XmlElement.class,
+            OtherXmlElement.class,
+            SchemaElement.class,
+            ElementDeclaration.class,
+            LinkElement.class,
+            XlElement.class,
+            Loc.class,
+            LabelArc.class,
+            Label.class,
+            DefinitionArc.class
+    );
+
+    private static final List<String> SAMPLE_DOCUMENTS =
+            List.of("sample.xsd", "sample-dim.xsd", "sample-lab.xml", "sample-def.xml", "sample-dim-def.xml", "sample-gen-lab.xml");
+
+    @Test
+    public void testTypedQueriesMatchUntypedQueries() {
+        XmlElementFactory factory = new XmlElementFactory(SchemaContext.defaultInstance());
+
+        for (String document : SAMPLE_DOCUMENTS) {
+            XmlElement rootElement = factory.createXmlElement(parse(sampleTaxonomyRootDir().resolve(document)));
+
+            for (XmlElement element : rootElement.elementStream().toList()) {
+                for (Class<? extends XmlElement> cls : ELEMENT_CLASSES) {
+                    assertTypedQueriesMatchUntypedQueries(element, cls);
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testTopmostTypedQueries() {
+        XmlElementFactory factory = new XmlElementFactory(SchemaContext.defaultInstance());
+        XmlElement rootElement = factory.createXmlElement(parse(sampleTaxonomyRootDir().resolve("sample-lab.xml")));
+
+        // Links are the topmost XL elements, so the arcs, locators and resources within them are skipped
+        List<XlElement> topmostXlElements = rootElement.topmostElementStream(XlElement.class, e -> true).toList();
+        assertFalse(topmostXlElements.isEmpty());
+        assertTrue(topmostXlElements.stream().allMatch(e -> e instanceof LabelLink));
+
+        List<Label> labels = rootElement.topmostElementStream(Label.class, e -> true).toList();
+        assertEquals(rootElement.elementStream(Label.class).count(), labels.size());
+        assertEquals(List.of(), rootElement.topmostDescendantElementStream(Linkbase.class, e -> true).toList());
+        assertEquals(1, rootElement.topmostDescendantElementOrSelfStream(Linkbase.class, e -> true).count());
+    }
+
+    @Test
+    public void testDifferentFactoriesOnSameDocument() {
+        QName sectionName = new QName("http://example.com/my", "Section");
+        AncestryAwareElement<?> underlyingRootElement = parse("""
+                <link:linkbase xmlns:link="http://www.xbrl.org/2003/linkbase"
+                               xmlns:xlink="http://www.w3.org/1999/xlink"
+                               xmlns:my="http://example.com/my">
+                    <link:referenceLink xlink:type="extended" xlink:role="http://www.xbrl.org/2003/role/link">
+                        <link:reference xlink:type="resource" xlink:label="r1">
+                            <my:Section>1</my:Section>
+                        </link:reference>
+                    </link:referenceLink>
+                </link:linkbase>
+                """);
+
+        XmlElementFactory defaultFactory = new XmlElementFactory(SchemaContext.defaultInstance());
+        XmlElementFactory extendedFactory =
+                new XmlElementFactory(SchemaContext.defaultInstance().plus(sectionName, new QName(LINK_NS, "part")));
+
+        XmlElement rootElement1 = defaultFactory.createXmlElement(underlyingRootElement);
+        XmlElement rootElement2 = extendedFactory.createXmlElement(underlyingRootElement);
+
+        // Both factories share the document, but each one gets its own index
+        assertEquals(List.of(), names(rootElement1.elementStream(Part.class)));
+        assertEquals(List.of(sectionName), names(rootElement2.elementStream(Part.class)));
+        assertEquals(List.of(sectionName), names(rootElement1.elementStream(OtherXmlElement.class)));
+        assertEquals(List.of(), names(rootElement2.elementStream(OtherXmlElement.class)));
+        assertEquals(List.of(sectionName), names(rootElement1.descendantElementStream(OtherXmlElement.class)));
+    }
+
+    @Test
+    public void testDeeplyNestedDocument() {
+        int depth = 20_000;
+        String xml = "<a>".repeat(depth) + "<link:label xmlns:link=\"http://www.xbrl.org/2003/linkbase\"/>" +
+                "</a>".repeat(depth);
+        XmlElementFactory factory = new XmlElementFactory(SchemaContext.defaultInstance());
+        XmlElement rootElement = factory.createXmlElement(parse(xml));
+
+        assertEquals(1, rootElement.elementStream(Label.class).count());
+        assertEquals(depth, rootElement.elementStream(OtherXmlElement.class).count());
+        assertEquals(1, rootElement.topmostElementStream(OtherXmlElement.class, e -> true).count());
+    }
+
+    private static <T extends XmlElement> void assertTypedQueriesMatchUntypedQueries(XmlElement element, Class<T> cls) {
+        Predicate<XmlElement> isInstance = cls::isInstance;
+
+        assertEquals(underlying(element.elementStream(isInstance)), underlying(element.elementStream(cls)));
+        assertEquals(underlying(element.elementStream(isInstance)), underlying(element.descendantElementOrSelfStream(cls)));
+        assertEquals(underlying(element.descendantElementStream(isInstance)), underlying(element.descendantElementStream(cls)));
+        assertEquals(underlying(element.childElementStream(isInstance)), underlying(element.childElementStream(cls)));
+        assertEquals(underlying(element.topmostElementStream(isInstance)), underlying(element.topmostElementStream(cls, e -> true)));
+        assertEquals(
+                underlying(element.topmostDescendantElementStream(isInstance)),
+                underlying(element.topmostDescendantElementStream(cls, e -> true)));
+        assertEquals(
+                underlying(element.topmostDescendantElementOrSelfStream(isInstance)),
+                underlying(element.topmostDescendantElementOrSelfStream(cls, e -> true)));
+    }
+
+    private static List<AncestryAwareElement<?>> underlying(Stream<? extends XmlElement> elements) {
+        return elements.<AncestryAwareElement<?>>map(e -> ((XmlElementImpl) e).underlyingElement()).toList();
+    }
+
+    private static List<QName> names(Stream<? extends XmlElement> elements) {
+        return elements.map(XmlElement::elementName).toList();
+    }
+
+    private static AncestryAwareElement<?> parse(URI uri) {
+        try {
+            XdmNode docNode = processor.newDocumentBuilder().build(new StreamSource(uri.toString()));
+            return new SaxonDocument(docNode).withUri(uri).documentElement();
+        } catch (SaxonApiException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    private static AncestryAwareElement<?> parse(String xml) {
+        try {
+            XdmNode docNode = processor.newDocumentBuilder().build(new StreamSource(new StringReader(xml)));
+            return new SaxonDocument(docNode).documentElement();
+        } catch (SaxonApiException e) {
+            throw new RuntimeException(e);
+        }
+    }
+}
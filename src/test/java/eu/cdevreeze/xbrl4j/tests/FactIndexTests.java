@@ -0,0 +1,140 @@
+/*
+ * Copyright 2024-2024 Chris de Vreeze
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.cdevreeze.xbrl4j.tests;
+
+import eu.cdevreeze.xbrl4j.instance.EntityIdentifier;
+import eu.cdevreeze.xbrl4j.instance.ItemFact;
+import eu.cdevreeze.xbrl4j.instance.PeriodInterval;
+import eu.cdevreeze.xbrl4j.instance.index.FactIndex;
+import eu.cdevreeze.xbrl4j.instance.index.FactQuery;
+import eu.cdevreeze.xbrl4j.taxonomy.TaxonomyBase;
+import org.junit.jupiter.api.Test;
+
+import javax.xml.namespace.QName;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.List;
+import java.util.OptionalInt;
+
+import static eu.cdevreeze.xbrl4j.tests.support.SampleFiles.createTaxonomyBase;
+import static eu.cdevreeze.xbrl4j.tests.support.SampleFiles.readInstanceComponents;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests of the multi-aspect fact index. Not a unit test. Uses the sample taxonomy and instances in the test resources.
+ *
+ * @author Chris de Vreeze
+ */
+public class FactIndexTests {
+
+    private static final String NS = "http://example.com/sample";
+    private static final String OTHER_NS = "http://example.com/other";
+
+    static final QName ASSETS = new QName(NS, "Assets");
+    private static final QName CASH = new QName(NS, "Cash");
+    private static final QName RECEIVABLES = new QName(NS, "Receivables");
+    static final QName REVENUE = new QName(OTHER_NS, "Revenue");
+    private static final QName REGION_AXIS = new QName(NS, "RegionAxis");
+    private static final QName PRODUCT_AXIS = new QName(NS, "ProductAxis");
+
+    private static final LocalDateTime END_OF_2023 = LocalDateTime.of(2024, 1, 1, 0, 0);
+
+    @Test
+    public void testIndexedFacts() {
+        TaxonomyBase taxonomyBase = createTaxonomyBase(List.of("sample.xsd"));
+        FactIndex factIndex = createFactIndex(taxonomyBase);
+
+        // The fact with an unknown context is not indexed, but the one nested in a tuple is
+        assertEquals(13, factIndex.factCount());
+        assertEquals(RECEIVABLES, factIndex.fact(12).name());
+        assertTrue(factIndex.facts().stream().noneMatch(f -> f.contextRef().equals("Missing")));
+
+        assertEquals(taxonomyBase.conceptIndex().conceptIdOrMinusOne(ASSETS), factIndex.conceptId(0));
+        assertEquals(OptionalInt.of(factIndex.conceptId(0)), factIndex.conceptIdOption(ASSETS));
+
+        // Concepts not in the taxonomy get IDs beyond those of the concept index
+        assertTrue(factIndex.conceptIdOption(REVENUE).orElseThrow() >= taxonomyBase.conceptIndex().size());
+        assertEquals(OptionalInt.empty(), factIndex.conceptIdOption(new QName(OTHER_NS, "NoSuchConcept")));
+
+        assertEquals(-1, factIndex.periodId(11));
+        assertNotEquals(factIndex.entityId(2), factIndex.entityId(7));
+        assertEquals(factIndex.entityId(2), factIndex.entityId(4));
+        assertEquals(factIndex.unitKeyId(0), factIndex.unitKeyId(10));
+        assertEquals(-1, factIndex.unitKeyId(11));
+        assertEquals(factIndex.contextKeyId(0), factIndex.contextKeyId(2));
+        assertEquals(factIndex.contextKeyId(0), factIndex.contextCanonicalizer().contextKeyIdOrMinusOne("I2023"));
+    }
+
+    @Test
+    public void testConjunctiveQueries() {
+        FactIndex factIndex = createFactIndex(createTaxonomyBase(List.of("sample.xsd")));
+        FactQuery cashQuery = FactQuery.defaultInstance().withConcept(CASH);
+
+        assertArrayEquals(new int[]{2, 3, 4, 5, 6, 7}, factIndex.findFactIds(cashQuery));
+        assertArrayEquals(
+                new int[]{2, 4, 5, 6},
+                factIndex.findFactIds(cashQuery
+                        .withEntity(new EntityIdentifier("http://example.com/entity", "E1"))
+                        .withPeriod(new PeriodInterval(END_OF_2023, END_OF_2023))));
+        assertArrayEquals(
+                new int[]{4, 6},
+                factIndex.findFactIds(cashQuery.withExplicitDimensionMember(REGION_AXIS, new QName(NS, "Europe"))));
+        assertArrayEquals(
+                new int[]{6},
+                factIndex.findFactIds(cashQuery
+                        .withExplicitDimensionMember(REGION_AXIS, new QName(NS, "Europe"))
+                        .withDimension(PRODUCT_AXIS)));
+        assertArrayEquals(new int[]{4, 5, 6}, factIndex.findFactIds(FactQuery.defaultInstance().withDimension(REGION_AXIS)));
+
+        assertEquals(
+                List.of("1000", "900"),
+                factIndex.findFacts(FactQuery.defaultInstance().withConcept(ASSETS)).stream().map(ItemFact::value).toList());
+        assertEquals(3, factIndex.countFacts(FactQuery.defaultInstance().withConcept(REVENUE)));
+        assertEquals(13, factIndex.countFacts(FactQuery.defaultInstance()));
+    }
+
+    @Test
+    public void testQueriesWithUnknownAspectValues() {
+        FactIndex factIndex = createFactIndex(createTaxonomyBase(List.of("sample.xsd")));
+
+        // Concept in the taxonomy without facts, concept unknown to both, and unknown entity, period or member
+        assertEquals(0, factIndex.countFacts(FactQuery.defaultInstance().withConcept(new QName(NS, "NonCurrentAssets"))));
+        assertEquals(0, factIndex.countFacts(FactQuery.defaultInstance().withConcept(new QName(OTHER_NS, "NoSuchConcept"))));
+        assertEquals(0, factIndex.countFacts(
+                FactQuery.defaultInstance().withEntity(new EntityIdentifier("http://example.com/entity", "E3"))));
+        assertEquals(0, factIndex.countFacts(
+                FactQuery.defaultInstance().withPeriod(new PeriodInterval(LocalDateTime.MIN, END_OF_2023))));
+        assertEquals(0, factIndex.countFacts(
+                FactQuery.defaultInstance().withExplicitDimensionMember(REGION_AXIS, new QName(NS, "America"))));
+        assertEquals(0, factIndex.countFacts(
+                FactQuery.defaultInstance().withConcept(CASH).withDimension(new QName(NS, "CustomerAxis"))));
+    }
+
+    @Test
+    public void testFactIdsInAscendingOrder() {
+        FactIndex factIndex = createFactIndex(createTaxonomyBase(List.of("sample.xsd")));
+        int[] factIds = factIndex.findFactIds(FactQuery.defaultInstance()
+                .withEntity(new EntityIdentifier("http://example.com/entity", "E1")));
+
+        assertEquals(12, factIds.length);
+        assertArrayEquals(Arrays.stream(factIds).sorted().toArray(), factIds);
+    }
+
+    static FactIndex createFactIndex(TaxonomyBase taxonomyBase) {
+        return FactIndex.build(readInstanceComponents("sample-facts.xml"), taxonomyBase.conceptIndex());
+    }
+}
@@ -0,0 +1,95 @@
+/*
+ * Copyright 2024-2024 Chris de Vreeze
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.cdevreeze.xbrl4j.tests;
+
+import com.google.common.collect.ImmutableList;
+import eu.cdevreeze.xbrl4j.model.XmlElement;
+import eu.cdevreeze.xbrl4j.model.label.GenericLabel;
+import eu.cdevreeze.xbrl4j.model.link.ArcroleType;
+import eu.cdevreeze.xbrl4j.taxonomy.TaxonomyBase;
+import eu.cdevreeze.xbrl4j.taxonomy.label.LabelStore;
+import eu.cdevreeze.xbrl4j.taxonomy.relationship.GenericRelationshipIndex;
+import org.junit.jupiter.api.Test;
+
+import javax.xml.namespace.QName;
+import java.util.List;
+import java.util.Optional;
+
+import static eu.cdevreeze.xbrl4j.model.Names.ELEMENT_LABEL_ARCROLE;
+import static eu.cdevreeze.xbrl4j.tests.support.SampleFiles.createTaxonomyBase;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests of the generic relationship index. Not a unit test. Uses the sample taxonomy in the test resources.
+ *
+ * @author Chris de Vreeze
+ */
+public class GenericRelationshipIndexTests {
+
+    private static final String NS = "http://example.com/sample";
+    private static final String GENERIC_STANDARD_LABEL_ROLE = "http://www.xbrl.org/2008/role/label";
+
+    @Test
+    public void testGenericLabelsOfNonConcept() {
+        TaxonomyBase taxonomyBase = createTaxonomyBase(List.of("sample.xsd", "sample-gen-lab.xml"));
+        GenericRelationshipIndex index = GenericRelationshipIndex.create(taxonomyBase);
+
+        assertEquals(3, index.relationshipCount());
+        assertEquals(List.of(ELEMENT_LABEL_ARCROLE), index.arcroles());
+
+        ArcroleType arcroleType = taxonomyBase.schemas().get(0).elementStream(ArcroleType.class).findFirst().orElseThrow();
+
+        ImmutableList<GenericRelationshipIndex.GenericRelationship> relationships =
+                index.findOutgoingRelationships(arcroleType, ELEMENT_LABEL_ARCROLE);
+
+        assertEquals(1, relationships.size());
+        assertEquals(ELEMENT_LABEL_ARCROLE, relationships.get(0).arcrole());
+        assertInstanceOf(GenericLabel.class, relationships.get(0).target());
+        assertEquals("No cycles", ((GenericLabel) relationships.get(0).target()).text());
+
+        XmlElement label = relationships.get(0).target();
+
+        assertEquals(1, index.findSources(label, ELEMENT_LABEL_ARCROLE).size());
+        assertEquals(
+                taxonomyBase.findElementHandle(arcroleType),
+                taxonomyBase.findElementHandle(index.findSources(label, ELEMENT_LABEL_ARCROLE).get(0)));
+        assertTrue(index.findTargets(arcroleType, "http://example.com/arcrole/unknown").isEmpty());
+    }
+
+    @Test
+    public void testGenericLabelsOfConcept() {
+        TaxonomyBase taxonomyBase = createTaxonomyBase(List.of("sample.xsd", "sample-gen-lab.xml"));
+        GenericRelationshipIndex index = GenericRelationshipIndex.create(taxonomyBase);
+
+        XmlElement cash = taxonomyBase.findConceptDeclaration(new QName(NS, "Cash")).orElseThrow();
+        long cashHandle = taxonomyBase.findElementHandle(cash).orElseThrow();
+
+        assertEquals(2, index.outgoingRelationshipIds(cashHandle, ELEMENT_LABEL_ARCROLE).count());
+        assertEquals(
+                List.of("Cash", "Liquide middelen"),
+                index.findTargets(cash, ELEMENT_LABEL_ARCROLE).stream()
+                        .map(e -> ((GenericLabel) e).text())
+                        .toList());
+
+        // The same generic labels end up in the label store
+        LabelStore labelStore = LabelStore.create(taxonomyBase);
+
+        assertEquals(
+                Optional.of("Liquide middelen"),
+                labelStore.findLabelWithoutFallback(new QName(NS, "Cash"), GENERIC_STANDARD_LABEL_ROLE, "nl"));
+    }
+}
@@ -0,0 +1,88 @@
+/*
+ * Copyright 2024-2024 Chris de Vreeze
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.cdevreeze.xbrl4j.tests;
+
+import eu.cdevreeze.xbrl4j.instance.inline.InlineTransforms;
+import org.junit.jupiter.api.Test;
+
+import javax.xml.namespace.QName;
+import java.util.List;
+import java.util.function.UnaryOperator;
+
+import static eu.cdevreeze.xbrl4j.model.Names.IXT_TR3_NS;
+import static eu.cdevreeze.xbrl4j.model.Names.IXT_TR4_NS;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests of the Inline XBRL transformation rules.
+ *
+ * @author Chris de Vreeze
+ */
+public class InlineTransformsTests {
+
+    @Test
+    public void testRulesAreOnlyRegisteredInTheirOwnRegistry() {
+        List<String> tr3Names = List.of("numdotdecimal", "numcommadecimal", "zerodash", "nocontent", "datedaymonthyearen");
+        List<String> tr4Names = List.of("num-dot-decimal", "num-comma-decimal", "fixed-zero", "fixed-empty", "date-day-monthname-year-en");
+
+        for (String name : tr3Names) {
+            assertTrue(InlineTransforms.isSupported(new QName(IXT_TR3_NS, name)), name);
+            assertFalse(InlineTransforms.isSupported(new QName(IXT_TR4_NS, name)), name);
+        }
+        for (String name : tr4Names) {
+            assertTrue(InlineTransforms.isSupported(new QName(IXT_TR4_NS, name)), name);
+            assertFalse(InlineTransforms.isSupported(new QName(IXT_TR3_NS, name)), name);
+        }
+        assertTrue(InlineTransforms.findTransform(new QName(IXT_TR4_NS, "unknown")).isEmpty());
+        assertTrue(InlineTransforms.findTransform(new QName("http://example.com/other", "num-dot-decimal")).isEmpty());
+    }
+
+    @Test
+    public void testNumberTransforms() {
+        UnaryOperator<String> numDotDecimal = transform(IXT_TR4_NS, "num-dot-decimal");
+        UnaryOperator<String> numCommaDecimal = transform(IXT_TR4_NS, "num-comma-decimal");
+
+        assertEquals("1234567.89", numDotDecimal.apply(" 1,234,567.89 "));
+        assertEquals("1234567", numDotDecimal.apply("1 234 567"));
+        assertEquals(".5", numDotDecimal.apply(".5"));
+        assertEquals("1234567.89", numCommaDecimal.apply("1.234.567,89"));
+        assertEquals("1234", numCommaDecimal.apply("1'234"));
+        assertEquals("0", transform(IXT_TR3_NS, "zerodash").apply("-"));
+
+        assertThrows(IllegalArgumentException.class, () -> numDotDecimal.apply("12a"));
+        assertThrows(IllegalArgumentException.class, () -> numDotDecimal.apply("-12"));
+        assertThrows(IllegalArgumentException.class, () -> numCommaDecimal.apply("1,2,3"));
+    }
+
+    @Test
+    public void testDateTransforms() {
+        assertEquals("2023-12-31", transform(IXT_TR4_NS, "date-day-month-year").apply("31-12-2023"));
+        assertEquals("2023-12-31", transform(IXT_TR3_NS, "datemonthdayyear").apply("12/31/23"));
+        assertEquals("2023-02-01", transform(IXT_TR4_NS, "date-year-month-day").apply(" 2023.02.01 "));
+        assertEquals("2023-09-05", transform(IXT_TR4_NS, "date-day-monthname-year-en").apply("5 Sept 2023"));
+        assertEquals("2023-12-31", transform(IXT_TR3_NS, "datedaymonthyearen").apply("31 December 2023"));
+        assertEquals("2024-02-29", transform(IXT_TR4_NS, "date-monthname-day-year-en").apply("February 29, 2024"));
+
+        assertThrows(IllegalArgumentException.class, () -> transform(IXT_TR4_NS, "date-day-month-year").apply("31-02-2023"));
+        assertThrows(IllegalArgumentException.class, () -> transform(IXT_TR4_NS, "date-day-monthname-year-en").apply("5 Foo 2023"));
+        assertThrows(IllegalArgumentException.class, () -> transform(IXT_TR4_NS, "date-year-month-day").apply("2023"));
+    }
+
+    private static UnaryOperator<String> transform(String namespace, String localName) {
+        return InlineTransforms.findTransform(new QName(namespace, localName)).orElseThrow();
+    }
+}
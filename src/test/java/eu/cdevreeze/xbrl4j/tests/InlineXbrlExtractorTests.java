@@ -0,0 +1,125 @@
+/*
+ * Copyright 2024-2024 Chris de Vreeze
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.cdevreeze.xbrl4j.tests;
+
+import eu.cdevreeze.xbrl4j.instance.Context;
+import eu.cdevreeze.xbrl4j.instance.DtsReference;
+import eu.cdevreeze.xbrl4j.instance.ItemFact;
+import eu.cdevreeze.xbrl4j.instance.Unit;
+import eu.cdevreeze.xbrl4j.instance.inline.InlineXbrlExtractor;
+import eu.cdevreeze.xbrl4j.instance.inline.InlineXbrlExtractor.InlineIssue;
+import eu.cdevreeze.xbrl4j.instance.inline.InlineXbrlExtractor.Result;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import static eu.cdevreeze.xbrl4j.tests.support.SampleFiles.sampleInstanceUri;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests of the Inline XBRL extractor. Not a unit test. Uses the sample Inline XBRL document in the test resources.
+ *
+ * @author Chris de Vreeze
+ */
+public class InlineXbrlExtractorTests {
+
+    @Test
+    public void testHeaderComponents() {
+        Result result = extractSampleDocument();
+
+        assertEquals(1, result.components().stream().filter(c -> c instanceof DtsReference).count());
+        assertEquals(
+                List.of("I2023", "D2023"),
+                result.components().stream().filter(c -> c instanceof Context).map(c -> ((Context) c).id()).toList());
+        assertEquals(
+                List.of("EUR"),
+                result.components().stream().filter(c -> c instanceof Unit).map(c -> ((Unit) c).id()).toList());
+    }
+
+    @Test
+    public void testNumericFacts() {
+        Map<String, ItemFact> facts = factsById(extractSampleDocument());
+
+        // Transformation first, then scale and sign
+        assertEquals("1234500", facts.get("f1").value());
+        assertEquals(Optional.of("-2"), facts.get("f1").decimalsOption());
+        assertEquals(Optional.of("EUR"), facts.get("f1").unitRefOption());
+        assertEquals("1250.00", facts.get("f2").value());
+        assertEquals("-75", facts.get("f3").value());
+        assertEquals("0", facts.get("f4").value());
+
+        assertTrue(facts.get("f5").nil());
+        assertEquals("", facts.get("f5").value());
+    }
+
+    @Test
+    public void testNonNumericFacts() {
+        Map<String, ItemFact> facts = factsById(extractSampleDocument());
+
+        // Hidden facts are extracted like any other fact
+        assertEquals("2023-12-31", facts.get("h1").value());
+        assertEquals("2023-12-31", facts.get("f6").value());
+        assertEquals(Optional.of("en"), facts.get("f6").langOption());
+        // Continuations are concatenated in order, leaving out excluded content
+        assertEquals("The first part, the second part and the last part.", facts.get("f7").value());
+        assertEquals("<p class=\"x\">A &amp; <b>B</b></p>", facts.get("f8").value());
+    }
+
+    @Test
+    public void testIssues() {
+        Result result = extractSampleDocument();
+        Map<String, ItemFact> facts = factsById(result);
+
+        assertFalse(facts.containsKey("f9"));
+        assertFalse(facts.containsKey("f10"));
+        assertEquals(
+                List.of(Optional.of("f9"), Optional.of("f10")),
+                result.issues().stream().map(InlineIssue::idOption).toList());
+        assertTrue(result.issues().get(0).message().contains("Unsupported format"));
+        assertTrue(result.issues().get(1).message().contains("Missing continuation missing"));
+    }
+
+    @Test
+    public void testDocumentSet() {
+        Path document = Path.of(sampleInstanceUri("sample-inline.xhtml"));
+        Result result = InlineXbrlExtractor.newInstance().extractDocumentSet(List.of(document));
+
+        assertEquals(extractSampleDocument().facts(), result.facts());
+    }
+
+    private static Result extractSampleDocument() {
+        try (InputStream is = sampleInstanceUri("sample-inline.xhtml").toURL().openStream()) {
+            return InlineXbrlExtractor.newInstance().extract(is);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static Map<String, ItemFact> factsById(Result result) {
+        return result.facts().stream()
+                .filter(f -> f.idOption().isPresent())
+                .collect(Collectors.toMap(f -> f.idOption().orElseThrow(), Function.identity()));
+    }
+}
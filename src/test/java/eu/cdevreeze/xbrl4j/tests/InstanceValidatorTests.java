@@ -0,0 +1,105 @@
+/*
+ * Copyright 2024-2024 Chris de Vreeze
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.cdevreeze.xbrl4j.tests;
+
+import com.google.common.collect.ImmutableList;
+import eu.cdevreeze.xbrl4j.instance.InstanceComponent;
+import eu.cdevreeze.xbrl4j.instance.validation.InstanceValidator;
+import eu.cdevreeze.xbrl4j.instance.validation.InstanceValidator.Check;
+import eu.cdevreeze.xbrl4j.instance.validation.InstanceValidator.InstanceViolation;
+import eu.cdevreeze.xbrl4j.taxonomy.TaxonomyBase;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+
+import static eu.cdevreeze.xbrl4j.tests.support.SampleFiles.createTaxonomyBase;
+import static eu.cdevreeze.xbrl4j.tests.support.SampleFiles.readInstanceComponents;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests of the instance validator. Not a unit test. Uses the sample taxonomy and instances in the test resources.
+ *
+ * @author Chris de Vreeze
+ */
+public class InstanceValidatorTests {
+
+    @Test
+    public void testValidInstance() {
+        TaxonomyBase taxonomyBase = createTaxonomyBase(List.of("sample.xsd"));
+
+        assertEquals(List.of(), InstanceValidator.create(taxonomyBase).validate(readInstanceComponents("sample-instance.xml")));
+    }
+
+    @Test
+    public void testViolations() {
+        TaxonomyBase taxonomyBase = createTaxonomyBase(List.of("sample.xsd", "sample-types.xsd"));
+        ImmutableList<InstanceViolation> violations =
+                InstanceValidator.create(taxonomyBase).validate(readInstanceComponents("sample-validation.xml"));
+
+        assertEquals(
+                List.of(
+                        Map.entry(5, Check.DUPLICATE_FACT),
+                        Map.entry(6, Check.PERIOD_TYPE),
+                        Map.entry(7, Check.CONTEXT_REF),
+                        Map.entry(8, Check.UNIT_REF),
+                        Map.entry(9, Check.CONCEPT),
+                        Map.entry(10, Check.ITEM_TYPE),
+                        Map.entry(12, Check.ITEM_TYPE),
+                        Map.entry(13, Check.ITEM_TYPE),
+                        Map.entry(14, Check.DECIMALS_PRECISION)
+                ),
+                violations.stream().map(v -> Map.entry(v.factIndex(), v.check())).toList());
+
+        // Only detected by following the derivation chain of the item type to xbrli:pureItemType
+        assertTrue(violations.get(6).message().startsWith("Pure fact"));
+        assertEquals("Inconsistent duplicate of fact at index 4", violations.get(0).message());
+    }
+
+    @Test
+    public void testOnlyInconsistentDuplicatesReported() {
+        TaxonomyBase taxonomyBase = createTaxonomyBase(List.of("sample.xsd", "sample-types.xsd"));
+        ImmutableList<InstanceViolation> violations =
+                InstanceValidator.create(taxonomyBase).validate(readInstanceComponents("sample-validation.xml"));
+
+        // Facts 0 and 1 are complete duplicates, and facts 2 and 3 are consistent duplicates
+        List<InstanceViolation> duplicateViolations =
+                violations.stream().filter(v -> v.check() == Check.DUPLICATE_FACT).toList();
+
+        assertEquals(1, duplicateViolations.size());
+        assertEquals("600", duplicateViolations.get(0).fact().value());
+    }
+
+    @Test
+    public void testResultIndependentOfChunkSize() {
+        TaxonomyBase taxonomyBase = createTaxonomyBase(List.of("sample.xsd", "sample-types.xsd"));
+        List<InstanceComponent> components = readInstanceComponents("sample-validation.xml");
+        InstanceValidator validator = InstanceValidator.create(taxonomyBase);
+
+        ImmutableList<InstanceViolation> expected = validator.validate(components);
+
+        ForkJoinPool pool = new ForkJoinPool(3);
+        try {
+            assertEquals(expected, validator.withChunkSize(1).validate(components, pool));
+            assertEquals(expected, validator.withChunkSize(4).validate(components, pool));
+        } finally {
+            pool.shutdown();
+        }
+        assertThrows(IllegalArgumentException.class, () -> validator.withChunkSize(0));
+    }
+}
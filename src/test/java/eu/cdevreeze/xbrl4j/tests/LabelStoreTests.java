@@ -0,0 +1,134 @@
+/*
+ * Copyright 2024-2024 Chris de Vreeze
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.cdevreeze.xbrl4j.tests;
+
+import eu.cdevreeze.xbrl4j.common.collection.LongIntHashMap;
+import eu.cdevreeze.xbrl4j.taxonomy.TaxonomyBase;
+import eu.cdevreeze.xbrl4j.taxonomy.label.LabelStore;
+import org.junit.jupiter.api.Test;
+
+import javax.xml.namespace.QName;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+
+import static eu.cdevreeze.xbrl4j.model.Names.STANDARD_LABEL_ROLE;
+import static eu.cdevreeze.xbrl4j.tests.support.SampleFiles.createTaxonomyBase;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests of the label store and its primitive hash map. Not a unit test. Uses the sample taxonomy in the test resources.
+ *
+ * @author Chris de Vreeze
+ */
+public class LabelStoreTests {
+
+    private static final String NS = "http://example.com/sample";
+    private static final String TERSE_LABEL_ROLE = "http://www.xbrl.org/2003/role/terseLabel";
+    private static final String VERBOSE_LABEL_ROLE = "http://www.xbrl.org/2003/role/verboseLabel";
+
+    @Test
+    public void testLabelLookup() {
+        TaxonomyBase taxonomyBase = createTaxonomyBase(List.of("sample.xsd", "sample-lab.xml"));
+        LabelStore labelStore = LabelStore.create(taxonomyBase);
+
+        assertEquals(4, labelStore.labelCount());
+        assertEquals(4, labelStore.distinctLabelTextCount());
+
+        QName assets = new QName(NS, "Assets");
+        QName currentAssets = new QName(NS, "CurrentAssets");
+
+        assertEquals(Optional.of("Assets"), labelStore.findLabelWithoutFallback(assets, STANDARD_LABEL_ROLE, "en"));
+        assertEquals(Optional.of("Activa"), labelStore.findLabelWithoutFallback(assets, STANDARD_LABEL_ROLE, "NL"));
+        assertEquals(Optional.of("Total assets"), labelStore.findLabelWithoutFallback(assets, TERSE_LABEL_ROLE, "en"));
+        assertEquals(Optional.empty(), labelStore.findLabelWithoutFallback(currentAssets, TERSE_LABEL_ROLE, "en"));
+        assertEquals(Optional.empty(), labelStore.findLabelWithoutFallback(new QName(NS, "Cash"), STANDARD_LABEL_ROLE, "en"));
+    }
+
+    @Test
+    public void testLabelFallback() {
+        TaxonomyBase taxonomyBase = createTaxonomyBase(List.of("sample.xsd", "sample-lab.xml"));
+        LabelStore labelStore = LabelStore.create(
+                taxonomyBase,
+                LabelStore.Config.defaultInstance()
+                        .withRoleFallback(VERBOSE_LABEL_ROLE, List.of(TERSE_LABEL_ROLE))
+                        .withDefaultLanguages(List.of("en")));
+
+        QName assets = new QName(NS, "Assets");
+        QName currentAssets = new QName(NS, "CurrentAssets");
+
+        // Role fallback: verbose, then terse, then standard
+        assertEquals(Optional.of("Total assets"), labelStore.findLabel(assets, VERBOSE_LABEL_ROLE, "en"));
+        assertEquals(Optional.of("Current assets"), labelStore.findLabel(currentAssets, VERBOSE_LABEL_ROLE, "en"));
+
+        // Language fallback: "en-GB" falls back to "en", and unknown languages fall back to the default language
+        assertEquals(Optional.of("Assets"), labelStore.findLabel(assets, STANDARD_LABEL_ROLE, "en-GB"));
+        assertEquals(Optional.of("Current assets"), labelStore.findLabel(currentAssets, STANDARD_LABEL_ROLE, "nl"));
+        assertEquals(Optional.of("Activa"), labelStore.findLabel(assets, STANDARD_LABEL_ROLE, "nl-BE"));
+    }
+
+    @Test
+    public void testLanguageFilter() {
+        TaxonomyBase taxonomyBase = createTaxonomyBase(List.of("sample.xsd", "sample-lab.xml"));
+        LabelStore labelStore = LabelStore.create(
+                taxonomyBase,
+                LabelStore.Config.defaultInstance().withLanguages(Set.of("NL")));
+
+        assertEquals(1, labelStore.labelCount());
+        assertEquals(List.of("nl"), labelStore.languages());
+        assertTrue(labelStore.languageIdOption("en").isEmpty());
+    }
+
+    @Test
+    public void testProhibitedLabelIsNotLoaded() {
+        TaxonomyBase taxonomyBase = createTaxonomyBase(List.of("sample.xsd", "sample-lab.xml", "sample-lab-ext.xml"));
+        LabelStore labelStore = LabelStore.create(taxonomyBase);
+
+        QName assets = new QName(NS, "Assets");
+
+        // The base English standard label is prohibited, so the extension label is the only one left
+        assertEquals(Optional.of("Assets (extension)"), labelStore.findLabelWithoutFallback(assets, STANDARD_LABEL_ROLE, "en"));
+        assertEquals(Optional.of("Activa"), labelStore.findLabelWithoutFallback(assets, STANDARD_LABEL_ROLE, "nl"));
+        assertEquals(4, labelStore.labelCount());
+    }
+
+    @Test
+    public void testLongIntHashMap() {
+        LongIntHashMap.Builder builder = LongIntHashMap.builder();
+
+        // Enough entries to force several resizes, with keys that differ only in their high bits
+        for (int i = 0; i < 10_000; i++) {
+            builder.put(((long) i << 32) | 7, i);
+        }
+        assertFalse(builder.putIfAbsent(7L, 100));
+        assertTrue(builder.putIfAbsent(-1L, -5));
+        builder.put(7L, 0);
+
+        LongIntHashMap map = builder.build();
+
+        assertEquals(10_001, map.size());
+        assertEquals(9_999, map.get((9_999L << 32) | 7, -1));
+        assertEquals(0, map.get(7L, -1));
+        assertEquals(-5, map.get(-1L, 0));
+        assertTrue(map.containsKey(-1L));
+        assertFalse(map.containsKey(8L));
+        assertEquals(-1, map.get(8L, -1));
+
+        assertEquals(0, LongIntHashMap.empty().size());
+        assertFalse(LongIntHashMap.empty().containsKey(0L));
+    }
+}
@@ -0,0 +1,123 @@
+/*
+ * Copyright 2024-2024 Chris de Vreeze
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.cdevreeze.xbrl4j.tests;
+
+import com.google.common.collect.ImmutableList;
+import eu.cdevreeze.xbrl4j.model.link.ArcroleType;
+import eu.cdevreeze.xbrl4j.model.xs.ConceptDeclaration;
+import eu.cdevreeze.xbrl4j.taxonomy.TaxonomyBase;
+import eu.cdevreeze.xbrl4j.taxonomy.relationship.NetworkGraph;
+import eu.cdevreeze.xbrl4j.taxonomy.relationship.NetworkGraphs;
+import eu.cdevreeze.xbrl4j.taxonomy.validation.CycleChecker;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Optional;
+
+import static eu.cdevreeze.xbrl4j.model.Names.PARENT_CHILD_ARCROLE;
+import static eu.cdevreeze.xbrl4j.tests.support.SampleFiles.createTaxonomyBase;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests of network graphs and arcrole cycle checking, including relationship prohibition and overriding.
+ * Not a unit test. Uses the sample taxonomy in the test resources.
+ *
+ * @author Chris de Vreeze
+ */
+public class NetworkGraphTests {
+
+    private static final String NO_CYCLES_ARCROLE = "http://example.com/arcrole/no-cycles";
+
+    @Test
+    public void testNetworkWithoutCycles() {
+        TaxonomyBase taxonomyBase = createTaxonomyBase(List.of("sample.xsd", "sample-def.xml"));
+
+        ImmutableList<NetworkGraph> graphs = NetworkGraphs.create(taxonomyBase, NO_CYCLES_ARCROLE::equals);
+
+        assertEquals(1, graphs.size());
+        assertEquals(3, graphs.get(0).nodeCount());
+        assertEquals(2, graphs.get(0).edgeCount());
+        assertEquals(List.of("Assets"), rootConceptNames(taxonomyBase, graphs.get(0)));
+
+        assertTrue(CycleChecker.create(taxonomyBase).findViolations().isEmpty());
+    }
+
+    @Test
+    public void testEquivalentRelationshipsBecomeOneEdge() {
+        // The extension linkbase repeats the Assets-CurrentAssets relationship, with an equivalent order attribute
+        TaxonomyBase taxonomyBase = createTaxonomyBase(List.of("sample.xsd", "sample-def.xml", "sample-def-ext.xml"));
+
+        ImmutableList<NetworkGraph> graphs = NetworkGraphs.create(taxonomyBase, NO_CYCLES_ARCROLE::equals);
+
+        assertEquals(1, graphs.size());
+        assertEquals(2, graphs.get(0).edgeCount());
+
+        // A duplicate edge would be an undirected cycle, which is not allowed for this arcrole
+        CycleChecker cycleChecker = CycleChecker.create(taxonomyBase);
+
+        assertEquals(Optional.of(ArcroleType.CyclesAllowed.NONE),
+                cycleChecker.findCyclesAllowed(NO_CYCLES_ARCROLE));
+        assertTrue(cycleChecker.findViolations().isEmpty());
+    }
+
+    @Test
+    public void testDirectedCycle() {
+        TaxonomyBase taxonomyBase = createTaxonomyBase(List.of("sample.xsd", "sample-pre.xml"));
+
+        ImmutableList<NetworkGraph> graphs = NetworkGraphs.create(taxonomyBase, PARENT_CHILD_ARCROLE::equals);
+
+        assertEquals(1, graphs.size());
+        assertEquals(2, graphs.get(0).edgeCount());
+
+        ImmutableList<CycleChecker.CycleViolation> violations = CycleChecker.create(taxonomyBase).findViolations();
+
+        assertEquals(1, violations.size());
+        assertEquals(PARENT_CHILD_ARCROLE, violations.get(0).networkKey().arcrole());
+        assertEquals(3, violations.get(0).path().size());
+    }
+
+    @Test
+    public void testProhibitedRelationshipIsRemoved() {
+        // The extension linkbase prohibits the CurrentAssets-Assets relationship, with a higher priority
+        TaxonomyBase taxonomyBase = createTaxonomyBase(List.of("sample.xsd", "sample-pre.xml", "sample-pre-ext.xml"));
+
+        ImmutableList<NetworkGraph> graphs = NetworkGraphs.create(taxonomyBase, PARENT_CHILD_ARCROLE::equals);
+
+        assertEquals(1, graphs.size());
+        NetworkGraph graph = graphs.get(0);
+        assertEquals(1, graph.edgeCount());
+        assertEquals(
+                List.of("Assets"),
+                conceptNames(taxonomyBase, List.of(graph.nodeHandle(graph.edgeSource(0)))));
+        assertEquals(
+                List.of("CurrentAssets"),
+                conceptNames(taxonomyBase, List.of(graph.nodeHandle(graph.edgeTarget(0)))));
+
+        assertTrue(CycleChecker.create(taxonomyBase).findViolations().isEmpty());
+    }
+
+    private static List<String> rootConceptNames(TaxonomyBase taxonomyBase, NetworkGraph graph) {
+        return conceptNames(taxonomyBase, graph.rootNodes().mapToObj(graph::nodeHandle).toList());
+    }
+
+    private static List<String> conceptNames(TaxonomyBase taxonomyBase, List<Long> elementHandles) {
+        return elementHandles.stream()
+                .map(taxonomyBase::element)
+                .map(e -> ((ConceptDeclaration) e).nameOption().orElseThrow())
+                .toList();
+    }
+}
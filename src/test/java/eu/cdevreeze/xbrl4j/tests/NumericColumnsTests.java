@@ -0,0 +1,255 @@
+/*
+ * Copyright 2024-2024 Chris de Vreeze
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.cdevreeze.xbrl4j.tests;
+
+import com.google.common.collect.ImmutableList;
+import eu.cdevreeze.xbrl4j.instance.InstanceComponent;
+import eu.cdevreeze.xbrl4j.instance.index.FactIndex;
+import eu.cdevreeze.xbrl4j.instance.index.NumericColumns;
+import eu.cdevreeze.xbrl4j.instance.stax.StreamingInstanceReader;
+import eu.cdevreeze.xbrl4j.taxonomy.TaxonomyBase;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import static eu.cdevreeze.xbrl4j.tests.support.SampleFiles.createTaxonomyBase;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests of the numeric fact value columns, in particular the parsing of lexical values and the exact rounding
+ * (half to even) in long arithmetic. Uses the sample taxonomy in the test resources.
+ *
+ * @author Chris de Vreeze
+ */
+public class NumericColumnsTests {
+
+    private static final String FACT_TEMPLATE =
+            "<sample:Assets contextRef=\"I2023\" unitRef=\"EUR\" decimals=\"0\">%s</sample:Assets>";
+
+    @Test
+    public void testParsePlainDecimals() {
+        NumericColumns columns = createNumericColumns(
+                List.of("123", "-12.50", "+0.001", ".5", "5.", "  42 ", "000123.4", "-0", "123456789012345678"));
+
+        assertUnscaledValueAndScale(columns, 0, 123L, 0);
+        assertUnscaledValueAndScale(columns, 1, -1250L, 2);
+        assertUnscaledValueAndScale(columns, 2, 1L, 3);
+        assertUnscaledValueAndScale(columns, 3, 5L, 1);
+        assertUnscaledValueAndScale(columns, 4, 5L, 0);
+        assertUnscaledValueAndScale(columns, 5, 42L, 0);
+        assertUnscaledValueAndScale(columns, 6, 1234L, 1);
+        assertUnscaledValueAndScale(columns, 7, 0L, 0);
+        assertUnscaledValueAndScale(columns, 8, 123456789012345678L, 0);
+    }
+
+    @Test
+    public void testParseValuesThatNeedBigDecimal() {
+        String manyDecimals = "0." + "0".repeat(129) + "1";
+        String manyDigits = "9".repeat(40);
+        NumericColumns columns = createNumericColumns(
+                List.of("1234567890123456789", "1E3", "-2.5e-2", manyDecimals, manyDigits, "9223372036854775808"));
+
+        // Nineteen digits still fit in a long, via BigDecimal
+        assertUnscaledValueAndScale(columns, 0, 1234567890123456789L, 0);
+        // Exponent notation
+        assertUnscaledValueAndScale(columns, 1, 1L, -3);
+        assertUnscaledValueAndScale(columns, 2, -25L, 3);
+        // Scale beyond the byte range, and values beyond the long range
+        for (int factId = 3; factId < 6; factId++) {
+            assertTrue(columns.hasValue(factId));
+            assertFalse(columns.fitsInLong(factId));
+            int id = factId;
+            assertThrows(ArithmeticException.class, () -> columns.unscaledValue(id));
+        }
+        assertEquals(new BigDecimal(manyDecimals), columns.value(3));
+        assertEquals(new BigDecimal(manyDigits), columns.value(4));
+        assertEquals(new BigDecimal("9223372036854775808"), columns.value(5));
+    }
+
+    @Test
+    public void testParseInvalidValues() {
+        NumericColumns columns = createNumericColumns(List.of("abc", "", "-", ".", "1.2.3", "1,000", "- 1", "INF"));
+
+        for (int factId = 0; factId < columns.factCount(); factId++) {
+            assertFalse(columns.hasValue(factId));
+            assertFalse(columns.fitsInLong(factId));
+            int id = factId;
+            assertThrows(IllegalArgumentException.class, () -> columns.value(id));
+            assertEquals(NumericColumns.NONE, columns.inferredDecimals(factId));
+        }
+    }
+
+    @Test
+    public void testDecimalsAndPrecision() {
+        NumericColumns columns = createNumericColumnsForFacts(List.of(
+                "<sample:Assets contextRef=\"I2023\" unitRef=\"EUR\" decimals=\" -3 \">1000</sample:Assets>",
+                "<sample:Assets contextRef=\"I2023\" unitRef=\"EUR\" decimals=\"INF\">1000</sample:Assets>",
+                "<sample:Assets contextRef=\"I2023\" unitRef=\"EUR\" decimals=\"200\">1000</sample:Assets>",
+                "<sample:Assets contextRef=\"I2023\" unitRef=\"EUR\" precision=\"3\">12345</sample:Assets>",
+                "<sample:Assets contextRef=\"I2023\" unitRef=\"EUR\" precision=\"2\">0.0012</sample:Assets>",
+                "<sample:Assets contextRef=\"I2023\" unitRef=\"EUR\" precision=\"4\">0</sample:Assets>",
+                "<sample:Assets contextRef=\"I2023\" unitRef=\"EUR\" precision=\"0\">10</sample:Assets>",
+                "<sample:Assets contextRef=\"I2023\" unitRef=\"EUR\" precision=\"-1\">10</sample:Assets>",
+                "<sample:Assets contextRef=\"I2023\" unitRef=\"EUR\" precision=\"2\">" + "1".repeat(30) + "</sample:Assets>"
+        ));
+
+        assertEquals(-3, columns.decimals(0));
+        assertEquals(NumericColumns.INF, columns.decimals(1));
+        assertEquals(NumericColumns.NONE, columns.decimals(2));
+        assertEquals(NumericColumns.NONE, columns.precision(0));
+
+        assertEquals(-3, columns.inferredDecimals(0));
+        assertEquals(NumericColumns.INF, columns.inferredDecimals(1));
+        assertEquals(NumericColumns.NONE, columns.inferredDecimals(2));
+        assertEquals(-2, columns.inferredDecimals(3));
+        assertEquals(4, columns.inferredDecimals(4));
+        assertEquals(NumericColumns.INF, columns.inferredDecimals(5));
+        assertEquals(NumericColumns.NONE, columns.inferredDecimals(6));
+        assertEquals(NumericColumns.NONE, columns.inferredDecimals(7));
+        assertEquals(-28, columns.inferredDecimals(8));
+        assertEquals(-28, NumericColumns.inferredDecimals(new BigDecimal("1".repeat(30)), 2));
+    }
+
+    @Test
+    public void testRoundHalfEven() {
+        assertEquals(2L, NumericColumns.round(25L, 1, 0));
+        assertEquals(4L, NumericColumns.round(35L, 1, 0));
+        assertEquals(2L, NumericColumns.round(24L, 1, 0));
+        assertEquals(3L, NumericColumns.round(26L, 1, 0));
+        assertEquals(-2L, NumericColumns.round(-25L, 1, 0));
+        assertEquals(-4L, NumericColumns.round(-35L, 1, 0));
+        assertEquals(-3L, NumericColumns.round(-26L, 1, 0));
+        assertEquals(0L, NumericColumns.round(5L, 1, 0));
+        assertEquals(0L, NumericColumns.round(-5L, 1, 0));
+        assertEquals(1L, NumericColumns.round(51L, 2, 0));
+
+        // Negative target scales, such as decimals -2
+        assertEquals(12L, NumericColumns.round(1250L, 0, -2));
+        assertEquals(14L, NumericColumns.round(1350L, 0, -2));
+        assertEquals(13L, NumericColumns.round(1251L, 0, -2));
+
+        // Scaling up
+        assertEquals(500L, NumericColumns.round(5L, 0, 2));
+        assertEquals(-5L, NumericColumns.round(-5L, 0, 0));
+    }
+
+    @Test
+    public void testRoundAtTheLongBoundaries() {
+        assertThrows(ArithmeticException.class, () -> NumericColumns.round(Long.MAX_VALUE, 0, 1));
+        assertThrows(ArithmeticException.class, () -> NumericColumns.round(1L, 0, 19));
+        assertEquals(1_000_000_000_000_000_000L, NumericColumns.round(1L, 0, 18));
+
+        // Divisors 10^18, 10^19 (which does not fit in a long) and beyond
+        assertEquals(9L, NumericColumns.round(Long.MAX_VALUE, 18, 0));
+        assertEquals(1L, NumericColumns.round(Long.MAX_VALUE, 19, 0));
+        assertEquals(-1L, NumericColumns.round(Long.MIN_VALUE, 19, 0));
+        assertEquals(0L, NumericColumns.round(5_000_000_000_000_000_000L, 19, 0));
+        assertEquals(0L, NumericColumns.round(-5_000_000_000_000_000_000L, 19, 0));
+        assertEquals(1L, NumericColumns.round(5_000_000_000_000_000_001L, 19, 0));
+        assertEquals(0L, NumericColumns.round(Long.MAX_VALUE, 20, 0));
+        assertEquals(0L, NumericColumns.round(Long.MIN_VALUE, 127, -128));
+
+        // Compare with BigDecimal rounding
+        long[] values = {Long.MAX_VALUE, Long.MIN_VALUE, 5_000_000_000_000_000_000L, 15L, -15L, 1L, 0L};
+        for (long value : values) {
+            for (int fromScale = 0; fromScale <= 22; fromScale++) {
+                long expected = BigDecimal.valueOf(value, fromScale).setScale(0, RoundingMode.HALF_EVEN).longValueExact();
+                assertEquals(expected, NumericColumns.round(value, fromScale, 0), value + " at scale " + fromScale);
+            }
+        }
+    }
+
+    @Test
+    public void testEqualWhenRoundedAndSum() {
+        NumericColumns columns = createNumericColumns(
+                List.of("1.25", "1.35", "1.2", "1.4", "99999999999999999.99", "0.01", "1" + "0".repeat(30), "1.20"));
+
+        // 1.25 rounds to 1.2 and 1.35 to 1.4
+        assertTrue(columns.equalWhenRounded(0, 2, 1));
+        assertTrue(columns.equalWhenRounded(1, 3, 1));
+        assertFalse(columns.equalWhenRounded(0, 1, 1));
+        assertTrue(columns.equalWhenRounded(0, 1, 0));
+        // Falls back to BigDecimal arithmetic for values beyond the long range
+        assertFalse(columns.equalWhenRounded(4, 6, 0));
+        assertTrue(columns.equalWhenRounded(0, 6, -31));
+
+        assertEquals(new BigDecimal("2.60"), columns.sum(new int[]{0, 1}));
+        // The sum overflows the long range at scale 2, so it is computed as BigDecimal
+        assertEquals(new BigDecimal("100000000000000000.00"), columns.sum(new int[]{4, 5}));
+        assertEquals(new BigDecimal("1" + "0".repeat(29) + "1.25"), columns.sum(new int[]{0, 6}));
+
+        assertTrue(columns.compare(0, 1) < 0);
+        assertEquals(0, columns.compare(2, 7));
+        assertTrue(columns.compare(6, 4) > 0);
+    }
+
+    @Test
+    public void testFactsWithoutNumericValue() {
+        NumericColumns columns = createNumericColumnsForFacts(List.of(
+                "<sample:Assets contextRef=\"I2023\" unitRef=\"EUR\" xsi:nil=\"true\"/>",
+                "<sample:Assets contextRef=\"I2023\" unitRef=\"Unknown\" decimals=\"0\">10</sample:Assets>"
+        ));
+
+        assertFalse(columns.hasValue(0));
+        assertFalse(columns.hasValue(1));
+        assertEquals(NumericColumns.NONE, columns.inferredDecimals(1));
+    }
+
+    private static void assertUnscaledValueAndScale(NumericColumns columns, int factId, long unscaledValue, int scale) {
+        assertTrue(columns.fitsInLong(factId));
+        assertEquals(unscaledValue, columns.unscaledValue(factId));
+        assertEquals(scale, columns.scale(factId));
+        assertEquals(0, BigDecimal.valueOf(unscaledValue, scale).compareTo(columns.value(factId)));
+    }
+
+    private static NumericColumns createNumericColumns(List<String> values) {
+        return createNumericColumnsForFacts(values.stream().map(v -> String.format(FACT_TEMPLATE, v)).toList());
+    }
+
+    private static NumericColumns createNumericColumnsForFacts(List<String> factElements) {
+        String xml = """
+                <xbrli:xbrl xmlns:xbrli="http://www.xbrl.org/2003/instance"
+                            xmlns:iso4217="http://www.xbrl.org/2003/iso4217"
+                            xmlns:xsi="http://www.w3.org/2001/XMLSchema-instance"
+                            xmlns:sample="http://example.com/sample">
+                    <xbrli:context id="I2023">
+                        <xbrli:entity>
+                            <xbrli:identifier scheme="http://example.com/entity">E1</xbrli:identifier>
+                        </xbrli:entity>
+                        <xbrli:period>
+                            <xbrli:instant>2023-12-31</xbrli:instant>
+                        </xbrli:period>
+                    </xbrli:context>
+                    <xbrli:unit id="EUR">
+                        <xbrli:measure>iso4217:EUR</xbrli:measure>
+                    </xbrli:unit>
+                %s
+                </xbrli:xbrl>
+                """.formatted(String.join("\n", factElements));
+
+        ImmutableList.Builder<InstanceComponent> components = ImmutableList.builder();
+        StreamingInstanceReader.newInstance().read(
+                new ByteArrayInputStream(xml.getBytes(StandardCharsets.UTF_8)), components::add);
+
+        TaxonomyBase taxonomyBase = createTaxonomyBase(List.of("sample.xsd"));
+        return NumericColumns.build(FactIndex.build(components.build(), taxonomyBase.conceptIndex()));
+    }
+}
@@ -0,0 +1,275 @@
+/*
+ * Copyright 2024-2024 Chris de Vreeze
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.cdevreeze.xbrl4j.tests;
+
+import eu.cdevreeze.xbrl4j.instance.*;
+import eu.cdevreeze.xbrl4j.instance.oim.OimIssue;
+import eu.cdevreeze.xbrl4j.instance.oim.XbrlCsvReader;
+import eu.cdevreeze.xbrl4j.instance.oim.XbrlCsvWriter;
+import eu.cdevreeze.xbrl4j.instance.oim.XbrlJsonReader;
+import eu.cdevreeze.xbrl4j.instance.oim.XbrlJsonWriter;
+import eu.cdevreeze.xbrl4j.taxonomy.TaxonomyBase;
+import org.junit.jupiter.api.Test;
+
+import javax.xml.namespace.QName;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+
+import static eu.cdevreeze.xbrl4j.tests.support.SampleFiles.createTaxonomyBase;
+import static eu.cdevreeze.xbrl4j.tests.support.SampleFiles.readInstanceComponents;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests of the streaming xBRL-JSON and xBRL-CSV readers, including round trips through the writers. Not a unit
+ * test. Uses the sample taxonomies and the sample OIM instance in the test resources.
+ *
+ * @author Chris de Vreeze
+ */
+public class OimReaderTests {
+
+    private static final String TYPES_NS = "http://example.com/sample-types";
+    private static final QName PURE = new QName("http://www.xbrl.org/2003/instance", "pure");
+
+    private static final String NAMESPACES = """
+            "namespaces": {"types": "http://example.com/sample-types", "sample": "http://example.com/sample",
+              "scheme": "http://example.com/entity", "iso4217": "http://www.xbrl.org/2003/iso4217"}""";
+
+    /**
+     * Fact, with context and unit resolved, in a form that does not depend on context and unit IDs or on the
+     * lexical representation of periods.
+     */
+    private record ResolvedFact(
+            QName name,
+            EntityIdentifier entityIdentifier,
+            Optional<PeriodInterval> periodInterval,
+            List<String> dimensions,
+            Optional<List<List<QName>>> unitOption,
+            Optional<String> decimalsOption,
+            Optional<String> precisionOption,
+            Optional<String> langOption,
+            boolean nil,
+            String value
+    ) {
+    }
+
+    @Test
+    public void testXbrlJsonRoundTrip() throws IOException {
+        List<InstanceComponent> original = readInstanceComponents("sample-oim.xml");
+        Path file = Files.createTempFile("xbrl-json", ".json");
+
+        try (Writer out = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+            XbrlJsonWriter writer = XbrlJsonWriter.create(out);
+            original.forEach(writer);
+            writer.finish();
+        }
+
+        List<InstanceComponent> components = new ArrayList<>();
+        List<OimIssue> issues = XbrlJsonReader.create(createSampleTaxonomyBase()).read(file, components::add);
+
+        assertEquals(List.of(), issues);
+        assertEquals(
+                List.of("f1", "f2", "f3", "f4", "f5", "f6", "f7", "f8", "f9", "f10", "_f1"),
+                facts(components).stream().map(f -> f.idOption().orElseThrow()).toList());
+        assertEquals(resolveFacts(original), resolveFacts(components));
+        assertEquals(3, components.stream().filter(c -> c instanceof DtsReference).count());
+    }
+
+    @Test
+    public void testXbrlCsvRoundTrip() throws IOException {
+        List<InstanceComponent> original = readInstanceComponents("sample-oim.xml");
+        Path directory = Files.createTempDirectory("xbrl-csv");
+
+        XbrlCsvWriter writer = XbrlCsvWriter.create(directory);
+        original.forEach(writer);
+        writer.finish();
+
+        List<InstanceComponent> components = new ArrayList<>();
+        List<OimIssue> issues = XbrlCsvReader.create(createSampleTaxonomyBase())
+                .read(directory.resolve(XbrlCsvWriter.METADATA_FILE_NAME), components::add);
+
+        assertEquals(List.of(), issues);
+        // The facts are grouped per table, so compare them regardless of order
+        assertEquals(
+                new HashSet<>(resolveFacts(original)),
+                new HashSet<>(resolveFacts(components)));
+        assertEquals(resolveFacts(original).size(), resolveFacts(components).size());
+    }
+
+    @Test
+    public void testImpliedUnitAndPrecision() throws IOException {
+        Path file = Files.createTempFile("xbrl-json", ".json");
+        Files.writeString(file, """
+                {"documentInfo": {"documentType": "https://xbrl.org/2021/xbrl-json",
+                """ + NAMESPACES + """
+                },
+                 "facts": {
+                  "ratio": {"value": "0.25", "dimensions": {"concept": "types:Ratio", "entity": "scheme:E1",
+                    "period": "2023-01-01T00:00:00/2024-01-01T00:00:00"}},
+                  "eps": {"value": "1.5", "decimals": 2, "dimensions": {"concept": "types:EarningsPerShare",
+                    "entity": "scheme:E1", "period": "2023-01-01T00:00:00/2024-01-01T00:00:00"}},
+                  "nilRatio": {"value": null, "dimensions": {"concept": "types:Ratio", "entity": "scheme:E1",
+                    "period": "2023-01-01T00:00:00/2024-01-01T00:00:00"}},
+                  "cash": {"value": "10.5", "dimensions": {"concept": "sample:Cash", "entity": "scheme:E1",
+                    "period": "2024-01-01T00:00:00", "unit": "iso4217:EUR"}},
+                  "text": {"value": "Text", "dimensions": {"concept": "types:Description", "entity": "scheme:E1",
+                    "period": "2023-01-01T00:00:00/2024-01-01T00:00:00"}}
+                 }
+                }
+                """);
+
+        List<InstanceComponent> components = new ArrayList<>();
+        List<OimIssue> issues = XbrlJsonReader.create(createSampleTaxonomyBase()).read(file, components::add);
+        Map<String, ResolvedFact> facts = resolveFactsById(components);
+
+        assertEquals(List.of(), issues);
+        // Derived numeric types get the implied unit xbrli:pure
+        assertEquals(Optional.of(List.of(List.of(PURE), List.of())), facts.get("ratio").unitOption());
+        assertEquals(Optional.of(List.of(List.of(PURE), List.of())), facts.get("eps").unitOption());
+        assertEquals(new QName(TYPES_NS, "EarningsPerShare"), facts.get("eps").name());
+        // Numeric facts without decimals are exact
+        assertEquals(Optional.of("INF"), facts.get("ratio").precisionOption());
+        assertEquals(Optional.empty(), facts.get("ratio").decimalsOption());
+        assertEquals(Optional.of("INF"), facts.get("cash").precisionOption());
+        assertEquals(Optional.empty(), facts.get("eps").precisionOption());
+        assertEquals(Optional.of("2"), facts.get("eps").decimalsOption());
+        assertEquals(Optional.empty(), facts.get("nilRatio").precisionOption());
+        assertTrue(facts.get("nilRatio").nil());
+        assertEquals(Optional.empty(), facts.get("text").unitOption());
+        assertEquals(Optional.empty(), facts.get("text").precisionOption());
+    }
+
+    @Test
+    public void testXbrlCsvInfiniteDecimals() throws IOException {
+        Path directory = Files.createTempDirectory("xbrl-csv");
+        Files.writeString(directory.resolve("metadata.json"), """
+                {"documentInfo": {"documentType": "https://xbrl.org/2021/xbrl-csv",
+                """ + NAMESPACES + """
+                },
+                 "tableTemplates": {"cash": {"dimensions": {"concept": "sample:Cash", "entity": "scheme:E1",
+                    "unit": "iso4217:EUR"},
+                   "columns": {"period": {}, "decimals": {},
+                     "value": {"dimensions": {"period": "$period"}, "decimals": "$decimals"}}}},
+                 "tables": {"cash": {"url": "cash.csv"}}
+                }
+                """);
+        Files.writeString(directory.resolve("cash.csv"), """
+                period,decimals,value
+                2024-01-01T00:00:00,0,100
+                2023-01-01T00:00:00,INF,90.5
+                2022-01-01T00:00:00,,80.25
+                2021-01-01T00:00:00,,#nil
+                """);
+
+        List<InstanceComponent> components = new ArrayList<>();
+        List<OimIssue> issues = XbrlCsvReader.create(createSampleTaxonomyBase())
+                .read(directory.resolve("metadata.json"), components::add);
+        List<ItemFact> facts = facts(components);
+
+        assertEquals(List.of(), issues);
+        assertEquals(
+                List.of(Optional.of("0"), Optional.empty(), Optional.empty(), Optional.empty()),
+                facts.stream().map(ItemFact::decimalsOption).toList());
+        assertEquals(
+                List.of(Optional.empty(), Optional.of("INF"), Optional.of("INF"), Optional.empty()),
+                facts.stream().map(ItemFact::precisionOption).toList());
+        assertEquals(List.of("100", "90.5", "80.25", ""), facts.stream().map(ItemFact::value).toList());
+    }
+
+    @Test
+    public void testIssues() throws IOException {
+        Path file = Files.createTempFile("xbrl-json", ".json");
+        Files.writeString(file, """
+                {"facts": {
+                  "unknownConcept": {"value": "1", "dimensions": {"concept": "types:Unknown", "entity": "scheme:E1"}},
+                  "unknownPrefix": {"value": "1", "dimensions": {"concept": "foo:Bar", "entity": "scheme:E1"}},
+                  "noEntity": {"value": "1", "dimensions": {"concept": "types:Description"}},
+                  "badPeriod": {"value": "1", "dimensions": {"concept": "types:Description", "entity": "scheme:E1",
+                    "period": "2023-13-01T00:00:00"}}
+                 },
+                 "documentInfo": {"documentType": "https://xbrl.org/2021/xbrl-json",
+                """ + NAMESPACES + """
+                }
+                }
+                """);
+
+        List<InstanceComponent> components = new ArrayList<>();
+        List<OimIssue> issues = XbrlJsonReader.create(createSampleTaxonomyBase()).read(file, components::add);
+
+        // Facts with unknown concepts are still converted; the others are skipped
+        assertEquals(
+                List.of("unknownConcept", "unknownPrefix", "noEntity", "badPeriod"),
+                issues.stream().map(i -> i.factIdOption().orElseThrow()).toList());
+        assertEquals(List.of("unknownConcept"), facts(components).stream().map(f -> f.idOption().orElseThrow()).toList());
+    }
+
+    private static TaxonomyBase createSampleTaxonomyBase() {
+        return createTaxonomyBase(List.of("sample.xsd", "sample-types.xsd", "sample-dim.xsd"));
+    }
+
+    private static List<ItemFact> facts(List<InstanceComponent> components) {
+        return components.stream().filter(c -> c instanceof ItemFact).map(c -> (ItemFact) c).toList();
+    }
+
+    private static Map<String, ResolvedFact> resolveFactsById(List<InstanceComponent> components) {
+        List<ItemFact> facts = facts(components);
+        List<ResolvedFact> resolvedFacts = resolveFacts(components);
+        Map<String, ResolvedFact> result = new HashMap<>();
+
+        for (int i = 0; i < facts.size(); i++) {
+            result.put(facts.get(i).idOption().orElseThrow(), resolvedFacts.get(i));
+        }
+        return result;
+    }
+
+    private static List<ResolvedFact> resolveFacts(List<InstanceComponent> components) {
+        Map<String, Context> contexts = new HashMap<>();
+        Map<String, Unit> units = new HashMap<>();
+        components.stream().filter(c -> c instanceof Context).forEach(c -> contexts.put(((Context) c).id(), (Context) c));
+        components.stream().filter(c -> c instanceof Unit).forEach(c -> units.put(((Unit) c).id(), (Unit) c));
+
+        return facts(components).stream()
+                .map(fact -> {
+                    Context context = contexts.get(fact.contextRef());
+                    return new ResolvedFact(
+                            fact.name(),
+                            context.entityIdentifier(),
+                            PeriodInterval.fromPeriod(context.period()),
+                            context.dimensions().stream().map(OimReaderTests::formatDimension).toList(),
+                            fact.unitRefOption().map(units::get).map(u -> List.of(u.numerators(), u.denominators())),
+                            fact.decimalsOption(),
+                            fact.precisionOption(),
+                            fact.langOption().map(lang -> lang.toLowerCase(Locale.ROOT)),
+                            fact.nil(),
+                            fact.value()
+                    );
+                })
+                .toList();
+    }
+
+    private static String formatDimension(DimensionMember dimensionMember) {
+        if (dimensionMember instanceof ExplicitMember explicitMember) {
+            return explicitMember.dimension() + "=" + explicitMember.member();
+        } else {
+            TypedMember typedMember = (TypedMember) dimensionMember;
+            return typedMember.dimension() + "=" + typedMember.content().name() + ":" + typedMember.content().text();
+        }
+    }
+}
@@ -0,0 +1,154 @@
+/*
+ * Copyright 2024-2024 Chris de Vreeze
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.cdevreeze.xbrl4j.tests;
+
+import eu.cdevreeze.xbrl4j.instance.Context;
+import eu.cdevreeze.xbrl4j.instance.InstanceComponent;
+import eu.cdevreeze.xbrl4j.instance.oim.XbrlCsvWriter;
+import eu.cdevreeze.xbrl4j.instance.oim.XbrlJsonWriter;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static eu.cdevreeze.xbrl4j.tests.support.SampleFiles.readInstanceComponents;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests of the streaming xBRL-JSON and xBRL-CSV writers. Not a unit test. Uses the sample OIM instance in the
+ * test resources.
+ *
+ * @author Chris de Vreeze
+ */
+public class OimWriterTests {
+
+    @Test
+    public void testXbrlJsonFacts() {
+        List<String> lines = writeXbrlJson(readInstanceComponents("sample-oim.xml")).lines().toList();
+
+        assertEquals("{\"facts\":{", lines.get(0));
+        assertEquals(
+                "\"f1\":{\"value\":\"1000\",\"decimals\":0,\"dimensions\":{\"concept\":\"sample:Assets\"," +
+                        "\"entity\":\"scheme:E1\",\"period\":\"2024-01-01T00:00:00\",\"unit\":\"iso4217:EUR\"}}",
+                lines.get(1));
+        // Precision INF means no decimals
+        assertTrue(lines.get(2).startsWith(",\"f2\":{\"value\":\"150.25\",\"dimensions\":"));
+        assertTrue(lines.get(3).startsWith(",\"f3\":{\"value\":null,"));
+        assertTrue(lines.get(4).contains("\"period\":\"2023-01-01T00:00:00/2024-01-01T00:00:00\",\"language\":\"en\"}"));
+        assertTrue(lines.get(6).contains("\"unit\":\"iso4217:EUR/xbrli:shares\""));
+        assertTrue(lines.get(8).contains("\"dim:RegionAxis\":\"dim:Europe\""));
+        assertTrue(lines.get(9).contains("\"dim:CustomerAxis\":\"C1\""));
+        // No period for forever
+        assertTrue(lines.get(10).endsWith("\"dimensions\":{\"concept\":\"types:Description\",\"entity\":\"scheme:E1\"}}"));
+        // Generated id, and the fact is written once its context is known
+        assertTrue(lines.get(11).startsWith(",\"_f1\":{\"value\":\"900\",\"decimals\":-3,"));
+        // The tuple and its content are left out
+        assertEquals(13, lines.size());
+        assertTrue(lines.stream().noneMatch(line -> line.contains("\"f11\"")));
+    }
+
+    @Test
+    public void testXbrlJsonDocumentInfo() {
+        String json = writeXbrlJson(readInstanceComponents("sample-oim.xml"));
+        String documentInfo = json.substring(json.indexOf("\"documentInfo\""));
+
+        assertTrue(documentInfo.startsWith("\"documentInfo\":{\"documentType\":\"https://xbrl.org/2021/xbrl-json\","));
+        assertTrue(documentInfo.contains("\"sample\":\"http://example.com/sample\""));
+        assertTrue(documentInfo.contains("\"scheme\":\"http://example.com/entity\""));
+        assertTrue(documentInfo.contains("\"dim\":\"http://example.com/sample-dim\""));
+        assertTrue(documentInfo.contains(
+                "\"taxonomy\":[\"../sampletaxonomy/sample.xsd\",\"../sampletaxonomy/sample-types.xsd\",\"../sampletaxonomy/sample-dim.xsd\"]"));
+    }
+
+    @Test
+    public void testMissingContext() {
+        // The fact referring to context I2022 can only be written once that context has been seen
+        List<InstanceComponent> components = readInstanceComponents("sample-oim.xml").stream()
+                .filter(c -> !(c instanceof Context context) || !context.id().equals("I2022"))
+                .toList();
+        XbrlJsonWriter writer = XbrlJsonWriter.create(new StringWriter());
+        components.forEach(writer);
+
+        assertThrows(IllegalStateException.class, writer::finish);
+    }
+
+    @Test
+    public void testXbrlCsvTables() throws IOException {
+        Path directory = Files.createTempDirectory("xbrl-csv");
+        XbrlCsvWriter writer = XbrlCsvWriter.create(directory);
+        readInstanceComponents("sample-oim.xml").forEach(writer);
+        writer.finish();
+
+        // One table per combination of dimensions
+        assertEquals(
+                List.of(
+                        "concept,entity,period,unit,decimals,value",
+                        "sample:Assets,scheme:E1,2024-01-01T00:00:00,iso4217:EUR,0,1000",
+                        "sample:Cash,scheme:E1,2024-01-01T00:00:00,iso4217:EUR,,150.25",
+                        "sample:Receivables,scheme:E1,2024-01-01T00:00:00,iso4217:EUR,,#nil",
+                        "types:EarningsPerShare,scheme:E1,2023-01-01T00:00:00/2024-01-01T00:00:00,iso4217:EUR/xbrli:shares,2,1.25",
+                        "types:Ratio,scheme:E1,2023-01-01T00:00:00/2024-01-01T00:00:00,xbrli:pure,4,0.1234",
+                        "sample:Assets,scheme:E1,2023-01-01T00:00:00,iso4217:EUR,-3,900"),
+                Files.readAllLines(directory.resolve("t0.csv")));
+        // Values starting with "#" and empty values are escaped
+        assertEquals(
+                List.of(
+                        "concept,entity,period,language,value",
+                        "types:Description,scheme:E1,2023-01-01T00:00:00/2024-01-01T00:00:00,en,##1 of a kind"),
+                Files.readAllLines(directory.resolve("t1.csv")));
+        assertEquals(
+                List.of("concept,entity,period,value", "types:Code,scheme:E1,2024-01-01T00:00:00,#empty"),
+                Files.readAllLines(directory.resolve("t2.csv")));
+        assertEquals(
+                List.of(
+                        "concept,entity,period,unit,dim_CustomerAxis,decimals,value",
+                        "dim:Revenue,scheme:E1,2023-01-01T00:00:00/2024-01-01T00:00:00,iso4217:EUR,C1,0,300"),
+                Files.readAllLines(directory.resolve("t4.csv")));
+        assertEquals(
+                List.of("concept,entity,value", "types:Description,scheme:E1,Forever"),
+                Files.readAllLines(directory.resolve("t5.csv")));
+    }
+
+    @Test
+    public void testXbrlCsvMetadata() throws IOException {
+        Path directory = Files.createTempDirectory("xbrl-csv");
+        XbrlCsvWriter writer = XbrlCsvWriter.create(directory);
+        readInstanceComponents("sample-oim.xml").forEach(writer);
+        writer.finish();
+
+        String metadata = Files.readString(directory.resolve(XbrlCsvWriter.METADATA_FILE_NAME));
+
+        assertTrue(metadata.startsWith("{\"documentInfo\":{\"documentType\":\"https://xbrl.org/2021/xbrl-csv\","));
+        assertTrue(metadata.contains(
+                "\"t3\":{\"columns\":{\"concept\":{},\"entity\":{},\"period\":{},\"unit\":{},\"dim_RegionAxis\":{},\"decimals\":{}," +
+                        "\"value\":{\"dimensions\":{\"concept\":\"$concept\",\"entity\":\"$entity\",\"period\":\"$period\"," +
+                        "\"unit\":\"$unit\",\"dim:RegionAxis\":\"$dim_RegionAxis\"},\"decimals\":\"$decimals\"}}}"));
+        assertTrue(metadata.contains("\"t5\":{\"template\":\"t5\",\"url\":\"t5.csv\"}"));
+        assertFalse(metadata.contains("\"t6\""));
+    }
+
+    private static String writeXbrlJson(List<InstanceComponent> components) {
+        StringWriter out = new StringWriter();
+        XbrlJsonWriter writer = XbrlJsonWriter.create(out);
+        components.forEach(writer);
+        writer.finish();
+        return out.toString();
+    }
+}
@@ -0,0 +1,175 @@
+/*
+ * Copyright 2024-2024 Chris de Vreeze
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.cdevreeze.xbrl4j.tests;
+
+import eu.cdevreeze.xbrl4j.instance.PeriodInterval;
+import eu.cdevreeze.xbrl4j.instance.index.FactIndex;
+import eu.cdevreeze.xbrl4j.instance.index.FactQuery;
+import eu.cdevreeze.xbrl4j.instance.index.PeriodIntervalIndex;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.function.Predicate;
+import java.util.stream.IntStream;
+
+import static eu.cdevreeze.xbrl4j.tests.support.SampleFiles.createTaxonomyBase;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests of the period interval index, comparing its results with a linear scan, and of the period queries of the
+ * fact index that use it.
+ *
+ * @author Chris de Vreeze
+ */
+public class PeriodIntervalIndexTests {
+
+    private static final LocalDate BASE_DATE = LocalDate.of(2020, 1, 1);
+
+    @Test
+    public void testQueriesAgainstLinearScan() {
+        Random random = new Random(42);
+        List<PeriodInterval> intervals = new ArrayList<>();
+
+        for (int i = 0; i < 500; i++) {
+            intervals.add(randomInterval(random));
+        }
+        // Duplicates and the forever period must be handled as well
+        intervals.add(intervals.get(0));
+        intervals.add(PeriodInterval.FOREVER);
+
+        PeriodIntervalIndex index = PeriodIntervalIndex.build(intervals);
+
+        assertEquals(intervals.size(), index.size());
+        assertEquals(intervals, index.intervals());
+
+        for (int i = 0; i < 200; i++) {
+            PeriodInterval query = randomInterval(random);
+
+            assertArrayEquals(scan(intervals, p -> p.overlaps(query)), index.findOverlapping(query));
+            assertArrayEquals(scan(intervals, query::contains), index.findContainedIn(query));
+            assertArrayEquals(scan(intervals, p -> p.isInstant() && query.contains(p)), index.findInstantsIn(query));
+            assertArrayEquals(scan(intervals, p -> p.contains(query.start())), index.findContaining(query.start()));
+            assertArrayEquals(
+                    scan(intervals, p -> p.isInstant() && p.start().equals(query.end())),
+                    index.findInstantsAt(query.end()));
+        }
+    }
+
+    @Test
+    public void testHalfOpenDurations() {
+        PeriodInterval year2023 = new PeriodInterval(dateTime(2023, 1, 1), dateTime(2024, 1, 1));
+        PeriodInterval year2024 = new PeriodInterval(dateTime(2024, 1, 1), dateTime(2025, 1, 1));
+        PeriodInterval endOf2023 = new PeriodInterval(dateTime(2024, 1, 1), dateTime(2024, 1, 1));
+        PeriodInterval endOf2022 = new PeriodInterval(dateTime(2023, 1, 1), dateTime(2023, 1, 1));
+
+        // Consecutive durations do not overlap, and an instant belongs to the duration it ends
+        assertFalse(year2023.overlaps(year2024));
+        assertFalse(year2024.overlaps(year2023));
+        assertTrue(year2023.contains(endOf2023));
+        assertFalse(year2024.contains(endOf2023));
+        assertFalse(year2023.contains(endOf2022));
+        assertTrue(year2023.contains(dateTime(2023, 1, 1)));
+        assertFalse(year2023.contains(dateTime(2024, 1, 1)));
+
+        PeriodIntervalIndex index = PeriodIntervalIndex.build(List.of(year2023, year2024, endOf2023, endOf2022));
+
+        assertArrayEquals(new int[]{0, 2}, index.findOverlapping(year2023));
+        assertArrayEquals(new int[]{1}, index.findOverlapping(year2024));
+        assertArrayEquals(new int[]{0, 2}, index.findOverlapping(endOf2023));
+        assertArrayEquals(new int[]{0, 2}, index.findContainedIn(year2023));
+        assertArrayEquals(new int[]{2}, index.findInstantsIn(year2023));
+        assertArrayEquals(new int[]{2}, index.findInstantsAt(dateTime(2024, 1, 1)));
+        assertArrayEquals(new int[]{}, index.findInstantsAt(dateTime(2023, 12, 31)));
+        assertArrayEquals(new int[]{1, 2}, index.findContaining(dateTime(2024, 1, 1)));
+        assertArrayEquals(new int[]{0}, index.findContaining(dateTime(2023, 6, 30)));
+    }
+
+    @Test
+    public void testEmptyIndex() {
+        PeriodIntervalIndex index = PeriodIntervalIndex.build(List.of());
+
+        assertEquals(0, index.size());
+        assertArrayEquals(new int[]{}, index.findOverlapping(PeriodInterval.FOREVER));
+        assertArrayEquals(new int[]{}, index.findContainedIn(PeriodInterval.FOREVER));
+    }
+
+    @Test
+    public void testFactIndexPeriodQueries() {
+        FactIndex factIndex = FactIndexTests.createFactIndex(createTaxonomyBase(List.of("sample.xsd")));
+        PeriodInterval year2023 = new PeriodInterval(dateTime(2023, 1, 1), dateTime(2024, 1, 1));
+
+        // Both 2023 durations lie within 2023. Of the instants, only the end of 2023 lies within 2023, and not the
+        // end of 2022 (2023-01-01T00:00, see PeriodInterval).
+        assertArrayEquals(
+                new int[]{8, 10},
+                factIndex.findFactIds(FactQuery.defaultInstance()
+                        .withConcept(FactIndexTests.REVENUE)
+                        .withPeriodContainedIn(year2023)));
+        assertArrayEquals(
+                new int[]{0},
+                factIndex.findFactIds(FactQuery.defaultInstance()
+                        .withConcept(FactIndexTests.ASSETS)
+                        .withPeriodOverlapping(year2023)));
+
+        // Durations of consecutive years do not overlap
+        assertArrayEquals(
+                new int[]{8, 10},
+                factIndex.findFactIds(FactQuery.defaultInstance()
+                        .withConcept(FactIndexTests.REVENUE)
+                        .withPeriodOverlapping(year2023)));
+        assertArrayEquals(
+                new int[]{},
+                factIndex.findFactIds(FactQuery.defaultInstance()
+                        .withConcept(FactIndexTests.REVENUE)
+                        .withPeriodOverlapping(new PeriodInterval(dateTime(2024, 1, 1), dateTime(2025, 1, 1)))));
+        assertArrayEquals(
+                new int[]{8, 9, 10},
+                factIndex.findFactIds(FactQuery.defaultInstance()
+                        .withConcept(FactIndexTests.REVENUE)
+                        .withPeriodOverlapping(PeriodInterval.FOREVER)));
+
+        assertArrayEquals(new int[]{0, 2, 4, 5, 6, 7, 12}, factIndex.findFactIdsWithInstantAt(dateTime(2024, 1, 1)));
+        assertArrayEquals(
+                new int[]{0, 1, 2, 3, 4, 5, 6, 7, 12},
+                factIndex.findFactIdsWithInstantIn(PeriodInterval.FOREVER));
+        assertArrayEquals(new int[]{0, 2, 4, 5, 6, 7, 12}, factIndex.findFactIdsWithInstantIn(year2023));
+
+        // Unparsable periods are not in the period interval index
+        assertEquals(5, factIndex.periodIntervalIndex().size());
+    }
+
+    private static int[] scan(List<PeriodInterval> intervals, Predicate<PeriodInterval> predicate) {
+        return IntStream.range(0, intervals.size()).filter(i -> predicate.test(intervals.get(i))).toArray();
+    }
+
+    private static PeriodInterval randomInterval(Random random) {
+        LocalDateTime start = BASE_DATE.plusDays(random.nextInt(1000)).atStartOfDay();
+
+        // Roughly one in four intervals is an instant
+        return random.nextInt(4) == 0 ?
+                new PeriodInterval(start, start) :
+                new PeriodInterval(start, start.plusDays(1 + random.nextInt(400)));
+    }
+
+    private static LocalDateTime dateTime(int year, int month, int day) {
+        return LocalDate.of(year, month, day).atStartOfDay();
+    }
+}
@@ -0,0 +1,132 @@
+/*
+ * Copyright 2024-2024 Chris de Vreeze
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.cdevreeze.xbrl4j.tests;
+
+import com.google.common.collect.ImmutableList;
+import eu.cdevreeze.xbrl4j.common.collection.LongIntMultimap;
+import eu.cdevreeze.xbrl4j.model.factory.SchemaContext;
+import eu.cdevreeze.xbrl4j.model.factory.XmlElementFactory;
+import eu.cdevreeze.xbrl4j.model.link.Part;
+import eu.cdevreeze.xbrl4j.taxonomy.TaxonomyBase;
+import eu.cdevreeze.xbrl4j.taxonomy.reference.ReferenceStore;
+import org.junit.jupiter.api.Test;
+
+import javax.xml.namespace.QName;
+import java.util.List;
+import java.util.Optional;
+
+import static eu.cdevreeze.xbrl4j.model.Names.*;
+import static eu.cdevreeze.xbrl4j.tests.support.SampleFiles.createTaxonomyBase;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests of the reference store and its primitive multimap. Not a unit test. Uses the sample taxonomy in the test resources.
+ *
+ * @author Chris de Vreeze
+ */
+public class ReferenceStoreTests {
+
+    private static final String NS = "http://example.com/sample";
+    private static final String PRESENTATION_REF_ROLE = "http://www.xbrl.org/2003/role/presentationRef";
+
+    @Test
+    public void testReferenceLookup() {
+        TaxonomyBase taxonomyBase = createTaxonomyBase(List.of("sample.xsd", "sample-ref.xml"));
+        ReferenceStore referenceStore = createReferenceStore(taxonomyBase);
+
+        // The shared reference is stored only once
+        assertEquals(2, referenceStore.referenceCount());
+        assertEquals(6, referenceStore.partCount());
+
+        QName assets = new QName(NS, "Assets");
+        QName currentAssets = new QName(NS, "CurrentAssets");
+
+        assertEquals(2, referenceStore.referenceIds(assets).count());
+        assertEquals(
+                List.of("66"),
+                referenceStore.referenceIds(currentAssets)
+                        .mapToObj(id -> referenceStore.findPartValue(id, new QName(REF_NS, "Paragraph")).orElseThrow())
+                        .toList());
+
+        int presentationRefId = referenceStore.referenceIds(assets, PRESENTATION_REF_ROLE).findFirst().orElseThrow();
+
+        assertEquals(PRESENTATION_REF_ROLE, referenceStore.role(presentationRefId));
+        assertEquals(
+                List.of(
+                        new ReferenceStore.ReferencePart(REF_NAME_QNAME, "IAS"),
+                        new ReferenceStore.ReferencePart(REF_NUMBER_QNAME, "1"),
+                        new ReferenceStore.ReferencePart(new QName(REF_NS, "Paragraph"), "54")),
+                referenceStore.parts(presentationRefId));
+        assertEquals(Optional.of("IAS"), referenceStore.findPartValue(presentationRefId, REF_NAME_QNAME));
+        assertEquals(0, referenceStore.referenceIds(currentAssets, PRESENTATION_REF_ROLE).count());
+
+        ImmutableList<Part> parts = referenceStore.materializeParts(presentationRefId);
+
+        assertEquals(3, parts.size());
+        assertEquals(REF_NAME_QNAME, parts.get(0).elementName());
+        assertEquals("IAS", parts.get(0).text());
+    }
+
+    @Test
+    public void testProhibitedReferenceIsNotLoaded() {
+        TaxonomyBase taxonomyBase = createTaxonomyBase(List.of("sample.xsd", "sample-ref.xml", "sample-ref-ext.xml"));
+        ReferenceStore referenceStore = createReferenceStore(taxonomyBase);
+
+        QName assets = new QName(NS, "Assets");
+
+        assertEquals(1, referenceStore.referenceCount());
+        assertEquals(1, referenceStore.referenceIds(assets).count());
+        assertEquals(0, referenceStore.referenceIds(assets, PRESENTATION_REF_ROLE).count());
+    }
+
+    @Test
+    public void testLongIntMultimap() {
+        LongIntMultimap multimap = LongIntMultimap.builder()
+                .put(10L, 3)
+                .put(20L, 8)
+                .put(10L, 5)
+                .put(20L, 1)
+                .put(10L, 9)
+                .build();
+
+        assertEquals(2, multimap.keyCount());
+        assertEquals(5, multimap.valueCount());
+        assertEquals(3, multimap.count(10L));
+        assertEquals(0, multimap.count(30L));
+        assertEquals(List.of(3, 5, 9), multimap.values(10L).boxed().toList());
+        assertEquals(List.of(8, 1), multimap.values(20L).boxed().toList());
+        assertEquals(5, multimap.get(10L, 1));
+        assertThrows(IndexOutOfBoundsException.class, () -> multimap.get(10L, 3));
+
+        // Hits and misses, with insertion points relative to the values of the key
+        assertEquals(0, multimap.binarySearch(10L, 3));
+        assertEquals(2, multimap.binarySearch(10L, 9));
+        assertEquals(-1, multimap.binarySearch(10L, 2));
+        assertEquals(-2, multimap.binarySearch(10L, 4));
+        assertEquals(-4, multimap.binarySearch(10L, 10));
+        assertEquals(-1, multimap.binarySearch(30L, 1));
+
+        // The values of key 20 were not put in ascending order
+        assertTrue(multimap.isAscending(10L));
+        assertFalse(multimap.isAscending(20L));
+        assertThrows(IllegalStateException.class, () -> multimap.binarySearch(20L, 8));
+    }
+
+    private static ReferenceStore createReferenceStore(TaxonomyBase taxonomyBase) {
+        return ReferenceStore.create(taxonomyBase, new XmlElementFactory(SchemaContext.defaultInstance()));
+    }
+}
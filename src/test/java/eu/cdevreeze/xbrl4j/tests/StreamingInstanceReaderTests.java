@@ -0,0 +1,134 @@
+/*
+ * Copyright 2024-2024 Chris de Vreeze
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.cdevreeze.xbrl4j.tests;
+
+import com.google.common.collect.ImmutableList;
+import eu.cdevreeze.xbrl4j.instance.*;
+import eu.cdevreeze.xbrl4j.instance.stax.StreamingInstanceReader;
+import org.junit.jupiter.api.Test;
+
+import javax.xml.namespace.QName;
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+import static eu.cdevreeze.xbrl4j.tests.support.SampleFiles.readInstanceComponents;
+import static eu.cdevreeze.xbrl4j.tests.support.SampleFiles.sampleInstanceUri;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests of the streaming instance reader. Not a unit test. Uses the sample instances in the test resources.
+ *
+ * @author Chris de Vreeze
+ */
+public class StreamingInstanceReaderTests {
+
+    private static final String NS = "http://example.com/sample";
+    private static final String ISO4217_NS = "http://www.xbrl.org/2003/iso4217";
+
+    @Test
+    public void testReadComponentsInDocumentOrder() {
+        ImmutableList<InstanceComponent> components = readInstanceComponents("sample-instance.xml");
+
+        assertEquals(1 + 3 + 2 + 10 + 1, components.size());
+        assertInstanceOf(DtsReference.class, components.get(0));
+        assertInstanceOf(FootnoteLinkContent.class, components.get(components.size() - 1));
+
+        assertEquals(
+                List.of("I2023", "I2022", "D2023"),
+                components.stream().filter(c -> c instanceof Context).map(c -> ((Context) c).id()).toList());
+        assertEquals(
+                new DurationPeriod("2023-01-01", "2023-12-31"),
+                components.stream()
+                        .filter(c -> c instanceof Context ctx && ctx.id().equals("D2023"))
+                        .map(c -> ((Context) c).period())
+                        .findFirst()
+                        .orElseThrow());
+
+        Unit eurPerShare = components.stream()
+                .filter(c -> c instanceof Unit u && u.id().equals("EURPerShare"))
+                .map(c -> (Unit) c)
+                .findFirst()
+                .orElseThrow();
+
+        assertEquals(List.of(new QName(ISO4217_NS, "EUR")), eurPerShare.numerators());
+        assertEquals(List.of(new QName("http://www.xbrl.org/2003/instance", "shares")), eurPerShare.denominators());
+
+        List<ItemFact> facts = components.stream()
+                .filter(c -> c instanceof ItemFact)
+                .map(c -> (ItemFact) c)
+                .toList();
+
+        assertEquals(10, facts.size());
+        assertEquals(Optional.of("f1"), facts.get(0).idOption());
+        assertEquals(new QName(NS, "Assets"), facts.get(0).name());
+        assertEquals("1000", facts.get(0).value());
+        assertEquals(Optional.of("-2"), facts.get(5).decimalsOption());
+        assertEquals(Optional.of("1"), facts.get(8).precisionOption());
+        assertTrue(facts.get(9).nil());
+        assertFalse(facts.get(8).nil());
+
+        FootnoteLinkContent footnoteLink = (FootnoteLinkContent) components.get(components.size() - 1);
+
+        assertEquals(1, footnoteLink.footnotes().size());
+        assertEquals("Total assets include restricted cash.", footnoteLink.footnotes().get(0).text());
+    }
+
+    @Test
+    public void testStreamIsLazyAndEquivalentToCallback() throws Exception {
+        ImmutableList<InstanceComponent> expected = readInstanceComponents("sample-instance.xml");
+
+        try (InputStream is = sampleInstanceUri("sample-instance.xml").toURL().openStream();
+             Stream<InstanceComponent> stream = StreamingInstanceReader.newInstance().stream(is)) {
+            assertEquals(expected, stream.toList());
+        }
+
+        try (InputStream is = sampleInstanceUri("sample-instance.xml").toURL().openStream();
+             Stream<InstanceComponent> stream = StreamingInstanceReader.newInstance().stream(is)) {
+            assertEquals(expected.subList(0, 2), stream.limit(2).toList());
+        }
+    }
+
+    @Test
+    public void testWrongRootElement() {
+        String xml = "<?xml version=\"1.0\"?><root xmlns=\"http://example.com\"><child/></root>";
+
+        IllegalStateException e = assertThrows(
+                IllegalStateException.class,
+                () -> StreamingInstanceReader.newInstance().read(toInputStream(xml), c -> {
+                }));
+        assertTrue(e.getMessage().contains("root"));
+    }
+
+    @Test
+    public void testNoRootElement() {
+        // Either the StAX parser rejects the document, or the reader must stop at the end of the document
+        String xml = "<?xml version=\"1.0\"?><!-- no root element -->";
+
+        assertThrows(
+                RuntimeException.class,
+                () -> StreamingInstanceReader.newInstance().read(toInputStream(xml), c -> {
+                }));
+    }
+
+    private static InputStream toInputStream(String xml) {
+        return new ByteArrayInputStream(xml.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,153 @@
+/*
+ * Copyright 2024-2024 Chris de Vreeze
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.cdevreeze.xbrl4j.tests;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import eu.cdevreeze.xbrl4j.common.collection.StringInterner;
+import eu.cdevreeze.xbrl4j.common.dom.defaultimpl.ElementTree;
+import eu.cdevreeze.yaidom4j.core.NamespaceScope;
+import eu.cdevreeze.yaidom4j.dom.immutabledom.Element;
+import org.junit.jupiter.api.Test;
+
+import javax.xml.namespace.QName;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests of the StringInterner, and of the interning of attribute values while building the default element tree.
+ *
+ * @author Chris de Vreeze
+ */
+public class StringInternerTests {
+
+    private static final String LINK_NS = "http://www.xbrl.org/2003/linkbase";
+    private static final String XLINK_NS = "http://www.w3.org/1999/xlink";
+
+    @Test
+    public void testInternReturnsCanonicalInstance() {
+        StringInterner stringInterner = new StringInterner();
+
+        String first = new String("http://www.xbrl.org/2003/role/label");
+        String second = new String("http://www.xbrl.org/2003/role/label");
+        assertNotSame(first, second);
+
+        assertSame(first, stringInterner.intern(first));
+        assertSame(first, stringInterner.intern(second));
+        assertSame(first, stringInterner.intern(first));
+
+        String other = new String("http://www.xbrl.org/2003/role/terseLabel");
+        assertSame(other, stringInterner.intern(other));
+        assertNotSame(first, stringInterner.intern(other));
+    }
+
+    @Test
+    public void testStatistics() {
+        StringInterner stringInterner = new StringInterner();
+        assertEquals(new StringInterner.Statistics(0, 0, 0), stringInterner.statistics());
+
+        String first = new String("en");
+        stringInterner.intern(first);
+        stringInterner.intern(first);
+        stringInterner.intern(new String("en"));
+        stringInterner.intern(new String("en"));
+        stringInterner.intern(new String("nl-NL"));
+
+        // Only the two other "en" instances have been deduplicated, not "en" itself, nor the first "nl-NL"
+        assertEquals(new StringInterner.Statistics(5, 2, 4), stringInterner.statistics());
+    }
+
+    @Test
+    public void testInstancesAreNotShared() {
+        StringInterner stringInterner = new StringInterner();
+        String first = new String("locator");
+        stringInterner.intern(first);
+
+        assertEquals(1, stringInterner.statistics().requestCount());
+        assertEquals(new StringInterner.Statistics(0, 0, 0), new StringInterner().statistics());
+        assertNotSame(first, new StringInterner().intern(new String("locator")));
+    }
+
+    @Test
+    public void testElementTreeInternsAttributeValues() {
+        QName locName = new QName(LINK_NS, "loc", "link");
+        QName typeName = new QName(XLINK_NS, "type", "xlink");
+        QName labelName = new QName(XLINK_NS, "label", "xlink");
+        NamespaceScope scope = NamespaceScope.from(ImmutableMap.of("link", LINK_NS, "xlink", XLINK_NS));
+
+        Element firstLoc = new Element(
+                locName,
+                ImmutableMap.of(typeName, new String("locator"), labelName, new String("loc_1")),
+                scope,
+                ImmutableList.of()
+        );
+        Element secondLoc = new Element(
+                locName,
+                ImmutableMap.of(typeName, new String("locator"), labelName, new String("loc_2")),
+                scope,
+                ImmutableList.of()
+        );
+        Element title = new Element(
+                new QName(LINK_NS, "title", "link"),
+                ImmutableMap.of(),
+                scope,
+                ImmutableList.of()
+        );
+        Element link = new Element(
+                new QName(LINK_NS, "labelLink", "link"),
+                ImmutableMap.of(),
+                scope,
+                ImmutableList.of(title, firstLoc, secondLoc)
+        );
+
+        ElementTree.Element root = ElementTree.create(Optional.empty(), link).rootElement();
+        List<ElementTree.Element> locs = root.childElementStream().skip(1).toList();
+        assertEquals(2, locs.size());
+
+        String firstType = locs.get(0).attribute(typeName);
+        String secondType = locs.get(1).attribute(typeName);
+        assertEquals("locator", firstType);
+        assertSame(firstType, secondType);
+        assertSame(firstType, locs.get(1).attributeOption(typeName).orElseThrow());
+        assertSame(firstType, locs.get(0).attributes().get(typeName));
+        assertSame(firstType, StringInterner.global().intern(new String("locator")));
+
+        assertEquals("loc_2", locs.get(1).attribute(labelName));
+        assertEquals(firstLoc.attributes(), locs.get(0).attributes());
+
+        // The element tree holds the interned attribute values, and not the original ones
+        assertNotSame(firstLoc.attribute(typeName), secondLoc.attribute(typeName));
+        assertSame(firstType, locs.get(0).underlyingElement().attributes().get(typeName));
+        assertSame(firstType, locs.get(1).underlyingElement().attributes().get(typeName));
+        assertSame(
+                locs.get(1).underlyingElement(),
+                root.underlyingElement().childElementStream().toList().get(2)
+        );
+
+        // Elements without attribute values to intern are not copied
+        assertSame(title, root.childElementStream().findFirst().orElseThrow().underlyingElement());
+
+        ElementTree.Element canonicalRoot = ElementTree.create(Optional.empty(), root.underlyingElement()).rootElement();
+        assertSame(root.underlyingElement(), canonicalRoot.underlyingElement());
+
+        assertTrue(root.attributes().isEmpty());
+        assertTrue(root.attributeOption(typeName).isEmpty());
+        assertThrows(RuntimeException.class, () -> root.attribute(typeName));
+    }
+}
@@ -0,0 +1,183 @@
+/*
+ * Copyright 2024-2024 Chris de Vreeze
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.cdevreeze.xbrl4j.tests;
+
+import com.google.common.collect.ImmutableListMultimap;
+import eu.cdevreeze.xbrl4j.model.XmlElement;
+import eu.cdevreeze.xbrl4j.model.link.Linkbase;
+import eu.cdevreeze.xbrl4j.model.xl.XlExtendedLink;
+import eu.cdevreeze.xbrl4j.model.xl.XlLocator;
+import eu.cdevreeze.xbrl4j.model.xl.XlResource;
+import eu.cdevreeze.xbrl4j.model.xs.ConceptDeclaration;
+import eu.cdevreeze.xbrl4j.taxonomy.TaxonomyBase;
+import eu.cdevreeze.xbrl4j.taxonomy.TaxonomyBase.LocatorTargets;
+import org.junit.jupiter.api.Test;
+
+import javax.xml.namespace.QName;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.OptionalLong;
+
+import static eu.cdevreeze.xbrl4j.tests.support.SampleFiles.createTaxonomyBase;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests of the taxonomy base, its element handles and its locator resolution. Not a unit test.
+ * Uses the sample taxonomy in the test resources.
+ *
+ * @author Chris de Vreeze
+ */
+public class TaxonomyBaseTests {
+
+    private static final String NS = "http://example.com/sample";
+
+    @Test
+    public void testElementHandles() {
+        TaxonomyBase taxonomyBase = createTaxonomyBase(List.of("sample.xsd", "sample-lab.xml", "sample-pre.xml"));
+
+        assertEquals(3, taxonomyBase.documentCount());
+
+        for (int documentId = 0; documentId < taxonomyBase.documentCount(); documentId++) {
+            List<XmlElement> elements = taxonomyBase.elements(documentId);
+            XmlElement rootElement = taxonomyBase.findRootElement(taxonomyBase.documentUri(documentId)).orElseThrow();
+
+            assertEquals(rootElement.elementStream().count(), elements.size());
+
+            for (int nodeIndex = 0; nodeIndex < elements.size(); nodeIndex++) {
+                long handle = TaxonomyBase.elementHandle(documentId, nodeIndex);
+                XmlElement element = taxonomyBase.element(handle);
+
+                assertEquals(documentId, TaxonomyBase.documentId(handle));
+                assertEquals(nodeIndex, TaxonomyBase.nodeIndex(handle));
+                assertEquals(elements.get(nodeIndex).elementName(), element.elementName());
+                assertEquals(OptionalLong.of(handle), taxonomyBase.findElementHandle(element));
+            }
+        }
+    }
+
+    @Test
+    public void testConceptDeclarations() {
+        TaxonomyBase taxonomyBase = createTaxonomyBase(List.of("sample.xsd", "sample-lab.xml"));
+
+        QName cash = new QName(NS, "Cash");
+        ConceptDeclaration conceptDecl = taxonomyBase.findConceptDeclaration(cash).orElseThrow();
+
+        assertEquals(cash, taxonomyBase.findConceptName(conceptDecl).orElseThrow());
+        assertTrue(taxonomyBase.conceptIndex().conceptIdOption(cash).isPresent());
+        assertEquals(1, taxonomyBase.linkbases().size());
+        assertInstanceOf(Linkbase.class, taxonomyBase.elements(1).get(0));
+    }
+
+    @Test
+    public void testResolveLocatorsLikeResolveLocator() {
+        TaxonomyBase taxonomyBase = createTaxonomyBase(List.of(
+                "sample.xsd", "sample-dim.xsd", "sample-lab.xml", "sample-pre.xml", "sample-def.xml",
+                "sample-dim-def.xml", "sample-gen-lab.xml", "sample-locators.xml"));
+
+        for (Linkbase linkbase : taxonomyBase.linkbases()) {
+            LocatorTargets locatorTargets = taxonomyBase.resolveLocators(linkbase);
+            List<XlLocator> locators = linkbase.elementStream(XlExtendedLink.class)
+                    .flatMap(e -> e.locators().stream())
+                    .map(e -> (XlLocator) e)
+                    .toList();
+
+            assertEquals(locators.size(), locatorTargets.size());
+
+            for (int i = 0; i < locators.size(); i++) {
+                assertEquals(locators.get(i).xlinkHref(), locatorTargets.locator(i).xlinkHref());
+                assertEquals(resolveLocatorOneByOne(taxonomyBase, locators.get(i)), locatorTargets.targetHandle(i));
+            }
+        }
+    }
+
+    @Test
+    public void testResolveLocatorsOfAllKinds() {
+        TaxonomyBase taxonomyBase = createTaxonomyBase(List.of("sample.xsd", "sample-lab.xml", "sample-locators.xml"));
+        Linkbase linkbase = taxonomyBase.linkbases().stream()
+                .filter(e -> e.docUriOption().orElseThrow().toString().endsWith("sample-locators.xml"))
+                .findFirst()
+                .orElseThrow();
+        LocatorTargets locatorTargets = taxonomyBase.resolveLocators(linkbase);
+
+        Map<String, Optional<String>> targetsByLabel = new LinkedHashMap<>();
+        for (int i = 0; i < locatorTargets.size(); i++) {
+            Optional<String> targetOption = locatorTargets.isResolved(i) ?
+                    Optional.of(describe(taxonomyBase.element(locatorTargets.targetHandle(i)))) :
+                    Optional.empty();
+            targetsByLabel.put(locatorTargets.locator(i).xlinkLabel(), targetOption);
+        }
+
+        Map<String, Optional<String>> expectedTargetsByLabel = new LinkedHashMap<>();
+        expectedTargetsByLabel.put("shorthand", Optional.of("element#sample_Assets"));
+        expectedTargetsByLabel.put("id", Optional.of("element#sample_Assets"));
+        expectedTargetsByLabel.put("childSequence", Optional.of("element#sample_Assets"));
+        expectedTargetsByLabel.put("arcroleType", Optional.of("arcroleType#no-cycles"));
+        expectedTargetsByLabel.put("idChildSequence", Optional.of("definition"));
+        expectedTargetsByLabel.put("secondPointer", Optional.of("element#sample_Cash"));
+        expectedTargetsByLabel.put("noFragment", Optional.of("schema"));
+        expectedTargetsByLabel.put("label", Optional.of("label#Assets_lbl_en"));
+        expectedTargetsByLabel.put("unknownId", Optional.empty());
+        expectedTargetsByLabel.put("pastLastChild", Optional.empty());
+        expectedTargetsByLabel.put("missingDocument", Optional.empty());
+        expectedTargetsByLabel.put("linkBase", Optional.of("element#sample_Cash"));
+        expectedTargetsByLabel.put("locatorBase", Optional.of("element#sample_Cash"));
+        expectedTargetsByLabel.put("wrongBase", Optional.empty());
+
+        assertEquals(expectedTargetsByLabel, targetsByLabel);
+        assertEquals(15, locatorTargets.size());
+        assertEquals(locatorTargets.targetHandle(0), locatorTargets.targetHandle(1));
+        assertEquals(TaxonomyBase.NO_HANDLE, locatorTargets.targetHandles()[9]);
+    }
+
+    @Test
+    public void testFindEndpointHandlesByXLinkLabel() {
+        TaxonomyBase taxonomyBase = createTaxonomyBase(List.of(
+                "sample.xsd", "sample-lab.xml", "sample-pre.xml", "sample-gen-lab.xml", "sample-locators.xml"));
+
+        for (Linkbase linkbase : taxonomyBase.linkbases()) {
+            for (XlExtendedLink extendedLink : linkbase.elementStream(XlExtendedLink.class).toList()) {
+                ImmutableListMultimap.Builder<String, Long> expected = ImmutableListMultimap.builder();
+
+                for (XlLocator locator : extendedLink.locators()) {
+                    long handle = resolveLocatorOneByOne(taxonomyBase, locator);
+                    if (handle != TaxonomyBase.NO_HANDLE) {
+                        expected.put(locator.xlinkLabel(), handle);
+                    }
+                }
+                for (XlResource resource : extendedLink.resources()) {
+                    expected.put(resource.label(), taxonomyBase.findElementHandle(resource).orElseThrow());
+                }
+
+                assertEquals(expected.build(), taxonomyBase.findEndpointHandlesByXLinkLabel(extendedLink));
+            }
+        }
+    }
+
+    private static long resolveLocatorOneByOne(TaxonomyBase taxonomyBase, XlLocator locator) {
+        return taxonomyBase.resolveLocator(locator)
+                .map(taxonomyBase::findElementHandle)
+                .filter(OptionalLong::isPresent)
+                .map(OptionalLong::getAsLong)
+                .orElse(TaxonomyBase.NO_HANDLE);
+    }
+
+    private static String describe(XmlElement element) {
+        return element.elementName().getLocalPart() + element.idOption().map(id -> "#" + id).orElse("");
+    }
+}
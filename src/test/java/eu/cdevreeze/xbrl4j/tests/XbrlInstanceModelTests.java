@@ -0,0 +1,290 @@
+/*
+ * Copyright 2024-2024 Chris de Vreeze
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.cdevreeze.xbrl4j.tests;
+
+import com.google.common.collect.ImmutableMap;
+import eu.cdevreeze.xbrl4j.common.dom.AncestryAwareElement;
+import eu.cdevreeze.xbrl4j.common.dom.saxon.SaxonDocument;
+import eu.cdevreeze.xbrl4j.model.OtherXmlElement;
+import eu.cdevreeze.xbrl4j.model.XmlElement;
+import eu.cdevreeze.xbrl4j.model.factory.SchemaContext;
+import eu.cdevreeze.xbrl4j.model.factory.XmlElementFactory;
+import eu.cdevreeze.xbrl4j.model.internal.XmlElementImpl;
+import eu.cdevreeze.xbrl4j.model.xbrldi.ExplicitMember;
+import eu.cdevreeze.xbrl4j.model.xbrldi.TypedMember;
+import eu.cdevreeze.xbrl4j.model.xbrli.*;
+import net.sf.saxon.s9api.Processor;
+import net.sf.saxon.s9api.SaxonApiException;
+import net.sf.saxon.s9api.XdmNode;
+import org.junit.jupiter.api.Test;
+
+import javax.xml.namespace.QName;
+import javax.xml.transform.stream.StreamSource;
+import java.io.StringReader;
+import java.net.URI;
+import java.util.List;
+import java.util.Optional;
+
+import static eu.cdevreeze.xbrl4j.tests.support.SampleFiles.sampleInstanceUri;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests of the typed instance model (in the "xbrli" and "xbrldi" namespaces), as created by the XmlElementFactory.
+ * Uses the sample instances in the test resources.
+ *
+ * @author Chris de Vreeze
+ */
+public class XbrlInstanceModelTests {
+
+    private static final String XBRLI_NS = "http://www.xbrl.org/2003/instance";
+    private static final String DIM_NS = "http://example.com/sample-dim";
+    private static final String TUPLE_NS = "http://example.com/tuples";
+
+    private static final QName XBRLI_ITEM_QNAME = new QName(XBRLI_NS, "item");
+    private static final QName XBRLI_TUPLE_QNAME = new QName(XBRLI_NS, "tuple");
+
+    private static final Processor processor = new Processor(false);
+
+    private static final SchemaContext DIM_SCHEMA_CONTEXT = SchemaContext.defaultInstance().plus(
+            ImmutableMap.of(
+                    new QName(DIM_NS, "Revenue"), XBRLI_ITEM_QNAME,
+                    new QName(DIM_NS, "Costs"), XBRLI_ITEM_QNAME,
+                    new QName(DIM_NS, "Headcount"), XBRLI_ITEM_QNAME
+            )
+    );
+
+    private static final String TUPLE_INSTANCE_XML = """
+            <xbrli:xbrl xmlns:xbrli="http://www.xbrl.org/2003/instance"
+                        xmlns:link="http://www.xbrl.org/2003/linkbase"
+                        xmlns:xlink="http://www.w3.org/1999/xlink"
+                        xmlns:xsi="http://www.w3.org/2001/XMLSchema-instance"
+                        xmlns:iso4217="http://www.xbrl.org/2003/iso4217"
+                        xmlns:t="http://example.com/tuples">
+              <link:schemaRef xlink:type="simple" xlink:href="tuples.xsd"/>
+              <xbrli:context id="I2023">
+                <xbrli:entity>
+                  <xbrli:identifier scheme="http://example.com/entity"> E1 </xbrli:identifier>
+                </xbrli:entity>
+                <xbrli:period>
+                  <xbrli:instant>2023-12-31</xbrli:instant>
+                </xbrli:period>
+              </xbrli:context>
+              <xbrli:context id="I2023">
+                <xbrli:entity>
+                  <xbrli:identifier scheme="http://example.com/entity">Duplicate</xbrli:identifier>
+                </xbrli:entity>
+                <xbrli:period>
+                  <xbrli:forever/>
+                </xbrli:period>
+              </xbrli:context>
+              <xbrli:unit id="EURPerShare">
+                <xbrli:divide>
+                  <xbrli:unitNumerator><xbrli:measure>iso4217:EUR</xbrli:measure></xbrli:unitNumerator>
+                  <xbrli:unitDenominator><xbrli:measure>xbrli:shares</xbrli:measure></xbrli:unitDenominator>
+                </xbrli:divide>
+              </xbrli:unit>
+              <t:Address>
+                <t:Street contextRef=" I2023 ">Main Street</t:Street>
+                <t:Dividend contextRef="I2023" unitRef=" EURPerShare " precision="INF">1.5</t:Dividend>
+              </t:Address>
+              <t:Address xsi:nil="true"/>
+              <t:Street contextRef="I2023" xsi:nil="1"/>
+              <link:footnoteLink xlink:type="extended" xlink:role="http://www.xbrl.org/2003/role/link"/>
+            </xbrli:xbrl>
+            """;
+
+    private static final SchemaContext TUPLE_SCHEMA_CONTEXT = SchemaContext.defaultInstance().plus(
+            ImmutableMap.of(
+                    new QName(TUPLE_NS, "Address"), XBRLI_TUPLE_QNAME,
+                    new QName(TUPLE_NS, "Street"), XBRLI_ITEM_QNAME,
+                    new QName(TUPLE_NS, "Dividend"), XBRLI_ITEM_QNAME
+            )
+    );
+
+    @Test
+    public void testTypedInstanceModel() {
+        XbrlInstance instance = createInstance(parse(sampleInstanceUri("sample-dim.xml")), DIM_SCHEMA_CONTEXT);
+
+        assertEquals(1, instance.schemaRefs().size());
+        assertEquals(9, instance.contexts().size());
+        assertEquals(List.of("EUR", "pure"), instance.units().stream().map(Unit::id).toList());
+        assertEquals(13, instance.facts().size());
+        assertTrue(instance.facts().stream().allMatch(f -> f instanceof ItemFact));
+        assertTrue(instance.footnoteLinks().isEmpty());
+
+        Context context = instance.contexts().get(0);
+        assertEquals("Europe_C1", context.id());
+        assertEquals("http://example.com/entity", context.entity().identifierScheme());
+        assertEquals("E1", context.entity().identifierValue());
+        assertTrue(context.period().isStartEndDuration());
+        assertFalse(context.period().isInstant());
+        assertEquals(Optional.of("2023-01-01"), context.period().startDateOption());
+        assertEquals(Optional.of("2023-12-31"), context.period().endDateOption());
+        assertTrue(context.scenarioOption().isEmpty());
+
+        assertEquals(1, context.explicitMembers().size());
+        ExplicitMember explicitMember = context.explicitMembers().get(0);
+        assertEquals(new QName(DIM_NS, "RegionAxis"), explicitMember.dimension());
+        assertEquals(new QName(DIM_NS, "Europe"), explicitMember.member());
+
+        assertEquals(1, context.typedMembers().size());
+        TypedMember typedMember = context.typedMembers().get(0);
+        assertEquals(new QName(DIM_NS, "CustomerAxis"), typedMember.dimension());
+        assertEquals(new QName(DIM_NS, "CustomerId"), typedMember.content().elementName());
+        assertEquals("C1", typedMember.content().text());
+
+        Context scenarioContext = instance.findContext("C1_EuropeInScenario").orElseThrow();
+        assertTrue(scenarioContext.scenarioOption().isPresent());
+        assertEquals(
+                List.of(new QName(DIM_NS, "Europe")),
+                scenarioContext.explicitMembers().stream().map(ExplicitMember::member).toList()
+        );
+
+        ItemFact fact = (ItemFact) instance.facts().get(0);
+        assertEquals("Europe_C1", fact.contextRef());
+        assertEquals(Optional.of("EUR"), fact.unitRefOption());
+        assertEquals(Optional.of("0"), fact.decimalsOption());
+        assertEquals(Optional.empty(), fact.precisionOption());
+        assertTrue(fact.isNumeric());
+        assertFalse(fact.isNil());
+    }
+
+    @Test
+    public void testContextAndUnitLookupById() {
+        XbrlInstance instance = createInstance(parse(sampleInstanceUri("sample-dim.xml")), DIM_SCHEMA_CONTEXT);
+
+        assertEquals(
+                instance.contexts().stream().map(Context::id).toList(),
+                instance.contextsById().keySet().asList()
+        );
+        assertEquals(List.of("EUR", "pure"), instance.unitsById().keySet().asList());
+
+        for (Fact fact : instance.facts()) {
+            ItemFact itemFact = (ItemFact) fact;
+            Context context = instance.findContextOfFact(itemFact).orElseThrow();
+            Unit unit = instance.findUnitOfFact(itemFact).orElseThrow();
+
+            assertEquals(itemFact.contextRef(), context.id());
+            assertEquals(itemFact.unitRefOption().orElseThrow(), unit.id());
+            assertEquals(underlying(instance.contextsById().get(context.id())), underlying(context));
+        }
+
+        assertTrue(instance.findContext("unknown").isEmpty());
+        assertTrue(instance.findUnit("unknown").isEmpty());
+
+        // Another wrapper of the same root element finds the same underlying elements
+        XbrlInstance otherInstance =
+                createInstance(((XmlElementImpl) instance).underlyingElement(), DIM_SCHEMA_CONTEXT);
+        assertEquals(
+                underlying(instance.findContext("Asia_C2").orElseThrow()),
+                underlying(otherInstance.findContext("Asia_C2").orElseThrow())
+        );
+        assertEquals(
+                underlying(instance.findUnit("pure").orElseThrow()),
+                underlying(otherInstance.findUnit("pure").orElseThrow())
+        );
+    }
+
+    @Test
+    public void testTuplesUnitsAndFootnoteLinks() {
+        XbrlInstance instance = createInstance(parse(TUPLE_INSTANCE_XML), TUPLE_SCHEMA_CONTEXT);
+
+        assertEquals(3, instance.facts().size());
+        assertEquals(1, instance.footnoteLinks().size());
+
+        TupleFact address = (TupleFact) instance.facts().get(0);
+        assertFalse(address.isNil());
+        assertEquals(2, address.childFacts().size());
+
+        ItemFact street = (ItemFact) address.childFacts().get(0);
+        assertEquals("I2023", street.contextRef());
+        assertFalse(street.isNumeric());
+        assertEquals(Optional.empty(), street.unitRefOption());
+
+        ItemFact dividend = (ItemFact) address.childFacts().get(1);
+        assertEquals(Optional.of("EURPerShare"), dividend.unitRefOption());
+        assertEquals(Optional.of("INF"), dividend.precisionOption());
+        assertEquals(Optional.empty(), dividend.decimalsOption());
+
+        assertTrue(((TupleFact) instance.facts().get(1)).isNil());
+        assertTrue(((ItemFact) instance.facts().get(2)).isNil());
+
+        // Duplicate IDs (which are not allowed) resolve to the first element with that ID
+        assertEquals(2, instance.contexts().size());
+        Context context = instance.findContextOfFact(street).orElseThrow();
+        assertEquals("E1", context.entity().identifierValue());
+        assertEquals(Optional.of("2023-12-31"), context.period().instantOption());
+        assertTrue(instance.contexts().get(1).period().isForever());
+
+        Unit unit = instance.findUnitOfFact(dividend).orElseThrow();
+        assertTrue(unit.isDivide());
+        assertEquals(List.of(new QName("http://www.xbrl.org/2003/iso4217", "EUR")), unit.numeratorMeasures());
+        assertEquals(List.of(new QName(XBRLI_NS, "shares")), unit.denominatorMeasures());
+
+        // The typed descendant queries also find the facts nested in tuples
+        assertEquals(5, instance.elementStream(Fact.class).count());
+        assertEquals(3, instance.elementStream(ItemFact.class).count());
+        assertEquals(2, instance.elementStream(Period.class).count());
+    }
+
+    @Test
+    public void testFactsAreRecognizedThroughSubstitutionGroups() {
+        AncestryAwareElement<?> rootElement = parse(sampleInstanceUri("sample-dim.xml"));
+
+        XbrlInstance instance = createInstance(rootElement, SchemaContext.defaultInstance());
+        assertTrue(instance.facts().isEmpty());
+        assertEquals(9, instance.contexts().size());
+
+        XmlElement revenue = instance.childElementStream(e -> e.elementName().equals(new QName(DIM_NS, "Revenue")))
+                .findFirst()
+                .orElseThrow();
+        assertInstanceOf(OtherXmlElement.class, revenue);
+
+        XmlElement typedRevenue = createInstance(rootElement, DIM_SCHEMA_CONTEXT)
+                .childElementStream(e -> e.elementName().equals(new QName(DIM_NS, "Revenue")))
+                .findFirst()
+                .orElseThrow();
+        assertInstanceOf(ItemFact.class, typedRevenue);
+        assertInstanceOf(XbrliElement.class, typedRevenue);
+    }
+
+    private static XbrlInstance createInstance(AncestryAwareElement<?> rootElement, SchemaContext schemaContext) {
+        return (XbrlInstance) new XmlElementFactory(schemaContext).createXmlElement(rootElement);
+    }
+
+    private static AncestryAwareElement<?> underlying(XmlElement element) {
+        return ((XmlElementImpl) element).underlyingElement();
+    }
+
+    private static AncestryAwareElement<?> parse(URI uri) {
+        try {
+            XdmNode docNode = processor.newDocumentBuilder().build(new StreamSource(uri.toString()));
+            return new SaxonDocument(docNode).withUri(uri).documentElement();
+        } catch (SaxonApiException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    private static AncestryAwareElement<?> parse(String xml) {
+        try {
+            XdmNode docNode = processor.newDocumentBuilder().build(new StreamSource(new StringReader(xml)));
+            return new SaxonDocument(docNode).documentElement();
+        } catch (SaxonApiException e) {
+            throw new RuntimeException(e);
+        }
+    }
+}
@@ -17,6 +17,7 @@
 package eu.cdevreeze.xbrl4j.tests;
 
 import eu.cdevreeze.xbrl4j.common.dom.defaultimpl.Document;
+import eu.cdevreeze.xbrl4j.common.xmlbase.Rfc3986UriResolver;
 import eu.cdevreeze.xbrl4j.model.Names;
 import eu.cdevreeze.xbrl4j.model.XmlElement;
 import eu.cdevreeze.xbrl4j.model.factory.SchemaContext;
@@ -365,6 +366,55 @@ public class XmlBaseTests {
         assertEquals(Optional.of("changeInRetainedEarnings"), elementOption.flatMap(e -> e.attributeOption(NAME_QNAME)));
     }
 
+    @Test
+    public void testRfc3986UriResolutionOfXmlBase() throws URISyntaxException {
+        List<List<String>> schemaAndLinkbaseUris = List.of(
+                List.of("Common/200-linkbase/202-03-HrefResolutionXMLBase.xsd",
+                        "Common/200-linkbase/base/202-03-HrefResolutionXMLBase-label.xml"),
+                List.of("Common/200-linkbase/202-03b-HrefResolutionXMLBase.xsd",
+                        "Common/200-linkbase/base/202-03b-HrefResolutionXMLBase-label.xml"),
+                List.of("Common/200-linkbase/202-03d-HrefResolutionXMLBase.xsd",
+                        "Common/200-linkbase/base/base/202-03d-HrefResolutionXMLBase-label.xml"),
+                List.of("Common/200-linkbase/202-03e-HrefResolutionXMLBase.xsd",
+                        "Common/200-linkbase/base/base/202-03e-HrefResolutionXMLBase-label.xml"),
+                List.of("Common/200-linkbase/base/base/202-03f-HrefResolutionXMLBase.xsd",
+                        "Common/200-linkbase/202-03f-HrefResolutionXMLBase-label.xml")
+        );
+
+        for (List<String> relativeUris : schemaAndLinkbaseUris) {
+            SimpleTaxonomy taxo = createSimpleTaxonomy(relativeUris);
+            URI schemaUri = confSuiteRootDir.resolve(relativeUris.get(0));
+            Linkbase linkbase = taxo.linkbases().get(0);
+
+            Loc firstLocator =
+                    linkbase.elementStream(Loc.class, loc -> loc.xlinkLabel().equals("aaa"))
+                            .findFirst()
+                            .orElseThrow();
+
+            // The default XmlBaseResolver is RFC 3986 compliant
+            URI baseUri = ((LocImpl) firstLocator).underlyingElement().baseUriOption().orElseThrow();
+            URI locHrefUri = Rfc3986UriResolver.resolve(baseUri, firstLocator.xlinkHref());
+
+            assertEquals(
+                    new URI(schemaUri.getScheme(), schemaUri.getSchemeSpecificPart(), firstLocator.xlinkHref().getFragment()),
+                    locHrefUri
+            );
+        }
+    }
+
+    @Test
+    public void testRfc3986AbnormalExamples() {
+        // See RFC 3986, section 5.4.2, for cases where java.net.URI.resolve gives different results
+        URI baseUri = URI.create("http://a/b/c/d;p?q");
+
+        assertEquals(URI.create("http://a/b/c/d;p?q"), Rfc3986UriResolver.resolve(baseUri, URI.create("")));
+        assertEquals(URI.create("http://a/g"), Rfc3986UriResolver.resolve(baseUri, URI.create("../../../g")));
+        assertEquals(URI.create("http://a/g"), Rfc3986UriResolver.resolve(baseUri, URI.create("../../../../g")));
+        assertEquals(URI.create("http://a/g"), Rfc3986UriResolver.resolve(baseUri, URI.create("/../g")));
+        assertEquals(URI.create("http://a/b/c/g;x=1/y"), Rfc3986UriResolver.resolve(baseUri, URI.create("g;x=1/./y")));
+        assertEquals(URI.create("http://a/b/c/g?y/../x"), Rfc3986UriResolver.resolve(baseUri, URI.create("g?y/../x")));
+    }
+
     private SimpleTaxonomy createSimpleTaxonomy(List<String> relativeUris) {
         var taxoFactory = new SimpleTaxonomyFactory(confSuiteRootDir);
         return taxoFactory.createSimpleTaxonomy(relativeUris);
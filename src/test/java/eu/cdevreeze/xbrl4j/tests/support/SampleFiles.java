@@ -0,0 +1,90 @@
+/*
+ * Copyright 2024-2024 Chris de Vreeze
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.cdevreeze.xbrl4j.tests.support;
+
+import com.google.common.collect.ImmutableList;
+import eu.cdevreeze.xbrl4j.instance.InstanceComponent;
+import eu.cdevreeze.xbrl4j.instance.stax.StreamingInstanceReader;
+import eu.cdevreeze.xbrl4j.taxonomy.TaxonomyBase;
+import net.sf.saxon.s9api.Processor;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Access to the small sample taxonomy and sample instances in the test resources, which cover features
+ * (such as prohibition, dimensions and numeric validation) that the conformance suite files used elsewhere
+ * do not cover in a compact way.
+ *
+ * @author Chris de Vreeze
+ */
+public class SampleFiles {
+
+    private static final Processor processor = new Processor(false);
+
+    private SampleFiles() {
+    }
+
+    public static URI sampleTaxonomyRootDir() {
+        return resourceUri("/sampletaxonomy/");
+    }
+
+    public static URI sampleInstanceRootDir() {
+        return resourceUri("/sampleinstances/");
+    }
+
+    public static URI sampleInstanceUri(String relativeUri) {
+        return sampleInstanceRootDir().resolve(relativeUri);
+    }
+
+    /**
+     * Parses the given sample taxonomy documents (relative to the sample taxonomy root directory) with Saxon,
+     * and returns them as TaxonomyBase.
+     */
+    public static TaxonomyBase createTaxonomyBase(List<String> relativeUris) {
+        SimpleTaxonomy taxo = new SimpleTaxonomyFactoryUsingSaxon(processor, sampleTaxonomyRootDir())
+                .createSimpleTaxonomy(relativeUris);
+        return TaxonomyBase.from(taxo.documents().values());
+    }
+
+    /**
+     * Reads the given sample instance (relative to the sample instance root directory) with the streaming
+     * instance reader, and returns its instance components in document order.
+     */
+    public static ImmutableList<InstanceComponent> readInstanceComponents(String relativeUri) {
+        try (InputStream is = sampleInstanceUri(relativeUri).toURL().openStream()) {
+            ImmutableList.Builder<InstanceComponent> builder = ImmutableList.builder();
+            StreamingInstanceReader.newInstance().read(is, builder::add);
+            return builder.build();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static URI resourceUri(String path) {
+        try {
+            return Objects.requireNonNull(SampleFiles.class.getResource(path)).toURI();
+        } catch (URISyntaxException e) {
+            throw new RuntimeException(e);
+        }
+    }
+}